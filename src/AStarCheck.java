@@ -0,0 +1,133 @@
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Check comparing A* with Dijkstra's algorithm on random queries, first with the straight-line heuristic
+ * and then with landmarks. Every way found by A* must have the cost of the way found by Dijkstra's algorithm
+ * and A* must not settle more Nodes in total. Single queries are not compared, because Nodes with equal keys
+ * may be settled by either algorithm. The program exits with status 1 if any check fails.
+ * Usage: AStarCheck map-or-graph-file [number of queries] [seed]
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class AStarCheck {
+    /**
+     * Largest relative difference of the costs treated as equal
+     */
+    private static final double TOLERANCE = 1e-9;
+
+    public static void main(String[] args) throws Exception{
+        if(args.length < 1){
+            System.out.println("Usage: AStarCheck map-or-graph-file [number of queries] [seed]");
+            return;
+        }
+        CompactGraph graph = loadGraph(args[0]);
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        WayFinder wayFinder = new WayFinder(graph);
+        wayFinder.getShortestPathTreeCache().setCapacity(0);
+        int failures = check(wayFinder, queries, seed, "straight line");
+        wayFinder.setLandmarks(Landmarks.select(graph, Landmarks.DEFAULT_COUNT));
+        failures += check(wayFinder, queries, seed, "landmarks");
+        if(failures > 0){
+            System.out.printf("%d failed queries%n", failures);
+            System.exit(1);
+        }
+        System.out.println("all queries passed");
+    }
+
+    /**
+     * Reads the graph from the graph file or converts it from the map file
+     * @param path path to the file
+     * @return read graph
+     * @throws Exception if the file cannot be read
+     */
+    private static CompactGraph loadGraph(String path) throws Exception{
+        if(path.endsWith(GraphFile.EXTENSION)){
+            return GraphFile.open(new File(path));
+        }
+        MapReader mapReader = MapReader.createReader(path);
+        mapReader.openFile(path);
+        mapReader.runReader();
+        DataConverter dataConverter = new ParallelDataConverter(mapReader.getNodes(), mapReader.getWays());
+        dataConverter.runConverter();
+        return dataConverter.returnCompactGraph();
+    }
+
+    /**
+     * Runs the random queries with both algorithms and prints every failed query
+     * @param wayFinder WayFinder of the checked graph
+     * @param queries number of the queries
+     * @param seed seed of the random start and goal Nodes
+     * @param heuristic name of the heuristic used by A*
+     * @return number of the failed queries, increased by one if A* has settled more Nodes in total
+     */
+    private static int check(WayFinder wayFinder, int queries, long seed, String heuristic){
+        CompactGraph graph = wayFinder.getCompactGraph();
+        Random random = new Random(seed);
+        int failures = 0, routes = 0;
+        long dijkstraSettled = 0, aStarSettled = 0;
+        String start, goal;
+        List<Node> dijkstraWay, aStarWay;
+        int dijkstraCount, aStarCount;
+        double dijkstraCost, aStarCost;
+        for(int i = 0; i < queries; i++){
+            start = graph.getId(random.nextInt(graph.getNodeCount()));
+            goal = graph.getId(random.nextInt(graph.getNodeCount()));
+            wayFinder.runFinderDijkstra(start, goal);
+            dijkstraWay = wayFinder.getFoundWay();
+            dijkstraCount = wayFinder.getSettledCount();
+            wayFinder.runFinderAStar(start, goal);
+            aStarWay = wayFinder.getFoundWay();
+            aStarCount = wayFinder.getSettledCount();
+            if(dijkstraWay == null || aStarWay == null){
+                if(dijkstraWay != aStarWay){
+                    System.out.printf("%s -> %s: way found by only one algorithm%n", start, goal);
+                    failures++;
+                }
+                continue;
+            }
+            routes++;
+            dijkstraSettled += dijkstraCount;
+            aStarSettled += aStarCount;
+            dijkstraCost = cost(graph, dijkstraWay);
+            aStarCost = cost(graph, aStarWay);
+            if(Math.abs(dijkstraCost - aStarCost) > TOLERANCE * Math.max(1, dijkstraCost)){
+                System.out.printf("%s -> %s: cost %.3f instead of %.3f%n", start, goal, aStarCost, dijkstraCost);
+                failures++;
+            }
+        }
+        if(aStarSettled > dijkstraSettled){
+            System.out.printf("%d settled Nodes by A* instead of at most %d%n", aStarSettled, dijkstraSettled);
+            failures++;
+        }
+        System.out.printf("%s: %d ways, %d settled Nodes/query by Dijkstra, %d by A*, %d failures%n", heuristic, routes,
+                dijkstraSettled / Math.max(1, routes), aStarSettled / Math.max(1, routes), failures);
+        return failures;
+    }
+
+    /**
+     * Sums the weights of the shortest edges between the following Nodes of the way
+     * @param graph graph of the way
+     * @param way checked way
+     * @return cost of the way or infinity if two following Nodes are not connected
+     */
+    private static double cost(CompactGraph graph, List<Node> way){
+        double cost = 0, weight;
+        int from, to;
+        for(int i = 1; i < way.size(); i++){
+            from = graph.indexOf(way.get(i - 1).getId());
+            to = graph.indexOf(way.get(i).getId());
+            weight = Double.POSITIVE_INFINITY;
+            for(int edge = graph.getFirstEdge(from); edge < graph.getEdgeEnd(from); edge++){
+                if(graph.getTarget(edge) == to){
+                    weight = Math.min(weight, graph.getWeight(edge));
+                }
+            }
+            cost += weight;
+        }
+        return cost;
+    }
+}
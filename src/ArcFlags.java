@@ -0,0 +1,355 @@
+import WayFinderExceptions.GraphFileException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Class holding arc flags of the graph. The graph is partitioned into regions and every edge has one flag
+ * for every region, set if the edge lies on a shortest way to a Node of the region. Edges inside a region have
+ * the flag of the region, the other flags are set on the trees of the backward searches from the boundary Nodes,
+ * the Nodes entered by an edge from another region. A query towards the goal skips the edges without the flag
+ * of the goal's region. The flags can be saved to a file next to the graph file and opened by memory mapping.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ArcFlags {
+    /**
+     * Extension of arc flag files added to the name of the graph file
+     */
+    public static final String EXTENSION = ".flags";
+    /**
+     * Default number of regions
+     */
+    public static final int DEFAULT_REGION_COUNT = 32;
+    /**
+     * Number starting every arc flag file ("MGAF")
+     */
+    private static final int MAGIC = 0x4D474146;
+    /**
+     * Version of the format written by this class
+     */
+    private static final int VERSION = 1;
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 24;
+    /**
+     * Number of the edges of the graph, used to check that the flags belong to the graph
+     */
+    private final int edgeCount;
+    /**
+     * Number of the regions
+     */
+    private final int regionCount;
+    /**
+     * Number of the ints holding the flags of one edge
+     */
+    private final int wordsPerEdge;
+    /**
+     * Regions of the Nodes
+     */
+    private final IntBuffer regions;
+    /**
+     * Flags of the edges, the flags of one edge are stored together
+     */
+    private final IntBuffer flags;
+
+    /**
+     * ArcFlags' constructor
+     * @param edgeCount number of the edges of the graph
+     * @param regionCount number of the regions
+     * @param regions regions of the Nodes
+     * @param flags flags of the edges
+     */
+    private ArcFlags(int edgeCount, int regionCount, IntBuffer regions, IntBuffer flags){
+        this.edgeCount = edgeCount;
+        this.regionCount = regionCount;
+        this.wordsPerEdge = wordsPerEdge(regionCount);
+        this.regions = regions;
+        this.flags = flags;
+    }
+
+    /**
+     * Computes the flags with the backward searches using all available processors
+     * @param graph graph the flags are computed for
+     * @param regionCount number of the regions
+     * @return computed ArcFlags
+     * @throws IllegalArgumentException if the number of the regions is not positive
+     */
+    public static ArcFlags compute(CompactGraph graph, int regionCount){
+        return compute(graph, regionCount, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Partitions the graph into regions and computes the flags, the backward searches from the boundary Nodes
+     * run in parallel
+     * @param graph graph the flags are computed for
+     * @param regionCount number of the regions, lowered to the number of the Nodes if the graph is smaller
+     * @param parallelism number of threads running the searches
+     * @return computed ArcFlags
+     * @throws IllegalArgumentException if the number of the regions is not positive
+     */
+    public static ArcFlags compute(CompactGraph graph, int regionCount, int parallelism){
+        if(regionCount < 1){
+            throw new IllegalArgumentException("Number of regions must be positive!");
+        }
+        int nodeCount = graph.getNodeCount();
+        regionCount = Math.max(1, Math.min(regionCount, nodeCount));
+        int[] regions = new int[nodeCount];
+        if(regionCount > 1){
+            MultiLevelPartition partition = MultiLevelPartition.buildRegions(graph, regionCount);
+            for(int node = 0; node < nodeCount; node++){
+                regions[node] = partition.getCell(0, node);
+            }
+        }
+        int words = wordsPerEdge(regionCount);
+        AtomicIntegerArray flags = new AtomicIntegerArray(graph.getEdgeCount() * words);
+        boolean[] boundary = new boolean[nodeCount];
+        int boundaryCount = 0, target;
+        for(int node = 0; node < nodeCount; node++){
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                target = graph.getTarget(i);
+                if(regions[node] == regions[target]){
+                    setFlag(flags, words, i, regions[node]);
+                }
+                else if(!boundary[target]){
+                    boundary[target] = true;
+                    boundaryCount++;
+                }
+            }
+        }
+        final int[] boundaryNodes = new int[boundaryCount];
+        boundaryCount = 0;
+        for(int node = 0; node < nodeCount; node++){
+            if(boundary[node]){
+                boundaryNodes[boundaryCount++] = node;
+            }
+        }
+        CompactGraph reverse = graph.reverse();
+        ThreadLocal<QueryContext> contexts = ThreadLocal.withInitial(() -> new QueryContext(nodeCount));
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            ParallelLoop.forEach(pool, boundaryNodes.length,
+                    i -> flagTree(graph, reverse, boundaryNodes[i], regions[boundaryNodes[i]], flags, words, contexts.get()));
+        }finally {
+            pool.shutdown();
+        }
+        int[] result = new int[flags.length()];
+        for(int i = 0; i < result.length; i++){
+            result[i] = flags.get(i);
+        }
+        return new ArcFlags(graph.getEdgeCount(), regionCount, IntBuffer.wrap(regions), IntBuffer.wrap(result));
+    }
+
+    /**
+     * Runs the backward search from the boundary Node and sets the flag of its region on the edges of the tree
+     * of the shortest ways to the Node
+     * @param graph graph the flags are computed for
+     * @param reverse graph with reversed edges
+     * @param boundaryNode number of the boundary Node
+     * @param region region of the boundary Node
+     * @param flags flags of the edges
+     * @param words number of the ints holding the flags of one edge
+     * @param context search state of the calling thread
+     */
+    private static void flagTree(CompactGraph graph, CompactGraph reverse, int boundaryNode, int region,
+                                 AtomicIntegerArray flags, int words, QueryContext context){
+        context.prepare(boundaryNode);
+        IndexedHeap queue = context.getQueue();
+        int node, next, tmp, edge;
+        double nodeDst, tmpDst;
+        while(!queue.isEmpty()){
+            nodeDst = queue.peekKey();
+            node = queue.poll();
+            context.settle(node);
+            next = context.getPreviousNode(node);
+            if(next != -1){
+                edge = -1;
+                for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                    if(graph.getTarget(i) == next && (edge < 0 || graph.getWeight(i) < graph.getWeight(edge))){
+                        edge = i;
+                    }
+                }
+                setFlag(flags, words, edge, region);
+            }
+            for(int i = reverse.getFirstEdge(node); i < reverse.getEdgeEnd(node); i++){
+                tmp = reverse.getTarget(i);
+                tmpDst = nodeDst + reverse.getWeight(i);
+                if(tmpDst < context.getDistance(tmp)){
+                    context.update(tmp, tmpDst, node);
+                    queue.insertOrDecrease(tmp, tmpDst);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets the flag of the region on the edge, the flags can be set by many threads at once
+     * @param flags flags of the edges
+     * @param words number of the ints holding the flags of one edge
+     * @param edge number of the edge
+     * @param region number of the region
+     */
+    private static void setFlag(AtomicIntegerArray flags, int words, int edge, int region){
+        int index = edge * words + (region >>> 5);
+        int bit = 1 << (region & 31);
+        if((flags.get(index) & bit) == 0){
+            flags.accumulateAndGet(index, bit, (current, value) -> current | value);
+        }
+    }
+
+    /**
+     * Returns the number of the ints holding the flags of one edge
+     * @param regionCount number of the regions
+     * @return number of the ints
+     */
+    private static int wordsPerEdge(int regionCount){
+        return (regionCount + 31) >>> 5;
+    }
+
+    /**
+     * Returns the number of the regions
+     * @return number of the regions
+     */
+    public int getRegionCount(){
+        return regionCount;
+    }
+
+    /**
+     * Returns the region of the Node
+     * @param node number of the Node
+     * @return number of the region
+     */
+    public int getRegion(int node){
+        return regions.get(node);
+    }
+
+    /**
+     * Checks if the edge lies on a shortest way to the region
+     * @param edge number of the edge
+     * @param region number of the region
+     * @return true if the flag of the region is set
+     */
+    public boolean hasFlag(int edge, int region){
+        return (flags.get(edge * wordsPerEdge + (region >>> 5)) & 1 << (region & 31)) != 0;
+    }
+
+    /**
+     * Checks that the flags have been computed for the graph
+     * @param graph checked graph
+     * @return true if the graph has the same numbers of Nodes and edges
+     */
+    public boolean matches(CompactGraph graph){
+        return graph.getNodeCount() == regions.limit() && graph.getEdgeCount() == edgeCount;
+    }
+
+    /**
+     * Writes the regions and the flags to the file, written first to a temporary file
+     * @param file destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException{
+        File temporary = new File(file.getPath() + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (FileOutputStream fileStream = new FileOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileStream, checksum), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(regions.limit());
+            out.writeInt(edgeCount);
+            out.writeInt(regionCount);
+            out.writeInt(0);
+            for(IntBuffer buffer: new IntBuffer[]{regions, flags}){
+                for(int i = 0; i < buffer.limit(); i++){
+                    out.writeInt(buffer.get(i));
+                }
+                GraphFile.pad(out, buffer.limit());
+            }
+            out.flush();
+            long value = checksum.getValue();
+            out.writeLong(value);
+            out.flush();
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Opens the arc flag file by memory mapping and verifies its checksum
+     * @param file opened file
+     * @param graph graph the flags have been computed for
+     * @return ArcFlags reading the mapped file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file is damaged, has unsupported version or belongs to another graph
+     */
+    public static ArcFlags open(File file, CompactGraph graph) throws FileNotFoundException, GraphFileException{
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long fileSize = channel.size();
+            if(fileSize < HEADER_SIZE + 8){
+                throw new GraphFileException("Arc flag file is too short!");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if(header.getInt() != MAGIC){
+                throw new GraphFileException("File is not an arc flag file!");
+            }
+            int version = header.getInt();
+            if(version != VERSION){
+                throw new GraphFileException("Unsupported version of arc flag file: " + version);
+            }
+            int nodes = header.getInt();
+            int edges = header.getInt();
+            int regionCount = header.getInt();
+            if(nodes != graph.getNodeCount() || edges != graph.getEdgeCount()){
+                throw new GraphFileException("Arc flag file belongs to another graph!");
+            }
+            if(regionCount < 1 || (long) edges * wordsPerEdge(regionCount) > Integer.MAX_VALUE / 4){
+                throw new GraphFileException("Arc flag file has incorrect header!");
+            }
+            int size = edges * wordsPerEdge(regionCount);
+            long regionsPosition = HEADER_SIZE;
+            long flagsPosition = regionsPosition + GraphFile.aligned(nodes);
+            long end = flagsPosition + GraphFile.aligned(size);
+            if(end + 8 != fileSize){
+                throw new GraphFileException("Arc flag file has incorrect size!");
+            }
+            if(channel.map(FileChannel.MapMode.READ_ONLY, end, 8).getLong() != GraphFile.checksum(channel, end)){
+                throw new GraphFileException("Arc flag file is damaged, checksum does not match!");
+            }
+            IntBuffer regions = channel.map(FileChannel.MapMode.READ_ONLY, regionsPosition, 4L * nodes).asIntBuffer();
+            for(int node = 0; node < nodes; node++){
+                if(regions.get(node) < 0 || regions.get(node) >= regionCount){
+                    throw new GraphFileException("Arc flag file has incorrect region!");
+                }
+            }
+            IntBuffer flags = channel.map(FileChannel.MapMode.READ_ONLY, flagsPosition, 4L * size).asIntBuffer();
+            return new ArcFlags(edges, regionCount, regions, flags);
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (IOException e){
+            throw new GraphFileException("Arc flag file cannot be read!", e);
+        }
+    }
+
+    /**
+     * Returns the path of the arc flag file written next to the graph file
+     * @param graphFile path to the graph file
+     * @return path to the arc flag file
+     */
+    public static String flagsPathFor(String graphFile){
+        return graphFile + EXTENSION;
+    }
+}
@@ -0,0 +1,507 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream decompressing data in bzip2 format, including files made of many concatenated streams
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class BZip2InputStream extends InputStream{
+    /**
+     * Magic number starting a compressed block
+     */
+    private static final long BLOCK_MAGIC = 0x314159265359L;
+    /**
+     * Magic number ending the stream
+     */
+    private static final long END_MAGIC = 0x177245385090L;
+    /**
+     * Number of symbols coded with one Huffman table
+     */
+    private static final int GROUP_SIZE = 50;
+    /**
+     * Maximal length of Huffman code
+     */
+    private static final int MAX_CODE_LENGTH = 20;
+    /**
+     * Maximal number of symbols
+     */
+    private static final int MAX_ALPHABET_SIZE = 258;
+    /**
+     * Maximal number of selectors used by bzip2
+     */
+    private static final int MAX_SELECTORS = 18002;
+    /**
+     * Table used to compute CRC of decompressed data
+     */
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for(int i = 0; i < 256; i++){
+            int c = i << 24;
+            for(int j = 0; j < 8; j++){
+                c = (c & 0x80000000) != 0 ? (c << 1) ^ 0x04c11db7 : c << 1;
+            }
+            CRC_TABLE[i] = c;
+        }
+    }
+
+    /**
+     * Stream with compressed data
+     */
+    private final InputStream input;
+    /**
+     * Bits read from the stream but not used yet
+     */
+    private long bitBuffer;
+    /**
+     * Number of bits in bitBuffer
+     */
+    private int bitCount;
+    /**
+     * Maximal size of the block of the current stream
+     */
+    private int blockSize;
+    /**
+     * Holds the block after inverse Burrows-Wheeler transform
+     */
+    private int[] tt;
+    /**
+     * Position in tt of the next decoded byte
+     */
+    private int tPos;
+    /**
+     * Number of bytes of the block that are not decoded yet
+     */
+    private int blockRemaining;
+    /**
+     * Last decoded byte, used to decode runs
+     */
+    private int lastByte;
+    /**
+     * Number of consecutive equal bytes before the current one
+     */
+    private int runLength;
+    /**
+     * Number of repetitions of lastByte that are still to return
+     */
+    private int repeatRemaining;
+    /**
+     * CRC stored in the block's header
+     */
+    private int storedBlockCrc;
+    /**
+     * CRC of the decompressed block's data
+     */
+    private int blockCrc;
+    /**
+     * Combined CRC of all blocks of the stream
+     */
+    private int combinedCrc;
+    /**
+     * Remembers if a block has been decoded, so its CRC has to be checked
+     */
+    private boolean inBlock;
+    /**
+     * Remembers if the end of data has been reached
+     */
+    private boolean finished;
+
+    /**
+     * BZip2InputStream's constructor, reads the header of the stream
+     * @param input stream with compressed data
+     * @throws IOException if the data is not in bzip2 format
+     */
+    public BZip2InputStream(InputStream input) throws IOException{
+        this.input = input;
+        if(!readStreamHeader()){
+            throw new IOException("Stream is empty, no bzip2 data!");
+        }
+    }
+
+    @Override
+    public int read() throws IOException{
+        while(true) {
+            if (repeatRemaining > 0) {
+                repeatRemaining--;
+                updateCrc(lastByte);
+                return lastByte;
+            }
+            if (blockRemaining == 0) {
+                if (finished || !nextBlock()) {
+                    return -1;
+                }
+                continue;
+            }
+            tPos = tt[tPos];
+            int ch = tPos & 0xff;
+            tPos >>>= 8;
+            blockRemaining--;
+            if (runLength == 4) {
+                repeatRemaining = ch;
+                runLength = 0;
+                continue;
+            }
+            if (ch == lastByte) {
+                runLength++;
+            }
+            else {
+                runLength = 1;
+                lastByte = ch;
+            }
+            updateCrc(ch);
+            return ch;
+        }
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException{
+        if(length == 0){
+            return 0;
+        }
+        int count = 0;
+        int b;
+        while(count < length && (b = read()) >= 0){
+            buffer[offset + count++] = (byte) b;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    @Override
+    public void close() throws IOException{
+        input.close();
+    }
+
+    /**
+     * Reads the header of the next stream
+     * @return false if there is no more data
+     * @throws IOException if the header is not correct
+     */
+    private boolean readStreamHeader() throws IOException{
+        int first = input.read();
+        if(first < 0){
+            return false;
+        }
+        if(first != 'B' || input.read() != 'Z' || input.read() != 'h'){
+            throw new IOException("Data is not in bzip2 format!");
+        }
+        int level = input.read() - '0';
+        if(level < 1 || level > 9){
+            throw new IOException("Incorrect block size of bzip2 data!");
+        }
+        blockSize = level * 100000;
+        if(tt == null || tt.length < blockSize){
+            tt = new int[blockSize];
+        }
+        bitBuffer = 0;
+        bitCount = 0;
+        combinedCrc = 0;
+        return true;
+    }
+
+    /**
+     * Checks CRC of the finished block and decodes the next one
+     * @return false if there are no more blocks
+     * @throws IOException if the data is corrupted
+     */
+    private boolean nextBlock() throws IOException{
+        if(inBlock && ~blockCrc != storedBlockCrc){
+            throw new IOException("Incorrect CRC of bzip2 block!");
+        }
+        while(true) {
+            long magic = ((long) readBits(24) << 24) | readBits(24);
+            inBlock = false;
+            if (magic == BLOCK_MAGIC) {
+                decodeBlock();
+                return true;
+            }
+            if (magic != END_MAGIC) {
+                throw new IOException("Incorrect bzip2 block header!");
+            }
+            int storedCombinedCrc = readBits(32);
+            if (storedCombinedCrc != combinedCrc) {
+                throw new IOException("Incorrect CRC of bzip2 stream!");
+            }
+            bitCount -= bitCount % 8;
+            if (bitCount > 0 || !readStreamHeader()) {
+                finished = true;
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Decodes the whole block and prepares it for reading
+     * @throws IOException if the block is corrupted
+     */
+    private void decodeBlock() throws IOException{
+        storedBlockCrc = readBits(32);
+        if(readBits(1) != 0){
+            throw new IOException("Randomised bzip2 blocks are not supported!");
+        }
+        int origPtr = readBits(24);
+
+        int[] seqToUnseq = new int[256];
+        int inUse = 0;
+        int usedGroups = readBits(16);
+        for(int i = 0; i < 16; i++){
+            if((usedGroups & (0x8000 >>> i)) != 0){
+                int used = readBits(16);
+                for(int j = 0; j < 16; j++){
+                    if((used & (0x8000 >>> j)) != 0){
+                        seqToUnseq[inUse++] = 16 * i + j;
+                    }
+                }
+            }
+        }
+        if(inUse == 0){
+            throw new IOException("bzip2 block uses no symbols!");
+        }
+        int alphabetSize = inUse + 2;
+
+        int groups = readBits(3);
+        int selectorCount = readBits(15);
+        if(groups < 2 || groups > 6 || selectorCount < 1){
+            throw new IOException("Incorrect Huffman tables of bzip2 block!");
+        }
+        int[] groupOrder = new int[groups];
+        for(int i = 0; i < groups; i++){
+            groupOrder[i] = i;
+        }
+        byte[] selectors = new byte[Math.min(selectorCount, MAX_SELECTORS)];
+        for(int i = 0; i < selectorCount; i++){
+            int j = 0;
+            while(readBits(1) != 0){
+                j++;
+                if(j >= groups){
+                    throw new IOException("Incorrect selector of bzip2 block!");
+                }
+            }
+            int value = groupOrder[j];
+            System.arraycopy(groupOrder, 0, groupOrder, 1, j);
+            groupOrder[0] = value;
+            if(i < MAX_SELECTORS){
+                selectors[i] = (byte) value;
+            }
+        }
+        selectorCount = selectors.length;
+
+        int[][] limit = new int[groups][MAX_CODE_LENGTH + 2];
+        int[][] base = new int[groups][MAX_CODE_LENGTH + 2];
+        int[][] perm = new int[groups][MAX_ALPHABET_SIZE];
+        int[] minLength = new int[groups];
+        int[] lengths = new int[alphabetSize];
+        for(int t = 0; t < groups; t++){
+            int current = readBits(5);
+            int min = 32, max = 0;
+            for(int i = 0; i < alphabetSize; i++){
+                while(true){
+                    if(current < 1 || current > MAX_CODE_LENGTH){
+                        throw new IOException("Incorrect Huffman code length in bzip2 block!");
+                    }
+                    if(readBits(1) == 0){
+                        break;
+                    }
+                    current += readBits(1) == 0 ? 1 : -1;
+                }
+                lengths[i] = current;
+                min = Math.min(min, current);
+                max = Math.max(max, current);
+            }
+            createDecodeTable(lengths, alphabetSize, min, max, limit[t], base[t], perm[t]);
+            minLength[t] = min;
+        }
+
+        int[] mtf = new int[256];
+        for(int i = 0; i < 256; i++){
+            mtf[i] = i;
+        }
+        int[] counts = new int[256];
+        int endOfBlock = inUse + 1;
+        int groupIndex = -1;
+        int groupPosition = 0;
+        int table = 0;
+        int blockLength = 0;
+        int symbol;
+        while(true){
+            if(groupPosition == 0){
+                groupIndex++;
+                if(groupIndex >= selectorCount){
+                    throw new IOException("Not enough selectors in bzip2 block!");
+                }
+                groupPosition = GROUP_SIZE;
+                table = selectors[groupIndex];
+            }
+            groupPosition--;
+            symbol = decodeSymbol(limit[table], base[table], perm[table], minLength[table]);
+            if(symbol == endOfBlock){
+                break;
+            }
+            if(symbol <= 1){
+                int run = -1;
+                int weight = 1;
+                while(true){
+                    run += (symbol + 1) * weight;
+                    weight <<= 1;
+                    if(run >= blockSize){
+                        throw new IOException("Run exceeds bzip2 block size!");
+                    }
+                    if(groupPosition == 0){
+                        groupIndex++;
+                        if(groupIndex >= selectorCount){
+                            throw new IOException("Not enough selectors in bzip2 block!");
+                        }
+                        groupPosition = GROUP_SIZE;
+                        table = selectors[groupIndex];
+                    }
+                    groupPosition--;
+                    symbol = decodeSymbol(limit[table], base[table], perm[table], minLength[table]);
+                    if(symbol > 1){
+                        break;
+                    }
+                }
+                run++;
+                int b = seqToUnseq[mtf[0]];
+                counts[b] += run;
+                if(blockLength + run > blockSize){
+                    throw new IOException("Data exceeds bzip2 block size!");
+                }
+                while(run-- > 0){
+                    tt[blockLength++] = b;
+                }
+                if(symbol == endOfBlock){
+                    break;
+                }
+            }
+            if(symbol >= endOfBlock){
+                throw new IOException("Incorrect symbol in bzip2 block!");
+            }
+            int index = symbol - 1;
+            int value = mtf[index];
+            System.arraycopy(mtf, 0, mtf, 1, index);
+            mtf[0] = value;
+            int b = seqToUnseq[value];
+            counts[b]++;
+            if(blockLength >= blockSize){
+                throw new IOException("Data exceeds bzip2 block size!");
+            }
+            tt[blockLength++] = b;
+        }
+        if(origPtr >= blockLength && blockLength > 0){
+            throw new IOException("Incorrect origin pointer of bzip2 block!");
+        }
+
+        int[] cumulative = new int[256];
+        for(int i = 1; i < 256; i++){
+            cumulative[i] = cumulative[i - 1] + counts[i - 1];
+        }
+        for(int i = 0; i < blockLength; i++){
+            int b = tt[i] & 0xff;
+            tt[cumulative[b]++] |= i << 8;
+        }
+        tPos = blockLength > 0 ? tt[origPtr] >>> 8 : 0;
+        blockRemaining = blockLength;
+        lastByte = -1;
+        runLength = 0;
+        repeatRemaining = 0;
+        combinedCrc = ((combinedCrc << 1) | (combinedCrc >>> 31)) ^ storedBlockCrc;
+        blockCrc = 0xffffffff;
+        inBlock = true;
+    }
+
+    /**
+     * Builds tables used to decode canonical Huffman codes
+     * @param lengths lengths of the codes
+     * @param alphabetSize number of symbols
+     * @param min minimal length of the code
+     * @param max maximal length of the code
+     * @param limit largest code of every length
+     * @param base offsets of the codes of every length
+     * @param perm symbols sorted by the length of their codes
+     */
+    private static void createDecodeTable(int[] lengths, int alphabetSize, int min, int max, int[] limit, int[] base, int[] perm){
+        int pp = 0;
+        for(int i = min; i <= max; i++){
+            for(int j = 0; j < alphabetSize; j++){
+                if(lengths[j] == i){
+                    perm[pp++] = j;
+                }
+            }
+        }
+        int[] count = new int[MAX_CODE_LENGTH + 2];
+        for(int i = 0; i < alphabetSize; i++){
+            count[lengths[i] + 1]++;
+        }
+        for(int i = 1; i < count.length; i++){
+            count[i] += count[i - 1];
+        }
+        int code = 0;
+        for(int i = min; i <= max; i++){
+            code += count[i + 1] - count[i];
+            limit[i] = code - 1;
+            code <<= 1;
+        }
+        for(int i = min + 1; i <= max; i++){
+            base[i] = ((limit[i - 1] + 1) << 1) - count[i];
+        }
+        base[min] = count[min];
+        for(int i = max + 1; i < limit.length; i++){
+            limit[i] = Integer.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Decodes one Huffman-coded symbol
+     * @param limit largest code of every length
+     * @param base offsets of the codes of every length
+     * @param perm symbols sorted by the length of their codes
+     * @param min minimal length of the code
+     * @return decoded symbol
+     * @throws IOException if the code is not correct
+     */
+    private int decodeSymbol(int[] limit, int[] base, int[] perm, int min) throws IOException{
+        int length = min;
+        int code = readBits(length);
+        while(length <= MAX_CODE_LENGTH){
+            if(code <= limit[length]){
+                int index = code - base[length];
+                if(index < 0 || index >= MAX_ALPHABET_SIZE){
+                    break;
+                }
+                return perm[index];
+            }
+            code = (code << 1) | readBits(1);
+            length++;
+        }
+        throw new IOException("Incorrect Huffman code in bzip2 block!");
+    }
+
+    /**
+     * Reads bits from the stream, most significant first
+     * @param n number of bits, at most 32
+     * @return read bits
+     * @throws IOException if the stream ends
+     */
+    private int readBits(int n) throws IOException{
+        while(bitCount < n){
+            int b = input.read();
+            if(b < 0){
+                throw new EOFException("Unexpected end of bzip2 data!");
+            }
+            bitBuffer = (bitBuffer << 8) | b;
+            bitCount += 8;
+        }
+        bitCount -= n;
+        return (int) ((bitBuffer >>> bitCount) & ((1L << n) - 1));
+    }
+
+    /**
+     * Adds the byte to CRC of the block
+     * @param b decompressed byte
+     */
+    private void updateCrc(int b){
+        blockCrc = (blockCrc << 8) ^ CRC_TABLE[((blockCrc >>> 24) ^ b) & 0xff];
+    }
+}
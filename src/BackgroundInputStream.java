@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Stream reading another stream on its own thread. Read chunks are passed through a bounded queue,
+ * so the slow source (e.g. decompressor) works while the parser consumes previous chunks.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class BackgroundInputStream extends InputStream{
+    /**
+     * Size of the chunk read at once from the source
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+    /**
+     * Maximal number of chunks waiting for the reader
+     */
+    private static final int CAPACITY = 16;
+    /**
+     * Marks the end of the source
+     */
+    private static final byte[] END = new byte[0];
+
+    /**
+     * Stream read by the background thread
+     */
+    private final InputStream source;
+    /**
+     * Holds chunks read from the source
+     */
+    private final BlockingQueue<byte[]> queue;
+    /**
+     * Thread reading the source
+     */
+    private final Thread thread;
+    /**
+     * Exception thrown while reading the source
+     */
+    private volatile IOException error;
+    /**
+     * Remembers if the stream has been closed
+     */
+    private volatile boolean closed;
+    /**
+     * Chunk that is currently read
+     */
+    private byte[] chunk;
+    /**
+     * Length of the current chunk
+     */
+    private int chunkLength;
+    /**
+     * Position of the next byte of the current chunk
+     */
+    private int position;
+
+    /**
+     * BackgroundInputStream's constructor, starts the thread reading the source
+     * @param source stream read in background
+     */
+    public BackgroundInputStream(InputStream source){
+        this.source = source;
+        this.queue = new ArrayBlockingQueue<>(CAPACITY);
+        this.thread = new Thread(this::readSource, "map-decompressor");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public int read() throws IOException{
+        if(!fillChunk()){
+            return -1;
+        }
+        return chunk[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException{
+        if(length == 0){
+            return 0;
+        }
+        if(!fillChunk()){
+            return -1;
+        }
+        int count = Math.min(length, chunkLength - position);
+        System.arraycopy(chunk, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException{
+        closed = true;
+        thread.interrupt();
+        source.close();
+    }
+
+    /**
+     * Takes the next chunk from the queue if the current one is used up
+     * @return false if the source has ended
+     * @throws IOException if the source could not be read
+     */
+    private boolean fillChunk() throws IOException{
+        while(chunk == null || position == chunkLength){
+            if(chunk == END){
+                return false;
+            }
+            try {
+                chunk = queue.take();
+            }catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Reading of the map has been interrupted");
+            }
+            if(chunk == END && error != null){
+                throw error;
+            }
+            chunkLength = chunk.length;
+            position = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the source until its end and puts read chunks into the queue, runs on the background thread
+     */
+    private void readSource(){
+        try {
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int length = 0;
+            int count;
+            while(!closed && (count = source.read(buffer, length, CHUNK_SIZE - length)) >= 0){
+                length += count;
+                if(length == CHUNK_SIZE){
+                    queue.put(buffer);
+                    buffer = new byte[CHUNK_SIZE];
+                    length = 0;
+                }
+            }
+            if(length > 0){
+                byte[] last = new byte[length];
+                System.arraycopy(buffer, 0, last, 0, length);
+                queue.put(last);
+            }
+        }catch (IOException e){
+            if(!closed){
+                error = e;
+            }
+        }catch (InterruptedException e){
+            return;
+        }
+        try {
+            queue.put(END);
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,3 +1,4 @@
+import WayFinderExceptions.GraphFileException;
 import WayFinderExceptions.GraphNotReadYetException;
 import com.thoughtworks.xstream.XStream;
 
@@ -9,13 +10,21 @@ import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
 
 /**
  * Created by Łukasz on 2016-12-16.
  */
 public class Client extends JFrame{
+    /**
+     * Time in milliseconds the server has to answer the question about its graph file, a server which does not
+     * know the question never answers it and the graph is asked for again on a new connection
+     */
+    private static final int HANDSHAKE_TIMEOUT = 5000;
+
     private JPanel mainPanel;
     private JButton saveImageButton;
     private JButton findWayButton;
@@ -36,6 +45,10 @@ public class Client extends JFrame{
     private JButton checkGoalId;
     private JRadioButton dijkstraButton;
     private JRadioButton aStarButton;
+    private JRadioButton bidirectionalDijkstraButton;
+    private JRadioButton bidirectionalAStarButton;
+    private JRadioButton contractionHierarchyButton;
+    private JRadioButton arcFlagsButton;
     private JFormattedTextField latitudeClosestNodeTextField;
     private JFormattedTextField longitudeClosestNodeTextFiel;
     private JButton findTheClosestNodeButton;
@@ -45,10 +58,8 @@ public class Client extends JFrame{
 
 
     private Double[] bounds = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MIN_VALUE, Double.MIN_VALUE};
-    private HashMap<String, Node> graph = null;
     private ArrayList<Node> shortestWay = null;
     private WayFinder wayFinder = null;
-    private boolean dijkstraAlg = true;
     private Boolean isGraphReceived;
     private Socket socket;
 
@@ -76,30 +87,10 @@ public class Client extends JFrame{
             @Override
             public void actionPerformed(ActionEvent e) {
                 try {
-                    XStream xstream = new XStream();
-                    xstream.setMode(XStream.ID_REFERENCES);
-                    xstream.alias("node", Node.class);
-                    xstream.alias("hashMap", HashMap.class);
-                    System.out.println("łączę");
-                    socket = new Socket(adressField.getText(), Integer.parseInt(portField.getText()));
-                    System.out.println("połączyłem");
-                    ObjectOutputStream outputStream = new ObjectOutputStream(socket.getOutputStream());
-                    ObjectInputStream inputStream = new ObjectInputStream(socket.getInputStream());
-                    System.out.println("Strumienie ok");
-                    outputStream.writeObject("SEND");
-                    System.out.println("wysłano");
-                    graph = (HashMap<String, Node>) xstream.fromXML((String)inputStream.readObject());
-                    System.out.println("dostałem");
-                    wayFinder = new WayFinder(graph);
-                }catch (IOException exc){
-                    socket = null;
-                    exc.printStackTrace();
-                }catch (ClassNotFoundException exc){
-                    exc.printStackTrace();
-                    graph = null;
-                    socket = null;
+                    new Connection(adressField.getText(), Integer.parseInt(portField.getText())).execute();
+                }catch (NumberFormatException exc){
+                    JOptionPane.showMessageDialog(mainPanel, "Wrong format of the port number", "Error", JOptionPane.ERROR_MESSAGE);
                 }
-
             }
         });
         startCoordinates.addActionListener(new ActionListener() {
@@ -157,6 +148,7 @@ public class Client extends JFrame{
                     JOptionPane.showMessageDialog(mainPanel, "You did not open any file!");
                 }
                 else{
+                    CompactGraph compactGraph = wayFinder.getCompactGraph();
                     int startErrorNumber = 0;
                     int goalErrorNumber = 0;
                     double latitude = 0, longitude = 0;
@@ -178,21 +170,16 @@ public class Client extends JFrame{
                         else{
                             startErrorNumber +=2;
                         }
-                        if(startErrorNumber == 0 && graph.values().contains(new Node(latitude, longitude))){
-                            Node tmp = new Node(latitude, longitude);
-                            for(Node n: graph.values()){
-                                if( n.equals(tmp)){
-                                    idStart = n.getId();
-                                    break;
-                                }
-                            }
+                        int node = startErrorNumber == 0 ? compactGraph.indexAt(latitude, longitude) : -1;
+                        if(node >= 0){
+                            idStart = compactGraph.getId(node);
                         }
                         else{
                             startErrorNumber +=4;
                         }
                     }else if(startId.isSelected()){
                         String id = startIdField.getText();
-                        if(graph.keySet().contains(id)){
+                        if(compactGraph.indexOf(id) >= 0){
                             idStart = id;
                         }
                         else{
@@ -218,21 +205,16 @@ public class Client extends JFrame{
                         else{
                             goalErrorNumber +=2;
                         }
-                        if(goalErrorNumber == 0 && graph.values().contains(new Node(latitude, longitude))){
-                            Node tmp = new Node(latitude, longitude);
-                            for(Node n: graph.values()){
-                                if( n.equals(tmp)){
-                                    idGoal = n.getId();
-                                    break;
-                                }
-                            }
+                        int node = goalErrorNumber == 0 ? compactGraph.indexAt(latitude, longitude) : -1;
+                        if(node >= 0){
+                            idGoal = compactGraph.getId(node);
                         }
                         else{
                             goalErrorNumber +=4;
                         }
                     }else if(goalId.isSelected()){
                         String id = goalIdField.getText();
-                        if(graph.keySet().contains(id)){
+                        if(compactGraph.indexOf(id) >= 0){
                             idGoal = id;
                         }
                         else{
@@ -271,12 +253,32 @@ public class Client extends JFrame{
                         }
                     }
                     else{
-                        if(dijkstraAlg) {
+                        if(dijkstraButton.isSelected()) {
                             wayFinder.runFinderDijkstra(idStart, idGoal);
                         }
-                        else{
+                        else if(aStarButton.isSelected()){
                             wayFinder.runFinderAStar(idStart, idGoal);
                         }
+                        else if(bidirectionalDijkstraButton.isSelected()){
+                            wayFinder.runFinderBidirectionalDijkstra(idStart, idGoal);
+                        }
+                        else if(bidirectionalAStarButton.isSelected()){
+                            wayFinder.runFinderBidirectionalAStar(idStart, idGoal);
+                        }
+                        else if(contractionHierarchyButton.isSelected()){
+                            if(wayFinder.getContractionHierarchy() == null){
+                                JOptionPane.showMessageDialog(mainPanel, "There's no contraction hierarchy for this graph!");
+                                return;
+                            }
+                            wayFinder.runFinderContractionHierarchy(idStart, idGoal);
+                        }
+                        else if(wayFinder.getArcFlags() != null){
+                            wayFinder.runFinderArcFlags(idStart, idGoal);
+                        }
+                        else{
+                            JOptionPane.showMessageDialog(mainPanel, "There are no arc flags for this graph!");
+                            return;
+                        }
                         shortestWay = wayFinder.getFoundWay();
                         if(shortestWay == null){
                             JOptionPane.showMessageDialog(mainPanel, "This way does not exist!");
@@ -298,7 +300,7 @@ public class Client extends JFrame{
                         final File file = fc.getSelectedFile();
                         try {
                             PrintWriter output = new PrintWriter(file);
-                            for (Node n : shortestWay){
+                            for (Node n : wayFinder.getCompactGraph().getWayPoints(shortestWay)){
                                 output.println(n);
                                 if(tmp!=null){
                                     tst += n.distance(tmp);
@@ -319,11 +321,12 @@ public class Client extends JFrame{
         saveImageButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (shortestWay != null && graph != null) {
+                if (shortestWay != null && wayFinder != null) {
+                    CompactGraph compactGraph = wayFinder.getCompactGraph();
                     double lat, lon;
-                    for (Node n : graph.values()) {
-                        lat = n.getLatitude();
-                        lon = n.getLongitude();
+                    for (int n = 0; n < compactGraph.getNodeCount(); n++) {
+                        lat = compactGraph.getLatitude(n);
+                        lon = compactGraph.getLongitude(n);
                         if (lat < bounds[0])
                             bounds[0] = lat;
                         if (lat > bounds[2])
@@ -342,14 +345,23 @@ public class Client extends JFrame{
                     grph.fillRect(0, 0, width, height);
                     grph.setColor(Color.BLACK);
                     int x1 = 0, x2 = 0, y1 = 0, y2 = 0;
-                    for (Node n : graph.values()) {
-                        x1 = (int) Math.round(width * (n.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
-                        y1 = (int) Math.round(height - height * (n.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
-                        for (Node n2 : n.getEdges()) {
-                            x2 = (int) Math.round(width * (n2.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
-                            y2 = (int) Math.round(height - height * (n2.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
+                    for (int n = 0; n < compactGraph.getNodeCount(); n++) {
+                        x1 = (int) Math.round(width * (compactGraph.getLongitude(n) - bounds[1]) / (bounds[3] - bounds[1]));
+                        y1 = (int) Math.round(height - height * (compactGraph.getLatitude(n) - bounds[0]) / (bounds[2] - bounds[0]));
+                        for (int edge = compactGraph.getFirstEdge(n); edge < compactGraph.getEdgeEnd(n); edge++) {
+                            int n2 = compactGraph.getTarget(edge);
+                            int px = x1, py = y1;
+                            for (Node point : compactGraph.getEdgePoints(edge)) {
+                                x2 = (int) Math.round(width * (point.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
+                                y2 = (int) Math.round(height - height * (point.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
+                                grph.drawLine(px, py, x2, y2);
+                                px = x2;
+                                py = y2;
+                            }
+                            x2 = (int) Math.round(width * (compactGraph.getLongitude(n2) - bounds[1]) / (bounds[3] - bounds[1]));
+                            y2 = (int) Math.round(height - height * (compactGraph.getLatitude(n2) - bounds[0]) / (bounds[2] - bounds[0]));
                             //if(!shortestWay.contains(n) && !shortestWay.contains(n2))
-                            grph.drawLine(x1, y1, x2, y2);
+                            grph.drawLine(px, py, x2, y2);
                         }
                         grph.setColor(Color.RED);
                         grph.fillRect(x1 - 1, y1 - 1, 2, 2);
@@ -358,7 +370,7 @@ public class Client extends JFrame{
                     grph.setColor(Color.GREEN);
                     grph.setStroke(new BasicStroke(10));
                     Node n2 = null;
-                    for (Node n : shortestWay) {
+                    for (Node n : compactGraph.getWayPoints(shortestWay)) {
                         if (n2 != null) {
                             x1 = (int) Math.round(width * (n.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
                             y1 = (int) Math.round(height - height * (n.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
@@ -366,8 +378,12 @@ public class Client extends JFrame{
                             y2 = (int) Math.round(height - height * (n2.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
                             grph.drawLine(x1, y1, x2, y2);
                             grph.setColor(Color.BLUE);
-                            grph.fillRect(x1 - 2, y1 - 2, 4, 4);
-                            grph.fillRect(x2 - 2, y2 - 2, 4, 4);
+                            if (n.getId() != null) {
+                                grph.fillRect(x1 - 2, y1 - 2, 4, 4);
+                            }
+                            if (n2.getId() != null) {
+                                grph.fillRect(x2 - 2, y2 - 2, 4, 4);
+                            }
                             grph.setColor(Color.GREEN);
                         }
                         n2 = n;
@@ -398,7 +414,7 @@ public class Client extends JFrame{
                 lat = startLatitudeField.getText();
                 lon = startLongitudeField.getText();
                 if(lat.matches("-?[0-9]+[.]?[0-9]*") && lon.matches("-?[0-9]+[.]?[0-9]*")){
-                    if(graph.containsValue(new Node(Double.parseDouble(lat), Double.parseDouble(lon) ))){
+                    if(wayFinder.getCompactGraph().indexAt(Double.parseDouble(lat), Double.parseDouble(lon)) >= 0){
                         JOptionPane.showMessageDialog(mainPanel, "Such a Node exists");
                     }
                     else{
@@ -418,7 +434,7 @@ public class Client extends JFrame{
                 lat = goalLatitudeField.getText();
                 lon = goalLongitudeField.getText();
                 if(lat.matches("-?[0-9]+[.]?[0-9]*") && lon.matches("-?[0-9]+[.]?[0-9]*")){
-                    if(graph.containsValue(new Node(Double.parseDouble(lat), Double.parseDouble(lon) ))){
+                    if(wayFinder.getCompactGraph().indexAt(Double.parseDouble(lat), Double.parseDouble(lon)) >= 0){
                         JOptionPane.showMessageDialog(mainPanel, "Such a Node exists");
                     }
                     else{
@@ -435,7 +451,7 @@ public class Client extends JFrame{
             @Override
             public void actionPerformed(ActionEvent e) {
                 String id = startIdField.getText();
-                if(graph.containsKey(id)){
+                if(wayFinder.getCompactGraph().indexOf(id) >= 0){
                     JOptionPane.showMessageDialog(mainPanel, "Such a Node exists");
                 }
                 else{
@@ -447,7 +463,7 @@ public class Client extends JFrame{
             @Override
             public void actionPerformed(ActionEvent e) {
                 String id = goalIdField.getText();
-                if(graph.containsKey(id)){
+                if(wayFinder.getCompactGraph().indexOf(id) >= 0){
                     JOptionPane.showMessageDialog(mainPanel, "Such a Node exists");
                 }
                 else{
@@ -455,41 +471,35 @@ public class Client extends JFrame{
                 }
             }
         });
-        dijkstraButton.addActionListener(new ActionListener() {
+        ActionListener algorithmListener = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                aStarButton.setSelected(false);
-                dijkstraAlg = true;
-                dijkstraButton.setSelected(true);
+                dijkstraButton.setSelected(e.getSource() == dijkstraButton);
+                aStarButton.setSelected(e.getSource() == aStarButton);
+                bidirectionalDijkstraButton.setSelected(e.getSource() == bidirectionalDijkstraButton);
+                bidirectionalAStarButton.setSelected(e.getSource() == bidirectionalAStarButton);
+                contractionHierarchyButton.setSelected(e.getSource() == contractionHierarchyButton);
+                arcFlagsButton.setSelected(e.getSource() == arcFlagsButton);
             }
-        });
-        aStarButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                dijkstraButton.setSelected(false);
-                dijkstraAlg = false;
-                aStarButton.setSelected(true);
-            }
-        });
+        };
+        dijkstraButton.addActionListener(algorithmListener);
+        aStarButton.addActionListener(algorithmListener);
+        bidirectionalDijkstraButton.addActionListener(algorithmListener);
+        bidirectionalAStarButton.addActionListener(algorithmListener);
+        contractionHierarchyButton.addActionListener(algorithmListener);
+        arcFlagsButton.addActionListener(algorithmListener);
         findTheClosestNodeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if(graph!= null) {
+                if(wayFinder != null) {
                     String lat = latitudeClosestNodeTextField.getText();
                     String lon = longitudeClosestNodeTextFiel.getText();
-                    double dst = Double.MAX_VALUE;
-                    Node theClosest = null;
+                    int theClosest = -1;
                     if (lat.matches("-?[0-9]+[.]?[0-9]*") && lon.matches("-?[0-9]+[.]?[0-9]*")) {
-                        Node tmp = new Node(Double.parseDouble(lat), Double.parseDouble(lon));
-                        for (Node n :graph.values()){
-                            if(n.distance(tmp) < dst){
-                                dst = n.distance(tmp);
-                                theClosest = n;
-                            }
-                        }
+                        theClosest = wayFinder.getCompactGraph().closestNode(Double.parseDouble(lat), Double.parseDouble(lon));
                     }
-                    if(theClosest!=null) {
-                        JOptionPane.showMessageDialog(mainPanel, "The closest Node is " + theClosest.getId());
+                    if(theClosest >= 0) {
+                        JOptionPane.showMessageDialog(mainPanel, "The closest Node is " + wayFinder.getCompactGraph().getId(theClosest));
                     }
                 }
                 else{
@@ -498,4 +508,133 @@ public class Client extends JFrame{
             }
         });
     }
+
+    /**
+     * Background task connecting to the server and opening its graph, so that the window stays responsive
+     * while the client waits for the server's answers. The graph file is opened if the client has the same file
+     * as the server, otherwise the whole graph is received from the server.
+     */
+    private class Connection extends SwingWorker<WayFinder, Void>{
+        /**
+         * Address of the server
+         */
+        private final String address;
+        /**
+         * Port of the server
+         */
+        private final int port;
+        /**
+         * Socket connected to the server
+         */
+        private Socket connection;
+
+        /**
+         * Connection's constructor, disables connecting again until the connection is done
+         * @param address address of the server
+         * @param port port of the server
+         */
+        Connection(String address, int port){
+            this.address = address;
+            this.port = port;
+            connectButton.setEnabled(false);
+        }
+
+        @Override
+        protected WayFinder doInBackground() throws IOException, ClassNotFoundException{
+            XStream xstream = new XStream();
+            xstream.setMode(XStream.ID_REFERENCES);
+            xstream.alias("node", Node.class);
+            xstream.alias("hashMap", HashMap.class);
+            System.out.println("łączę");
+            connection = new Socket(address, port);
+            System.out.println("połączyłem");
+            ObjectOutputStream outputStream = new ObjectOutputStream(connection.getOutputStream());
+            ObjectInputStream inputStream = new ObjectInputStream(connection.getInputStream());
+            System.out.println("Strumienie ok");
+            outputStream.writeObject("GRAPHFILE");
+            GraphFileInfo graphFileInfo = null;
+            connection.setSoTimeout(HANDSHAKE_TIMEOUT);
+            try {
+                Object reply = inputStream.readObject();
+                if(reply instanceof GraphFileInfo){
+                    graphFileInfo = (GraphFileInfo) reply;
+                }
+            }catch (SocketTimeoutException exc){
+                connection.close();
+                connection = new Socket(address, port);
+                outputStream = new ObjectOutputStream(connection.getOutputStream());
+                inputStream = new ObjectInputStream(connection.getInputStream());
+            }
+            connection.setSoTimeout(0);
+            if(graphFileInfo != null && graphFileInfo.matchesLocalFile()){
+                WayFinder wayFinder = openGraphFile(new File(graphFileInfo.getPath()));
+                if(wayFinder != null){
+                    return wayFinder;
+                }
+            }
+            outputStream.writeObject("SEND");
+            System.out.println("wysłano");
+            HashMap<String, Node> graph = (HashMap<String, Node>) xstream.fromXML((String) inputStream.readObject());
+            System.out.println("dostałem");
+            return new WayFinder(graph);
+        }
+
+        @Override
+        protected void done(){
+            try {
+                wayFinder = get();
+                socket = connection;
+            }catch (ExecutionException exc){
+                exc.getCause().printStackTrace();
+                socket = null;
+                JOptionPane.showMessageDialog(mainPanel, "Cannot receive the graph from the server!");
+            }catch (InterruptedException exc){
+                exc.printStackTrace();
+            }finally {
+                connectButton.setEnabled(true);
+            }
+        }
+
+        /**
+         * Opens the graph file together with the landmarks, the hierarchy and the arc flags saved next to it
+         * @param graphFile the graph file
+         * @return WayFinder of the graph or null if the graph file cannot be opened
+         * @throws FileNotFoundException if the graph file does not exist
+         */
+        private WayFinder openGraphFile(File graphFile) throws FileNotFoundException{
+            CompactGraph compactGraph;
+            try {
+                compactGraph = GraphFile.open(graphFile);
+            }catch (GraphFileException exc){
+                exc.printStackTrace();
+                return null;
+            }
+            WayFinder wayFinder = new WayFinder(compactGraph);
+            File landmarksFile = new File(Landmarks.landmarksPathFor(graphFile.getPath()));
+            if(landmarksFile.isFile()){
+                try {
+                    wayFinder.setLandmarks(Landmarks.open(landmarksFile, compactGraph));
+                }catch (GraphFileException exc){
+                    exc.printStackTrace();
+                }
+            }
+            File hierarchyFile = new File(ContractionHierarchy.hierarchyPathFor(graphFile.getPath()));
+            if(hierarchyFile.isFile()){
+                try {
+                    wayFinder.setContractionHierarchy(ContractionHierarchy.open(hierarchyFile, compactGraph));
+                }catch (GraphFileException exc){
+                    exc.printStackTrace();
+                }
+            }
+            File flagsFile = new File(ArcFlags.flagsPathFor(graphFile.getPath()));
+            if(flagsFile.isFile()){
+                try {
+                    wayFinder.setArcFlags(ArcFlags.open(flagsFile, compactGraph));
+                }catch (GraphFileException exc){
+                    exc.printStackTrace();
+                }
+            }
+            return wayFinder;
+        }
+    }
 }
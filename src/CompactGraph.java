@@ -0,0 +1,630 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable graph in compressed sparse row form. Nodes are numbered from 0, edges of the Node v are
+ * stored at positions from getFirstEdge(v) to getEdgeEnd(v) of the target and weight arrays.
+ * The arrays are kept in buffers, so the graph can be read in place from a memory-mapped GraphFile.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class CompactGraph implements Serializable{
+    /**
+     * Number of Nodes
+     */
+    private final int nodeCount;
+    /**
+     * Number of edges
+     */
+    private final int edgeCount;
+    /**
+     * Holds ids of the Nodes
+     */
+    private transient LongBuffer ids;
+    /**
+     * Holds numbers of the Nodes sorted by their ids, used to find Nodes by id
+     */
+    private transient IntBuffer idOrder;
+    /**
+     * Holds latitudes of the Nodes
+     */
+    private transient DoubleBuffer latitudes;
+    /**
+     * Holds longitudes of the Nodes
+     */
+    private transient DoubleBuffer longitudes;
+    /**
+     * Holds positions of the first edge of every Node, the last element is the number of edges
+     */
+    private transient IntBuffer offsets;
+    /**
+     * Holds target Nodes of the edges
+     */
+    private transient IntBuffer targets;
+    /**
+     * Holds lengths of the edges in meters
+     */
+    private transient FloatBuffer weights;
+    /**
+     * Holds references of the edges' shapes, null if the graph has no shapes
+     */
+    private transient IntBuffer shapes;
+    /**
+     * Holds shape points of the edges, null if the graph has no shapes
+     */
+    private EdgeShapes edgeShapes;
+
+    /**
+     * CompactGraph's constructor, arrays are not copied
+     * @param ids ids of the Nodes
+     * @param latitudes latitudes of the Nodes
+     * @param longitudes longitudes of the Nodes
+     * @param offsets positions of the first edge of every Node and the number of edges
+     * @param targets target Nodes of the edges
+     * @param weights lengths of the edges in meters
+     * @param shapes references of the edges' shapes or null
+     * @param edgeShapes shape points of the edges or null
+     */
+    public CompactGraph(long[] ids, double[] latitudes, double[] longitudes, int[] offsets, int[] targets, float[] weights, int[] shapes, EdgeShapes edgeShapes){
+        this(LongBuffer.wrap(ids), IntBuffer.wrap(sortById(ids)), DoubleBuffer.wrap(latitudes), DoubleBuffer.wrap(longitudes), IntBuffer.wrap(offsets),
+                IntBuffer.wrap(targets), FloatBuffer.wrap(weights), shapes != null ? IntBuffer.wrap(shapes) : null, edgeShapes);
+    }
+
+    /**
+     * CompactGraph's constructor, buffers are not copied and may be mapped from a file
+     * @param ids ids of the Nodes
+     * @param idOrder numbers of the Nodes sorted by their ids
+     * @param latitudes latitudes of the Nodes
+     * @param longitudes longitudes of the Nodes
+     * @param offsets positions of the first edge of every Node and the number of edges
+     * @param targets target Nodes of the edges
+     * @param weights lengths of the edges in meters
+     * @param shapes references of the edges' shapes or null
+     * @param edgeShapes shape points of the edges or null
+     */
+    public CompactGraph(LongBuffer ids, IntBuffer idOrder, DoubleBuffer latitudes, DoubleBuffer longitudes, IntBuffer offsets, IntBuffer targets, FloatBuffer weights, IntBuffer shapes, EdgeShapes edgeShapes){
+        int count = ids.limit();
+        if(idOrder.limit() != count || latitudes.limit() != count || longitudes.limit() != count || offsets.limit() != count + 1){
+            throw new IllegalArgumentException("Node arrays have different sizes!");
+        }
+        if(weights.limit() != targets.limit() || offsets.get(count) != targets.limit() || (shapes != null && shapes.limit() != targets.limit())){
+            throw new IllegalArgumentException("Edge arrays have different sizes!");
+        }
+        this.nodeCount = count;
+        this.edgeCount = targets.limit();
+        this.ids = ids;
+        this.idOrder = idOrder;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.shapes = shapes;
+        this.edgeShapes = edgeShapes;
+    }
+
+    /**
+     * Creates the graph from connected Nodes. Edges to Nodes missing in the container are skipped.
+     * @param nodes container with Nodes, their ids have to be numbers
+     * @param edgeShapes shape points referred to by the Nodes' edges or null
+     * @return new graph
+     */
+    public static CompactGraph fromNodes(Map<String, Node> nodes, EdgeShapes edgeShapes){
+        int count = nodes.size();
+        Node[] nodeArray = nodes.values().toArray(new Node[count]);
+        long[] ids = new long[count];
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        int[] offsets = new int[count + 1];
+        int edgeCount = 0;
+        for(int i = 0; i < count; i++){
+            nodeArray[i].setIndex(i);
+            try {
+                ids[i] = Long.parseLong(nodeArray[i].getId());
+            }catch (NumberFormatException e){
+                throw new IllegalArgumentException("Id of the Node is not a number: " + nodeArray[i].getId(), e);
+            }
+            latitudes[i] = nodeArray[i].getLatitude();
+            longitudes[i] = nodeArray[i].getLongitude();
+            edgeCount += nodeArray[i].getEdges().size();
+        }
+        int[] targets = new int[edgeCount];
+        float[] weights = new float[edgeCount];
+        int[] shapes = edgeShapes != null ? new int[edgeCount] : null;
+        int edge = 0;
+        Node target;
+        int index;
+        for(int i = 0; i < count; i++){
+            offsets[i] = edge;
+            for(int j = 0; j < nodeArray[i].getEdges().size(); j++){
+                target = nodeArray[i].getEdges().get(j);
+                index = target.getIndex();
+                if(index < 0 || index >= count || nodeArray[index] != target){
+                    continue;
+                }
+                targets[edge] = index;
+                weights[edge] = toWeight(nodeArray[i].getEdgeDistance(j));
+                if(shapes != null){
+                    shapes[edge] = nodeArray[i].getEdgeShape(j);
+                }
+                edge++;
+            }
+        }
+        offsets[count] = edge;
+        if(edge < edgeCount){
+            targets = Arrays.copyOf(targets, edge);
+            weights = Arrays.copyOf(weights, edge);
+            if(shapes != null){
+                shapes = Arrays.copyOf(shapes, edge);
+            }
+        }
+        return new CompactGraph(ids, latitudes, longitudes, offsets, targets, weights, shapes, edgeShapes);
+    }
+
+    /**
+     * Creates connected Node objects, used only when the whole graph is sent to a client which cannot open the graph file
+     * @return HashMap with new Nodes and their edges
+     */
+    public HashMap<String, Node> toNodes(){
+        Node[] nodeArray = new Node[nodeCount];
+        HashMap<String, Node> nodes = new HashMap<>(2 * nodeCount);
+        for(int i = 0; i < nodeCount; i++){
+            nodeArray[i] = createNode(i);
+            nodes.put(nodeArray[i].getId(), nodeArray[i]);
+        }
+        for(int i = 0; i < nodeCount; i++){
+            for(int j = getFirstEdge(i); j < getEdgeEnd(i); j++){
+                nodeArray[i].addEdge(nodeArray[getTarget(j)], getWeight(j), getShape(j));
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Rounds the length up to float, so the weight is never shorter than the straight distance
+     * @param distance length of the edge
+     * @return weight of the edge
+     */
+    public static float toWeight(double distance){
+        float weight = (float) distance;
+        if(weight < distance){
+            weight = Math.nextUp(weight);
+        }
+        return weight;
+    }
+
+    /**
+     * Returns numbers of the Nodes sorted by their ids
+     * @param ids ids of the Nodes
+     * @return sorted numbers of the Nodes
+     */
+    private static int[] sortById(long[] ids){
+        int[] order = new int[ids.length];
+        int[] buffer = new int[ids.length];
+        for(int i = 0; i < order.length; i++){
+            order[i] = i;
+        }
+        for(int width = 1; width < order.length; width *= 2){
+            for(int from = 0; from < order.length; from += 2 * width){
+                int middle = Math.min(from + width, order.length);
+                int to = Math.min(from + 2 * width, order.length);
+                int left = from, right = middle, position = from;
+                while(left < middle && right < to){
+                    buffer[position++] = ids[order[left]] <= ids[order[right]] ? order[left++] : order[right++];
+                }
+                while(left < middle){
+                    buffer[position++] = order[left++];
+                }
+                while(right < to){
+                    buffer[position++] = order[right++];
+                }
+            }
+            int[] swap = order;
+            order = buffer;
+            buffer = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Returns the number of Nodes
+     * @return number of Nodes
+     */
+    public int getNodeCount(){
+        return nodeCount;
+    }
+
+    /**
+     * Returns the number of edges
+     * @return number of edges
+     */
+    public int getEdgeCount(){
+        return edgeCount;
+    }
+
+    /**
+     * Returns the number of the Node, searching binarily in Nodes sorted by ids
+     * @param id id of the Node
+     * @return number of the Node or -1 if there is no such a Node
+     */
+    public int indexOf(String id){
+        long key;
+        try {
+            key = Long.parseLong(id);
+        }catch (NumberFormatException e){
+            return -1;
+        }
+        int low = 0, high = nodeCount - 1, middle, node;
+        long current;
+        while(low <= high){
+            middle = (low + high) >>> 1;
+            node = idOrder.get(middle);
+            current = ids.get(node);
+            if(current < key){
+                low = middle + 1;
+            }
+            else if(current > key){
+                high = middle - 1;
+            }
+            else{
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the id of the Node
+     * @param node number of the Node
+     * @return id of the Node
+     */
+    public String getId(int node){
+        return Long.toString(ids.get(node));
+    }
+
+    /**
+     * Returns the id of the Node as a number
+     * @param node number of the Node
+     * @return id of the Node
+     */
+    public long getLongId(int node){
+        return ids.get(node);
+    }
+
+    /**
+     * Returns the number of the Node which is at the given position when Nodes are sorted by ids
+     * @param position position in the sorted order
+     * @return number of the Node
+     */
+    public int getNodeInIdOrder(int position){
+        return idOrder.get(position);
+    }
+
+    /**
+     * Returns the latitude of the Node
+     * @param node number of the Node
+     * @return latitude of the Node
+     */
+    public double getLatitude(int node){
+        return latitudes.get(node);
+    }
+
+    /**
+     * Returns the longitude of the Node
+     * @param node number of the Node
+     * @return longitude of the Node
+     */
+    public double getLongitude(int node){
+        return longitudes.get(node);
+    }
+
+    /**
+     * Returns the position of the first edge of the Node
+     * @param node number of the Node
+     * @return position of the first edge
+     */
+    public int getFirstEdge(int node){
+        return offsets.get(node);
+    }
+
+    /**
+     * Returns the position after the last edge of the Node
+     * @param node number of the Node
+     * @return position after the last edge
+     */
+    public int getEdgeEnd(int node){
+        return offsets.get(node + 1);
+    }
+
+    /**
+     * Returns the target Node of the edge
+     * @param edge position of the edge
+     * @return number of the target Node
+     */
+    public int getTarget(int edge){
+        return targets.get(edge);
+    }
+
+    /**
+     * Returns the length of the edge
+     * @param edge position of the edge
+     * @return length of the edge in meters
+     */
+    public float getWeight(int edge){
+        return weights.get(edge);
+    }
+
+    /**
+     * Checks whether the graph has shapes of the edges
+     * @return true if shapes are stored
+     */
+    public boolean hasShapes(){
+        return shapes != null;
+    }
+
+    /**
+     * Returns the reference of the edge's shape
+     * @param edge position of the edge
+     * @return reference of the shape in getEdgeShapes() or EdgeShapes.NO_SHAPE
+     */
+    public int getShape(int edge){
+        return shapes == null ? EdgeShapes.NO_SHAPE : shapes.get(edge);
+    }
+
+    /**
+     * Returns shape points of the edges
+     * @return EdgeShapes or null if the graph has no shapes
+     */
+    public EdgeShapes getEdgeShapes(){
+        return edgeShapes;
+    }
+
+    /**
+     * Returns the shape points of the edge, i.e. the points of the road between its ends
+     * @param edge number of the edge
+     * @return Nodes without ids at the shape points in the direction of the edge, empty if the edge has no shape
+     */
+    public ArrayList<Node> getEdgePoints(int edge){
+        int shape = getShape(edge);
+        int pointCount = edgeShapes != null ? edgeShapes.getPointCount(shape) : 0;
+        ArrayList<Node> points = new ArrayList<>(pointCount);
+        for(int point = 0; point < pointCount; point++){
+            points.add(new Node(edgeShapes.getLatitude(shape, point), edgeShapes.getLongitude(shape, point)));
+        }
+        return points;
+    }
+
+    /**
+     * Returns the points of the way along the roads, used to draw and save found ways. Between every two Nodes
+     * of the way the shape points of the shortest edge joining them are inserted.
+     * @param way Nodes of the way
+     * @return Nodes of the way with Nodes without ids at the shape points between them
+     */
+    public ArrayList<Node> getWayPoints(List<Node> way){
+        ArrayList<Node> points = new ArrayList<>(way.size());
+        int from, to, shortest;
+        for(int i = 0; i < way.size(); i++){
+            if(i > 0){
+                from = indexOf(way.get(i - 1).getId());
+                to = indexOf(way.get(i).getId());
+                shortest = -1;
+                for(int edge = from >= 0 ? getFirstEdge(from) : 0; from >= 0 && edge < getEdgeEnd(from); edge++){
+                    if(getTarget(edge) == to && (shortest < 0 || getWeight(edge) < getWeight(shortest))){
+                        shortest = edge;
+                    }
+                }
+                if(shortest >= 0){
+                    points.addAll(getEdgePoints(shortest));
+                }
+            }
+            points.add(way.get(i));
+        }
+        return points;
+    }
+
+    /**
+     * Returns the straight distance between the Nodes, computed like Node.distance
+     * @param from number of the first Node
+     * @param to number of the second Node
+     * @return distance in meters
+     */
+    public double distance(int from, int to){
+        return distance(from, latitudes.get(to), longitudes.get(to));
+    }
+
+    /**
+     * Returns the straight distance between the Node and the point, computed like Node.distance
+     * @param node number of the Node
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return distance in meters
+     */
+    public double distance(int node, double latitude, double longitude){
+        double R = 6371e3;
+        double phi1 = Math.toRadians(latitudes.get(node));
+        double phi2 = Math.toRadians(latitude);
+        double deltaPhi = Math.toRadians(latitude - latitudes.get(node));
+        double deltaLambda = Math.toRadians(longitude - longitudes.get(node));
+        double a = Math.sin(deltaPhi/2)*Math.sin(deltaPhi/2)+Math.cos(phi1)*Math.cos(phi2)*Math.sin(deltaLambda/2)*Math.sin(deltaLambda/2);
+        double c = 2*Math.atan2(Math.sqrt(a), Math.sqrt(1-a));
+        return R*c;
+    }
+
+    /**
+     * Returns the number of the Node lying exactly at the point, like Node.equals compares Nodes
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return number of the Node or -1 if there is no such a Node
+     */
+    public int indexAt(double latitude, double longitude){
+        for(int node = 0; node < nodeCount; node++){
+            if(Double.compare(latitudes.get(node), latitude) == 0 && Double.compare(longitudes.get(node), longitude) == 0){
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of the Node closest to the point
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     * @return number of the Node or -1 if the graph is empty
+     */
+    public int closestNode(double latitude, double longitude){
+        int closest = -1;
+        double closestDistance = Double.MAX_VALUE, distance;
+        for(int node = 0; node < nodeCount; node++){
+            distance = distance(node, latitude, longitude);
+            if(distance < closestDistance){
+                closestDistance = distance;
+                closest = node;
+            }
+        }
+        return closest;
+    }
+
+    /**
+     * Creates the graph with reversed edges, used by searches going from the goal towards the start.
+     * The new graph shares the arrays of the Nodes with this graph.
+     * @return graph with the edge from v to u for every edge from u to v, or this graph if every edge
+     * has the reverse edge of the same weight
+     */
+    public CompactGraph reverse(){
+        int[] reverseOffsets = new int[nodeCount + 1];
+        for(int i = 0; i < edgeCount; i++){
+            reverseOffsets[targets.get(i) + 1]++;
+        }
+        for(int i = 0; i < nodeCount; i++){
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] next = Arrays.copyOf(reverseOffsets, nodeCount);
+        int[] reverseTargets = new int[edgeCount];
+        float[] reverseWeights = new float[edgeCount];
+        int position;
+        for(int node = 0; node < nodeCount; node++){
+            for(int i = offsets.get(node); i < offsets.get(node + 1); i++){
+                position = next[targets.get(i)]++;
+                reverseTargets[position] = node;
+                reverseWeights[position] = weights.get(i);
+            }
+        }
+        if(isSymmetric(reverseOffsets, reverseTargets, reverseWeights)){
+            return this;
+        }
+        return new CompactGraph(ids, idOrder, latitudes, longitudes, IntBuffer.wrap(reverseOffsets), IntBuffer.wrap(reverseTargets),
+                FloatBuffer.wrap(reverseWeights), null, null);
+    }
+
+    /**
+     * Checks if the reversed edges are the same as the edges of this graph
+     * @param reverseOffsets positions of the first reversed edge of every Node
+     * @param reverseTargets target Nodes of the reversed edges
+     * @param reverseWeights lengths of the reversed edges
+     * @return true if every Node has the same edges in both graphs
+     */
+    private boolean isSymmetric(int[] reverseOffsets, int[] reverseTargets, float[] reverseWeights){
+        long[] edges = new long[0];
+        long[] reverseEdges = new long[0];
+        int first, degree;
+        for(int node = 0; node < nodeCount; node++){
+            first = offsets.get(node);
+            degree = offsets.get(node + 1) - first;
+            if(degree != reverseOffsets[node + 1] - reverseOffsets[node]){
+                return false;
+            }
+            if(edges.length < degree){
+                edges = new long[degree];
+                reverseEdges = new long[degree];
+            }
+            for(int i = 0; i < degree; i++){
+                edges[i] = (long) targets.get(first + i) << 32 | Float.floatToIntBits(weights.get(first + i)) & 0xFFFFFFFFL;
+                reverseEdges[i] = (long) reverseTargets[reverseOffsets[node] + i] << 32 | Float.floatToIntBits(reverseWeights[reverseOffsets[node] + i]) & 0xFFFFFFFFL;
+            }
+            Arrays.sort(edges, 0, degree);
+            Arrays.sort(reverseEdges, 0, degree);
+            for(int i = 0; i < degree; i++){
+                if(edges[i] != reverseEdges[i]){
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Creates the Node object with the id and coordinates of the Node, without edges
+     * @param node number of the Node
+     * @return new Node
+     */
+    public Node createNode(int node){
+        return new Node(getId(node), getLatitude(node), getLongitude(node));
+    }
+
+    /**
+     * Writes the arrays of the graph, also when they are mapped from a file
+     * @param out stream the graph is written to
+     * @throws IOException if the stream cannot be written
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException{
+        out.defaultWriteObject();
+        long[] idArray = new long[nodeCount];
+        int[] orderArray = new int[nodeCount];
+        double[] latitudeArray = new double[nodeCount];
+        double[] longitudeArray = new double[nodeCount];
+        int[] offsetArray = new int[nodeCount + 1];
+        int[] targetArray = new int[edgeCount];
+        float[] weightArray = new float[edgeCount];
+        ids.duplicate().get(idArray);
+        idOrder.duplicate().get(orderArray);
+        latitudes.duplicate().get(latitudeArray);
+        longitudes.duplicate().get(longitudeArray);
+        offsets.duplicate().get(offsetArray);
+        targets.duplicate().get(targetArray);
+        weights.duplicate().get(weightArray);
+        out.writeObject(idArray);
+        out.writeObject(orderArray);
+        out.writeObject(latitudeArray);
+        out.writeObject(longitudeArray);
+        out.writeObject(offsetArray);
+        out.writeObject(targetArray);
+        out.writeObject(weightArray);
+        int[] shapeArray = null;
+        if(shapes != null){
+            shapeArray = new int[edgeCount];
+            shapes.duplicate().get(shapeArray);
+        }
+        out.writeObject(shapeArray);
+    }
+
+    /**
+     * Reads the arrays of the graph
+     * @param in stream the graph is read from
+     * @throws IOException if the stream cannot be read
+     * @throws ClassNotFoundException if the stream contains unknown classes
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException{
+        in.defaultReadObject();
+        ids = LongBuffer.wrap((long[]) in.readObject());
+        idOrder = IntBuffer.wrap((int[]) in.readObject());
+        latitudes = DoubleBuffer.wrap((double[]) in.readObject());
+        longitudes = DoubleBuffer.wrap((double[]) in.readObject());
+        offsets = IntBuffer.wrap((int[]) in.readObject());
+        targets = IntBuffer.wrap((int[]) in.readObject());
+        weights = FloatBuffer.wrap((float[]) in.readObject());
+        int[] shapeArray = (int[]) in.readObject();
+        shapes = shapeArray != null ? IntBuffer.wrap(shapeArray) : null;
+    }
+}
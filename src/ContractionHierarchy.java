@@ -0,0 +1,641 @@
+import WayFinderExceptions.GraphFileException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Class holding Contraction Hierarchy of CompactGraph. Every Node has its rank, upward edges lead to the Nodes
+ * with higher ranks and downward edges come from them, edges of both kinds may be shortcuts skipping a contracted
+ * middle Node. The shortest way is found by two searches which use only the edges leading up, from the start
+ * and backwards from the goal, and its shortcuts are unpacked into the edges of the graph. The hierarchy can be
+ * saved to a file next to the graph file and opened by memory mapping.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ContractionHierarchy {
+    /**
+     * Extension of hierarchy files added to the name of the graph file
+     */
+    public static final String EXTENSION = ".ch";
+    /**
+     * Number starting every hierarchy file ("MGCH")
+     */
+    private static final int MAGIC = 0x4D474348;
+    /**
+     * Version of the format written by this class
+     */
+    private static final int VERSION = 1;
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 24;
+    /**
+     * Number of the edges of the graph, used to check that the hierarchy belongs to the graph
+     */
+    private final int graphEdgeCount;
+    /**
+     * Ranks of the Nodes
+     */
+    private final IntBuffer ranks;
+    /**
+     * Holds the position of the first upward edge of every Node, the last entry is the number of upward edges
+     */
+    private final IntBuffer upOffsets;
+    /**
+     * Target Nodes of the upward edges
+     */
+    private final IntBuffer upTargets;
+    /**
+     * Lengths of the upward edges
+     */
+    private final FloatBuffer upWeights;
+    /**
+     * Middle Nodes of the upward edges, -1 for the edges of the graph
+     */
+    private final IntBuffer upMiddles;
+    /**
+     * Holds the position of the first downward edge of every Node, the last entry is the number of downward edges
+     */
+    private final IntBuffer downOffsets;
+    /**
+     * Source Nodes of the downward edges
+     */
+    private final IntBuffer downSources;
+    /**
+     * Lengths of the downward edges
+     */
+    private final FloatBuffer downWeights;
+    /**
+     * Middle Nodes of the downward edges, -1 for the edges of the graph
+     */
+    private final IntBuffer downMiddles;
+
+    /**
+     * ContractionHierarchy's constructor
+     * @param graphEdgeCount number of the edges of the graph
+     * @param ranks ranks of the Nodes
+     * @param upOffsets positions of the first upward edges
+     * @param upTargets target Nodes of the upward edges
+     * @param upWeights lengths of the upward edges
+     * @param upMiddles middle Nodes of the upward edges
+     * @param downOffsets positions of the first downward edges
+     * @param downSources source Nodes of the downward edges
+     * @param downWeights lengths of the downward edges
+     * @param downMiddles middle Nodes of the downward edges
+     */
+    ContractionHierarchy(int graphEdgeCount, int[] ranks, int[] upOffsets, int[] upTargets, float[] upWeights, int[] upMiddles,
+                         int[] downOffsets, int[] downSources, float[] downWeights, int[] downMiddles){
+        this(graphEdgeCount, IntBuffer.wrap(ranks), IntBuffer.wrap(upOffsets), IntBuffer.wrap(upTargets), FloatBuffer.wrap(upWeights),
+                IntBuffer.wrap(upMiddles), IntBuffer.wrap(downOffsets), IntBuffer.wrap(downSources), FloatBuffer.wrap(downWeights),
+                IntBuffer.wrap(downMiddles));
+    }
+
+    /**
+     * ContractionHierarchy's constructor used for the mapped files
+     * @param graphEdgeCount number of the edges of the graph
+     * @param ranks ranks of the Nodes
+     * @param upOffsets positions of the first upward edges
+     * @param upTargets target Nodes of the upward edges
+     * @param upWeights lengths of the upward edges
+     * @param upMiddles middle Nodes of the upward edges
+     * @param downOffsets positions of the first downward edges
+     * @param downSources source Nodes of the downward edges
+     * @param downWeights lengths of the downward edges
+     * @param downMiddles middle Nodes of the downward edges
+     */
+    private ContractionHierarchy(int graphEdgeCount, IntBuffer ranks, IntBuffer upOffsets, IntBuffer upTargets, FloatBuffer upWeights,
+                                 IntBuffer upMiddles, IntBuffer downOffsets, IntBuffer downSources, FloatBuffer downWeights,
+                                 IntBuffer downMiddles){
+        this.graphEdgeCount = graphEdgeCount;
+        this.ranks = ranks;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.upWeights = upWeights;
+        this.upMiddles = upMiddles;
+        this.downOffsets = downOffsets;
+        this.downSources = downSources;
+        this.downWeights = downWeights;
+        this.downMiddles = downMiddles;
+    }
+
+    /**
+     * Contracts the graph using all available processors
+     * @param graph contracted graph
+     * @return ContractionHierarchy of the graph
+     */
+    public static ContractionHierarchy build(CompactGraph graph){
+        return new ContractionHierarchyBuilder(graph).build();
+    }
+
+    /**
+     * Returns the number of the Nodes
+     * @return number of the Nodes
+     */
+    public int getNodeCount(){
+        return ranks.limit();
+    }
+
+    /**
+     * Returns the number of the upward and downward edges together
+     * @return number of the edges of the hierarchy
+     */
+    public int getEdgeCount(){
+        return upTargets.limit() + downSources.limit();
+    }
+
+    /**
+     * Returns the rank of the Node
+     * @param node number of the Node
+     * @return rank, Nodes with higher ranks have been contracted later
+     */
+    public int getRank(int node){
+        return ranks.get(node);
+    }
+
+    /**
+     * Checks that the hierarchy has been computed for the graph
+     * @param graph checked graph
+     * @return true if the graph has the same numbers of Nodes and edges
+     */
+    public boolean matches(CompactGraph graph){
+        return graph.getNodeCount() == getNodeCount() && graph.getEdgeCount() == graphEdgeCount;
+    }
+
+    /**
+     * Finds the shortest way with the upward searches from the start and from the goal. A Node reached by a longer
+     * way than the one going down to it from a Node with a higher rank is not expanded (stall-on-demand).
+     * @param forward search state of the search from the start
+     * @param backward search state of the search from the goal
+     * @param start number of the start Node
+     * @param goal number of the goal Node
+     * @return number of the Node with the highest rank on the shortest way or -1 if there is no way
+     */
+    int search(QueryContext forward, QueryContext backward, int start, int goal){
+        forward.prepare(start);
+        backward.prepare(goal);
+        IndexedHeap forwardQueue = forward.getQueue();
+        IndexedHeap backwardQueue = backward.getQueue();
+        double best = Double.MAX_VALUE;
+        int meeting = -1;
+        boolean isForward;
+        QueryContext current, other;
+        IndexedHeap queue;
+        int node;
+        double nodeDst, otherDst;
+        while(Math.min(forwardQueue.peekKey(), backwardQueue.peekKey()) < best){
+            isForward = forwardQueue.peekKey() <= backwardQueue.peekKey();
+            current = isForward ? forward : backward;
+            other = isForward ? backward : forward;
+            queue = isForward ? forwardQueue : backwardQueue;
+            nodeDst = queue.peekKey();
+            node = queue.poll();
+            current.settle(node);
+            otherDst = other.getDistance(node);
+            if(otherDst != Double.MAX_VALUE && nodeDst + otherDst < best){
+                best = nodeDst + otherDst;
+                meeting = node;
+            }
+            if(isForward){
+                if(!isStalled(current, node, nodeDst, downOffsets, downSources, downWeights)){
+                    relax(current, node, nodeDst, upOffsets, upTargets, upWeights);
+                }
+            }
+            else if(!isStalled(current, node, nodeDst, upOffsets, upTargets, upWeights)){
+                relax(current, node, nodeDst, downOffsets, downSources, downWeights);
+            }
+        }
+        forward.setSettledCount(forward.getSettledCount() + backward.getSettledCount());
+        return meeting;
+    }
+
+    /**
+     * Relaxes the edges leading up from the Node
+     * @param context search state
+     * @param node number of the settled Node
+     * @param nodeDst distance of the Node
+     * @param offsets positions of the first edges of the searched direction
+     * @param targets other Nodes of the edges
+     * @param weights lengths of the edges
+     */
+    private static void relax(QueryContext context, int node, double nodeDst, IntBuffer offsets, IntBuffer targets, FloatBuffer weights){
+        IndexedHeap queue = context.getQueue();
+        int tmp;
+        double tmpDst;
+        for(int i = offsets.get(node); i < offsets.get(node + 1); i++){
+            tmp = targets.get(i);
+            tmpDst = nodeDst + weights.get(i);
+            if(tmpDst < context.getDistance(tmp)){
+                context.update(tmp, tmpDst, node);
+                queue.insertOrDecrease(tmp, tmpDst);
+            }
+        }
+    }
+
+    /**
+     * Checks if the Node can be reached by a shorter way coming down from a Node with a higher rank
+     * @param context search state
+     * @param node number of the settled Node
+     * @param nodeDst distance of the Node
+     * @param offsets positions of the first edges of the opposite direction
+     * @param sources other Nodes of the edges
+     * @param weights lengths of the edges
+     * @return true if the Node does not have to be expanded
+     */
+    private static boolean isStalled(QueryContext context, int node, double nodeDst, IntBuffer offsets, IntBuffer sources, FloatBuffer weights){
+        for(int i = offsets.get(node); i < offsets.get(node + 1); i++){
+            if(context.getDistance(sources.get(i)) + weights.get(i) < nodeDst){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the distances between all pairs of the sources and the targets with buckets. The backward upward
+     * search of every target leaves its distance in a bucket of every Node it settles, then the forward upward search
+     * of every source combines its distances with the buckets of the settled Nodes. Stalled Nodes are left out,
+     * their distances are not the shortest ones. The searches of the targets and of the sources run in parallel.
+     * @param sources numbers of the source Nodes, -1 for unknown Nodes
+     * @param targets numbers of the target Nodes, -1 for unknown Nodes
+     * @param distances array receiving the distances row by row, infinity if there is no way
+     * @param parallelism number of threads running the searches
+     */
+    void distances(int[] sources, int[] targets, double[] distances, int parallelism){
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        int nodeCount = getNodeCount();
+        SearchSpace[] targetSpaces = new SearchSpace[targets.length];
+        ThreadLocal<QueryContext> contexts = ThreadLocal.withInitial(() -> new QueryContext(nodeCount));
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            ParallelLoop.forEach(pool, targets.length, j -> {
+                if(targets[j] >= 0){
+                    targetSpaces[j] = searchSpace(contexts.get(), targets[j], false);
+                }
+            });
+            int[] bucketOffsets = new int[nodeCount + 1];
+            for(SearchSpace space: targetSpaces){
+                if(space != null){
+                    for(int i = 0; i < space.size; i++){
+                        bucketOffsets[space.nodes[i] + 1]++;
+                    }
+                }
+            }
+            for(int node = 0; node < nodeCount; node++){
+                bucketOffsets[node + 1] += bucketOffsets[node];
+            }
+            int[] bucketTargets = new int[bucketOffsets[nodeCount]];
+            double[] bucketDistances = new double[bucketTargets.length];
+            int[] positions = Arrays.copyOf(bucketOffsets, nodeCount);
+            int position;
+            for(int j = 0; j < targets.length; j++){
+                SearchSpace space = targetSpaces[j];
+                if(space != null){
+                    for(int i = 0; i < space.size; i++){
+                        position = positions[space.nodes[i]]++;
+                        bucketTargets[position] = j;
+                        bucketDistances[position] = space.distances[i];
+                    }
+                    targetSpaces[j] = null;
+                }
+            }
+            ParallelLoop.forEach(pool, sources.length, i -> {
+                if(sources[i] < 0){
+                    return;
+                }
+                SearchSpace space = searchSpace(contexts.get(), sources[i], true);
+                int row = i * targets.length, node, cell;
+                double distance;
+                for(int k = 0; k < space.size; k++){
+                    node = space.nodes[k];
+                    for(int b = bucketOffsets[node]; b < bucketOffsets[node + 1]; b++){
+                        cell = row + bucketTargets[b];
+                        distance = space.distances[k] + bucketDistances[b];
+                        if(distance < distances[cell]){
+                            distances[cell] = distance;
+                        }
+                    }
+                }
+            });
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs the upward search from the Node until the queue is empty and collects the Nodes which are not stalled
+     * @param context search state
+     * @param start number of the start Node
+     * @param forward true for the search from a source, false for the backward search from a target
+     * @return settled Nodes with their distances
+     */
+    private SearchSpace searchSpace(QueryContext context, int start, boolean forward){
+        context.prepare(start);
+        IndexedHeap queue = context.getQueue();
+        SearchSpace space = new SearchSpace();
+        int node;
+        double nodeDst;
+        while(!queue.isEmpty()){
+            nodeDst = queue.peekKey();
+            node = queue.poll();
+            context.settle(node);
+            if(forward){
+                if(!isStalled(context, node, nodeDst, downOffsets, downSources, downWeights)){
+                    space.add(node, nodeDst);
+                    relax(context, node, nodeDst, upOffsets, upTargets, upWeights);
+                }
+            }
+            else if(!isStalled(context, node, nodeDst, upOffsets, upTargets, upWeights)){
+                space.add(node, nodeDst);
+                relax(context, node, nodeDst, downOffsets, downSources, downWeights);
+            }
+        }
+        return space;
+    }
+
+    /**
+     * Returns the Nodes of the shortest way found by the search, with all shortcuts unpacked
+     * @param forward search state of the search from the start
+     * @param backward search state of the search from the goal
+     * @param meeting Node returned by the search
+     * @return numbers of the Nodes from the start to the goal
+     */
+    int[] unpackWay(QueryContext forward, QueryContext backward, int meeting){
+        int[] upWay = new int[16];
+        int length = 0;
+        for(int current = meeting; current != -1; current = forward.getPreviousNode(current)){
+            if(length == upWay.length){
+                upWay = Arrays.copyOf(upWay, 2 * length);
+            }
+            upWay[length++] = current;
+        }
+        IntPath path = new IntPath(upWay[length - 1]);
+        for(int i = length - 1; i > 0; i--){
+            unpackEdge(upWay[i], upWay[i - 1], path);
+        }
+        int next;
+        for(int current = meeting; (next = backward.getPreviousNode(current)) != -1; current = next){
+            unpackEdge(current, next, path);
+        }
+        return path.toArray();
+    }
+
+    /**
+     * Appends the Nodes of the edge of the hierarchy after its source, unpacking the shortcuts recursively
+     * @param from number of the source Node
+     * @param to number of the target Node
+     * @param path way the Nodes are appended to
+     */
+    private void unpackEdge(int from, int to, IntPath path){
+        int[] stack = new int[16];
+        int size = 0;
+        stack[size++] = from;
+        stack[size++] = to;
+        int middle;
+        while(size > 0){
+            to = stack[--size];
+            from = stack[--size];
+            middle = getMiddle(from, to);
+            if(middle < 0){
+                path.add(to);
+                continue;
+            }
+            if(size + 4 > stack.length){
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[size++] = middle;
+            stack[size++] = to;
+            stack[size++] = from;
+            stack[size++] = middle;
+        }
+    }
+
+    /**
+     * Returns the middle Node of the shortest edge of the hierarchy between the Nodes
+     * @param from number of the source Node
+     * @param to number of the target Node
+     * @return number of the middle Node or -1 if the edge belongs to the graph
+     */
+    int getMiddle(int from, int to){
+        boolean up = ranks.get(from) < ranks.get(to);
+        IntBuffer offsets = up ? upOffsets : downOffsets;
+        IntBuffer others = up ? upTargets : downSources;
+        FloatBuffer weights = up ? upWeights : downWeights;
+        IntBuffer middles = up ? upMiddles : downMiddles;
+        int node = up ? from : to;
+        int other = up ? to : from;
+        int best = -1;
+        for(int i = offsets.get(node); i < offsets.get(node + 1); i++){
+            if(others.get(i) == other && (best < 0 || weights.get(i) < weights.get(best))){
+                best = i;
+            }
+        }
+        if(best < 0){
+            throw new IllegalStateException("Hierarchy has no edge between Nodes " + from + " and " + to);
+        }
+        return middles.get(best);
+    }
+
+    /**
+     * Writes the hierarchy to the file, written first to a temporary file
+     * @param file destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException{
+        File temporary = new File(file.getPath() + ".tmp");
+        CRC32 checksum = new CRC32();
+        int nodeCount = getNodeCount();
+        try (FileOutputStream fileStream = new FileOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileStream, checksum), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nodeCount);
+            out.writeInt(graphEdgeCount);
+            out.writeInt(upTargets.limit());
+            out.writeInt(downSources.limit());
+            writeInts(out, ranks);
+            writeInts(out, upOffsets);
+            writeInts(out, upTargets);
+            writeFloats(out, upWeights);
+            writeInts(out, upMiddles);
+            writeInts(out, downOffsets);
+            writeInts(out, downSources);
+            writeFloats(out, downWeights);
+            writeInts(out, downMiddles);
+            out.flush();
+            long value = checksum.getValue();
+            out.writeLong(value);
+            out.flush();
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Writes the ints of the buffer followed by the padding
+     * @param out output of the file
+     * @param buffer written buffer
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeInts(DataOutputStream out, IntBuffer buffer) throws IOException{
+        for(int i = 0; i < buffer.limit(); i++){
+            out.writeInt(buffer.get(i));
+        }
+        GraphFile.pad(out, buffer.limit());
+    }
+
+    /**
+     * Writes the floats of the buffer followed by the padding
+     * @param out output of the file
+     * @param buffer written buffer
+     * @throws IOException if the output cannot be written
+     */
+    private static void writeFloats(DataOutputStream out, FloatBuffer buffer) throws IOException{
+        for(int i = 0; i < buffer.limit(); i++){
+            out.writeFloat(buffer.get(i));
+        }
+        GraphFile.pad(out, buffer.limit());
+    }
+
+    /**
+     * Opens the hierarchy file by memory mapping and verifies its checksum
+     * @param file opened file
+     * @param graph graph the hierarchy has been computed for
+     * @return ContractionHierarchy reading the mapped file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file is damaged, has unsupported version or belongs to another graph
+     */
+    public static ContractionHierarchy open(File file, CompactGraph graph) throws FileNotFoundException, GraphFileException{
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long fileSize = channel.size();
+            if(fileSize < HEADER_SIZE + 8){
+                throw new GraphFileException("Hierarchy file is too short!");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if(header.getInt() != MAGIC){
+                throw new GraphFileException("File is not a hierarchy file!");
+            }
+            int version = header.getInt();
+            if(version != VERSION){
+                throw new GraphFileException("Unsupported version of hierarchy file: " + version);
+            }
+            int nodes = header.getInt();
+            int edges = header.getInt();
+            int upCount = header.getInt();
+            int downCount = header.getInt();
+            if(nodes != graph.getNodeCount() || edges != graph.getEdgeCount()){
+                throw new GraphFileException("Hierarchy file belongs to another graph!");
+            }
+            if(upCount < 0 || downCount < 0){
+                throw new GraphFileException("Hierarchy file has incorrect header!");
+            }
+            long[] positions = new long[10];
+            long[] counts = {nodes, nodes + 1L, upCount, upCount, upCount, nodes + 1L, downCount, downCount, downCount};
+            positions[0] = HEADER_SIZE;
+            for(int i = 0; i < counts.length; i++){
+                positions[i + 1] = positions[i] + GraphFile.aligned(counts[i]);
+            }
+            long end = positions[counts.length];
+            if(end + 8 != fileSize){
+                throw new GraphFileException("Hierarchy file has incorrect size!");
+            }
+            if(channel.map(FileChannel.MapMode.READ_ONLY, end, 8).getLong() != GraphFile.checksum(channel, end)){
+                throw new GraphFileException("Hierarchy file is damaged, checksum does not match!");
+            }
+            ByteBuffer[] sections = new ByteBuffer[counts.length];
+            for(int i = 0; i < counts.length; i++){
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, positions[i], 4 * counts[i]);
+            }
+            IntBuffer upOffsets = sections[1].asIntBuffer();
+            IntBuffer downOffsets = sections[5].asIntBuffer();
+            if(upOffsets.get(nodes) != upCount || downOffsets.get(nodes) != downCount){
+                throw new GraphFileException("Hierarchy file has incorrect offsets!");
+            }
+            return new ContractionHierarchy(edges, sections[0].asIntBuffer(), upOffsets, sections[2].asIntBuffer(),
+                    sections[3].asFloatBuffer(), sections[4].asIntBuffer(), downOffsets, sections[6].asIntBuffer(),
+                    sections[7].asFloatBuffer(), sections[8].asIntBuffer());
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (IOException e){
+            throw new GraphFileException("Hierarchy file cannot be read!", e);
+        }
+    }
+
+    /**
+     * Returns the path of the hierarchy file written next to the graph file
+     * @param graphFile path to the graph file
+     * @return path to the hierarchy file
+     */
+    public static String hierarchyPathFor(String graphFile){
+        return graphFile + EXTENSION;
+    }
+
+    /**
+     * Growing list of the Nodes' numbers of an unpacked way
+     */
+    private static class IntPath{
+        private int[] nodes = new int[64];
+        private int size;
+
+        IntPath(int first){
+            add(first);
+        }
+
+        private void add(int node){
+            if(size == nodes.length){
+                nodes = Arrays.copyOf(nodes, 2 * size);
+            }
+            nodes[size++] = node;
+        }
+
+        private int[] toArray(){
+            return Arrays.copyOf(nodes, size);
+        }
+    }
+
+    /**
+     * Growing list of the Nodes settled by an upward search with their distances
+     */
+    private static class SearchSpace{
+        /**
+         * Numbers of the settled Nodes
+         */
+        private int[] nodes = new int[64];
+        /**
+         * Distances of the settled Nodes
+         */
+        private double[] distances = new double[64];
+        /**
+         * Number of the Nodes in the list
+         */
+        private int size;
+
+        /**
+         * Appends the Node
+         * @param node number of the Node
+         * @param distance distance of the Node
+         */
+        private void add(int node, double distance){
+            if(size == nodes.length){
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                distances = Arrays.copyOf(distances, 2 * size);
+            }
+            nodes[size] = node;
+            distances[size++] = distance;
+        }
+    }
+}
@@ -0,0 +1,563 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class contracting the Nodes of CompactGraph into ContractionHierarchy. Nodes are contracted in rounds, every round
+ * takes the Nodes whose priority is lower than the priorities of all their neighbours, so the Nodes of one round are
+ * never adjacent and their witness searches run in parallel. The priority of a Node is computed by simulating its
+ * contraction, it grows with the edge difference (added shortcuts minus removed edges) and with the number of
+ * the contracted neighbours. A shortcut is added unless the witness search, limited by the number of settled Nodes,
+ * finds a strictly shorter way avoiding the contracted Node. Ways of the same length are not accepted as witnesses,
+ * otherwise two Nodes of one round could each rely on a way through the other one.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ContractionHierarchyBuilder {
+    /**
+     * Maximal number of the Nodes settled by the witness search while contracting a Node
+     */
+    private static final int CONTRACTION_SETTLED_LIMIT = 1000;
+    /**
+     * Maximal number of the Nodes settled by the witness search while computing the priority of a Node
+     */
+    private static final int SIMULATION_SETTLED_LIMIT = 200;
+
+    /**
+     * Graph that is contracted
+     */
+    private final CompactGraph graph;
+    /**
+     * Number of threads used to contract the graph
+     */
+    private final int parallelism;
+    /**
+     * Edges leaving the Nodes, after contracting a Node they are its upward edges
+     */
+    private Adjacency[] outEdges;
+    /**
+     * Edges entering the Nodes, after contracting a Node they are its downward edges
+     */
+    private Adjacency[] inEdges;
+    /**
+     * Ranks of the contracted Nodes, -1 for the Nodes which have not been contracted yet
+     */
+    private int[] ranks;
+    /**
+     * Marks the Nodes selected for the current round
+     */
+    private boolean[] contracting;
+    /**
+     * Priorities of the Nodes which have not been contracted yet
+     */
+    private int[] priorities;
+    /**
+     * Numbers of the contracted neighbours of the Nodes
+     */
+    private int[] deletedNeighbours;
+    /**
+     * Holds the witness search of every thread
+     */
+    private ThreadLocal<WitnessSearch> witnessSearches;
+
+    /**
+     * ContractionHierarchyBuilder's constructor, uses all available processors
+     * @param graph graph that will be contracted
+     */
+    public ContractionHierarchyBuilder(CompactGraph graph){
+        this(graph, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * ContractionHierarchyBuilder's constructor
+     * @param graph graph that will be contracted
+     * @param parallelism number of threads used to contract the graph
+     */
+    public ContractionHierarchyBuilder(CompactGraph graph, int parallelism){
+        this.graph = graph;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Contracts all Nodes of the graph
+     * @return ContractionHierarchy of the graph
+     */
+    public ContractionHierarchy build(){
+        int nodeCount = graph.getNodeCount();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            createAdjacency();
+            ranks = new int[nodeCount];
+            Arrays.fill(ranks, -1);
+            contracting = new boolean[nodeCount];
+            priorities = new int[nodeCount];
+            deletedNeighbours = new int[nodeCount];
+            witnessSearches = ThreadLocal.withInitial(() -> new WitnessSearch(nodeCount));
+            final int[] remaining = new int[nodeCount];
+            for(int i = 0; i < nodeCount; i++){
+                remaining[i] = i;
+            }
+            ParallelLoop.forEach(pool, nodeCount, i -> updatePriority(remaining[i]));
+            int remainingCount = nodeCount;
+            int rank = 0;
+            final int[] selected = new int[nodeCount];
+            int[] touched = new int[nodeCount];
+            int[] touchedRounds = new int[nodeCount];
+            int[] lastContracted = new int[nodeCount];
+            Arrays.fill(lastContracted, -1);
+            int round = 0;
+            while(remainingCount > 0){
+                round++;
+                final int count = remainingCount;
+                ParallelLoop.forEach(pool, count, i -> contracting[remaining[i]] = isLocalMinimum(remaining[i]));
+                int selectedCount = 0;
+                remainingCount = 0;
+                for(int i = 0; i < count; i++){
+                    if(contracting[remaining[i]]){
+                        selected[selectedCount++] = remaining[i];
+                    }
+                    else{
+                        remaining[remainingCount++] = remaining[i];
+                    }
+                }
+                final Shortcuts[] shortcuts = new Shortcuts[selectedCount];
+                ParallelLoop.forEach(pool, selectedCount, i -> {
+                    shortcuts[i] = new Shortcuts();
+                    findShortcuts(selected[i], witnessSearches.get(), CONTRACTION_SETTLED_LIMIT, shortcuts[i]);
+                });
+                int touchedCount = 0;
+                for(int i = 0; i < selectedCount; i++){
+                    int node = selected[i];
+                    ranks[node] = rank++;
+                    contracting[node] = false;
+                    Adjacency out = outEdges[node];
+                    Adjacency in = inEdges[node];
+                    for(int j = 0; j < out.size + in.size; j++){
+                        int neighbour = j < out.size ? out.nodes[j] : in.nodes[j - out.size];
+                        if(j < out.size){
+                            inEdges[neighbour].remove(node);
+                        }
+                        else{
+                            outEdges[neighbour].remove(node);
+                        }
+                        if(lastContracted[neighbour] != node){
+                            lastContracted[neighbour] = node;
+                            deletedNeighbours[neighbour]++;
+                        }
+                        if(touchedRounds[neighbour] != round){
+                            touchedRounds[neighbour] = round;
+                            touched[touchedCount++] = neighbour;
+                        }
+                    }
+                    Shortcuts found = shortcuts[i];
+                    for(int j = 0; j < found.size; j++){
+                        outEdges[found.sources[j]].addOrDecrease(found.targets[j], found.weights[j], node);
+                        inEdges[found.targets[j]].addOrDecrease(found.sources[j], found.weights[j], node);
+                    }
+                }
+                final int[] updated = touched;
+                ParallelLoop.forEach(pool, touchedCount, i -> updatePriority(updated[i]));
+            }
+            return assemble();
+        }finally {
+            pool.shutdown();
+            outEdges = null;
+            inEdges = null;
+            contracting = null;
+            priorities = null;
+            deletedNeighbours = null;
+            witnessSearches = null;
+        }
+    }
+
+    /**
+     * Creates the adjacency lists of the graph, loops are left out and of the parallel edges the shortest is kept
+     */
+    private void createAdjacency(){
+        int nodeCount = graph.getNodeCount();
+        outEdges = new Adjacency[nodeCount];
+        inEdges = new Adjacency[nodeCount];
+        for(int i = 0; i < nodeCount; i++){
+            outEdges[i] = new Adjacency();
+            inEdges[i] = new Adjacency();
+        }
+        int target;
+        for(int node = 0; node < nodeCount; node++){
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                target = graph.getTarget(i);
+                if(target != node){
+                    outEdges[node].addOrDecrease(target, graph.getWeight(i), -1);
+                    inEdges[target].addOrDecrease(node, graph.getWeight(i), -1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the priority of the Node by simulating its contraction
+     * @param node number of the Node
+     */
+    private void updatePriority(int node){
+        int shortcuts = findShortcuts(node, witnessSearches.get(), SIMULATION_SETTLED_LIMIT, null);
+        int edgeDifference = shortcuts - outEdges[node].size - inEdges[node].size;
+        priorities[node] = 2 * edgeDifference + deletedNeighbours[node];
+    }
+
+    /**
+     * Checks if the priority of the Node is lower than the priorities of all its neighbours,
+     * equal priorities are ordered by the numbers of the Nodes
+     * @param node number of the Node
+     * @return true if the Node can be contracted in the current round
+     */
+    private boolean isLocalMinimum(int node){
+        int priority = priorities[node];
+        Adjacency out = outEdges[node];
+        Adjacency in = inEdges[node];
+        int neighbour;
+        for(int j = 0; j < out.size + in.size; j++){
+            neighbour = j < out.size ? out.nodes[j] : in.nodes[j - out.size];
+            if(priorities[neighbour] < priority || (priorities[neighbour] == priority && neighbour < node)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the shortcuts needed to contract the Node
+     * @param node number of the Node
+     * @param search witness search of the calling thread
+     * @param settledLimit maximal number of the Nodes settled by one witness search
+     * @param shortcuts container for the found shortcuts or null if only their number is needed
+     * @return number of the needed shortcuts
+     */
+    private int findShortcuts(int node, WitnessSearch search, int settledLimit, Shortcuts shortcuts){
+        Adjacency in = inEdges[node];
+        Adjacency out = outEdges[node];
+        int count = 0;
+        int source, target;
+        double inWeight, maxOutWeight, distance;
+        for(int i = 0; i < in.size; i++){
+            source = in.nodes[i];
+            inWeight = in.weights[i];
+            maxOutWeight = -1;
+            for(int j = 0; j < out.size; j++){
+                if(out.nodes[j] != source){
+                    maxOutWeight = Math.max(maxOutWeight, out.weights[j]);
+                }
+            }
+            if(maxOutWeight < 0){
+                continue;
+            }
+            search.run(source, node, out, inWeight + maxOutWeight, settledLimit);
+            for(int j = 0; j < out.size; j++){
+                target = out.nodes[j];
+                distance = inWeight + out.weights[j];
+                if(target != source && search.getDistance(target) >= distance){
+                    count++;
+                    if(shortcuts != null){
+                        shortcuts.add(source, target, distance);
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Creates the hierarchy from the edges which the Nodes had when they were contracted
+     * @return ContractionHierarchy of the graph
+     */
+    private ContractionHierarchy assemble(){
+        int nodeCount = graph.getNodeCount();
+        int[] upOffsets = new int[nodeCount + 1];
+        int[] downOffsets = new int[nodeCount + 1];
+        for(int node = 0; node < nodeCount; node++){
+            upOffsets[node + 1] = upOffsets[node] + outEdges[node].size;
+            downOffsets[node + 1] = downOffsets[node] + inEdges[node].size;
+        }
+        int[] upTargets = new int[upOffsets[nodeCount]];
+        float[] upWeights = new float[upOffsets[nodeCount]];
+        int[] upMiddles = new int[upOffsets[nodeCount]];
+        int[] downSources = new int[downOffsets[nodeCount]];
+        float[] downWeights = new float[downOffsets[nodeCount]];
+        int[] downMiddles = new int[downOffsets[nodeCount]];
+        for(int node = 0; node < nodeCount; node++){
+            outEdges[node].copyTo(upTargets, upWeights, upMiddles, upOffsets[node]);
+            inEdges[node].copyTo(downSources, downWeights, downMiddles, downOffsets[node]);
+        }
+        return new ContractionHierarchy(graph.getEdgeCount(), ranks, upOffsets, upTargets, upWeights, upMiddles,
+                downOffsets, downSources, downWeights, downMiddles);
+    }
+
+    /**
+     * Edges between one Node and the Nodes which have not been contracted yet. Positions of the edges of a long list
+     * are hashed by their Nodes, so an edge is found in constant time on the dense levels of the hierarchy.
+     */
+    private static class Adjacency{
+        /**
+         * Number of the edges above which their positions are hashed
+         */
+        private static final int INDEX_THRESHOLD = 16;
+        private int[] nodes = new int[4];
+        private double[] weights = new double[4];
+        private int[] middles = new int[4];
+        private int size;
+        /**
+         * Hash table of the positions of the edges increased by one, 0 for empty slots, null while the list is short
+         */
+        private int[] slots;
+
+        /**
+         * Adds the edge or shortens the existing edge to the same Node
+         * @param node number of the other Node
+         * @param weight length of the edge
+         * @param middle number of the contracted Node the shortcut goes through or -1 for an edge of the graph
+         */
+        private void addOrDecrease(int node, double weight, int middle){
+            int index = indexOf(node);
+            if(index >= 0){
+                if(weight < weights[index]){
+                    weights[index] = weight;
+                    middles[index] = middle;
+                }
+                return;
+            }
+            if(size == nodes.length){
+                nodes = Arrays.copyOf(nodes, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+                middles = Arrays.copyOf(middles, 2 * size);
+            }
+            nodes[size] = node;
+            weights[size] = weight;
+            middles[size] = middle;
+            size++;
+            if(slots != null && 2 * size <= slots.length){
+                slots[findSlot(node)] = size;
+            }
+            else if(size > INDEX_THRESHOLD){
+                rehash();
+            }
+        }
+
+        /**
+         * Removes the edge to the Node, the last edge takes its place
+         * @param node number of the other Node
+         */
+        private void remove(int node){
+            int index;
+            if(slots == null){
+                index = indexOf(node);
+                if(index < 0){
+                    return;
+                }
+            }
+            else{
+                int position = findSlot(node);
+                if(slots[position] == 0){
+                    return;
+                }
+                index = slots[position] - 1;
+                clearSlot(position);
+                if(index != size - 1){
+                    slots[findSlot(nodes[size - 1])] = index + 1;
+                }
+            }
+            size--;
+            nodes[index] = nodes[size];
+            weights[index] = weights[size];
+            middles[index] = middles[size];
+        }
+
+        /**
+         * Returns the position of the edge to the Node
+         * @param node number of the other Node
+         * @return position of the edge or -1 if there is no such edge
+         */
+        private int indexOf(int node){
+            if(slots != null){
+                return slots[findSlot(node)] - 1;
+            }
+            for(int i = 0; i < size; i++){
+                if(nodes[i] == node){
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the first slot of the hash table checked for the Node
+         * @param node number of the other Node
+         * @return position in the hash table
+         */
+        private int home(int node){
+            return (node * 0x9E3779B9) & (slots.length - 1);
+        }
+
+        /**
+         * Finds the slot of the hash table holding the edge to the Node
+         * @param node number of the other Node
+         * @return position of the edge's slot or of the empty slot ending the search if there is no such edge
+         */
+        private int findSlot(int node){
+            int position = home(node);
+            while(slots[position] != 0 && nodes[slots[position] - 1] != node){
+                position = (position + 1) & (slots.length - 1);
+            }
+            return position;
+        }
+
+        /**
+         * Empties the slot of the hash table, the following slots of the same run are shifted back,
+         * so every edge can still be found from its first slot
+         * @param position position of the emptied slot
+         */
+        private void clearSlot(int position){
+            int mask = slots.length - 1;
+            int next = position;
+            while(true){
+                next = (next + 1) & mask;
+                if(slots[next] == 0){
+                    break;
+                }
+                if(((next - home(nodes[slots[next] - 1])) & mask) >= ((next - position) & mask)){
+                    slots[position] = slots[next];
+                    position = next;
+                }
+            }
+            slots[position] = 0;
+        }
+
+        /**
+         * Creates the hash table large enough for twice the number of the edges
+         */
+        private void rehash(){
+            slots = new int[Integer.highestOneBit(size) * 4];
+            for(int i = 0; i < size; i++){
+                slots[findSlot(nodes[i])] = i + 1;
+            }
+        }
+
+        /**
+         * Copies the edges to the arrays of the hierarchy
+         * @param targets array of the other Nodes
+         * @param weights array of the lengths
+         * @param middles array of the middle Nodes
+         * @param position position of the first edge in the arrays
+         */
+        private void copyTo(int[] targets, float[] weights, int[] middles, int position){
+            for(int i = 0; i < size; i++){
+                targets[position + i] = this.nodes[i];
+                weights[position + i] = (float) this.weights[i];
+                middles[position + i] = this.middles[i];
+            }
+        }
+    }
+
+    /**
+     * Shortcuts found for one contracted Node
+     */
+    private static class Shortcuts{
+        private int[] sources = new int[4];
+        private int[] targets = new int[4];
+        private double[] weights = new double[4];
+        private int size;
+
+        private void add(int source, int target, double weight){
+            if(size == sources.length){
+                sources = Arrays.copyOf(sources, 2 * size);
+                targets = Arrays.copyOf(targets, 2 * size);
+                weights = Arrays.copyOf(weights, 2 * size);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            weights[size] = weight;
+            size++;
+        }
+    }
+
+    /**
+     * Dijkstra's search on the Nodes which have not been contracted yet, one instance is used by one thread
+     */
+    private class WitnessSearch{
+        private final double[] distances;
+        private final int[] stamps;
+        private final int[] targetStamps;
+        private final IndexedHeap queue;
+        private int generation;
+
+        WitnessSearch(int nodeCount){
+            this.distances = new double[nodeCount];
+            this.stamps = new int[nodeCount];
+            this.targetStamps = new int[nodeCount];
+            this.queue = new IndexedHeap(nodeCount);
+        }
+
+        /**
+         * Searches from the source avoiding the contracted Node, the search stops when all targets are settled
+         * or when no way shorter than maxDistance can be found
+         * @param source number of the start Node
+         * @param excluded number of the contracted Node
+         * @param targets edges leaving the contracted Node, their Nodes other than the source are the targets
+         * @param maxDistance length of the longest way through the contracted Node
+         * @param settledLimit number of the settled Nodes after which the search stops
+         */
+        private void run(int source, int excluded, Adjacency targets, double maxDistance, int settledLimit){
+            generation++;
+            if(generation == Integer.MAX_VALUE){
+                Arrays.fill(stamps, 0);
+                Arrays.fill(targetStamps, 0);
+                generation = 1;
+            }
+            int remainingTargets = 0;
+            for(int i = 0; i < targets.size; i++){
+                if(targets.nodes[i] != source){
+                    targetStamps[targets.nodes[i]] = generation;
+                    remainingTargets++;
+                }
+            }
+            queue.clear();
+            distances[source] = 0;
+            stamps[source] = generation;
+            queue.insertOrDecrease(source, 0);
+            int settled = 0;
+            int node, target;
+            double nodeDst, targetDst;
+            Adjacency out;
+            while(!queue.isEmpty() && settled < settledLimit && remainingTargets > 0){
+                nodeDst = queue.peekKey();
+                if(nodeDst >= maxDistance){
+                    return;
+                }
+                node = queue.poll();
+                settled++;
+                if(targetStamps[node] == generation){
+                    remainingTargets--;
+                }
+                out = outEdges[node];
+                for(int i = 0; i < out.size; i++){
+                    target = out.nodes[i];
+                    if(target == excluded){
+                        continue;
+                    }
+                    targetDst = nodeDst + out.weights[i];
+                    if(targetDst < getDistance(target)){
+                        distances[target] = targetDst;
+                        stamps[target] = generation;
+                        queue.insertOrDecrease(target, targetDst);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the distance found by the last search
+         * @param node number of the Node
+         * @return distance from the source or Double.MAX_VALUE if the Node has not been reached
+         */
+        private double getDistance(int node){
+            return stamps[node] == generation ? distances[node] : Double.MAX_VALUE;
+        }
+    }
+}
@@ -0,0 +1,727 @@
+import WayFinderExceptions.GraphFileException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Class holding the metric-independent part of Customizable Contraction Hierarchy. Nodes are ordered by nested
+ * dissection: the graph is split in halves along the coordinates, the boundary Nodes of one half become
+ * the separator with the highest ranks and the halves are ordered recursively. The Nodes are then eliminated
+ * in this order, which gives the arcs of the hierarchy: upper neighbours of every Node are connected with each
+ * other. The order and the arcs do not depend on the weights, so a new weight of every edge is applied by
+ * customization only, which computes the weights of the arcs from the lower triangles and returns
+ * ContractionHierarchy used by the queries. Ranks are used as the numbers of the Nodes inside this class.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class CustomizableContractionHierarchy {
+    /**
+     * Extension of the files added to the name of the graph file
+     */
+    public static final String EXTENSION = ".cch";
+    /**
+     * Number starting every file ("MGCC")
+     */
+    private static final int MAGIC = 0x4D474343;
+    /**
+     * Version of the format written by this class
+     */
+    private static final int VERSION = 1;
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 24;
+    /**
+     * Parts of the graph with at most so many Nodes are not split
+     */
+    private static final int LEAF_SIZE = 8;
+    /**
+     * Number of the edges of the graph, used to check that the hierarchy belongs to the graph
+     */
+    private final int graphEdgeCount;
+    /**
+     * Ranks of the Nodes
+     */
+    private final IntBuffer ranks;
+    /**
+     * Holds the position of the first arc of every rank, the last entry is the number of the arcs
+     */
+    private final IntBuffer upOffsets;
+    /**
+     * Upper ends of the arcs, ascending for every lower end
+     */
+    private final IntBuffer upTargets;
+    /**
+     * Arcs of the edges of the graph, twice the number of the arc plus 1 for edges going down, -1 for loops
+     */
+    private final IntBuffer edgeArcs;
+    /**
+     * Nodes in the order of their ranks
+     */
+    private final int[] order;
+    /**
+     * Holds the position of the first arc coming from below to every rank
+     */
+    private final int[] downOffsets;
+    /**
+     * Lower ends of the arcs coming from below
+     */
+    private final int[] downSources;
+    /**
+     * Numbers of the arcs coming from below
+     */
+    private final int[] downArcs;
+    /**
+     * Holds the position of the first rank of every level in levelRanks
+     */
+    private final int[] levelOffsets;
+    /**
+     * Ranks ordered by levels, the arcs of one level depend only on the arcs of lower levels
+     */
+    private final int[] levelRanks;
+
+    /**
+     * CustomizableContractionHierarchy's constructor, computes the arcs coming from below and the levels
+     * @param graphEdgeCount number of the edges of the graph
+     * @param ranks ranks of the Nodes
+     * @param upOffsets positions of the first arcs of the ranks
+     * @param upTargets upper ends of the arcs
+     * @param edgeArcs arcs of the edges of the graph
+     */
+    private CustomizableContractionHierarchy(int graphEdgeCount, IntBuffer ranks, IntBuffer upOffsets, IntBuffer upTargets, IntBuffer edgeArcs){
+        this.graphEdgeCount = graphEdgeCount;
+        this.ranks = ranks;
+        this.upOffsets = upOffsets;
+        this.upTargets = upTargets;
+        this.edgeArcs = edgeArcs;
+        int nodeCount = ranks.limit();
+        int arcCount = upTargets.limit();
+        this.order = new int[nodeCount];
+        for(int node = 0; node < nodeCount; node++){
+            order[ranks.get(node)] = node;
+        }
+        this.downOffsets = new int[nodeCount + 1];
+        for(int arc = 0; arc < arcCount; arc++){
+            downOffsets[upTargets.get(arc) + 1]++;
+        }
+        for(int rank = 0; rank < nodeCount; rank++){
+            downOffsets[rank + 1] += downOffsets[rank];
+        }
+        this.downSources = new int[arcCount];
+        this.downArcs = new int[arcCount];
+        int[] positions = Arrays.copyOf(downOffsets, nodeCount);
+        int[] levels = new int[nodeCount];
+        int levelCount = nodeCount > 0 ? 1 : 0;
+        int target;
+        for(int rank = 0; rank < nodeCount; rank++){
+            for(int arc = upOffsets.get(rank); arc < upOffsets.get(rank + 1); arc++){
+                target = upTargets.get(arc);
+                downSources[positions[target]] = rank;
+                downArcs[positions[target]++] = arc;
+                levels[target] = Math.max(levels[target], levels[rank] + 1);
+                levelCount = Math.max(levelCount, levels[target] + 1);
+            }
+        }
+        this.levelOffsets = new int[levelCount + 1];
+        for(int rank = 0; rank < nodeCount; rank++){
+            levelOffsets[levels[rank] + 1]++;
+        }
+        for(int level = 0; level < levelCount; level++){
+            levelOffsets[level + 1] += levelOffsets[level];
+        }
+        this.levelRanks = new int[nodeCount];
+        positions = Arrays.copyOf(levelOffsets, levelCount);
+        for(int rank = 0; rank < nodeCount; rank++){
+            levelRanks[positions[levels[rank]]++] = rank;
+        }
+    }
+
+    /**
+     * Computes the nested dissection order of the graph and the arcs of the hierarchy
+     * @param graph graph of the hierarchy
+     * @return CustomizableContractionHierarchy of the graph
+     */
+    public static CustomizableContractionHierarchy build(CompactGraph graph){
+        int nodeCount = graph.getNodeCount();
+        int[] neighbourOffsets = neighbourOffsets(graph);
+        int[] neighbours = neighbours(graph, neighbourOffsets);
+        int[] order = nestedDissection(graph, neighbourOffsets, neighbours);
+        int[] ranks = new int[nodeCount];
+        for(int rank = 0; rank < nodeCount; rank++){
+            ranks[order[rank]] = rank;
+        }
+        int[][] upper = new int[nodeCount][];
+        int[] sizes = new int[nodeCount];
+        for(int node = 0; node < nodeCount; node++){
+            for(int i = neighbourOffsets[node]; i < neighbourOffsets[node + 1]; i++){
+                if(ranks[neighbours[i]] > ranks[node]){
+                    append(upper, sizes, ranks[node], ranks[neighbours[i]]);
+                }
+            }
+        }
+        int[] upOffsets = new int[nodeCount + 1];
+        int size, parent;
+        for(int rank = 0; rank < nodeCount; rank++){
+            size = sizes[rank];
+            if(size > 0){
+                Arrays.sort(upper[rank], 0, size);
+                int unique = 1;
+                for(int i = 1; i < size; i++){
+                    if(upper[rank][i] != upper[rank][unique - 1]){
+                        upper[rank][unique++] = upper[rank][i];
+                    }
+                }
+                sizes[rank] = unique;
+                parent = upper[rank][0];
+                for(int i = 1; i < unique; i++){
+                    append(upper, sizes, parent, upper[rank][i]);
+                }
+            }
+            upOffsets[rank + 1] = upOffsets[rank] + sizes[rank];
+        }
+        int[] upTargets = new int[upOffsets[nodeCount]];
+        for(int rank = 0; rank < nodeCount; rank++){
+            if(sizes[rank] > 0){
+                System.arraycopy(upper[rank], 0, upTargets, upOffsets[rank], sizes[rank]);
+            }
+            upper[rank] = null;
+        }
+        int[] edgeArcs = new int[graph.getEdgeCount()];
+        int from, to;
+        for(int node = 0; node < nodeCount; node++){
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                from = ranks[node];
+                to = ranks[graph.getTarget(i)];
+                if(from == to){
+                    edgeArcs[i] = -1;
+                }
+                else if(from < to){
+                    edgeArcs[i] = 2 * Arrays.binarySearch(upTargets, upOffsets[from], upOffsets[from + 1], to);
+                }
+                else{
+                    edgeArcs[i] = 2 * Arrays.binarySearch(upTargets, upOffsets[to], upOffsets[to + 1], from) + 1;
+                }
+            }
+        }
+        return new CustomizableContractionHierarchy(graph.getEdgeCount(), IntBuffer.wrap(ranks), IntBuffer.wrap(upOffsets),
+                IntBuffer.wrap(upTargets), IntBuffer.wrap(edgeArcs));
+    }
+
+    /**
+     * Counts the neighbours of the Nodes in both directions
+     * @param graph graph whose edges are counted
+     * @return positions of the first neighbours of the Nodes, the last entry is the number of the neighbours
+     */
+    static int[] neighbourOffsets(CompactGraph graph){
+        int nodeCount = graph.getNodeCount();
+        int[] neighbourOffsets = new int[nodeCount + 1];
+        for(int node = 0; node < nodeCount; node++){
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                neighbourOffsets[node + 1]++;
+                neighbourOffsets[graph.getTarget(i) + 1]++;
+            }
+        }
+        for(int node = 0; node < nodeCount; node++){
+            neighbourOffsets[node + 1] += neighbourOffsets[node];
+        }
+        return neighbourOffsets;
+    }
+
+    /**
+     * Lists the neighbours of the Nodes in both directions
+     * @param graph graph whose edges are listed
+     * @param neighbourOffsets positions of the first neighbours of the Nodes
+     * @return neighbours of the Nodes, every edge gives a neighbour to both of its ends
+     */
+    static int[] neighbours(CompactGraph graph, int[] neighbourOffsets){
+        int nodeCount = graph.getNodeCount();
+        int[] neighbours = new int[neighbourOffsets[nodeCount]];
+        int[] positions = Arrays.copyOf(neighbourOffsets, nodeCount);
+        for(int node = 0; node < nodeCount; node++){
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                neighbours[positions[node]++] = graph.getTarget(i);
+                neighbours[positions[graph.getTarget(i)]++] = node;
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Appends the rank to the growing list of the upper neighbours
+     * @param upper lists of the upper neighbours
+     * @param sizes sizes of the lists
+     * @param rank rank whose list is extended
+     * @param neighbour appended rank
+     */
+    private static void append(int[][] upper, int[] sizes, int rank, int neighbour){
+        if(upper[rank] == null){
+            upper[rank] = new int[4];
+        }
+        else if(sizes[rank] == upper[rank].length){
+            upper[rank] = Arrays.copyOf(upper[rank], 2 * sizes[rank]);
+        }
+        upper[rank][sizes[rank]++] = neighbour;
+    }
+
+    /**
+     * Orders the Nodes by nested dissection. Every part is split at the median of the coordinate along one of four
+     * directions, the one whose boundary is the smallest, and the boundary of the smaller side becomes the separator.
+     * @param graph ordered graph
+     * @param neighbourOffsets positions of the first neighbours of the Nodes
+     * @param neighbours neighbours of the Nodes in both directions
+     * @return Nodes in the order of their ranks
+     */
+    private static int[] nestedDissection(CompactGraph graph, int[] neighbourOffsets, int[] neighbours){
+        int nodeCount = graph.getNodeCount();
+        int[] nodes = new int[nodeCount];
+        double meanLatitude = 0;
+        for(int node = 0; node < nodeCount; node++){
+            nodes[node] = node;
+            meanLatitude += graph.getLatitude(node) / nodeCount;
+        }
+        double scale = Math.cos(Math.toRadians(meanLatitude));
+        int[] marks = new int[nodeCount];
+        int mark = 0;
+        int[] candidate = new int[nodeCount];
+        int[] best = new int[nodeCount];
+        double[] keys = new double[nodeCount];
+        ArrayDeque<int[]> parts = new ArrayDeque<>();
+        parts.push(new int[]{0, nodeCount});
+        int from, to, size, half, bestSeparator, bestSide, separator, side;
+        double x, y;
+        while(!parts.isEmpty()){
+            int[] part = parts.pop();
+            from = part[0];
+            to = part[1];
+            size = to - from;
+            if(size <= LEAF_SIZE){
+                continue;
+            }
+            half = size / 2;
+            bestSeparator = Integer.MAX_VALUE;
+            bestSide = 0;
+            for(int direction = 0; direction < 4; direction++){
+                for(int i = 0; i < size; i++){
+                    candidate[i] = nodes[from + i];
+                    y = graph.getLatitude(candidate[i]);
+                    x = graph.getLongitude(candidate[i]) * scale;
+                    keys[i] = direction == 0 ? x : direction == 1 ? y : direction == 2 ? x + y : x - y;
+                }
+                select(keys, candidate, size, half);
+                mark += 2;
+                for(int i = 0; i < size; i++){
+                    marks[candidate[i]] = i < half ? mark - 1 : mark;
+                }
+                int lowerBoundary = 0, upperBoundary = 0;
+                for(int i = 0; i < size; i++){
+                    if(hasNeighbourMarked(candidate[i], i < half ? mark : mark - 1, marks, neighbourOffsets, neighbours)){
+                        if(i < half){
+                            lowerBoundary++;
+                        }
+                        else{
+                            upperBoundary++;
+                        }
+                    }
+                }
+                separator = Math.min(lowerBoundary, upperBoundary);
+                if(separator < bestSeparator){
+                    bestSeparator = separator;
+                    bestSide = lowerBoundary <= upperBoundary ? 0 : 1;
+                    System.arraycopy(candidate, 0, best, 0, size);
+                }
+            }
+            mark += 2;
+            for(int i = 0; i < size; i++){
+                marks[best[i]] = i < half ? mark - 1 : mark;
+            }
+            int lower = 0, upper = 0, separated = 0;
+            int first = bestSide == 0 ? 0 : half;
+            int end = bestSide == 0 ? half : size;
+            int node;
+            for(int i = 0; i < size; i++){
+                node = best[i];
+                boolean separatorNode = i >= first && i < end
+                        && hasNeighbourMarked(node, bestSide == 0 ? mark : mark - 1, marks, neighbourOffsets, neighbours);
+                if(separatorNode){
+                    candidate[separated++] = node;
+                }
+                else if(i < half){
+                    nodes[from + lower++] = node;
+                }
+                else{
+                    keys[upper++] = node;
+                }
+            }
+            for(int i = 0; i < upper; i++){
+                nodes[from + lower + i] = (int) keys[i];
+            }
+            System.arraycopy(candidate, 0, nodes, to - separated, separated);
+            if(separated == size){
+                continue;
+            }
+            parts.push(new int[]{from, from + lower});
+            parts.push(new int[]{from + lower, from + lower + upper});
+        }
+        return nodes;
+    }
+
+    /**
+     * Checks if any neighbour of the Node has the mark
+     * @param node number of the Node
+     * @param mark searched mark
+     * @param marks marks of the Nodes
+     * @param neighbourOffsets positions of the first neighbours of the Nodes
+     * @param neighbours neighbours of the Nodes in both directions
+     * @return true if a neighbour is marked
+     */
+    private static boolean hasNeighbourMarked(int node, int mark, int[] marks, int[] neighbourOffsets, int[] neighbours){
+        for(int i = neighbourOffsets[node]; i < neighbourOffsets[node + 1]; i++){
+            if(marks[neighbours[i]] == mark){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rearranges the first count Nodes so that the Nodes before the position have keys not greater than
+     * the keys of the Nodes after it
+     * @param keys keys of the Nodes, rearranged together with them
+     * @param nodes rearranged Nodes
+     * @param count number of the Nodes
+     * @param position position of the median
+     */
+    static void select(double[] keys, int[] nodes, int count, int position){
+        int left = 0, right = count - 1;
+        while(left < right){
+            double pivot = keys[(left + right) >>> 1];
+            int i = left, j = right;
+            while(i <= j){
+                while(keys[i] < pivot){
+                    i++;
+                }
+                while(keys[j] > pivot){
+                    j--;
+                }
+                if(i <= j){
+                    double key = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = key;
+                    int node = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = node;
+                    i++;
+                    j--;
+                }
+            }
+            if(position <= j){
+                right = j;
+            }
+            else if(position >= i){
+                left = i;
+            }
+            else{
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of the Nodes
+     * @return number of the Nodes
+     */
+    public int getNodeCount(){
+        return ranks.limit();
+    }
+
+    /**
+     * Returns the number of the arcs, every arc has a weight in both directions
+     * @return number of the arcs
+     */
+    public int getArcCount(){
+        return upTargets.limit();
+    }
+
+    /**
+     * Returns the number of the levels of the customization
+     * @return number of the levels
+     */
+    public int getLevelCount(){
+        return levelOffsets.length - 1;
+    }
+
+    /**
+     * Checks that the hierarchy has been computed for the graph
+     * @param graph checked graph
+     * @return true if the graph has the same numbers of Nodes and edges
+     */
+    public boolean matches(CompactGraph graph){
+        return graph.getNodeCount() == getNodeCount() && graph.getEdgeCount() == graphEdgeCount;
+    }
+
+    /**
+     * Applies the weights using all available processors
+     * @param weights weights of the edges of the graph, infinity for closed edges
+     * @return ContractionHierarchy with the weights
+     */
+    public ContractionHierarchy customize(float[] weights){
+        return customize(weights, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Applies the weights: arcs get the weights of their edges, then the levels are processed from the lowest one
+     * and every arc is shortened by the ways through the lower ends of its triangles. Ranks of one level are processed
+     * in parallel, every rank writes only its own arcs and reads the arcs of lower levels.
+     * @param weights weights of the edges of the graph, infinity for closed edges
+     * @param parallelism number of threads used to apply the weights
+     * @return ContractionHierarchy with the weights
+     * @throws IllegalArgumentException if the number of the weights is different from the number of the edges
+     */
+    public ContractionHierarchy customize(float[] weights, int parallelism){
+        if(weights.length != graphEdgeCount){
+            throw new IllegalArgumentException("Number of weights is different from the number of edges!");
+        }
+        int arcCount = getArcCount();
+        final float[] up = new float[arcCount];
+        final float[] down = new float[arcCount];
+        final int[] upMiddles = new int[arcCount];
+        final int[] downMiddles = new int[arcCount];
+        Arrays.fill(up, Float.POSITIVE_INFINITY);
+        Arrays.fill(down, Float.POSITIVE_INFINITY);
+        Arrays.fill(upMiddles, -1);
+        Arrays.fill(downMiddles, -1);
+        int edgeArc, arc;
+        for(int i = 0; i < graphEdgeCount; i++){
+            edgeArc = edgeArcs.get(i);
+            if(edgeArc < 0){
+                continue;
+            }
+            arc = edgeArc >>> 1;
+            if((edgeArc & 1) == 0){
+                up[arc] = Math.min(up[arc], weights[i]);
+            }
+            else{
+                down[arc] = Math.min(down[arc], weights[i]);
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            for(int level = 0; level < getLevelCount(); level++){
+                final int first = levelOffsets[level];
+                ParallelLoop.forEach(pool, levelOffsets[level + 1] - first,
+                        i -> customizeRank(levelRanks[first + i], up, down, upMiddles, downMiddles));
+            }
+        }finally {
+            pool.shutdown();
+        }
+        return createHierarchy(up, down, upMiddles, downMiddles);
+    }
+
+    /**
+     * Shortens the arcs of the rank by the ways through the lower ends of their triangles
+     * @param rank processed rank
+     * @param up weights of the arcs going up
+     * @param down weights of the arcs going down
+     * @param upMiddles middle ranks of the arcs going up
+     * @param downMiddles middle ranks of the arcs going down
+     */
+    private void customizeRank(int rank, float[] up, float[] down, int[] upMiddles, int[] downMiddles){
+        int lower, lowerArc, arc, end, target;
+        float toLower, fromLower;
+        for(int i = downOffsets[rank]; i < downOffsets[rank + 1]; i++){
+            lower = downSources[i];
+            lowerArc = downArcs[i];
+            toLower = down[lowerArc];
+            fromLower = up[lowerArc];
+            if(toLower == Float.POSITIVE_INFINITY && fromLower == Float.POSITIVE_INFINITY){
+                continue;
+            }
+            arc = upOffsets.get(rank);
+            end = upOffsets.get(lower + 1);
+            for(int j = lowerArc + 1; j < end; j++){
+                target = upTargets.get(j);
+                while(upTargets.get(arc) != target){
+                    arc++;
+                }
+                if(toLower + up[j] < up[arc]){
+                    up[arc] = toLower + up[j];
+                    upMiddles[arc] = lower;
+                }
+                if(down[j] + fromLower < down[arc]){
+                    down[arc] = down[j] + fromLower;
+                    downMiddles[arc] = lower;
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates the hierarchy of the Nodes from the customized arcs, arcs with infinite weights are left out
+     * @param up weights of the arcs going up
+     * @param down weights of the arcs going down
+     * @param upMiddles middle ranks of the arcs going up
+     * @param downMiddles middle ranks of the arcs going down
+     * @return ContractionHierarchy with the weights
+     */
+    private ContractionHierarchy createHierarchy(float[] up, float[] down, int[] upMiddles, int[] downMiddles){
+        int nodeCount = getNodeCount();
+        int[] nodeUpOffsets = new int[nodeCount + 1];
+        int[] nodeDownOffsets = new int[nodeCount + 1];
+        int rank;
+        for(int node = 0; node < nodeCount; node++){
+            rank = ranks.get(node);
+            nodeUpOffsets[node + 1] = nodeUpOffsets[node];
+            nodeDownOffsets[node + 1] = nodeDownOffsets[node];
+            for(int arc = upOffsets.get(rank); arc < upOffsets.get(rank + 1); arc++){
+                if(up[arc] != Float.POSITIVE_INFINITY){
+                    nodeUpOffsets[node + 1]++;
+                }
+                if(down[arc] != Float.POSITIVE_INFINITY){
+                    nodeDownOffsets[node + 1]++;
+                }
+            }
+        }
+        int[] upNodes = new int[nodeUpOffsets[nodeCount]];
+        float[] upWeights = new float[upNodes.length];
+        int[] upMiddleNodes = new int[upNodes.length];
+        int[] downNodes = new int[nodeDownOffsets[nodeCount]];
+        float[] downWeights = new float[downNodes.length];
+        int[] downMiddleNodes = new int[downNodes.length];
+        int upPosition = 0, downPosition = 0;
+        for(int node = 0; node < nodeCount; node++){
+            rank = ranks.get(node);
+            for(int arc = upOffsets.get(rank); arc < upOffsets.get(rank + 1); arc++){
+                if(up[arc] != Float.POSITIVE_INFINITY){
+                    upNodes[upPosition] = order[upTargets.get(arc)];
+                    upWeights[upPosition] = up[arc];
+                    upMiddleNodes[upPosition++] = upMiddles[arc] < 0 ? -1 : order[upMiddles[arc]];
+                }
+                if(down[arc] != Float.POSITIVE_INFINITY){
+                    downNodes[downPosition] = order[upTargets.get(arc)];
+                    downWeights[downPosition] = down[arc];
+                    downMiddleNodes[downPosition++] = downMiddles[arc] < 0 ? -1 : order[downMiddles[arc]];
+                }
+            }
+        }
+        int[] nodeRanks = new int[nodeCount];
+        for(int node = 0; node < nodeCount; node++){
+            nodeRanks[node] = ranks.get(node);
+        }
+        return new ContractionHierarchy(graphEdgeCount, nodeRanks, nodeUpOffsets, upNodes, upWeights, upMiddleNodes,
+                nodeDownOffsets, downNodes, downWeights, downMiddleNodes);
+    }
+
+    /**
+     * Writes the order and the arcs to the file, written first to a temporary file
+     * @param file destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException{
+        File temporary = new File(file.getPath() + ".tmp");
+        CRC32 checksum = new CRC32();
+        try (FileOutputStream fileStream = new FileOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileStream, checksum), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(getNodeCount());
+            out.writeInt(graphEdgeCount);
+            out.writeInt(getArcCount());
+            out.writeInt(0);
+            for(IntBuffer buffer: new IntBuffer[]{ranks, upOffsets, upTargets, edgeArcs}){
+                for(int i = 0; i < buffer.limit(); i++){
+                    out.writeInt(buffer.get(i));
+                }
+                GraphFile.pad(out, buffer.limit());
+            }
+            out.flush();
+            long value = checksum.getValue();
+            out.writeLong(value);
+            out.flush();
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Opens the file by memory mapping and verifies its checksum
+     * @param file opened file
+     * @param graph graph the hierarchy has been computed for
+     * @return CustomizableContractionHierarchy reading the mapped file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file is damaged, has unsupported version or belongs to another graph
+     */
+    public static CustomizableContractionHierarchy open(File file, CompactGraph graph) throws FileNotFoundException, GraphFileException{
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long fileSize = channel.size();
+            if(fileSize < HEADER_SIZE + 8){
+                throw new GraphFileException("Customizable hierarchy file is too short!");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if(header.getInt() != MAGIC){
+                throw new GraphFileException("File is not a customizable hierarchy file!");
+            }
+            int version = header.getInt();
+            if(version != VERSION){
+                throw new GraphFileException("Unsupported version of customizable hierarchy file: " + version);
+            }
+            int nodes = header.getInt();
+            int edges = header.getInt();
+            int arcs = header.getInt();
+            if(nodes != graph.getNodeCount() || edges != graph.getEdgeCount()){
+                throw new GraphFileException("Customizable hierarchy file belongs to another graph!");
+            }
+            if(arcs < 0){
+                throw new GraphFileException("Customizable hierarchy file has incorrect header!");
+            }
+            long[] counts = {nodes, nodes + 1L, arcs, edges};
+            long[] positions = new long[counts.length + 1];
+            positions[0] = HEADER_SIZE;
+            for(int i = 0; i < counts.length; i++){
+                positions[i + 1] = positions[i] + GraphFile.aligned(counts[i]);
+            }
+            long end = positions[counts.length];
+            if(end + 8 != fileSize){
+                throw new GraphFileException("Customizable hierarchy file has incorrect size!");
+            }
+            if(channel.map(FileChannel.MapMode.READ_ONLY, end, 8).getLong() != GraphFile.checksum(channel, end)){
+                throw new GraphFileException("Customizable hierarchy file is damaged, checksum does not match!");
+            }
+            IntBuffer[] sections = new IntBuffer[counts.length];
+            for(int i = 0; i < counts.length; i++){
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, positions[i], 4 * counts[i]).asIntBuffer();
+            }
+            if(sections[1].get(nodes) != arcs){
+                throw new GraphFileException("Customizable hierarchy file has incorrect offsets!");
+            }
+            return new CustomizableContractionHierarchy(edges, sections[0], sections[1], sections[2], sections[3]);
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (IOException e){
+            throw new GraphFileException("Customizable hierarchy file cannot be read!", e);
+        }
+    }
+
+    /**
+     * Returns the path of the file written next to the graph file
+     * @param graphFile path to the graph file
+     * @return path to the customizable hierarchy file
+     */
+    public static String hierarchyPathFor(String graphFile){
+        return graphFile + EXTENSION;
+    }
+}
@@ -3,7 +3,6 @@ import DataConverterExceptions.DataNotConvertedYetException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.ListIterator;
 
 /**
  * Class providing data converting
@@ -15,19 +14,23 @@ public class DataConverter implements Serializable{
     /**
      * Holds Nodes provided by MapReader that are changed then
      */
-    private HashMap<String, Node> nodes;
+    protected HashMap<String, Node> nodes;
     /**
      * Holds Ways provided by MapReader
      */
-    private ArrayList<Way> ways;
+    protected ArrayList<Way> ways;
     /**
      * Remembers if the data have been converted
      */
-    private boolean areDataConverted;
+    protected boolean areDataConverted;
     /**
      * Holds Nodes that will be from HashMap
      */
     private ArrayList<Node> unnecessaryNodes;
+    /**
+     * Holds shape points of the edges
+     */
+    protected EdgeShapes shapes;
 
     /**
      * DataConverter's constructor
@@ -38,41 +41,38 @@ public class DataConverter implements Serializable{
         this.nodes = nodes;
         this.ways = ways;
         this.unnecessaryNodes = new ArrayList<>();
+        this.shapes = new EdgeShapes();
         this.areDataConverted = false;
     }
 
     /**
-     * Marks Nodes that will be removed
+     * Marks Nodes that will stay on the graph, i.e. ends of Ways and Nodes shared by many Ways
      */
     private void markUnnecessaryNodes(){
-        Node currentNode;
-        ListIterator<Node> iterator;
+        ArrayList<Node> wayNodes;
         for(Way way: ways){
-            iterator = way.getNodes().listIterator(0);
-            if(!way.isRoundabout()){
-                currentNode = iterator.next();
-                currentNode.setNeeded();
-            }
-            currentNode = iterator.next();
-            while(iterator.hasNext()){
-                if(currentNode.getWaysCounter() <=1){
-                    iterator.remove();
-                    unnecessaryNodes.add(currentNode);
-                }
-                else{
-                    currentNode.setNeeded();
+            wayNodes = way.getNodes();
+            for(int i = 0; i < wayNodes.size(); i++){
+                if(isKept(way, i)){
+                    wayNodes.get(i).setNeeded();
                 }
-                currentNode = iterator.next();
-            }
-            if(!way.isRoundabout()){
-                currentNode.setNeeded();
-            }
-            else if(currentNode.getWaysCounter()<=1){
-                iterator.remove();
             }
         }
     }
 
+    /**
+     * Checks whether the Node of the Way stays on the graph
+     * @param way checked Way
+     * @param index position of the Node in the Way
+     * @return true if the Node is the end of not roundabout Way or it is used by many Ways
+     */
+    protected static boolean isKept(Way way, int index){
+        if(!way.isRoundabout() && (index == 0 || index == way.getNodes().size() - 1)){
+            return true;
+        }
+        return way.getNodes().get(index).getWaysCounter() > 1;
+    }
+
     /**
      * Removes unnecessary Nodes
      */
@@ -88,23 +88,72 @@ public class DataConverter implements Serializable{
     }
 
     /**
-     * Adds connections to the Nodes that are connected on map
+     * Adds connections to the Nodes that are connected on map. Chains of removed Nodes are collapsed into
+     * single edges weighted with the summed length of their segments, removed Nodes become the edges' shapes.
      */
     private void convertWaysIntoEdges(){
-        ListIterator<Node> iterator;
-        Node previousNode, currentNode;
+        EdgeSink sink = new EdgeSink() {
+            @Override
+            public void addEdge(Node source, Node target, double length, int shape) {
+                source.addEdge(target, length, shape);
+                target.addEdge(source, length, EdgeShapes.reverse(shape));
+            }
+        };
         for(Way way: ways){
-            iterator = way.getNodes().listIterator(0);
-            if(iterator.hasNext()) {
-                currentNode = iterator.next();
-                while (iterator.hasNext()) {
-                    previousNode = currentNode;
-                    currentNode = iterator.next();
-                    previousNode.addEdge(currentNode);
-                    currentNode.addEdge(previousNode);
+            convertWayIntoEdges(way, shapes, sink);
+        }
+        shapes.trim();
+    }
+
+    /**
+     * Collapses the Way into edges between its kept Nodes and leaves only the kept Nodes in the Way.
+     * Every edge is weighted with the summed length of its segments and the removed Nodes become its shape.
+     * @param way converted Way
+     * @param shapes shape points the shapes of the edges are added to
+     * @param sink receiver of the edges
+     */
+    protected static void convertWayIntoEdges(Way way, EdgeShapes shapes, EdgeSink sink){
+        ArrayList<Node> wayNodes = way.getNodes();
+        Node previousNode = null, currentNode;
+        double length = 0;
+        int kept = 0;
+        for(int i = 0; i < wayNodes.size(); i++){
+            currentNode = wayNodes.get(i);
+            if(i > 0){
+                length += wayNodes.get(i - 1).distance(currentNode);
+            }
+            if(isKept(way, i)){
+                if(previousNode != null){
+                    sink.addEdge(previousNode, currentNode, length, shapes.finishShape());
                 }
+                previousNode = currentNode;
+                length = 0;
+            }
+            else if(previousNode != null){
+                shapes.addPoint(currentNode.getLatitude(), currentNode.getLongitude());
+            }
+        }
+        shapes.discardShape();
+        for(int i = 0; i < wayNodes.size(); i++){
+            if(isKept(way, i)){
+                wayNodes.set(kept++, wayNodes.get(i));
             }
         }
+        wayNodes.subList(kept, wayNodes.size()).clear();
+    }
+
+    /**
+     * Receiver of the edges built from the Ways
+     */
+    protected interface EdgeSink{
+        /**
+         * Adds the edge between the Nodes in both directions
+         * @param source Node the edge starts at in the direction of the Way
+         * @param target Node the edge ends at in the direction of the Way
+         * @param length summed length of the segments of the edge
+         * @param shape reference of the edge's shape from source to target or EdgeShapes.NO_SHAPE
+         */
+        void addEdge(Node source, Node target, double length, int shape);
     }
 
     /**
@@ -117,6 +166,76 @@ public class DataConverter implements Serializable{
         this.areDataConverted = true;
     }
 
+    /**
+     * Returns shape points of the edges, referred to by Node.getEdgeShape
+     * @return EdgeShapes of the converted graph
+     * @throws DataNotConvertedYetException if the data have not been converted yet
+     */
+    public EdgeShapes returnEdgeShapes() throws DataNotConvertedYetException{
+        if(!areDataConverted){
+            throw new DataNotConvertedYetException("There was an attempt to return data without converting them!");
+        }
+        return shapes;
+    }
+
+    /**
+     * Returns converted data as the immutable graph used for searching
+     * @return CompactGraph with the converted Nodes, their edges and shapes
+     * @throws DataNotConvertedYetException if the data have not been converted yet
+     */
+    public CompactGraph returnCompactGraph() throws DataNotConvertedYetException{
+        if(!areDataConverted){
+            throw new DataNotConvertedYetException("There was an attempt to return data without converting them!");
+        }
+        return CompactGraph.fromNodes(nodes, shapes);
+    }
+
+    /**
+     * Returns highway types of the edges of the graph returned by returnCompactGraph. After converting, every Way
+     * holds only the Nodes kept on the graph, so its consecutive Nodes are joined by its edges in both directions.
+     * @param graph graph returned by returnCompactGraph
+     * @return types of the edges in the order of the graph's edges, null for edges not found in any Way
+     * @throws DataNotConvertedYetException if the data have not been converted yet
+     */
+    public String[] returnEdgeTypes(CompactGraph graph) throws DataNotConvertedYetException{
+        if(!areDataConverted){
+            throw new DataNotConvertedYetException("There was an attempt to return data without converting them!");
+        }
+        String[] types = new String[graph.getEdgeCount()];
+        ArrayList<Node> wayNodes;
+        int previous, current;
+        for(Way way: ways){
+            wayNodes = way.getNodes();
+            previous = -1;
+            for(Node node: wayNodes){
+                current = graph.indexOf(node.getId());
+                if(previous >= 0 && current >= 0){
+                    setEdgeType(graph, types, previous, current, way.getType());
+                    setEdgeType(graph, types, current, previous, way.getType());
+                }
+                previous = current;
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Sets the type of the first edge between the Nodes which has no type yet
+     * @param graph converted graph
+     * @param types types of the edges
+     * @param source number of the source Node
+     * @param target number of the target Node
+     * @param type highway type of the Way
+     */
+    private static void setEdgeType(CompactGraph graph, String[] types, int source, int target, String type){
+        for(int i = graph.getFirstEdge(source); i < graph.getEdgeEnd(source); i++){
+            if(graph.getTarget(i) == target && types[i] == null){
+                types[i] = type;
+                return;
+            }
+        }
+    }
+
     /**
      * Returns container with converted data
      * @return
@@ -0,0 +1,103 @@
+import java.util.Arrays;
+
+/**
+ * Class holding the distances between all pairs of the sources and the targets, stored row by row in one array,
+ * together with the time of their computation
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class DistanceMatrix {
+    /**
+     * Number of the sources
+     */
+    private final int sourceCount;
+    /**
+     * Number of the targets
+     */
+    private final int targetCount;
+    /**
+     * Distances row by row, infinity if there is no way
+     */
+    private final double[] distances;
+    /**
+     * Time of the computation in nanoseconds
+     */
+    private final long elapsedNanos;
+
+    /**
+     * DistanceMatrix's constructor
+     * @param sourceCount number of the sources
+     * @param targetCount number of the targets
+     * @param distances distances row by row
+     * @param elapsedNanos time of the computation in nanoseconds
+     */
+    DistanceMatrix(int sourceCount, int targetCount, double[] distances, long elapsedNanos){
+        this.sourceCount = sourceCount;
+        this.targetCount = targetCount;
+        this.distances = distances;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Returns the number of the sources
+     * @return number of the rows
+     */
+    public int getSourceCount(){
+        return sourceCount;
+    }
+
+    /**
+     * Returns the number of the targets
+     * @return number of the columns
+     */
+    public int getTargetCount(){
+        return targetCount;
+    }
+
+    /**
+     * Returns the distance from the source to the target
+     * @param source index of the source
+     * @param target index of the target
+     * @return length of the shortest way or infinity if there is no way
+     */
+    public double getDistance(int source, int target){
+        return distances[source * targetCount + target];
+    }
+
+    /**
+     * Returns the distances row by row, the distance from source i to target j is at i * getTargetCount() + j
+     * @return array of the distances, infinity if there is no way
+     */
+    public double[] getDistances(){
+        return distances;
+    }
+
+    /**
+     * Copies the distances to an array of rows
+     * @return distances, one row for every source
+     */
+    public double[][] toArray(){
+        double[][] rows = new double[sourceCount][];
+        for(int i = 0; i < sourceCount; i++){
+            rows[i] = Arrays.copyOfRange(distances, i * targetCount, (i + 1) * targetCount);
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the time of the computation
+     * @return time in nanoseconds
+     */
+    public long getElapsedNanos(){
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the throughput of the computation
+     * @return number of the distances computed in a second
+     */
+    public double getCellsPerSecond(){
+        return elapsedNanos > 0 ? (double) distances.length * 1e9 / elapsedNanos : Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,233 @@
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Class holding shape points of the graph's edges, i.e. Nodes removed from the middle of Ways while
+ * converting. Points of all shapes are kept in one array of fixed-point coordinates, the shape of the edge
+ * is referred to by its index and direction.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class EdgeShapes implements Serializable{
+    /**
+     * Number of fixed-point units in one degree
+     */
+    private static final double SCALE = 1e7;
+    /**
+     * Reference of the edge without shape points
+     */
+    public static final int NO_SHAPE = -1;
+
+    /**
+     * Holds latitudes and longitudes of the points one after another
+     */
+    private int[] coordinates;
+    /**
+     * Number of used elements of coordinates
+     */
+    private int coordinateCount;
+    /**
+     * Holds positions of the first coordinate of every shape, the last element is the end of the last shape
+     */
+    private int[] offsets;
+    /**
+     * Number of finished shapes
+     */
+    private int shapeCount;
+
+    /**
+     * Default constructor
+     */
+    public EdgeShapes(){
+        this.coordinates = new int[1024];
+        this.coordinateCount = 0;
+        this.offsets = new int[256];
+        this.shapeCount = 0;
+    }
+
+    /**
+     * Writes finished shapes as ints: number of shapes, number of coordinates, offsets and coordinates
+     * @param out output the shapes are written to
+     * @throws IOException if the output cannot be written
+     */
+    public void write(DataOutput out) throws IOException{
+        out.writeInt(shapeCount);
+        out.writeInt(offsets[shapeCount]);
+        for(int i = 0; i <= shapeCount; i++){
+            out.writeInt(offsets[i]);
+        }
+        for(int i = 0; i < offsets[shapeCount]; i++){
+            out.writeInt(coordinates[i]);
+        }
+    }
+
+    /**
+     * Returns the number of ints written by write()
+     * @return size of the written shapes in ints
+     */
+    public int getWrittenSize(){
+        return 3 + shapeCount + offsets[shapeCount];
+    }
+
+    /**
+     * Reads shapes written by write()
+     * @param in buffer positioned at the shapes
+     * @return read shapes
+     * @throws IOException if the data are not correct
+     */
+    public static EdgeShapes read(IntBuffer in) throws IOException{
+        int count = in.get();
+        int length = in.get();
+        if(count < 0 || length < 0 || in.remaining() < count + 1 + length){
+            throw new IOException("Incorrect size of edge shapes!");
+        }
+        EdgeShapes shapes = new EdgeShapes();
+        shapes.offsets = new int[count + 1];
+        shapes.coordinates = new int[length];
+        in.get(shapes.offsets);
+        in.get(shapes.coordinates);
+        shapes.shapeCount = count;
+        shapes.coordinateCount = length;
+        if(shapes.offsets[0] != 0 || shapes.offsets[count] != length){
+            throw new IOException("Incorrect offsets of edge shapes!");
+        }
+        return shapes;
+    }
+
+    /**
+     * Adds the point to the shape that is being built
+     * @param latitude latitude of the point
+     * @param longitude longitude of the point
+     */
+    public void addPoint(double latitude, double longitude){
+        if(coordinateCount + 2 > coordinates.length){
+            coordinates = Arrays.copyOf(coordinates, Math.max(16, coordinates.length * 2));
+        }
+        coordinates[coordinateCount++] = (int) Math.round(latitude * SCALE);
+        coordinates[coordinateCount++] = (int) Math.round(longitude * SCALE);
+    }
+
+    /**
+     * Finishes the shape that is being built
+     * @return reference of the shape in the direction of adding points, NO_SHAPE if no points were added
+     */
+    public int finishShape(){
+        if(coordinateCount == offsets[shapeCount]){
+            return NO_SHAPE;
+        }
+        if(shapeCount + 2 > offsets.length){
+            offsets = Arrays.copyOf(offsets, Math.max(16, offsets.length * 2));
+        }
+        shapeCount++;
+        offsets[shapeCount] = coordinateCount;
+        return 2 * (shapeCount - 1);
+    }
+
+    /**
+     * Appends all finished shapes of another object, dropping unfinished points of this one. References of appended shapes are moved by the returned value
+     * @param other appended shapes
+     * @return value added to references of the appended shapes
+     */
+    public int addAll(EdgeShapes other){
+        discardShape();
+        int shift = 2 * shapeCount;
+        int otherCoordinates = other.offsets[other.shapeCount];
+        if(coordinateCount + otherCoordinates > coordinates.length){
+            coordinates = Arrays.copyOf(coordinates, Math.max(coordinateCount + otherCoordinates, coordinates.length * 2));
+        }
+        if(shapeCount + other.shapeCount + 1 > offsets.length){
+            offsets = Arrays.copyOf(offsets, Math.max(shapeCount + other.shapeCount + 1, offsets.length * 2));
+        }
+        System.arraycopy(other.coordinates, 0, coordinates, coordinateCount, otherCoordinates);
+        for(int i = 1; i <= other.shapeCount; i++){
+            offsets[shapeCount + i] = coordinateCount + other.offsets[i];
+        }
+        shapeCount += other.shapeCount;
+        coordinateCount += otherCoordinates;
+        return shift;
+    }
+
+    /**
+     * Drops points added since the last finished shape
+     */
+    public void discardShape(){
+        coordinateCount = offsets[shapeCount];
+    }
+
+    /**
+     * Returns the reference of the same shape in the opposite direction
+     * @param shape reference of the shape
+     * @return reference of the reversed shape, NO_SHAPE if shape is NO_SHAPE
+     */
+    public static int reverse(int shape){
+        return shape == NO_SHAPE ? NO_SHAPE : shape ^ 1;
+    }
+
+    /**
+     * Returns the number of points of the shape
+     * @param shape reference of the shape
+     * @return number of points, 0 for NO_SHAPE
+     */
+    public int getPointCount(int shape){
+        if(shape == NO_SHAPE){
+            return 0;
+        }
+        int index = shape >> 1;
+        return (offsets[index + 1] - offsets[index]) / 2;
+    }
+
+    /**
+     * Returns the latitude of the shape's point
+     * @param shape reference of the shape
+     * @param point number of the point in the direction of the shape
+     * @return latitude of the point
+     */
+    public double getLatitude(int shape, int point){
+        return coordinates[position(shape, point)] / SCALE;
+    }
+
+    /**
+     * Returns the longitude of the shape's point
+     * @param shape reference of the shape
+     * @param point number of the point in the direction of the shape
+     * @return longitude of the point
+     */
+    public double getLongitude(int shape, int point){
+        return coordinates[position(shape, point) + 1] / SCALE;
+    }
+
+    /**
+     * Returns the number of finished shapes
+     * @return number of shapes
+     */
+    public int size(){
+        return shapeCount;
+    }
+
+    /**
+     * Frees memory not used by finished shapes
+     */
+    public void trim(){
+        coordinates = Arrays.copyOf(coordinates, offsets[shapeCount]);
+        coordinateCount = offsets[shapeCount];
+        offsets = Arrays.copyOf(offsets, shapeCount + 1);
+    }
+
+    /**
+     * Finds the position of the point's latitude in coordinates
+     * @param shape reference of the shape
+     * @param point number of the point in the direction of the shape
+     * @return position of the latitude
+     */
+    private int position(int shape, int point){
+        int index = shape >> 1;
+        if((shape & 1) != 0){
+            point = getPointCount(shape) - 1 - point;
+        }
+        return offsets[index] + 2 * point;
+    }
+}
@@ -0,0 +1,299 @@
+import WayFinderExceptions.GraphFileException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Class writing CompactGraph to a binary file and opening such a file by memory mapping, so the graph is
+ * read in place and processes on one host share the pages. The file starts with a header
+ * (magic number, version, flags, number of Nodes, number of edges, size of shapes), then come 8-byte aligned
+ * sections: ids, latitudes, longitudes, id order, offsets, targets, weights and optionally edge shapes.
+ * The file ends with CRC32 of all preceding bytes.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class GraphFile {
+    /**
+     * Extension of graph files
+     */
+    public static final String EXTENSION = ".graph";
+    /**
+     * Number starting every graph file ("MGGF")
+     */
+    private static final int MAGIC = 0x4D474746;
+    /**
+     * Version of the format written by this class
+     */
+    public static final int VERSION = 1;
+    /**
+     * Flag of files containing edge shapes
+     */
+    private static final int SHAPES_FLAG = 1;
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 24;
+    /**
+     * Size of the window used to compute the checksum
+     */
+    private static final long CHECKSUM_WINDOW = 1L << 28;
+
+    /**
+     * Writes the graph to the file. The data are written to a temporary file first, so readers never see
+     * a partially written graph.
+     * @param graph written graph
+     * @param file destination file
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(CompactGraph graph, File file) throws IOException{
+        File temporary = new File(file.getPath() + ".tmp");
+        CRC32 checksum = new CRC32();
+        int nodeCount = graph.getNodeCount();
+        int edgeCount = graph.getEdgeCount();
+        EdgeShapes edgeShapes = graph.hasShapes() ? graph.getEdgeShapes() : null;
+        try (FileOutputStream fileStream = new FileOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileStream, checksum), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(edgeShapes != null ? SHAPES_FLAG : 0);
+            out.writeInt(nodeCount);
+            out.writeInt(edgeCount);
+            out.writeInt(edgeShapes != null ? edgeShapes.getWrittenSize() : 0);
+            for(int i = 0; i < nodeCount; i++){
+                out.writeLong(graph.getLongId(i));
+            }
+            for(int i = 0; i < nodeCount; i++){
+                out.writeDouble(graph.getLatitude(i));
+            }
+            for(int i = 0; i < nodeCount; i++){
+                out.writeDouble(graph.getLongitude(i));
+            }
+            for(int i = 0; i < nodeCount; i++){
+                out.writeInt(graph.getNodeInIdOrder(i));
+            }
+            pad(out, nodeCount);
+            for(int i = 0; i < nodeCount; i++){
+                out.writeInt(graph.getFirstEdge(i));
+            }
+            out.writeInt(edgeCount);
+            pad(out, nodeCount + 1);
+            for(int i = 0; i < edgeCount; i++){
+                out.writeInt(graph.getTarget(i));
+            }
+            pad(out, edgeCount);
+            for(int i = 0; i < edgeCount; i++){
+                out.writeFloat(graph.getWeight(i));
+            }
+            pad(out, edgeCount);
+            if(edgeShapes != null){
+                for(int i = 0; i < edgeCount; i++){
+                    out.writeInt(graph.getShape(i));
+                }
+                pad(out, edgeCount);
+                edgeShapes.write(out);
+                pad(out, edgeShapes.getWrittenSize());
+            }
+            out.flush();
+            long value = checksum.getValue();
+            out.writeLong(value);
+            out.flush();
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Opens the graph file by memory mapping. Only the header and the size of the file are checked, so opening
+     * takes the same time for every size; open(file, true) verifies the checksum of the whole file as well.
+     * @param file opened file
+     * @return graph reading the mapped file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file has incorrect header or size or has unsupported version
+     */
+    public static CompactGraph open(File file) throws FileNotFoundException, GraphFileException{
+        return open(file, false);
+    }
+
+    /**
+     * Opens the graph file by memory mapping
+     * @param file opened file
+     * @param verifyChecksum true to read the whole file once and compare its checksum
+     * @return graph reading the mapped file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file is damaged or has unsupported version
+     */
+    public static CompactGraph open(File file, boolean verifyChecksum) throws FileNotFoundException, GraphFileException{
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long size = channel.size();
+            if(size < HEADER_SIZE + 8){
+                throw new GraphFileException("Graph file is too short!");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if(header.getInt() != MAGIC){
+                throw new GraphFileException("File is not a graph file!");
+            }
+            int version = header.getInt();
+            if(version != VERSION){
+                throw new GraphFileException("Unsupported version of graph file: " + version);
+            }
+            boolean hasShapes = (header.getInt() & SHAPES_FLAG) != 0;
+            int nodeCount = header.getInt();
+            int edgeCount = header.getInt();
+            int shapesSize = header.getInt();
+            if(nodeCount < 0 || edgeCount < 0 || shapesSize < 0){
+                throw new GraphFileException("Graph file has incorrect header!");
+            }
+            long position = HEADER_SIZE;
+            long idsPosition = position;
+            position += 8L * nodeCount;
+            long latitudesPosition = position;
+            position += 8L * nodeCount;
+            long longitudesPosition = position;
+            position += 8L * nodeCount;
+            long orderPosition = position;
+            position += aligned(nodeCount);
+            long offsetsPosition = position;
+            position += aligned(nodeCount + 1L);
+            long targetsPosition = position;
+            position += aligned(edgeCount);
+            long weightsPosition = position;
+            position += aligned(edgeCount);
+            long shapesPosition = position;
+            long edgeShapesPosition = position;
+            if(hasShapes){
+                position += aligned(edgeCount);
+                edgeShapesPosition = position;
+                position += aligned(shapesSize);
+            }
+            if(position + 8 != size){
+                throw new GraphFileException("Graph file has incorrect size!");
+            }
+            if(verifyChecksum){
+                long stored = channel.map(FileChannel.MapMode.READ_ONLY, position, 8).getLong();
+                if(stored != checksum(channel, position)){
+                    throw new GraphFileException("Graph file is damaged, checksum does not match!");
+                }
+            }
+            EdgeShapes edgeShapes = null;
+            if(hasShapes){
+                edgeShapes = EdgeShapes.read(map(channel, edgeShapesPosition, 4L * shapesSize).asIntBuffer());
+            }
+            return new CompactGraph(map(channel, idsPosition, 8L * nodeCount).asLongBuffer(),
+                    map(channel, orderPosition, 4L * nodeCount).asIntBuffer(),
+                    map(channel, latitudesPosition, 8L * nodeCount).asDoubleBuffer(),
+                    map(channel, longitudesPosition, 8L * nodeCount).asDoubleBuffer(),
+                    map(channel, offsetsPosition, 4L * (nodeCount + 1)).asIntBuffer(),
+                    map(channel, targetsPosition, 4L * edgeCount).asIntBuffer(),
+                    map(channel, weightsPosition, 4L * edgeCount).asFloatBuffer(),
+                    hasShapes ? map(channel, shapesPosition, 4L * edgeCount).asIntBuffer() : null,
+                    edgeShapes);
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (IOException | IllegalArgumentException e){
+            throw new GraphFileException("Graph file cannot be read!", e);
+        }
+    }
+
+    /**
+     * Reads the checksum stored at the end of the graph file without computing it again, so that two copies
+     * of the file can be compared cheaply
+     * @param file read file
+     * @return stored checksum
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file is not a graph file or has unsupported version
+     */
+    public static long readChecksum(File file) throws FileNotFoundException, GraphFileException{
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            long size = randomAccessFile.length();
+            if(size < HEADER_SIZE + 8){
+                throw new GraphFileException("Graph file is too short!");
+            }
+            if(randomAccessFile.readInt() != MAGIC){
+                throw new GraphFileException("File is not a graph file!");
+            }
+            int version = randomAccessFile.readInt();
+            if(version != VERSION){
+                throw new GraphFileException("Unsupported version of graph file: " + version);
+            }
+            randomAccessFile.seek(size - 8);
+            return randomAccessFile.readLong();
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (IOException e){
+            throw new GraphFileException("Graph file cannot be read!", e);
+        }
+    }
+
+    /**
+     * Returns the path of the graph file written next to the map file
+     * @param mapFile path to the map file
+     * @return path to the graph file
+     */
+    public static String graphPathFor(String mapFile){
+        return mapFile + EXTENSION;
+    }
+
+    /**
+     * Maps the section of the file
+     * @param channel channel of the file
+     * @param position position of the section
+     * @param size size of the section in bytes
+     * @return mapped section
+     * @throws IOException if the section cannot be mapped
+     * @throws GraphFileException if the section is bigger than a single mapping
+     */
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException, GraphFileException{
+        if(size > Integer.MAX_VALUE){
+            throw new GraphFileException("Section of graph file is too big!");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    }
+
+    /**
+     * Computes CRC32 of the beginning of the file
+     * @param channel channel of the file
+     * @param length number of bytes
+     * @return checksum of the bytes
+     * @throws IOException if the file cannot be mapped
+     */
+    static long checksum(FileChannel channel, long length) throws IOException{
+        CRC32 checksum = new CRC32();
+        for(long position = 0; position < length; position += CHECKSUM_WINDOW){
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(CHECKSUM_WINDOW, length - position)));
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Returns the size of the int section padded to 8 bytes
+     * @param count number of ints
+     * @return size of the section in bytes
+     */
+    static long aligned(long count){
+        return 4 * (count + (count & 1));
+    }
+
+    /**
+     * Writes padding after the int section, so the next section starts at 8 bytes boundary
+     * @param out output of the file
+     * @param count number of ints in the section
+     * @throws IOException if the output cannot be written
+     */
+    static void pad(DataOutputStream out, long count) throws IOException{
+        if((count & 1) != 0){
+            out.writeInt(0);
+        }
+    }
+}
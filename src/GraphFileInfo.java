@@ -0,0 +1,93 @@
+import WayFinderExceptions.GraphFileException;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.Serializable;
+
+/**
+ * Description of the graph file sent by the server to the client, which opens the file at the same path only
+ * if it has the version and the checksum of the server's file
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class GraphFileInfo implements Serializable{
+    /**
+     * Path to the graph file on the server
+     */
+    private final String path;
+    /**
+     * Version of the format of the graph file
+     */
+    private final int version;
+    /**
+     * Checksum stored in the graph file
+     */
+    private final long checksum;
+
+    /**
+     * GraphFileInfo's constructor
+     * @param path path to the graph file
+     * @param version version of the format of the graph file
+     * @param checksum checksum stored in the graph file
+     */
+    public GraphFileInfo(String path, int version, long checksum){
+        this.path = path;
+        this.version = version;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Describes the graph file
+     * @param file described graph file
+     * @return GraphFileInfo of the file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file is not a graph file or has unsupported version
+     */
+    public static GraphFileInfo describe(File file) throws FileNotFoundException, GraphFileException{
+        return new GraphFileInfo(file.getAbsolutePath(), GraphFile.VERSION, GraphFile.readChecksum(file));
+    }
+
+    /**
+     * Returns the path to the graph file on the server
+     * @return path to the graph file
+     */
+    public String getPath(){
+        return path;
+    }
+
+    /**
+     * Returns the version of the format of the graph file
+     * @return version of the format
+     */
+    public int getVersion(){
+        return version;
+    }
+
+    /**
+     * Returns the checksum stored in the graph file
+     * @return checksum of the graph file
+     */
+    public long getChecksum(){
+        return checksum;
+    }
+
+    /**
+     * Checks whether the local file at the path is the described graph file
+     * @return true if the file exists and has the version and the checksum of the described file
+     */
+    public boolean matchesLocalFile(){
+        if(version != GraphFile.VERSION){
+            return false;
+        }
+        File file = new File(path);
+        if(!file.isFile() || !file.canRead()){
+            return false;
+        }
+        try {
+            return GraphFile.readChecksum(file) == checksum;
+        }catch (FileNotFoundException | GraphFileException e){
+            return false;
+        }
+    }
+}
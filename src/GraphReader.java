@@ -1,10 +1,11 @@
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.ListIterator;
-import java.util.Scanner;
 
 import WayFinderExceptions.*;
 
@@ -20,17 +21,29 @@ public class GraphReader implements Serializable{
      */
     private File file;
     /**
-     * Stream that reads the file
+     * Tokenizer that reads the file
      */
-    private transient Scanner input;
+    private transient JsonTokenizer input;
     /**
      * Holds all read Nodes
      */
     private HashMap<String, Node> graph;
     /**
-     * Holds the line of file that is currently analysed
+     * Holds Nodes whose coordinates have been read before any way referencing them
      */
-    private String currentLine;
+    private transient HashMap<String, Node> pendingNodes;
+    /**
+     * Holds ids of the Nodes of the way that is currently read
+     */
+    private transient ArrayList<String> ids;
+    /**
+     * Holds distances between the Nodes of the way that is currently read
+     */
+    private transient double[] distances;
+    /**
+     * Number of read distances of the way that is currently read
+     */
+    private transient int distancesCount;
     /**
      * Remembers is the opened file has been already read
      */
@@ -51,89 +64,245 @@ public class GraphReader implements Serializable{
      * @throws FileNotFoundException if the file cannot be opened
      */
     public void openFile(String filepath) throws FileNotFoundException{
-        if(input!=null){
-            input.close();
-        }
+        closeInput();
         file = new File(filepath);
         graphRead = false;
-        input = new Scanner(file);
+        input = new JsonTokenizer(new FileInputStream(file));
         graph = new HashMap<>();
+        pendingNodes = new HashMap<>();
+        ids = new ArrayList<>();
+        distances = new double[16];
     }
 
     /**
-     * Reads the ways from file and converts them into edges
+     * Reads the value and all values nested in it, ways are recognized by the "nodesRef" array
+     * and Nodes are read from the "nodes" array
+     * @param token first token of the value
+     * @throws GraphFileException if the file is not well-formed
      */
-    private void readEdges(){
-        ArrayList<String> ids = null;
-        ArrayList<Double> distances = null;
-        currentLine = input.nextLine();
-        while(!currentLine.matches("(.*)\"nodes\"(.*)") && input.hasNextLine()){
-            if(currentLine.matches("(.*)\"nodesRef\":(.*)")){
-                ids = new ArrayList<>();
-                distances = new ArrayList<>();
-                currentLine = input.nextLine();
-                while(currentLine.matches("(.*)[0-9]+(.*)")){
-                    currentLine = currentLine.replaceAll("\\D+", "");
-                    ids.add(currentLine);
-                    currentLine = input.nextLine();
+    private void readValue(int token) throws GraphFileException{
+        if(token == JsonTokenizer.BEGIN_ARRAY){
+            while((token = input.next()) != JsonTokenizer.END_ARRAY){
+                checkNotEnded(token);
+                readValue(token);
+            }
+        }
+        else if(token == JsonTokenizer.BEGIN_OBJECT){
+            boolean isWay = false;
+            boolean hasDistances = false;
+            while((token = input.next()) != JsonTokenizer.END_OBJECT){
+                checkNotEnded(token);
+                if(token != JsonTokenizer.NAME){
+                    throw new GraphFileException("Graph file is not well-formed, name of the value expected");
                 }
-                input.nextLine();
-                currentLine = input.nextLine();
-                while(currentLine.matches("(.*)[0-9]+[.]?[0-9]*(.*)")){
-                    currentLine = currentLine.replaceAll("[^\\d.]", "");
-                    distances.add(Double.parseDouble(currentLine));
-                    currentLine = input.nextLine();
+                if(input.textEquals("nodesRef")){
+                    readIds();
+                    isWay = true;
                 }
-                ListIterator<String> idIterator = ids.listIterator(0);
-                String current = idIterator.next();
-                Node previousNode = null;
-                Node currentNode = null;
-                //Double dist = null;
-                if(!graph.containsKey(current)){
-                    currentNode = new Node(current);
-                    graph.put(current, currentNode);
+                else if(input.textEquals("distances")){
+                    readDistances();
+                    hasDistances = true;
                 }
-                else{
-                    currentNode = graph.get(current);
+                else if(input.textEquals("nodes")){
+                    readNodes();
                 }
-                while(idIterator.hasNext()){
-                    previousNode = currentNode;
-                    current = idIterator.next();
-                    if(!graph.containsKey(current)) {
-                        currentNode = new Node(current);
-                        graph.put(current, currentNode);
-                    }
-                    else{
-                        currentNode = graph.get(current);
-                    }
-                    currentNode.addEdge(previousNode);
-                    previousNode.addEdge(currentNode);
+                else{
+                    readValue(input.next());
                 }
             }
-            currentLine = input.nextLine();
+            if(isWay){
+                addWay();
+            }
+            if(isWay || hasDistances){
+                ids.clear();
+                distancesCount = 0;
+            }
+        }
+        else if(token != JsonTokenizer.NUMBER && token != JsonTokenizer.STRING && token != JsonTokenizer.LITERAL){
+            checkNotEnded(token);
+            throw new GraphFileException("Graph file is not well-formed, value expected");
+        }
+    }
+
+    /**
+     * Reads the ids of the way's Nodes
+     * @throws GraphFileException if the array is not well-formed
+     */
+    private void readIds() throws GraphFileException{
+        checkArray(input.next());
+        int token;
+        while((token = input.next()) != JsonTokenizer.END_ARRAY){
+            checkNotEnded(token);
+            checkScalar(token);
+            ids.add(input.getString());
         }
     }
 
+    /**
+     * Reads the distances between the way's Nodes
+     * @throws GraphFileException if the array is not well-formed
+     */
+    private void readDistances() throws GraphFileException{
+        checkArray(input.next());
+        int token;
+        while((token = input.next()) != JsonTokenizer.END_ARRAY){
+            checkNotEnded(token);
+            checkScalar(token);
+            if(distancesCount == distances.length){
+                distances = Arrays.copyOf(distances, 2 * distancesCount);
+            }
+            distances[distancesCount++] = input.getDouble();
+        }
+    }
+
+    /**
+     * Converts the read way into edges weighted with the read distances, edges without distance are weighted
+     * with NaN and calculated after reading the coordinates
+     */
+    private void addWay(){
+        if(ids.isEmpty()){
+            return;
+        }
+        Node previousNode;
+        Node currentNode = getNode(ids.get(0));
+        double distance;
+        for(int i = 1; i < ids.size(); i++){
+            previousNode = currentNode;
+            currentNode = getNode(ids.get(i));
+            distance = i - 1 < distancesCount ? distances[i - 1] : Double.NaN;
+            currentNode.addEdge(previousNode, distance, EdgeShapes.NO_SHAPE);
+            previousNode.addEdge(currentNode, distance, EdgeShapes.NO_SHAPE);
+        }
+    }
+
+    /**
+     * Returns the Node of the graph, creating it if it does not exist
+     * @param id Node's id
+     * @return Node with the id
+     */
+    private Node getNode(String id){
+        Node node = graph.get(id);
+        if(node == null){
+            node = pendingNodes.remove(id);
+            if(node == null){
+                node = new Node(id);
+            }
+            graph.put(id, node);
+        }
+        return node;
+    }
+
     /**
      * Reads the coordinates of the Nodes
+     * @throws GraphFileException if the array is not well-formed
+     */
+    private void readNodes() throws GraphFileException{
+        int token = input.next();
+        if(token != JsonTokenizer.BEGIN_ARRAY){
+            readValue(token);
+            return;
+        }
+        while((token = input.next()) != JsonTokenizer.END_ARRAY){
+            checkNotEnded(token);
+            if(token != JsonTokenizer.BEGIN_OBJECT){
+                readValue(token);
+                continue;
+            }
+            readNode();
+        }
+    }
+
+    /**
+     * Reads the id and the coordinates of the Node, values with unknown names are taken
+     * in the order id, longitude, latitude
+     * @throws GraphFileException if the object is not well-formed
      */
-    private void readNodes(){
-        String id;
-        double longitude;
-        double latitude;
-        while(input.hasNextLine()){
-            if(currentLine.matches("(.*)[{](.*)")){
-                currentLine = input.nextLine();
-                id = currentLine.replaceAll("[^\\d.]","");
-                currentLine = input.nextLine();
-                latitude = Double.parseDouble(currentLine.replaceAll("[^\\d.]",""));
-                currentLine = input.nextLine();
-                longitude = Double.parseDouble(currentLine.replaceAll("[^\\d.]",""));
-                if(graph.containsKey(id)) {
-                    graph.get(id).setCoordinates(longitude, latitude);
+    private void readNode() throws GraphFileException{
+        String id = null;
+        double latitude = 0;
+        double longitude = 0;
+        int position = 0;
+        int token;
+        while((token = input.next()) != JsonTokenizer.END_OBJECT){
+            checkNotEnded(token);
+            if(token != JsonTokenizer.NAME){
+                throw new GraphFileException("Graph file is not well-formed, name of the value expected");
+            }
+            int field = input.textEquals("id") ? 0 : input.textEquals("longitude") || input.textEquals("lon") ? 1
+                    : input.textEquals("latitude") || input.textEquals("lat") ? 2 : position;
+            position++;
+            token = input.next();
+            if(token != JsonTokenizer.NUMBER && token != JsonTokenizer.STRING){
+                readValue(token);
+                continue;
+            }
+            if(field == 0){
+                id = input.getString();
+            }
+            else if(field == 1){
+                longitude = input.getDouble();
+            }
+            else if(field == 2){
+                latitude = input.getDouble();
+            }
+        }
+        if(id != null){
+            Node node = graph.get(id);
+            if(node == null){
+                node = pendingNodes.get(id);
+                if(node == null){
+                    node = new Node(id);
+                    pendingNodes.put(id, node);
                 }
             }
-            currentLine = input.nextLine();
+            node.setCoordinates(latitude, longitude);
+        }
+    }
+
+    /**
+     * Checks that the token starts an array
+     * @param token checked token
+     * @throws GraphFileException if the token does not start an array
+     */
+    private static void checkArray(int token) throws GraphFileException{
+        if(token != JsonTokenizer.BEGIN_ARRAY){
+            throw new GraphFileException("Graph file is not well-formed, array expected");
+        }
+    }
+
+    /**
+     * Checks that the token is a number or a string
+     * @param token checked token
+     * @throws GraphFileException if the token is not a number or a string
+     */
+    private static void checkScalar(int token) throws GraphFileException{
+        if(token != JsonTokenizer.NUMBER && token != JsonTokenizer.STRING){
+            throw new GraphFileException("Graph file is not well-formed, number expected");
+        }
+    }
+
+    /**
+     * Checks that the file has not ended
+     * @param token checked token
+     * @throws GraphFileException if the token is the end of the file
+     */
+    private static void checkNotEnded(int token) throws GraphFileException{
+        if(token == JsonTokenizer.END_DOCUMENT){
+            throw new GraphFileException("Unexpected end of graph file");
+        }
+    }
+
+    /**
+     * Closes the tokenizer of the previously opened file
+     */
+    private void closeInput(){
+        if(input != null){
+            try {
+                input.close();
+            }catch (IOException e){
+                e.printStackTrace();
+            }
+            input = null;
         }
     }
 
@@ -149,16 +318,41 @@ public class GraphReader implements Serializable{
         return graph;
     }
 
+    /**
+     * Returns read graph as the immutable graph used for searching
+     * @return CompactGraph with all Nodes
+     * @throws GraphNotReadYetException if method is called before reading the whole file
+     */
+    public CompactGraph returnCompactGraph() throws GraphNotReadYetException {
+        return CompactGraph.fromNodes(returnGraph(), null);
+    }
+
     /**
      * Method that calls methods providing reading the file
+     * @throws GraphFileException if the file cannot be read or is not well-formed
      */
-    public void readGraph(){
-        this.readEdges();
-        this.readNodes();
-        this.graphRead = true;
+    public void readGraph() throws GraphFileException{
+        try {
+            int token;
+            while((token = input.next()) != JsonTokenizer.END_DOCUMENT){
+                readValue(token);
+            }
+        }finally {
+            closeInput();
+        }
+        pendingNodes = null;
+        ids = null;
+        distances = null;
+        ArrayList<Double> nodeDistances;
         for(Node n: graph.values()){
-            n.calculateDistances();
+            nodeDistances = n.getDistances();
+            for(int i = 0; i < nodeDistances.size(); i++){
+                if(Double.isNaN(nodeDistances.get(i))){
+                    nodeDistances.set(i, n.distance(n.getEdges().get(i)));
+                }
+            }
         }
+        this.graphRead = true;
     }
 
 }
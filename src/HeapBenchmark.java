@@ -0,0 +1,174 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Benchmark comparing Dijkstra's algorithm using IndexedHeap with the one using PriorityQueue,
+ * which adds a new entry on every improvement and skips the stale entries when they are polled.
+ * Usage: HeapBenchmark map-or-graph-file [number of queries]
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class HeapBenchmark {
+    /**
+     * Number of the queries run before measuring
+     */
+    private static final int WARMUP_QUERIES = 20;
+
+    public static void main(String[] args) throws Exception{
+        if(args.length < 1){
+            System.out.println("Usage: HeapBenchmark map-or-graph-file [number of queries]");
+            return;
+        }
+        CompactGraph graph = loadGraph(args[0]);
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int count = graph.getNodeCount();
+        int[] starts = new int[queries];
+        Random random = new Random(1);
+        for(int i = 0; i < queries; i++){
+            starts[i] = random.nextInt(count);
+        }
+        double[] distances = new double[count];
+        IndexedHeap heap = new IndexedHeap(count);
+        for(int i = 0; i < WARMUP_QUERIES; i++){
+            withPriorityQueue(graph, starts[i % queries], distances);
+            withIndexedHeap(graph, starts[i % queries], distances, heap);
+        }
+        long queueTime = 0, heapTime = 0, queueOperations = 0, heapOperations = 0;
+        long time;
+        for(int i = 0; i < queries; i++){
+            time = System.nanoTime();
+            queueOperations += withPriorityQueue(graph, starts[i], distances);
+            queueTime += System.nanoTime() - time;
+            double queueSum = sum(distances);
+            time = System.nanoTime();
+            heapOperations += withIndexedHeap(graph, starts[i], distances, heap);
+            heapTime += System.nanoTime() - time;
+            if(queueSum != sum(distances)){
+                throw new IllegalStateException("Different distances from Node " + graph.getId(starts[i]));
+            }
+        }
+        System.out.printf("graph: %d Nodes, %d edges, %d queries%n", count, graph.getEdgeCount(), queries);
+        System.out.printf("PriorityQueue: %.3f ms/query, %d insertions/query%n", queueTime / 1e6 / queries, queueOperations / queries);
+        System.out.printf("IndexedHeap:   %.3f ms/query, %d insertions and decreases/query%n", heapTime / 1e6 / queries, heapOperations / queries);
+        System.out.printf("speedup: %.2fx%n", (double) queueTime / heapTime);
+    }
+
+    /**
+     * Reads the graph from the graph file or converts it from the map file
+     * @param path path to the file
+     * @return read graph
+     * @throws Exception if the file cannot be read
+     */
+    private static CompactGraph loadGraph(String path) throws Exception{
+        if(path.endsWith(GraphFile.EXTENSION)){
+            return GraphFile.open(new File(path));
+        }
+        MapReader mapReader = MapReader.createReader(path);
+        mapReader.openFile(path);
+        mapReader.runReader();
+        DataConverter dataConverter = new ParallelDataConverter(mapReader.getNodes(), mapReader.getWays());
+        dataConverter.runConverter();
+        return dataConverter.returnCompactGraph();
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the start Node with PriorityQueue
+     * @param graph searched graph
+     * @param start number of the start Node
+     * @param distances array filled with distances from the start Node
+     * @return number of the entries added to the queue
+     */
+    private static long withPriorityQueue(CompactGraph graph, int start, double[] distances){
+        Arrays.fill(distances, Double.MAX_VALUE);
+        PriorityQueue<Entry> queue = new PriorityQueue<>();
+        distances[start] = 0;
+        queue.add(new Entry(start, 0));
+        long insertions = 1;
+        Entry entry;
+        int target;
+        double distance;
+        while(!queue.isEmpty()){
+            entry = queue.poll();
+            if(entry.key > distances[entry.node]){
+                continue;
+            }
+            for(int i = graph.getFirstEdge(entry.node); i < graph.getEdgeEnd(entry.node); i++){
+                target = graph.getTarget(i);
+                distance = entry.key + graph.getWeight(i);
+                if(distance < distances[target]){
+                    distances[target] = distance;
+                    queue.add(new Entry(target, distance));
+                    insertions++;
+                }
+            }
+        }
+        return insertions;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the start Node with IndexedHeap
+     * @param graph searched graph
+     * @param start number of the start Node
+     * @param distances array filled with distances from the start Node
+     * @param heap empty heap used by the search
+     * @return number of the insertions and decreases of the keys
+     */
+    private static long withIndexedHeap(CompactGraph graph, int start, double[] distances, IndexedHeap heap){
+        Arrays.fill(distances, Double.MAX_VALUE);
+        distances[start] = 0;
+        heap.insertOrDecrease(start, 0);
+        long operations = 1;
+        int node, target;
+        double key, distance;
+        while(!heap.isEmpty()){
+            key = heap.peekKey();
+            node = heap.poll();
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                target = graph.getTarget(i);
+                distance = key + graph.getWeight(i);
+                if(distance < distances[target]){
+                    distances[target] = distance;
+                    heap.insertOrDecrease(target, distance);
+                    operations++;
+                }
+            }
+        }
+        return operations;
+    }
+
+    /**
+     * Sums the finite distances
+     * @param distances summed distances
+     * @return sum of the distances
+     */
+    private static double sum(double[] distances){
+        double sum = 0;
+        for(double distance: distances){
+            if(distance != Double.MAX_VALUE){
+                sum += distance;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Entry of PriorityQueue
+     */
+    private static class Entry implements Comparable<Entry>{
+        private final int node;
+        private final double key;
+
+        Entry(int node, double key){
+            this.node = node;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Entry other){
+            return Double.compare(key, other.key);
+        }
+    }
+}
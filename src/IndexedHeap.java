@@ -0,0 +1,204 @@
+import java.util.Arrays;
+
+/**
+ * Class of a 4-ary min-heap of Nodes' numbers with double keys. Position of every Node in the heap is remembered,
+ * so the key of a Node already waiting in the heap is decreased in place instead of adding another entry.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class IndexedHeap {
+    /**
+     * Number of children of every element
+     */
+    private static final int ARITY = 4;
+    /**
+     * Numbers of the Nodes in the order of the heap
+     */
+    private final int[] nodes;
+    /**
+     * Keys of the Nodes in the order of the heap
+     */
+    private final double[] keys;
+    /**
+     * Holds positions of the Nodes in the heap, -1 if the Node is not in the heap
+     */
+    private final int[] positions;
+    /**
+     * Number of the Nodes in the heap
+     */
+    private int size;
+
+    /**
+     * IndexedHeap's constructor
+     * @param nodeCount number of the Nodes of the graph, Nodes' numbers must be lower
+     */
+    public IndexedHeap(int nodeCount){
+        this.nodes = new int[nodeCount];
+        this.keys = new double[nodeCount];
+        this.positions = new int[nodeCount];
+        Arrays.fill(positions, -1);
+        this.size = 0;
+    }
+
+    /**
+     * Checks if the heap is empty
+     * @return true if there are no Nodes in the heap
+     */
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of the Nodes in the heap
+     * @return number of the Nodes
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Checks if the Node is waiting in the heap
+     * @param node number of the Node
+     * @return true if the Node is in the heap
+     */
+    public boolean contains(int node){
+        return positions[node] >= 0;
+    }
+
+    /**
+     * Returns the key of the Node waiting in the heap
+     * @param node number of the Node
+     * @return key of the Node or Double.MAX_VALUE if the Node is not in the heap
+     */
+    public double getKey(int node){
+        int position = positions[node];
+        return position >= 0 ? keys[position] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Adds the Node to the heap or decreases its key if it is already there
+     * @param node number of the Node
+     * @param key new key of the Node
+     * @return false if the Node is in the heap with a key not greater than the new one
+     */
+    public boolean insertOrDecrease(int node, double key){
+        int position = positions[node];
+        if(position < 0){
+            siftUp(size++, node, key);
+            return true;
+        }
+        if(keys[position] <= key){
+            return false;
+        }
+        siftUp(position, node, key);
+        return true;
+    }
+
+    /**
+     * Returns the lowest key in the heap
+     * @return lowest key or Double.MAX_VALUE if the heap is empty
+     */
+    public double peekKey(){
+        return size > 0 ? keys[0] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Returns the Node with the lowest key without removing it
+     * @return number of the Node or -1 if the heap is empty
+     */
+    public int peek(){
+        return size > 0 ? nodes[0] : -1;
+    }
+
+    /**
+     * Removes the Node with the lowest key
+     * @return number of the removed Node
+     * @throws IllegalStateException if the heap is empty
+     */
+    public int poll(){
+        if(size == 0){
+            throw new IllegalStateException("Heap is empty!");
+        }
+        int first = nodes[0];
+        positions[first] = -1;
+        size--;
+        if(size > 0){
+            siftDown(0, nodes[size], keys[size]);
+        }
+        return first;
+    }
+
+    /**
+     * Removes all Nodes, the cost is proportional to the number of the Nodes in the heap
+     */
+    public void clear(){
+        for(int i = 0; i < size; i++){
+            positions[nodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the Node towards the root until its parent has lower or equal key
+     * @param position starting position of the Node
+     * @param node number of the Node
+     * @param key key of the Node
+     */
+    private void siftUp(int position, int node, double key){
+        int parent;
+        while(position > 0){
+            parent = (position - 1) / ARITY;
+            if(keys[parent] <= key){
+                break;
+            }
+            place(position, nodes[parent], keys[parent]);
+            position = parent;
+        }
+        place(position, node, key);
+    }
+
+    /**
+     * Moves the Node towards the leaves until all its children have greater or equal keys
+     * @param position starting position of the Node
+     * @param node number of the Node
+     * @param key key of the Node
+     */
+    private void siftDown(int position, int node, double key){
+        int child, last, best;
+        double bestKey;
+        while(true){
+            child = ARITY * position + 1;
+            if(child >= size){
+                break;
+            }
+            last = Math.min(child + ARITY, size);
+            best = child;
+            bestKey = keys[child];
+            for(child++; child < last; child++){
+                if(keys[child] < bestKey){
+                    best = child;
+                    bestKey = keys[child];
+                }
+            }
+            if(bestKey >= key){
+                break;
+            }
+            place(position, nodes[best], bestKey);
+            position = best;
+        }
+        place(position, node, key);
+    }
+
+    /**
+     * Puts the Node at the position of the heap
+     * @param position position in the heap
+     * @param node number of the Node
+     * @param key key of the Node
+     */
+    private void place(int position, int node, double key){
+        nodes[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+    }
+}
@@ -0,0 +1,405 @@
+import WayFinderExceptions.GraphFileException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class splitting a JSON stream into tokens directly from bytes, independently of the line breaks in the stream
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class JsonTokenizer {
+    /**
+     * Token returned after the end of the stream
+     */
+    public static final int END_DOCUMENT = 0;
+    /**
+     * Token of "{"
+     */
+    public static final int BEGIN_OBJECT = 1;
+    /**
+     * Token of "}"
+     */
+    public static final int END_OBJECT = 2;
+    /**
+     * Token of "["
+     */
+    public static final int BEGIN_ARRAY = 3;
+    /**
+     * Token of "]"
+     */
+    public static final int END_ARRAY = 4;
+    /**
+     * Token of a string followed by ":"
+     */
+    public static final int NAME = 5;
+    /**
+     * Token of a string value
+     */
+    public static final int STRING = 6;
+    /**
+     * Token of a number
+     */
+    public static final int NUMBER = 7;
+    /**
+     * Token of true, false or null
+     */
+    public static final int LITERAL = 8;
+    /**
+     * Powers of 10 that are represented exactly as doubles
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /**
+     * Stream that is tokenized
+     */
+    private final InputStream input;
+    /**
+     * Bytes read from the stream
+     */
+    private final byte[] buffer;
+    /**
+     * Position of the next byte in the buffer
+     */
+    private int position;
+    /**
+     * Number of bytes in the buffer
+     */
+    private int limit;
+    /**
+     * Number of bytes of the stream before the buffer
+     */
+    private long bufferOffset;
+    /**
+     * Bytes of the current string, number or literal
+     */
+    private byte[] text;
+    /**
+     * Number of bytes of the current string, number or literal
+     */
+    private int textLength;
+
+    /**
+     * JsonTokenizer's constructor
+     * @param input stream that will be tokenized
+     */
+    public JsonTokenizer(InputStream input){
+        this.input = input;
+        this.buffer = new byte[1 << 16];
+        this.text = new byte[64];
+    }
+
+    /**
+     * Moves to the next token, commas and colons between the tokens are skipped
+     * @return type of the token
+     * @throws GraphFileException if the stream cannot be read or is not well-formed
+     */
+    public int next() throws GraphFileException{
+        int b = skipSeparators();
+        if(b < 0){
+            return END_DOCUMENT;
+        }
+        position++;
+        switch (b){
+            case '{':
+                return BEGIN_OBJECT;
+            case '}':
+                return END_OBJECT;
+            case '[':
+                return BEGIN_ARRAY;
+            case ']':
+                return END_ARRAY;
+            case '"':
+                readString();
+                if(skipWhitespace() == ':'){
+                    position++;
+                    return NAME;
+                }
+                return STRING;
+            default:
+                if(b == '-' || (b >= '0' && b <= '9')){
+                    readWord(b);
+                    return NUMBER;
+                }
+                if(b >= 'a' && b <= 'z'){
+                    readWord(b);
+                    if(textEquals("true") || textEquals("false") || textEquals("null")){
+                        return LITERAL;
+                    }
+                }
+                throw new GraphFileException("Unexpected character at byte " + (bufferOffset + position - 1));
+        }
+    }
+
+    /**
+     * Skips the value following the current name, together with all values nested in it
+     * @throws GraphFileException if the stream cannot be read or is not well-formed
+     */
+    public void skipValue() throws GraphFileException{
+        int depth = 0;
+        do {
+            switch (next()){
+                case BEGIN_OBJECT:
+                case BEGIN_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+                case END_DOCUMENT:
+                    throw new GraphFileException("Unexpected end of graph file");
+                default:
+                    break;
+            }
+        }while(depth > 0);
+    }
+
+    /**
+     * Compares the current name, string, number or literal with the text
+     * @param value compared text containing only ASCII characters
+     * @return true if the token is equal to the text
+     */
+    public boolean textEquals(String value){
+        if(value.length() != textLength){
+            return false;
+        }
+        for(int i = 0; i < textLength; i++){
+            if(text[i] != value.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current name, string, number or literal
+     * @return text of the token
+     */
+    public String getString(){
+        return new String(text, 0, textLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses the current number or string as a decimal number
+     * @return value of the token
+     * @throws GraphFileException if the token is not a number
+     */
+    public double getDouble() throws GraphFileException{
+        int p = 0;
+        boolean negative = textLength > 0 && text[0] == '-';
+        if(negative){
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        byte b;
+        while(p < textLength){
+            b = text[p++];
+            if(b >= '0' && b <= '9'){
+                mantissa = 10 * mantissa + (b - '0');
+                digits++;
+                if(fractionDigits >= 0){
+                    fractionDigits++;
+                }
+            }
+            else if(b == '.' && fractionDigits < 0){
+                fractionDigits = 0;
+            }
+            else{
+                digits = Integer.MAX_VALUE;
+                break;
+            }
+        }
+        if(digits == 0 || digits > 15 || fractionDigits >= POWERS_OF_TEN.length){
+            try {
+                return Double.parseDouble(getString());
+            }catch (NumberFormatException e){
+                throw new GraphFileException("Incorrect number before byte " + (bufferOffset + position), e);
+            }
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Closes the tokenized stream
+     * @throws IOException if the stream cannot be closed
+     */
+    public void close() throws IOException{
+        input.close();
+    }
+
+    /**
+     * Reads the string after the opening quote, decoding the escape sequences
+     * @throws GraphFileException if the stream cannot be read or the string is not closed
+     */
+    private void readString() throws GraphFileException{
+        textLength = 0;
+        int b;
+        while((b = read()) != '"'){
+            if(b < 0){
+                throw new GraphFileException("Unexpected end of graph file in string");
+            }
+            if(b == '\\'){
+                b = read();
+                switch (b){
+                    case 'b': b = '\b'; break;
+                    case 'f': b = '\f'; break;
+                    case 'n': b = '\n'; break;
+                    case 'r': b = '\r'; break;
+                    case 't': b = '\t'; break;
+                    case 'u':
+                        appendCodeUnit(readHex());
+                        continue;
+                    case '"':
+                    case '\\':
+                    case '/':
+                        break;
+                    default:
+                        throw new GraphFileException("Incorrect escape sequence at byte " + (bufferOffset + position - 1));
+                }
+            }
+            append(b);
+        }
+    }
+
+    /**
+     * Reads the number or literal starting with the byte
+     * @param first first byte of the token
+     * @throws GraphFileException if the stream cannot be read
+     */
+    private void readWord(int first) throws GraphFileException{
+        textLength = 0;
+        append(first);
+        while(true){
+            if(position == limit && !fill()){
+                return;
+            }
+            byte b = buffer[position];
+            if((b >= '0' && b <= '9') || (b >= 'a' && b <= 'z') || b == '.' || b == '-' || b == '+' || b == 'E'){
+                append(b);
+                position++;
+            }
+            else{
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads four hexadecimal digits of the \\u escape sequence
+     * @return UTF-16 code unit
+     * @throws GraphFileException if the digits are incorrect
+     */
+    private int readHex() throws GraphFileException{
+        int value = 0;
+        for(int i = 0; i < 4; i++){
+            int digit = Character.digit(read(), 16);
+            if(digit < 0){
+                throw new GraphFileException("Incorrect escape sequence at byte " + (bufferOffset + position - 1));
+            }
+            value = 16 * value + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Appends the UTF-16 code unit encoded as UTF-8, surrogates are written separately
+     * @param unit appended code unit
+     */
+    private void appendCodeUnit(int unit){
+        if(unit < 0x80){
+            append(unit);
+        }
+        else if(unit < 0x800){
+            append(0xC0 | unit >> 6);
+            append(0x80 | unit & 0x3F);
+        }
+        else{
+            append(0xE0 | unit >> 12);
+            append(0x80 | unit >> 6 & 0x3F);
+            append(0x80 | unit & 0x3F);
+        }
+    }
+
+    /**
+     * Appends the byte to the text of the token
+     * @param b appended byte
+     */
+    private void append(int b){
+        if(textLength == text.length){
+            text = Arrays.copyOf(text, 2 * text.length);
+        }
+        text[textLength++] = (byte) b;
+    }
+
+    /**
+     * Skips whitespace, commas and colons
+     * @return next byte which is not consumed or -1 at the end of the stream
+     * @throws GraphFileException if the stream cannot be read
+     */
+    private int skipSeparators() throws GraphFileException{
+        while(true){
+            int b = skipWhitespace();
+            if(b != ',' && b != ':'){
+                return b;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Skips whitespace
+     * @return next byte which is not consumed or -1 at the end of the stream
+     * @throws GraphFileException if the stream cannot be read
+     */
+    private int skipWhitespace() throws GraphFileException{
+        while(true){
+            if(position == limit && !fill()){
+                return -1;
+            }
+            byte b = buffer[position];
+            if(b != ' ' && b != '\n' && b != '\r' && b != '\t'){
+                return b & 0xFF;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Reads the next byte
+     * @return next byte or -1 at the end of the stream
+     * @throws GraphFileException if the stream cannot be read
+     */
+    private int read() throws GraphFileException{
+        if(position == limit && !fill()){
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Reads the next bytes of the stream into the buffer
+     * @return false at the end of the stream
+     * @throws GraphFileException if the stream cannot be read
+     */
+    private boolean fill() throws GraphFileException{
+        try {
+            bufferOffset += limit;
+            position = 0;
+            limit = 0;
+            int count = input.read(buffer);
+            if(count <= 0){
+                return false;
+            }
+            limit = count;
+            return true;
+        }catch (IOException e){
+            throw new GraphFileException("Graph file cannot be read!", e);
+        }
+    }
+}
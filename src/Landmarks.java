@@ -0,0 +1,354 @@
+import WayFinderExceptions.GraphFileException;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Class holding distances between every Node and a few landmarks, used by A* algorithm to compute lower bounds
+ * of the distance to the goal from the triangle inequality. Landmarks are selected one by one as the Nodes
+ * farthest from the landmarks selected before. Distances are rounded down to floats and stored Node after Node,
+ * so the bounds of one Node are read from one place. The distances can be saved to a file next to the graph
+ * file and opened by memory mapping.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class Landmarks {
+    /**
+     * Extension of landmark files added to the name of the graph file
+     */
+    public static final String EXTENSION = ".landmarks";
+    /**
+     * Default number of landmarks
+     */
+    public static final int DEFAULT_COUNT = 16;
+    /**
+     * Number starting every landmark file ("MGLM")
+     */
+    private static final int MAGIC = 0x4D474C4D;
+    /**
+     * Version of the format written by this class
+     */
+    private static final int VERSION = 1;
+    /**
+     * Flag of files holding separate distances to the landmarks
+     */
+    private static final int DIRECTED_FLAG = 1;
+    /**
+     * Size of the header in bytes
+     */
+    private static final int HEADER_SIZE = 24;
+    /**
+     * Number of the Nodes of the graph
+     */
+    private final int nodeCount;
+    /**
+     * Number of the edges of the graph, used to check that the landmarks belong to the graph
+     */
+    private final int edgeCount;
+    /**
+     * Numbers of the landmark Nodes
+     */
+    private final int[] landmarks;
+    /**
+     * Distances from the landmarks to the Nodes, landmarks of one Node are stored together
+     */
+    private final FloatBuffer fromLandmarks;
+    /**
+     * Distances from the Nodes to the landmarks, the same buffer as fromLandmarks if the graph is symmetric
+     */
+    private final FloatBuffer toLandmarks;
+
+    /**
+     * Landmarks' constructor
+     * @param nodeCount number of the Nodes of the graph
+     * @param edgeCount number of the edges of the graph
+     * @param landmarks numbers of the landmark Nodes
+     * @param fromLandmarks distances from the landmarks to the Nodes
+     * @param toLandmarks distances from the Nodes to the landmarks
+     */
+    private Landmarks(int nodeCount, int edgeCount, int[] landmarks, FloatBuffer fromLandmarks, FloatBuffer toLandmarks){
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+        this.landmarks = landmarks;
+        this.fromLandmarks = fromLandmarks;
+        this.toLandmarks = toLandmarks;
+    }
+
+    /**
+     * Selects the landmarks and computes distances between them and all Nodes
+     * @param graph graph the landmarks are selected on
+     * @param count number of the landmarks
+     * @return computed Landmarks
+     */
+    public static Landmarks select(CompactGraph graph, int count){
+        int nodes = graph.getNodeCount();
+        count = Math.min(count, nodes);
+        CompactGraph reverse = graph.reverse();
+        boolean directed = reverse != graph;
+        int[] landmarks = new int[count];
+        float[] from = new float[nodes * count];
+        float[] to = directed ? new float[nodes * count] : from;
+        double[] distances = new double[nodes];
+        double[] closest = new double[nodes];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        IndexedHeap heap = new IndexedHeap(nodes);
+        int landmark = nodes > 0 ? farthest(graph, 0, distances, heap) : -1;
+        for(int i = 0; i < count; i++){
+            landmarks[i] = landmark;
+            search(graph, landmark, distances, heap);
+            for(int v = 0; v < nodes; v++){
+                from[v * count + i] = roundDown(distances[v]);
+                closest[v] = Math.min(closest[v], distances[v]);
+            }
+            if(directed){
+                search(reverse, landmark, distances, heap);
+                for(int v = 0; v < nodes; v++){
+                    to[v * count + i] = roundDown(distances[v]);
+                }
+            }
+            landmark = 0;
+            for(int v = 1; v < nodes; v++){
+                if(closest[v] > closest[landmark]){
+                    landmark = v;
+                }
+            }
+        }
+        FloatBuffer fromBuffer = FloatBuffer.wrap(from);
+        return new Landmarks(nodes, graph.getEdgeCount(), landmarks, fromBuffer, directed ? FloatBuffer.wrap(to) : fromBuffer);
+    }
+
+    /**
+     * Returns the number of the landmarks
+     * @return number of the landmarks
+     */
+    public int getCount(){
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the number of the landmark Node
+     * @param index index of the landmark
+     * @return number of the Node
+     */
+    public int getLandmark(int index){
+        return landmarks[index];
+    }
+
+    /**
+     * Checks if the landmarks have been computed for the graph
+     * @param graph checked graph
+     * @return true if the graph has the same number of Nodes and edges
+     */
+    public boolean matches(CompactGraph graph){
+        return graph.getNodeCount() == nodeCount && graph.getEdgeCount() == edgeCount;
+    }
+
+    /**
+     * Returns the lower bound of the distance between the Nodes, from the triangle inequality
+     * for all landmarks: d(v, t) &gt;= d(L, t) - d(L, v) and d(v, t) &gt;= d(v, L) - d(t, L).
+     * Subtracted distances are increased by one unit in the last place, as they are rounded down,
+     * and the differences are computed exactly in doubles.
+     * @param node number of the first Node
+     * @param goal number of the second Node
+     * @return lower bound of the length of the shortest way from node to goal
+     */
+    public double lowerBound(int node, int goal){
+        int count = landmarks.length;
+        int nodeBase = node * count;
+        int goalBase = goal * count;
+        double bound = 0;
+        float toGoal, toNode, fromGoal, fromNode;
+        for(int i = 0; i < count; i++){
+            fromGoal = fromLandmarks.get(goalBase + i);
+            fromNode = fromLandmarks.get(nodeBase + i);
+            if(fromGoal != Float.POSITIVE_INFINITY && fromNode != Float.POSITIVE_INFINITY){
+                bound = Math.max(bound, (double) fromGoal - Math.nextUp(fromNode));
+            }
+            toNode = toLandmarks.get(nodeBase + i);
+            toGoal = toLandmarks.get(goalBase + i);
+            if(toNode != Float.POSITIVE_INFINITY && toGoal != Float.POSITIVE_INFINITY){
+                bound = Math.max(bound, (double) toNode - Math.nextUp(toGoal));
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Writes the landmarks to the file, written first to a temporary file
+     * @param file destination file
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException{
+        File temporary = new File(file.getPath() + ".tmp");
+        CRC32 checksum = new CRC32();
+        boolean directed = toLandmarks != fromLandmarks;
+        int size = nodeCount * landmarks.length;
+        try (FileOutputStream fileStream = new FileOutputStream(temporary)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileStream, checksum), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(directed ? DIRECTED_FLAG : 0);
+            out.writeInt(nodeCount);
+            out.writeInt(edgeCount);
+            out.writeInt(landmarks.length);
+            for(int landmark: landmarks){
+                out.writeInt(landmark);
+            }
+            GraphFile.pad(out, landmarks.length);
+            for(int i = 0; i < size; i++){
+                out.writeFloat(fromLandmarks.get(i));
+            }
+            GraphFile.pad(out, size);
+            if(directed){
+                for(int i = 0; i < size; i++){
+                    out.writeFloat(toLandmarks.get(i));
+                }
+                GraphFile.pad(out, size);
+            }
+            out.flush();
+            long value = checksum.getValue();
+            out.writeLong(value);
+            out.flush();
+        }
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }catch (AtomicMoveNotSupportedException e){
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Opens the landmark file by memory mapping and verifies its checksum
+     * @param file opened file
+     * @param graph graph the landmarks have been computed for
+     * @return Landmarks reading the mapped file
+     * @throws FileNotFoundException if the file does not exist
+     * @throws GraphFileException if the file is damaged, has unsupported version or belongs to another graph
+     */
+    public static Landmarks open(File file, CompactGraph graph) throws FileNotFoundException, GraphFileException{
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            long fileSize = channel.size();
+            if(fileSize < HEADER_SIZE + 8){
+                throw new GraphFileException("Landmark file is too short!");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if(header.getInt() != MAGIC){
+                throw new GraphFileException("File is not a landmark file!");
+            }
+            int version = header.getInt();
+            if(version != VERSION){
+                throw new GraphFileException("Unsupported version of landmark file: " + version);
+            }
+            boolean directed = (header.getInt() & DIRECTED_FLAG) != 0;
+            int nodes = header.getInt();
+            int edges = header.getInt();
+            int count = header.getInt();
+            if(nodes != graph.getNodeCount() || edges != graph.getEdgeCount()){
+                throw new GraphFileException("Landmark file belongs to another graph!");
+            }
+            if(count < 0 || (long) nodes * count > Integer.MAX_VALUE / 4){
+                throw new GraphFileException("Landmark file has incorrect header!");
+            }
+            int size = nodes * count;
+            long landmarksPosition = HEADER_SIZE;
+            long fromPosition = landmarksPosition + GraphFile.aligned(count);
+            long toPosition = fromPosition + GraphFile.aligned(size);
+            long end = directed ? toPosition + GraphFile.aligned(size) : toPosition;
+            if(end + 8 != fileSize){
+                throw new GraphFileException("Landmark file has incorrect size!");
+            }
+            if(channel.map(FileChannel.MapMode.READ_ONLY, end, 8).getLong() != GraphFile.checksum(channel, end)){
+                throw new GraphFileException("Landmark file is damaged, checksum does not match!");
+            }
+            int[] landmarks = new int[count];
+            channel.map(FileChannel.MapMode.READ_ONLY, landmarksPosition, 4L * count).asIntBuffer().get(landmarks);
+            for(int landmark: landmarks){
+                if(landmark < 0 || landmark >= nodes){
+                    throw new GraphFileException("Landmark file has incorrect landmark!");
+                }
+            }
+            FloatBuffer from = channel.map(FileChannel.MapMode.READ_ONLY, fromPosition, 4L * size).asFloatBuffer();
+            FloatBuffer to = directed ? channel.map(FileChannel.MapMode.READ_ONLY, toPosition, 4L * size).asFloatBuffer() : from;
+            return new Landmarks(nodes, edges, landmarks, from, to);
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (IOException e){
+            throw new GraphFileException("Landmark file cannot be read!", e);
+        }
+    }
+
+    /**
+     * Returns the path of the landmark file written next to the graph file
+     * @param graphFile path to the graph file
+     * @return path to the landmark file
+     */
+    public static String landmarksPathFor(String graphFile){
+        return graphFile + EXTENSION;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the Node and returns the farthest reached Node
+     * @param graph searched graph
+     * @param start number of the start Node
+     * @param distances array filled with distances from the start Node
+     * @param heap empty heap used by the search
+     * @return number of the farthest Node
+     */
+    private static int farthest(CompactGraph graph, int start, double[] distances, IndexedHeap heap){
+        search(graph, start, distances, heap);
+        int farthest = start;
+        for(int v = 0; v < distances.length; v++){
+            if(distances[v] != Double.POSITIVE_INFINITY && distances[v] > distances[farthest]){
+                farthest = v;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the Node to all Nodes
+     * @param graph searched graph
+     * @param start number of the start Node
+     * @param distances array filled with distances from the start Node, infinity for unreachable Nodes
+     * @param heap empty heap used by the search
+     */
+    private static void search(CompactGraph graph, int start, double[] distances, IndexedHeap heap){
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[start] = 0;
+        heap.insertOrDecrease(start, 0);
+        int node, target;
+        double key, distance;
+        while(!heap.isEmpty()){
+            key = heap.peekKey();
+            node = heap.poll();
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                target = graph.getTarget(i);
+                distance = key + graph.getWeight(i);
+                if(distance < distances[target]){
+                    distances[target] = distance;
+                    heap.insertOrDecrease(target, distance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts the distance into the greatest float that is not greater
+     * @param distance converted distance
+     * @return distance rounded down
+     */
+    private static float roundDown(double distance){
+        float rounded = (float) distance;
+        return rounded > distance ? Math.nextDown(rounded) : rounded;
+    }
+}
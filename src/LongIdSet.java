@@ -0,0 +1,113 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Compact set of OSM ids kept in a sorted array of primitive longs
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class LongIdSet implements Serializable{
+    /**
+     * Holds the ids, sorted and without duplicates after sealing
+     */
+    private long[] ids;
+    /**
+     * Number of used elements of the array
+     */
+    private int size;
+    /**
+     * Remembers if the ids are sorted and without duplicates
+     */
+    private boolean sealed;
+
+    /**
+     * Default constructor
+     */
+    public LongIdSet(){
+        this.ids = new long[1024];
+        this.size = 0;
+        this.sealed = false;
+    }
+
+    /**
+     * Adds the id to the set, duplicates are removed while sealing
+     * @param id added id
+     */
+    public void add(long id){
+        if(sealed){
+            throw new IllegalStateException("The set has been already sealed!");
+        }
+        if(size == ids.length){
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1));
+        }
+        ids[size++] = id;
+    }
+
+    /**
+     * Adds all ids of another set
+     * @param other added set
+     */
+    public void addAll(LongIdSet other){
+        if(sealed){
+            throw new IllegalStateException("The set has been already sealed!");
+        }
+        if(size + other.size > ids.length){
+            ids = Arrays.copyOf(ids, Math.max(size + other.size, ids.length + (ids.length >> 1)));
+        }
+        System.arraycopy(other.ids, 0, ids, size, other.size);
+        size += other.size;
+    }
+
+    /**
+     * Removes ids added after the set had the given size, used to drop ids of rejected elements
+     * @param newSize size of the set after truncating
+     */
+    public void truncate(int newSize){
+        if(sealed){
+            throw new IllegalStateException("The set has been already sealed!");
+        }
+        if(newSize >= 0 && newSize < size){
+            size = newSize;
+        }
+    }
+
+    /**
+     * Sorts the ids, removes duplicates and frees unused memory, must be called before checking the ids
+     */
+    public void seal(){
+        if(sealed){
+            return;
+        }
+        Arrays.sort(ids, 0, size);
+        int unique = 0;
+        for(int i = 0; i < size; i++){
+            if(unique == 0 || ids[unique - 1] != ids[i]){
+                ids[unique++] = ids[i];
+            }
+        }
+        size = unique;
+        ids = Arrays.copyOf(ids, size);
+        sealed = true;
+    }
+
+    /**
+     * Checks whether the id belongs to the set
+     * @param id checked id
+     * @return true if the set contains the id
+     */
+    public boolean contains(long id){
+        if(!sealed){
+            throw new IllegalStateException("The set has to be sealed first!");
+        }
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    /**
+     * Returns the number of ids
+     * @return number of ids, including duplicates if the set is not sealed yet
+     */
+    public int size(){
+        return size;
+    }
+}
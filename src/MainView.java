@@ -1,3 +1,4 @@
+import WayFinderExceptions.GraphFileException;
 import WayFinderExceptions.GraphNotReadYetException;
 
 import javax.imageio.ImageIO;
@@ -32,10 +33,13 @@ public class MainView extends JFrame {
     private JButton checkGoalId;
     private JRadioButton dijkstraButton;
     private JRadioButton aStarButton;
+    private JRadioButton bidirectionalDijkstraButton;
+    private JRadioButton bidirectionalAStarButton;
+    private JRadioButton contractionHierarchyButton;
+    private JRadioButton arcFlagsButton;
     private JFormattedTextField latitudeClosestNodeTextField;
     private JFormattedTextField longitudeClosestNodeTextFiel;
     private JButton findTheClosestNodeButton;
-    private Boolean dijkstraAlg = true;
     private Boolean isFileOpen = false;
 
     private GraphReader graphReader = new GraphReader();
@@ -106,17 +110,51 @@ public class MainView extends JFrame {
                 if(returnedValue == JFileChooser.APPROVE_OPTION){
                     final File file = fc.getSelectedFile();
                     try {
-                        graphReader.openFile(file.getPath());
-                        graphReader.readGraph();
+                        if(file.getName().endsWith(GraphFile.EXTENSION)){
+                            CompactGraph compactGraph = GraphFile.open(file);
+                            graph = null;
+                            wayFinder = new WayFinder(compactGraph);
+                            File landmarksFile = new File(Landmarks.landmarksPathFor(file.getPath()));
+                            if(landmarksFile.isFile()){
+                                try {
+                                    wayFinder.setLandmarks(Landmarks.open(landmarksFile, compactGraph));
+                                }catch (GraphFileException exc){
+                                    exc.printStackTrace();
+                                }
+                            }
+                            File hierarchyFile = new File(ContractionHierarchy.hierarchyPathFor(file.getPath()));
+                            if(hierarchyFile.isFile()){
+                                try {
+                                    wayFinder.setContractionHierarchy(ContractionHierarchy.open(hierarchyFile, compactGraph));
+                                }catch (GraphFileException exc){
+                                    exc.printStackTrace();
+                                }
+                            }
+                            File flagsFile = new File(ArcFlags.flagsPathFor(file.getPath()));
+                            if(flagsFile.isFile()){
+                                try {
+                                    wayFinder.setArcFlags(ArcFlags.open(flagsFile, compactGraph));
+                                }catch (GraphFileException exc){
+                                    exc.printStackTrace();
+                                }
+                            }
+                        }
+                        else {
+                            graphReader.openFile(file.getPath());
+                            graphReader.readGraph();
+                            graph = graphReader.returnGraph();
+                            wayFinder = new WayFinder(graph);
+                        }
                         isFileOpen = true;
-                        graph = graphReader.returnGraph();
-                        wayFinder  = new WayFinder(graph);
                     }catch(FileNotFoundException exc){
                         JOptionPane.showMessageDialog(contentPane, "Error: cannot open the file!");
                         isFileOpen = false;
                     }catch(GraphNotReadYetException exc){
                         JOptionPane.showMessageDialog(contentPane, "Error: something is \"no yes\" with graph reading");
                         isFileOpen = false;
+                    }catch(GraphFileException exc){
+                        JOptionPane.showMessageDialog(contentPane, "Error: " + exc.getMessage());
+                        isFileOpen = false;
                     }
                 }
             }
@@ -128,6 +166,7 @@ public class MainView extends JFrame {
                     JOptionPane.showMessageDialog(contentPane, "You did not open any file!");
                 }
                 else{
+                    CompactGraph compactGraph = wayFinder.getCompactGraph();
                     int startErrorNumber = 0;
                     int goalErrorNumber = 0;
                     double latitude = 0, longitude = 0;
@@ -149,21 +188,16 @@ public class MainView extends JFrame {
                         else{
                             startErrorNumber +=2;
                         }
-                        if(startErrorNumber == 0 && graph.values().contains(new Node(latitude, longitude))){
-                            Node tmp = new Node(latitude, longitude);
-                            for(Node n: graph.values()){
-                                if( n.equals(tmp)){
-                                    idStart = n.getId();
-                                    break;
-                                }
-                            }
+                        int node = startErrorNumber == 0 ? compactGraph.indexAt(latitude, longitude) : -1;
+                        if(node >= 0){
+                            idStart = compactGraph.getId(node);
                         }
                         else{
                             startErrorNumber +=4;
                         }
                     }else if(startId.isSelected()){
                         String id = startIdField.getText();
-                        if(graph.keySet().contains(id)){
+                        if(compactGraph.indexOf(id) >= 0){
                             idStart = id;
                         }
                         else{
@@ -189,21 +223,16 @@ public class MainView extends JFrame {
                         else{
                             goalErrorNumber +=2;
                         }
-                        if(goalErrorNumber == 0 && graph.values().contains(new Node(latitude, longitude))){
-                            Node tmp = new Node(latitude, longitude);
-                            for(Node n: graph.values()){
-                                if( n.equals(tmp)){
-                                    idGoal = n.getId();
-                                    break;
-                                }
-                            }
+                        int node = goalErrorNumber == 0 ? compactGraph.indexAt(latitude, longitude) : -1;
+                        if(node >= 0){
+                            idGoal = compactGraph.getId(node);
                         }
                         else{
                             goalErrorNumber +=4;
                         }
                     }else if(goalId.isSelected()){
                         String id = goalIdField.getText();
-                        if(graph.keySet().contains(id)){
+                        if(compactGraph.indexOf(id) >= 0){
                             idGoal = id;
                         }
                         else{
@@ -242,12 +271,32 @@ public class MainView extends JFrame {
                         }
                     }
                     else{
-                        if(dijkstraAlg) {
+                        if(dijkstraButton.isSelected()) {
                             wayFinder.runFinderDijkstra(idStart, idGoal);
                         }
-                        else{
+                        else if(aStarButton.isSelected()){
                             wayFinder.runFinderAStar(idStart, idGoal);
                         }
+                        else if(bidirectionalDijkstraButton.isSelected()){
+                            wayFinder.runFinderBidirectionalDijkstra(idStart, idGoal);
+                        }
+                        else if(bidirectionalAStarButton.isSelected()){
+                            wayFinder.runFinderBidirectionalAStar(idStart, idGoal);
+                        }
+                        else if(contractionHierarchyButton.isSelected()){
+                            if(wayFinder.getContractionHierarchy() == null){
+                                JOptionPane.showMessageDialog(contentPane, "There's no contraction hierarchy for this graph!");
+                                return;
+                            }
+                            wayFinder.runFinderContractionHierarchy(idStart, idGoal);
+                        }
+                        else if(wayFinder.getArcFlags() != null){
+                            wayFinder.runFinderArcFlags(idStart, idGoal);
+                        }
+                        else{
+                            JOptionPane.showMessageDialog(contentPane, "There are no arc flags for this graph!");
+                            return;
+                        }
                         shortestWay = wayFinder.getFoundWay();
                         if(shortestWay == null){
                             JOptionPane.showMessageDialog(contentPane, "This way does not exist!");
@@ -269,7 +318,7 @@ public class MainView extends JFrame {
                         final File file = fc.getSelectedFile();
                         try {
                             PrintWriter output = new PrintWriter(file);
-                            for (Node n : shortestWay){
+                            for (Node n : wayFinder.getCompactGraph().getWayPoints(shortestWay)){
                                 output.println(n);
                                 if(tmp!=null){
                                     tst += n.distance(tmp);
@@ -290,11 +339,12 @@ public class MainView extends JFrame {
         saveImageButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if (shortestWay != null && graph != null) {
+                if (shortestWay != null && wayFinder != null) {
+                    CompactGraph compactGraph = wayFinder.getCompactGraph();
                     double lat, lon;
-                    for (Node n : graph.values()) {
-                        lat = n.getLatitude();
-                        lon = n.getLongitude();
+                    for (int n = 0; n < compactGraph.getNodeCount(); n++) {
+                        lat = compactGraph.getLatitude(n);
+                        lon = compactGraph.getLongitude(n);
                         if (lat < bounds[0])
                             bounds[0] = lat;
                         if (lat > bounds[2])
@@ -313,14 +363,23 @@ public class MainView extends JFrame {
                     grph.fillRect(0, 0, width, height);
                     grph.setColor(Color.BLACK);
                     int x1 = 0, x2 = 0, y1 = 0, y2 = 0;
-                    for (Node n : graph.values()) {
-                        x1 = (int) Math.round(width * (n.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
-                        y1 = (int) Math.round(height - height * (n.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
-                        for (Node n2 : n.getEdges()) {
-                            x2 = (int) Math.round(width * (n2.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
-                            y2 = (int) Math.round(height - height * (n2.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
+                    for (int n = 0; n < compactGraph.getNodeCount(); n++) {
+                        x1 = (int) Math.round(width * (compactGraph.getLongitude(n) - bounds[1]) / (bounds[3] - bounds[1]));
+                        y1 = (int) Math.round(height - height * (compactGraph.getLatitude(n) - bounds[0]) / (bounds[2] - bounds[0]));
+                        for (int edge = compactGraph.getFirstEdge(n); edge < compactGraph.getEdgeEnd(n); edge++) {
+                            int n2 = compactGraph.getTarget(edge);
+                            int px = x1, py = y1;
+                            for (Node point : compactGraph.getEdgePoints(edge)) {
+                                x2 = (int) Math.round(width * (point.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
+                                y2 = (int) Math.round(height - height * (point.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
+                                grph.drawLine(px, py, x2, y2);
+                                px = x2;
+                                py = y2;
+                            }
+                            x2 = (int) Math.round(width * (compactGraph.getLongitude(n2) - bounds[1]) / (bounds[3] - bounds[1]));
+                            y2 = (int) Math.round(height - height * (compactGraph.getLatitude(n2) - bounds[0]) / (bounds[2] - bounds[0]));
                             //if(!shortestWay.contains(n) && !shortestWay.contains(n2))
-                            grph.drawLine(x1, y1, x2, y2);
+                            grph.drawLine(px, py, x2, y2);
                         }
                         grph.setColor(Color.RED);
                         grph.fillRect(x1 - 1, y1 - 1, 2, 2);
@@ -329,7 +388,7 @@ public class MainView extends JFrame {
                     grph.setColor(Color.GREEN);
                     grph.setStroke(new BasicStroke(10));
                     Node n2 = null;
-                    for (Node n : shortestWay) {
+                    for (Node n : compactGraph.getWayPoints(shortestWay)) {
                         if (n2 != null) {
                             x1 = (int) Math.round(width * (n.getLongitude() - bounds[1]) / (bounds[3] - bounds[1]));
                             y1 = (int) Math.round(height - height * (n.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
@@ -337,8 +396,12 @@ public class MainView extends JFrame {
                             y2 = (int) Math.round(height - height * (n2.getLatitude() - bounds[0]) / (bounds[2] - bounds[0]));
                             grph.drawLine(x1, y1, x2, y2);
                             grph.setColor(Color.BLUE);
-                            grph.fillRect(x1 - 2, y1 - 2, 4, 4);
-                            grph.fillRect(x2 - 2, y2 - 2, 4, 4);
+                            if (n.getId() != null) {
+                                grph.fillRect(x1 - 2, y1 - 2, 4, 4);
+                            }
+                            if (n2.getId() != null) {
+                                grph.fillRect(x2 - 2, y2 - 2, 4, 4);
+                            }
                             grph.setColor(Color.GREEN);
                         }
                         n2 = n;
@@ -369,7 +432,7 @@ public class MainView extends JFrame {
                 lat = startLatitudeField.getText();
                 lon = startLongitudeField.getText();
                 if(lat.matches("-?[0-9]+[.]?[0-9]*") && lon.matches("-?[0-9]+[.]?[0-9]*")){
-                    if(graph.containsValue(new Node(Double.parseDouble(lat), Double.parseDouble(lon) ))){
+                    if(wayFinder.getCompactGraph().indexAt(Double.parseDouble(lat), Double.parseDouble(lon)) >= 0){
                         JOptionPane.showMessageDialog(contentPane, "Such a Node exists");
                     }
                     else{
@@ -389,7 +452,7 @@ public class MainView extends JFrame {
                 lat = goalLatitudeField.getText();
                 lon = goalLongitudeField.getText();
                 if(lat.matches("-?[0-9]+[.]?[0-9]*") && lon.matches("-?[0-9]+[.]?[0-9]*")){
-                    if(graph.containsValue(new Node(Double.parseDouble(lat), Double.parseDouble(lon) ))){
+                    if(wayFinder.getCompactGraph().indexAt(Double.parseDouble(lat), Double.parseDouble(lon)) >= 0){
                         JOptionPane.showMessageDialog(contentPane, "Such a Node exists");
                     }
                     else{
@@ -406,7 +469,7 @@ public class MainView extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 String id = startIdField.getText();
-                if(graph.containsKey(id)){
+                if(wayFinder.getCompactGraph().indexOf(id) >= 0){
                     JOptionPane.showMessageDialog(contentPane, "Such a Node exists");
                 }
                 else{
@@ -418,7 +481,7 @@ public class MainView extends JFrame {
             @Override
             public void actionPerformed(ActionEvent e) {
                 String id = goalIdField.getText();
-                if(graph.containsKey(id)){
+                if(wayFinder.getCompactGraph().indexOf(id) >= 0){
                     JOptionPane.showMessageDialog(contentPane, "Such a Node exists");
                 }
                 else{
@@ -426,41 +489,35 @@ public class MainView extends JFrame {
                 }
             }
         });
-        dijkstraButton.addActionListener(new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                aStarButton.setSelected(false);
-                dijkstraAlg = true;
-                dijkstraButton.setSelected(true);
-            }
-        });
-        aStarButton.addActionListener(new ActionListener() {
+        ActionListener algorithmListener = new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                dijkstraButton.setSelected(false);
-                dijkstraAlg = false;
-                aStarButton.setSelected(true);
+                dijkstraButton.setSelected(e.getSource() == dijkstraButton);
+                aStarButton.setSelected(e.getSource() == aStarButton);
+                bidirectionalDijkstraButton.setSelected(e.getSource() == bidirectionalDijkstraButton);
+                bidirectionalAStarButton.setSelected(e.getSource() == bidirectionalAStarButton);
+                contractionHierarchyButton.setSelected(e.getSource() == contractionHierarchyButton);
+                arcFlagsButton.setSelected(e.getSource() == arcFlagsButton);
             }
-        });
+        };
+        dijkstraButton.addActionListener(algorithmListener);
+        aStarButton.addActionListener(algorithmListener);
+        bidirectionalDijkstraButton.addActionListener(algorithmListener);
+        bidirectionalAStarButton.addActionListener(algorithmListener);
+        contractionHierarchyButton.addActionListener(algorithmListener);
+        arcFlagsButton.addActionListener(algorithmListener);
         findTheClosestNodeButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                if(graph!= null) {
+                if(wayFinder != null) {
                     String lat = latitudeClosestNodeTextField.getText();
                     String lon = longitudeClosestNodeTextFiel.getText();
-                    double dst = Double.MAX_VALUE;
-                    Node theClosest = null;
+                    int theClosest = -1;
                     if (lat.matches("-?[0-9]+[.]?[0-9]*") && lon.matches("-?[0-9]+[.]?[0-9]*")) {
-                        Node tmp = new Node(Double.parseDouble(lat), Double.parseDouble(lon));
-                        for (Node n :graph.values()){
-                            if(n.distance(tmp) < dst){
-                                dst = n.distance(tmp);
-                                theClosest = n;
-                            }
-                        }
+                        theClosest = wayFinder.getCompactGraph().closestNode(Double.parseDouble(lat), Double.parseDouble(lon));
                     }
-                    if(theClosest!=null) {
-                        JOptionPane.showMessageDialog(contentPane, "The closest Node is " + theClosest.getId());
+                    if(theClosest >= 0) {
+                        JOptionPane.showMessageDialog(contentPane, "The closest Node is " + wayFinder.getCompactGraph().getId(theClosest));
                     }
                 }
                 else{
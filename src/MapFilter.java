@@ -0,0 +1,118 @@
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Configuration of the data kept while the map is read. Nodes outside the bounding box and Ways whose
+ * highway type is not in the profile are dropped before they are stored.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class MapFilter implements Serializable{
+    /**
+     * Highway types of Ways kept when no other types are configured
+     */
+    public static final List<String> DEFAULT_HIGHWAY_TYPES = Collections.unmodifiableList(Arrays.asList("motorway", "trunk", "primary", "secondary", "tertiary", "unclassified", "residential",  "living_street", "pedestrian",  "primary_link", "secondary_link", "tertiary_link", "trunk_link", "motorway_link"));
+    /**
+     * Minimal latitude of kept Nodes
+     */
+    private double minLat;
+    /**
+     * Minimal longitude of kept Nodes
+     */
+    private double minLon;
+    /**
+     * Maximal latitude of kept Nodes
+     */
+    private double maxLat;
+    /**
+     * Maximal longitude of kept Nodes
+     */
+    private double maxLon;
+    /**
+     * Remembers if the bounding box has been set
+     */
+    private boolean boundingBox;
+    /**
+     * Highway types of kept Ways
+     */
+    private Set<String> highwayTypes;
+
+    /**
+     * Default constructor, keeps the whole map and Ways of the default highway types
+     */
+    public MapFilter(){
+        this.minLat = -90;
+        this.minLon = -180;
+        this.maxLat = 90;
+        this.maxLon = 180;
+        this.boundingBox = false;
+        this.highwayTypes = new HashSet<>(DEFAULT_HIGHWAY_TYPES);
+    }
+
+    /**
+     * Sets the bounding box of kept Nodes
+     * @param minLat minimal latitude
+     * @param minLon minimal longitude
+     * @param maxLat maximal latitude
+     * @param maxLon maximal longitude
+     */
+    public void setBoundingBox(double minLat, double minLon, double maxLat, double maxLon){
+        if(minLat > maxLat || minLon > maxLon){
+            throw new IllegalArgumentException("Bounding box is empty!");
+        }
+        this.minLat = minLat;
+        this.minLon = minLon;
+        this.maxLat = maxLat;
+        this.maxLon = maxLon;
+        this.boundingBox = true;
+    }
+
+    /**
+     * Sets highway types of kept Ways
+     * @param types highway types, e.g. "motorway" or "tertiary"
+     */
+    public void setHighwayTypes(Collection<String> types){
+        this.highwayTypes = new HashSet<>(types);
+    }
+
+    /**
+     * Returns highway types of kept Ways
+     * @return set of highway types
+     */
+    public Set<String> getHighwayTypes(){
+        return highwayTypes;
+    }
+
+    /**
+     * Checks whether the bounding box has been set, so Ways may have to be clipped
+     * @return true if the bounding box has been set
+     */
+    public boolean hasBoundingBox(){
+        return boundingBox;
+    }
+
+    /**
+     * Checks whether the point lies in the bounding box
+     * @param lat latitude of the point
+     * @param lon longitude of the point
+     * @return true if the point is kept
+     */
+    public boolean contains(double lat, double lon){
+        return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+    }
+
+    /**
+     * Checks whether Ways of the type are kept
+     * @param type highway type of the Way
+     * @return true if the type is in the profile
+     */
+    public boolean isAllowedType(String type){
+        return type != null && highwayTypes.contains(type);
+    }
+}
@@ -1,11 +1,13 @@
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.Serializable;
+import java.io.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Scanner;
+import java.util.zip.GZIPInputStream;
 
 import MapReaderExceptions.*;
+import org.xmlpull.mxp1.MXParser;
+import org.xmlpull.v1.XmlPullParser;
+import org.xmlpull.v1.XmlPullParserException;
 
 /**
  * Class created to read data from file
@@ -17,39 +19,75 @@ public class MapReader implements Serializable{
     /**
      * Represents opened file
      */
-    private File file;
+    protected File file;
+    /**
+     * Size of the buffer used to read the file
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
     /**
      * Used to read read file
      */
-    private transient Scanner input;
+    private transient InputStream input;
+    /**
+     * Pull parser streaming the elements of the file
+     */
+    private transient XmlPullParser parser;
     /**
      * Remembers if Nodes are already read
      */
-    private boolean areNodesAlreadyRead;
+    protected boolean areNodesAlreadyRead;
     /**
      * Remembers if Ways are already read
      */
-    private boolean areWaysAlreadyRead;
+    protected boolean areWaysAlreadyRead;
     /**
      * Remembers if bounds are already read
      */
-    private boolean areBoundsAlreadyRead;
+    protected boolean areBoundsAlreadyRead;
+    /**
+     * Holds Nodes used by read Ways
+     */
+    protected HashMap<String, Node> nodes;
     /**
-     * Holds currently processed line of the file
+     * Holds ids and coordinates of all Nodes while the file is read
      */
-    private String currentLine;
+    protected transient NodeStore nodeStore;
     /**
-     * Holds all read Nodes
+     * Holds Nodes created for Ways, indexed like nodeStore
      */
-    private HashMap<String, Node> nodes;
+    private transient Node[] createdNodes;
     /**
      * Holds all read Ways
      */
-    private ArrayList<Way> ways;
+    protected ArrayList<Way> ways;
     /**
      * Holds boundaries of map represented by file
      */
-    private Double bounds[];
+    protected Double bounds[];
+    /**
+     * Remembers if the file is read twice to keep only Nodes referenced by Ways
+     */
+    protected boolean twoPass;
+    /**
+     * Holds ids of Nodes referenced by Ways of allowed types, null if all Nodes are kept
+     */
+    protected transient LongIdSet referencedNodes;
+    /**
+     * Bounding box and highway types of kept data
+     */
+    protected MapFilter filter;
+    /**
+     * Number of bytes read during the last reading
+     */
+    protected long bytesRead;
+    /**
+     * Number of XML elements read during the last reading
+     */
+    protected long elementsRead;
+    /**
+     * Time of the last reading in nanoseconds
+     */
+    protected long readingTime;
 
     /**
      * Default constructor
@@ -58,6 +96,19 @@ public class MapReader implements Serializable{
         this.areNodesAlreadyRead = false;
         this.areWaysAlreadyRead = false;
         this.areBoundsAlreadyRead = false;
+        this.filter = new MapFilter();
+    }
+
+    /**
+     * Creates the reader suitable for the format of the file
+     * @param filename path to the file that will be read
+     * @return PbfMapReader for .pbf files, ParallelMapReader for other files (it streams compressed files)
+     */
+    public static MapReader createReader(String filename){
+        if(filename.endsWith(".pbf")){
+            return new PbfMapReader();
+        }
+        return new ParallelMapReader();
     }
 
     /**
@@ -73,16 +124,119 @@ public class MapReader implements Serializable{
     }
 
     /**
-     * Opens stream to the file
+     * Sets whether the file is read twice. The first pass reads only Ways and remembers Nodes they refer to,
+     * the second pass keeps only those Nodes, so the memory is not taken by Nodes that never get into the graph.
+     * @param twoPass true to read the file twice
+     */
+    public void setTwoPass(boolean twoPass){
+        this.twoPass = twoPass;
+    }
+
+    /**
+     * Sets the filter of kept data, Nodes and Ways dropped by it are not stored at all
+     * @param filter bounding box and highway types of kept data
+     */
+    public void setFilter(MapFilter filter){
+        this.filter = filter;
+    }
+
+    /**
+     * Returns the filter of kept data
+     * @return bounding box and highway types of kept data
+     */
+    public MapFilter getFilter(){
+        return filter;
+    }
+
+    /**
+     * Checks whether the Node will be kept while reading
+     * @param id id of the Node
+     * @return true if all Nodes are kept or the Node is referenced by a Way of allowed type
+     */
+    protected boolean isNodeReferenced(long id){
+        return referencedNodes == null || referencedNodes.contains(id);
+    }
+
+    /**
+     * Opens stream to the file. Gzip and bzip2 files are decompressed on a separate thread.
      * @throws FileNotFoundException if the file cannot be read
+     * @throws MapFileException if the header of compressed file is not correct
+     */
+    public void openStream() throws FileNotFoundException, MapFileException {
+        InputStream fileStream = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            if (isGzip(file)) {
+                this.input = new BackgroundInputStream(new GZIPInputStream(fileStream, BUFFER_SIZE));
+            }
+            else if (isBzip2(file)) {
+                this.input = new BackgroundInputStream(new BZip2InputStream(fileStream));
+            }
+            else {
+                this.input = fileStream;
+            }
+        }catch (IOException e){
+            try {
+                fileStream.close();
+            }catch (IOException closeException){
+                e.addSuppressed(closeException);
+            }
+            throw new MapFileException("Compressed map file cannot be read!", e);
+        }
+    }
+
+    /**
+     * Checks whether the file is compressed, so it cannot be read directly from memory
+     * @param file checked file
+     * @return true if the file is compressed with gzip or bzip2
+     */
+    protected static boolean isCompressed(File file){
+        return isGzip(file) || isBzip2(file);
+    }
+
+    /**
+     * Checks whether the file starts with gzip header
+     * @param file checked file
+     * @return true if the file is compressed with gzip
+     */
+    private static boolean isGzip(File file){
+        byte[] header = readHeader(file, 2);
+        return (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b;
+    }
+
+    /**
+     * Checks whether the file starts with bzip2 header
+     * @param file checked file
+     * @return true if the file is compressed with bzip2
      */
-    public void openStream() throws FileNotFoundException {
-        this.input = new Scanner(file);
+    private static boolean isBzip2(File file){
+        byte[] header = readHeader(file, 3);
+        return header[0] == 'B' && header[1] == 'Z' && header[2] == 'h';
     }
 
     /**
-     * Reads boundaries of the map
+     * Reads first bytes of the file
+     * @param file read file
+     * @param length number of bytes
+     * @return read bytes, filled with zeros if the file is shorter or cannot be read
+     */
+    private static byte[] readHeader(File file, int length){
+        byte[] header = new byte[length];
+        try (InputStream stream = new FileInputStream(file)) {
+            int offset = 0;
+            int count;
+            while(offset < length && (count = stream.read(header, offset, length - offset)) > 0){
+                offset += count;
+            }
+        }catch (IOException e){
+            Arrays.fill(header, (byte) 0);
+        }
+        return header;
+    }
+
+    /**
+     * Reads boundaries of the map from the current element
      * @throws NodesAlreadyReadException if is called after reading Nodes
+     * @throws BoundsAlreadyReadException if boundaries have been already read
      */
     private void readBounds() throws NodesAlreadyReadException, BoundsAlreadyReadException{
         if (areNodesAlreadyRead){
@@ -92,108 +246,353 @@ public class MapReader implements Serializable{
             throw new BoundsAlreadyReadException("Bounds have been already read!");
         }
         bounds = new Double[4];
-        this.currentLine = input.nextLine();
-        while(!this.currentLine.matches("(.*)<bounds minlat(.*)")){
-            this.currentLine = input.nextLine();
-        }
-        bounds[0] = Double.parseDouble(this.currentLine.substring(this.currentLine.indexOf("minlat")+8, this.currentLine.indexOf('\"', this.currentLine.indexOf("minlat")+8)));
-        bounds[1] = Double.parseDouble(this.currentLine.substring(this.currentLine.indexOf("minlon")+8, this.currentLine.indexOf('\"', this.currentLine.indexOf("minlon")+8)));
-        bounds[2] = Double.parseDouble(this.currentLine.substring(this.currentLine.indexOf("maxlat")+8, this.currentLine.indexOf('\"', this.currentLine.indexOf("maxlat")+8)));
-        bounds[3] = Double.parseDouble(this.currentLine.substring(this.currentLine.indexOf("maxlon")+8, this.currentLine.indexOf('\"', this.currentLine.indexOf("maxlon")+8)));
+        bounds[0] = Double.parseDouble(parser.getAttributeValue(null, "minlat"));
+        bounds[1] = Double.parseDouble(parser.getAttributeValue(null, "minlon"));
+        bounds[2] = Double.parseDouble(parser.getAttributeValue(null, "maxlat"));
+        bounds[3] = Double.parseDouble(parser.getAttributeValue(null, "maxlon"));
         areBoundsAlreadyRead = true;
     }
 
     /**
-     * Reads all Nodes from file
-     * @throws NodesAlreadyReadException if Nodes have been already read
+     * Reads the Node from the current element
      */
-    private void readNodes() throws NodesAlreadyReadException {
-        if(areNodesAlreadyRead){
-            throw new NodesAlreadyReadException("Nodes have been already read from this file! Reopen file to do this again.");
+    private void readNode(){
+        String tempId = parser.getAttributeValue(null, "id");
+        if(referencedNodes != null && !isNodeReferenced(Long.parseLong(tempId))){
+            return;
         }
-        nodes = new HashMap<>();
-        String tempId;
-        double tempLat;
-        double tempLon;
-        this.currentLine = input.nextLine();
-        while(!currentLine.matches("(.*)<way (.*)") && input.hasNextLine()){
-            if(currentLine.matches("(.*)<node (.*)")){
-                tempId = this.currentLine.substring(this.currentLine.indexOf("id")+4, this.currentLine.indexOf('\"',this.currentLine.indexOf("id")+4));
-                tempLat = Double.parseDouble(this.currentLine.substring(this.currentLine.indexOf("lat")+5, this.currentLine.indexOf('\"',this.currentLine.indexOf("lat")+5)));
-                tempLon = Double.parseDouble(this.currentLine.substring(this.currentLine.indexOf("lon")+5, this.currentLine.indexOf("\"", this.currentLine.indexOf("lon")+5)));
-                nodes.put(tempId, new Node(tempId, tempLat, tempLon));
+        double tempLat = Double.parseDouble(parser.getAttributeValue(null, "lat"));
+        double tempLon = Double.parseDouble(parser.getAttributeValue(null, "lon"));
+        if(!filter.contains(tempLat, tempLon)){
+            return;
+        }
+        nodeStore.add(Long.parseLong(tempId), tempLat, tempLon);
+    }
+
+    /**
+     * Reads the Way which starts at the current element and throws it off if it is incorrect
+     * @throws XmlPullParserException if the Way is not well-formed
+     * @throws IOException if the stream cannot be read
+     */
+    private void readWay() throws XmlPullParserException, IOException{
+        long[] refs = new long[16];
+        int count = 0;
+        String type = null;
+        String wayName = null;
+        boolean roundabout = false;
+        String name;
+        String key;
+        int depth = parser.getDepth();
+        int event = parser.next();
+        while(event != XmlPullParser.END_TAG || parser.getDepth() != depth){
+            if(event == XmlPullParser.START_TAG){
+                elementsRead++;
+                name = parser.getName();
+                if(name.equals("nd")){
+                    if(count == refs.length){
+                        refs = Arrays.copyOf(refs, 2 * count);
+                    }
+                    refs[count++] = Long.parseLong(parser.getAttributeValue(null, "ref"));
+                }
+                else if(name.equals("tag")){
+                    key = parser.getAttributeValue(null, "k");
+                    if(key.equals("highway")){
+                        type = parser.getAttributeValue(null, "v");
+                    }
+                    else if(key.equals("name")){
+                        wayName = parser.getAttributeValue(null, "v");
+                    }
+                    else if(key.equals("junction") && "roundabout".equals(parser.getAttributeValue(null, "v"))){
+                        roundabout = true;
+                    }
+                }
+            }
+            event = parser.next();
+        }
+        acceptWay(refs, count, type, wayName, roundabout);
+    }
+
+    /**
+     * Adds the completely read Way to the container if it is correct and kept by the filter. Nodes missing
+     * in the file are skipped, Nodes dropped by the bounding box split the Way into parts.
+     * @param refs ids of the Way's Nodes
+     * @param count number of the Way's Nodes
+     * @param type type of the Way
+     * @param name name of the Way
+     * @param roundabout true if the Way is a roundabout
+     */
+    protected void acceptWay(long[] refs, int count, String type, String name, boolean roundabout){
+        if(!filter.isAllowedType(type)){
+            return;
+        }
+        if(filter.hasBoundingBox()){
+            acceptClippedWay(refs, count, type, name, roundabout);
+            return;
+        }
+        int[] indexes = new int[count];
+        int size = 0;
+        int index;
+        for(int i = 0; i < count; i++){
+            index = nodeStore.indexOf(refs[i]);
+            if(index >= 0){
+                indexes[size++] = index;
+            }
+        }
+        if(roundabout && size > 0){
+            size--;
+        }
+        if(size < 2 || (!roundabout && indexes[0] == indexes[size - 1])){
+            return;
+        }
+        addWay(indexes, 0, size, type, name, roundabout);
+    }
+
+    /**
+     * Splits the Way into parts made of consecutive Nodes lying in the bounding box and adds correct parts
+     * @param refs ids of the Way's Nodes
+     * @param count number of the Way's Nodes
+     * @param type type of the Way
+     * @param name name of the Way
+     * @param roundabout true if the Way is a roundabout
+     */
+    private void acceptClippedWay(long[] refs, int count, String type, String name, boolean roundabout){
+        boolean closed = count > 2 && refs[0] == refs[count - 1];
+        if(roundabout && closed){
+            count--;
+        }
+        int[] indexes = new int[count];
+        int firstMissing = -1;
+        for(int i = 0; i < count; i++){
+            indexes[i] = nodeStore.indexOf(refs[i]);
+            if(indexes[i] < 0 && firstMissing < 0){
+                firstMissing = i;
+            }
+        }
+        if(firstMissing < 0){
+            if(count >= 2 && (roundabout || indexes[0] != indexes[count - 1])){
+                addWay(indexes, 0, count, type, name, roundabout);
+            }
+            return;
+        }
+        if(roundabout && closed){
+            int[] rotated = new int[count];
+            System.arraycopy(indexes, firstMissing, rotated, 0, count - firstMissing);
+            System.arraycopy(indexes, 0, rotated, count - firstMissing, firstMissing);
+            indexes = rotated;
+        }
+        int from = 0;
+        for(int i = 0; i <= count; i++){
+            if(i == count || indexes[i] < 0){
+                if(i - from >= 2 && (roundabout || indexes[from] != indexes[i - 1])){
+                    addWay(indexes, from, i, type, name, roundabout);
+                }
+                from = i + 1;
             }
-            this.currentLine =input.nextLine();
         }
-        areNodesAlreadyRead = true;
     }
 
     /**
-     * Reads all Ways from file and throws off incorrect ones
-     * @throws NodesNotReadYetException if it's called to early
+     * Creates the Way from stored Nodes and adds it to the container. Node objects are created only once.
+     * @param indexes indexes of the Way's Nodes in nodeStore
+     * @param from position of the first Node of the Way
+     * @param to position after the last Node of the Way
+     * @param type type of the Way
+     * @param name name of the Way
+     * @param roundabout true if the Way is a roundabout
+     */
+    private void addWay(int[] indexes, int from, int to, String type, String name, boolean roundabout){
+        if(createdNodes == null || createdNodes.length < nodeStore.size()){
+            createdNodes = createdNodes == null ? new Node[nodeStore.size()] : Arrays.copyOf(createdNodes, nodeStore.size());
+        }
+        Way newWay = new Way();
+        Node node;
+        for(int i = from; i < to; i++){
+            node = createdNodes[indexes[i]];
+            if(node == null){
+                node = nodeStore.createNode(indexes[i]);
+                createdNodes[indexes[i]] = node;
+                nodes.put(node.getId(), node);
+            }
+            node.increaseWaysCounter();
+            newWay.addNode(node);
+        }
+        newWay.setType(type);
+        newWay.setName(name);
+        if(roundabout){
+            newWay.setRoundabout();
+        }
+        ways.add(newWay);
+    }
+
+    /**
+     * Frees memory used only while the file is read
+     */
+    protected void releaseNodeStore(){
+        nodeStore = null;
+        createdNodes = null;
+        referencedNodes = null;
+    }
+
+    /**
+     * Streams all Ways of the file and remembers ids of Nodes referenced by Ways of allowed types
+     * @throws MapFileException if the file cannot be parsed
+     */
+    private void readReferencedNodes() throws MapFileException{
+        referencedNodes = new LongIdSet();
+        int wayStart = 0;
+        String type = null;
+        boolean insideWay = false;
+        try {
+            parser = new MXParser();
+            parser.setInput(input, null);
+            String name;
+            int event = parser.getEventType();
+            while (event != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.START_TAG) {
+                    name = parser.getName();
+                    if (name.equals("way")) {
+                        insideWay = true;
+                        type = null;
+                        wayStart = referencedNodes.size();
+                    }
+                    else if (insideWay && name.equals("nd")) {
+                        referencedNodes.add(Long.parseLong(parser.getAttributeValue(null, "ref")));
+                    }
+                    else if (insideWay && name.equals("tag") && "highway".equals(parser.getAttributeValue(null, "k"))) {
+                        type = parser.getAttributeValue(null, "v");
+                    }
+                }
+                else if (event == XmlPullParser.END_TAG && insideWay && parser.getName().equals("way")) {
+                    insideWay = false;
+                    if (!filter.isAllowedType(type)) {
+                        referencedNodes.truncate(wayStart);
+                    }
+                }
+                event = parser.next();
+            }
+        }catch (XmlPullParserException | RuntimeException e){
+            throw new MapFileException("Map file is not a correct OSM file!", e);
+        }catch (IOException e){
+            throw new MapFileException("Map file cannot be read!", e);
+        }finally {
+            parser = null;
+        }
+        referencedNodes.seal();
+    }
+
+    /**
+     * Streams all elements of the file and reads bounds, Nodes and Ways from them
+     * @throws BoundsAlreadyReadException if boundaries appear again in the file
+     * @throws NodesAlreadyReadException if Nodes have been already read
      * @throws WaysAlreadyReadException if Ways have been already read
+     * @throws MapFileException if the file cannot be parsed
      */
-    private void readWays() throws NodesNotReadYetException, WaysAlreadyReadException{
-        if(!areNodesAlreadyRead){
-            throw new NodesNotReadYetException("There was an attempt of reading ways without nodes!");
+    private void readElements() throws BoundsAlreadyReadException, NodesAlreadyReadException, WaysAlreadyReadException, MapFileException{
+        if(areNodesAlreadyRead){
+            throw new NodesAlreadyReadException("Nodes have been already read from this file! Reopen file to do this again.");
         }
         if(areWaysAlreadyRead){
             throw new WaysAlreadyReadException("Ways have been already read from this file! Reopen file to do this again.");
         }
+        nodes = new HashMap<>();
+        nodeStore = new NodeStore();
         ways = new ArrayList<>();
-        while(input.hasNextLine() ) {
-            if (currentLine.matches("(.*)<way(.*)")) {
-                Way newWay = new Way();
-                String nodeId;
-                currentLine = input.nextLine();
-                while (currentLine.matches("(.*)<nd ref(.*)")) {
-                    nodeId = currentLine.substring(currentLine.indexOf("ref") + 5, currentLine.indexOf("\"", currentLine.indexOf("ref") + 5));
-                    newWay.addNode(nodes.get(nodeId));
-                    currentLine = input.nextLine();
-                }
-                while(!currentLine.matches("(.*)</way>(.*)")){
-                    if(currentLine.matches("(.*)tag k=\"highway\"(.*)")){
-                        newWay.setType(currentLine.substring(currentLine.indexOf("v=\"")+3, currentLine.indexOf('\"', currentLine.indexOf("v=\"")+3)));
+        elementsRead = 0;
+        try {
+            parser = new MXParser();
+            parser.setInput(input, null);
+            String name;
+            int event = parser.getEventType();
+            while (event != XmlPullParser.END_DOCUMENT) {
+                if (event == XmlPullParser.START_TAG) {
+                    elementsRead++;
+                    name = parser.getName();
+                    if (name.equals("node")) {
+                        readNode();
                     }
-                    else if(currentLine.matches("(.*)tag k=\"name\"(.*)")){
-                        newWay.setName(currentLine.substring(currentLine.indexOf("v=\"")+3, currentLine.indexOf('\"', currentLine.indexOf("v=\"")+3)));
+                    else if (name.equals("way")) {
+                        readWay();
                     }
-                    else if(currentLine.matches("(.*)tag k=\"junction\" v=\"roundabout\"(.*)")){
-                        newWay.setRoundabout();
-                        newWay.getNodes().remove(newWay.getNodes().size()-1);
+                    else if (name.equals("bounds")) {
+                        readBounds();
                     }
-                    currentLine = input.nextLine();
-                }
-                if(newWay.isCorrect()){
-                    for(Node n: newWay.getNodes()){
-                        n.increaseWaysCounter();
-                    }
-                    ways.add(newWay);
                 }
+                event = parser.next();
             }
-            currentLine = input.nextLine();
+        }catch (XmlPullParserException | RuntimeException e){
+            throw new MapFileException("Map file is not a correct OSM file!", e);
+        }catch (IOException e){
+            throw new MapFileException("Map file cannot be read!", e);
+        }finally {
+            parser = null;
         }
-        areWaysAlreadyRead=true;
+        areNodesAlreadyRead = true;
+        areWaysAlreadyRead = true;
     }
 
     /**
      * Calls all method needed to read the file
-     * @throws BoundsAlreadyReadException if readBounds was called again
-     * @throws NodesAlreadyReadException if readBounds was called after Nodes reading or readNodes was called again
-     * @throws NodesNotReadYetException if readWay was called before reading Node
-     * @throws WaysAlreadyReadException if readWay was called again
+     * @throws BoundsAlreadyReadException if boundaries appear again in the file
+     * @throws NodesAlreadyReadException if Nodes have been already read from the file
+     * @throws NodesNotReadYetException never thrown, kept for compatibility with the callers
+     * @throws WaysAlreadyReadException if Ways have been already read from the file
      * @throws FileNotFoundException if occurred a problem with file
+     * @throws MapFileException if the file cannot be read or parsed
      */
-    public void runReader() throws BoundsAlreadyReadException, NodesAlreadyReadException, NodesNotReadYetException, WaysAlreadyReadException, FileNotFoundException{
+    public void runReader() throws BoundsAlreadyReadException, NodesAlreadyReadException, NodesNotReadYetException, WaysAlreadyReadException, FileNotFoundException, MapFileException{
+        long startTime = System.nanoTime();
+        referencedNodes = null;
+        if(twoPass){
+            this.openStream();
+            try {
+                this.readReferencedNodes();
+            }finally {
+                try {
+                    this.input.close();
+                }catch (IOException e){
+                    e.printStackTrace();
+                }
+            }
+        }
         this.openStream();
-        this.readBounds();
-        this.readNodes();
-        this.readWays();
-        this.input.close();
+        try {
+            this.readElements();
+        }finally {
+            try {
+                this.input.close();
+            }catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+        releaseNodeStore();
+        this.readingTime = System.nanoTime() - startTime;
+        this.bytesRead = twoPass ? 2 * file.length() : file.length();
+    }
+
+    /**
+     * Returns the parse throughput of the last reading
+     * @return number of megabytes read per second
+     */
+    public double getMegabytesPerSecond(){
+        if(readingTime == 0){
+            return 0;
+        }
+        return (bytesRead / 1e6) / (readingTime / 1e9);
+    }
+
+    /**
+     * Returns the parse throughput of the last reading
+     * @return number of XML elements read per second
+     */
+    public double getElementsPerSecond(){
+        if(readingTime == 0){
+            return 0;
+        }
+        return elementsRead / (readingTime / 1e9);
     }
 
     /**
-     * Returns container with read Nodes
+     * Returns container with Nodes used by read Ways
      * @return HashMap with Nodes
      * @throws NodesNotReadYetException if Nodes have not been read yet
      */
@@ -0,0 +1,26 @@
+package MapReaderExceptions;
+
+/**
+ * Exception thrown when MapReader cannot read or parse the map file
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class MapFileException extends Exception {
+    /**
+     * Constructor
+     * @param s description of the exception
+     */
+    public MapFileException(String s){
+        super(s);
+    }
+
+    /**
+     * Constructor
+     * @param s description of the exception
+     * @param cause exception thrown by the parser or the stream
+     */
+    public MapFileException(String s, Throwable cause){
+        super(s, cause);
+    }
+}
@@ -0,0 +1,545 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Class holding the overlay of MultiLevelPartition with the weights of one metric. A Node is a boundary Node
+ * of its cell when one of its edges leaves the cell. For every cell of every level the overlay keeps a clique with
+ * the lengths of the shortest ways inside the cell between all its boundary Nodes. The cliques of the lowest level
+ * are computed on the graph and the cliques of a higher level on the cliques of its subcells and the edges between
+ * them, so the cells of one level are customized in parallel after the level below.
+ * <p>
+ * A query searches the graph in the cells of the start and the goal on the lowest level and leaves the other cells
+ * by the cliques of the highest level which does not contain the start or the goal. The cliques of the found way
+ * are unpacked by searches inside their cells, one level lower each time.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class MultiLevelOverlay {
+    /**
+     * Graph of the overlay
+     */
+    private final CompactGraph graph;
+    /**
+     * Partition of the graph into cells
+     */
+    private final MultiLevelPartition partition;
+    /**
+     * Holds the position of the first boundary Node of every cell on every level
+     */
+    private final int[][] boundaryOffsets;
+    /**
+     * Boundary Nodes of the cells on every level
+     */
+    private final int[][] boundaryNodes;
+    /**
+     * Holds the position of every Node among the boundary Nodes of its cell on every level, -1 for inner Nodes
+     */
+    private final int[][] boundaryIndices;
+    /**
+     * Holds the position of the first weight of the clique of every cell on every level
+     */
+    private final int[][] cliqueOffsets;
+    /**
+     * Weights of the edges of the graph
+     */
+    private final float[] weights;
+    /**
+     * Weights of the cliques on every level, row by row, infinity if there is no way inside the cell
+     */
+    private final float[][] cliques;
+
+    /**
+     * MultiLevelOverlay's constructor, computes the cliques with the lengths of the edges using all available processors
+     * @param graph graph of the overlay
+     * @param partition partition of the graph
+     * @throws IllegalArgumentException if the partition has been computed for another graph
+     */
+    public MultiLevelOverlay(CompactGraph graph, MultiLevelPartition partition){
+        this(graph, partition, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * MultiLevelOverlay's constructor, computes the cliques with the lengths of the edges
+     * @param graph graph of the overlay
+     * @param partition partition of the graph
+     * @param parallelism number of threads computing the cliques
+     * @throws IllegalArgumentException if the partition has been computed for another graph
+     */
+    public MultiLevelOverlay(CompactGraph graph, MultiLevelPartition partition, int parallelism){
+        if(partition.getLevelCount() > 0 && partition.getNodeCount() != graph.getNodeCount()){
+            throw new IllegalArgumentException("Partition has been computed for another graph!");
+        }
+        this.graph = graph;
+        this.partition = partition;
+        int levelCount = partition.getLevelCount();
+        int nodeCount = graph.getNodeCount();
+        this.boundaryOffsets = new int[levelCount][];
+        this.boundaryNodes = new int[levelCount][];
+        this.boundaryIndices = new int[levelCount][];
+        this.cliqueOffsets = new int[levelCount][];
+        this.cliques = new float[levelCount][];
+        int cellCount, cell, target, size;
+        for(int level = 0; level < levelCount; level++){
+            cellCount = partition.getCellCount(level);
+            int[] indices = new int[nodeCount];
+            Arrays.fill(indices, -1);
+            for(int node = 0; node < nodeCount; node++){
+                for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                    target = graph.getTarget(i);
+                    if(partition.getCell(level, node) != partition.getCell(level, target)){
+                        indices[node] = 0;
+                        indices[target] = 0;
+                    }
+                }
+            }
+            int[] offsets = new int[cellCount + 1];
+            for(int node = 0; node < nodeCount; node++){
+                if(indices[node] >= 0){
+                    offsets[partition.getCell(level, node) + 1]++;
+                }
+            }
+            int[] cliqueOffsets = new int[cellCount + 1];
+            for(cell = 0; cell < cellCount; cell++){
+                size = offsets[cell + 1];
+                offsets[cell + 1] += offsets[cell];
+                cliqueOffsets[cell + 1] = Math.addExact(cliqueOffsets[cell], Math.multiplyExact(size, size));
+            }
+            int[] nodes = new int[offsets[cellCount]];
+            int[] positions = Arrays.copyOf(offsets, cellCount);
+            for(int node = 0; node < nodeCount; node++){
+                if(indices[node] >= 0){
+                    cell = partition.getCell(level, node);
+                    indices[node] = positions[cell] - offsets[cell];
+                    nodes[positions[cell]++] = node;
+                }
+            }
+            boundaryOffsets[level] = offsets;
+            boundaryNodes[level] = nodes;
+            boundaryIndices[level] = indices;
+            this.cliqueOffsets[level] = cliqueOffsets;
+            cliques[level] = new float[cliqueOffsets[cellCount]];
+        }
+        this.weights = new float[graph.getEdgeCount()];
+        for(int i = 0; i < weights.length; i++){
+            weights[i] = graph.getWeight(i);
+        }
+        customizeCells(null, parallelism);
+    }
+
+    /**
+     * MultiLevelOverlay's constructor, creates the overlay sharing the boundary Nodes with another overlay
+     * @param overlay overlay of the same partition
+     * @param weights new weights of the edges
+     * @param copyCliques true if the cliques of the other overlay are copied, false if they are left empty
+     */
+    private MultiLevelOverlay(MultiLevelOverlay overlay, float[] weights, boolean copyCliques){
+        this.graph = overlay.graph;
+        this.partition = overlay.partition;
+        this.boundaryOffsets = overlay.boundaryOffsets;
+        this.boundaryNodes = overlay.boundaryNodes;
+        this.boundaryIndices = overlay.boundaryIndices;
+        this.cliqueOffsets = overlay.cliqueOffsets;
+        this.weights = weights.clone();
+        this.cliques = new float[overlay.cliques.length][];
+        for(int level = 0; level < cliques.length; level++){
+            cliques[level] = copyCliques ? overlay.cliques[level].clone() : new float[overlay.cliques[level].length];
+        }
+    }
+
+    /**
+     * Creates the overlay with new weights using all available processors
+     * @param weights weights of the edges of the graph, infinity for closed edges
+     * @return MultiLevelOverlay with the weights
+     * @throws IllegalArgumentException if the number of the weights is different from the number of the edges
+     */
+    public MultiLevelOverlay customize(float[] weights){
+        return customize(weights, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates the overlay with new weights, all cliques are computed again
+     * @param weights weights of the edges of the graph, infinity for closed edges
+     * @param parallelism number of threads computing the cliques
+     * @return MultiLevelOverlay with the weights
+     * @throws IllegalArgumentException if the number of the weights is different from the number of the edges
+     */
+    public MultiLevelOverlay customize(float[] weights, int parallelism){
+        checkWeights(weights);
+        MultiLevelOverlay overlay = new MultiLevelOverlay(this, weights, false);
+        overlay.customizeCells(null, parallelism);
+        return overlay;
+    }
+
+    /**
+     * Creates the overlay with new weights of some edges. Only the cliques of the cells containing both ends
+     * of a changed edge are computed again, the other cliques are copied from this overlay.
+     * @param weights weights of the edges of the graph, infinity for closed edges
+     * @param changedEdges numbers of the edges whose weights are different from the weights of this overlay
+     * @param parallelism number of threads computing the cliques
+     * @return MultiLevelOverlay with the weights
+     * @throws IllegalArgumentException if the number of the weights is different from the number of the edges
+     * or a changed edge does not exist
+     */
+    public MultiLevelOverlay customize(float[] weights, int[] changedEdges, int parallelism){
+        checkWeights(weights);
+        for(int edge: changedEdges){
+            if(edge < 0 || edge >= weights.length){
+                throw new IllegalArgumentException("There's no edge " + edge + "!");
+            }
+        }
+        MultiLevelOverlay overlay = new MultiLevelOverlay(this, weights, true);
+        overlay.customizeCells(changedEdges, parallelism);
+        return overlay;
+    }
+
+    /**
+     * Checks the number of the weights
+     * @param weights weights of the edges
+     * @throws IllegalArgumentException if the number of the weights is different from the number of the edges
+     */
+    private void checkWeights(float[] weights){
+        if(weights.length != this.weights.length){
+            throw new IllegalArgumentException("Number of weights is different from the number of edges!");
+        }
+    }
+
+    /**
+     * Computes the cliques level by level, the cells of one level in parallel
+     * @param changedEdges edges whose cells are computed or null to compute all cells
+     * @param parallelism number of threads computing the cliques
+     */
+    private void customizeCells(int[] changedEdges, int parallelism){
+        int[][] changedCells = changedCells(changedEdges);
+        ThreadLocal<QueryContext> contexts = ThreadLocal.withInitial(() -> new QueryContext(graph.getNodeCount()));
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            for(int level = 0; level < partition.getLevelCount(); level++){
+                final int current = level;
+                final int[] cells = changedCells[level];
+                ParallelLoop.forEach(pool, cells.length, i -> customizeCell(current, cells[i], contexts.get()));
+            }
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Finds the cells whose cliques depend on the changed edges
+     * @param changedEdges numbers of the changed edges or null if all edges have changed
+     * @return numbers of the cells to compute on every level
+     */
+    private int[][] changedCells(int[] changedEdges){
+        int levelCount = partition.getLevelCount();
+        int[][] changedCells = new int[levelCount][];
+        if(changedEdges == null){
+            for(int level = 0; level < levelCount; level++){
+                changedCells[level] = new int[partition.getCellCount(level)];
+                for(int cell = 0; cell < changedCells[level].length; cell++){
+                    changedCells[level][cell] = cell;
+                }
+            }
+            return changedCells;
+        }
+        boolean[] changed = new boolean[weights.length];
+        for(int edge: changedEdges){
+            changed[edge] = true;
+        }
+        boolean[][] marks = new boolean[levelCount][];
+        for(int level = 0; level < levelCount; level++){
+            marks[level] = new boolean[partition.getCellCount(level)];
+        }
+        int cell;
+        for(int node = 0; node < graph.getNodeCount(); node++){
+            for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+                if(!changed[i]){
+                    continue;
+                }
+                for(int level = 0; level < levelCount; level++){
+                    cell = partition.getCell(level, node);
+                    if(cell == partition.getCell(level, graph.getTarget(i))){
+                        marks[level][cell] = true;
+                    }
+                }
+            }
+        }
+        int count;
+        for(int level = 0; level < levelCount; level++){
+            count = 0;
+            changedCells[level] = new int[marks[level].length];
+            for(cell = 0; cell < marks[level].length; cell++){
+                if(marks[level][cell]){
+                    changedCells[level][count++] = cell;
+                }
+            }
+            changedCells[level] = Arrays.copyOf(changedCells[level], count);
+        }
+        return changedCells;
+    }
+
+    /**
+     * Computes the clique of the cell by searches from all its boundary Nodes inside the cell
+     * @param level level of the cell
+     * @param cell number of the cell
+     * @param context search state of the calling thread
+     */
+    private void customizeCell(int level, int cell, QueryContext context){
+        int first = boundaryOffsets[level][cell];
+        int size = boundaryOffsets[level][cell + 1] - first;
+        int row = cliqueOffsets[level][cell];
+        IndexedHeap queue = context.getQueue();
+        int remaining, node, target;
+        double nodeDst;
+        for(int i = 0; i < size; i++, row += size){
+            context.prepare(boundaryNodes[level][first + i]);
+            remaining = size;
+            while(remaining > 0 && !queue.isEmpty()){
+                nodeDst = queue.peekKey();
+                node = queue.poll();
+                context.settle(node);
+                if(boundaryIndices[level][node] >= 0){
+                    remaining--;
+                }
+                relax(context, node, nodeDst, level, level, cell);
+            }
+            for(int j = 0; j < size; j++){
+                target = boundaryNodes[level][first + j];
+                cliques[level][row + j] = context.isSettled(target) ? (float) context.getDistance(target) : Float.POSITIVE_INFINITY;
+            }
+        }
+    }
+
+    /**
+     * Relaxes the edges of the Node on the level of the overlay. The level 0 is the graph, a higher level consists
+     * of the cliques of the level below and the edges of the graph leaving their cells.
+     * @param context search state
+     * @param node number of the settled Node
+     * @param nodeDst distance of the Node
+     * @param level level of the overlay searched from the Node
+     * @param restrictedLevel level of the cell the search cannot leave or -1 if the search is not restricted
+     * @param restrictedCell number of the cell the search cannot leave
+     */
+    private void relax(QueryContext context, int node, double nodeDst, int level, int restrictedLevel, int restrictedCell){
+        IndexedHeap queue = context.getQueue();
+        int cell = -1, tmp;
+        double tmpDst;
+        if(level > 0){
+            int lower = level - 1;
+            cell = partition.getCell(lower, node);
+            int first = boundaryOffsets[lower][cell];
+            int size = boundaryOffsets[lower][cell + 1] - first;
+            int row = cliqueOffsets[lower][cell] + boundaryIndices[lower][node] * size;
+            for(int j = 0; j < size; j++){
+                tmp = boundaryNodes[lower][first + j];
+                tmpDst = nodeDst + cliques[lower][row + j];
+                if(tmpDst < context.getDistance(tmp)){
+                    context.update(tmp, tmpDst, node);
+                    queue.insertOrDecrease(tmp, tmpDst);
+                }
+            }
+        }
+        for(int i = graph.getFirstEdge(node); i < graph.getEdgeEnd(node); i++){
+            tmp = graph.getTarget(i);
+            if(level > 0 && partition.getCell(level - 1, tmp) == cell
+                    || restrictedLevel >= 0 && partition.getCell(restrictedLevel, tmp) != restrictedCell){
+                continue;
+            }
+            tmpDst = nodeDst + weights[i];
+            if(tmpDst < context.getDistance(tmp)){
+                context.update(tmp, tmpDst, node);
+                queue.insertOrDecrease(tmp, tmpDst);
+            }
+        }
+    }
+
+    /**
+     * Returns the level of the overlay searched from the Node, the lowest level whose cell of the Node contains
+     * the start or the goal
+     * @param node number of the Node
+     * @param start number of the start Node
+     * @param goal number of the goal Node
+     * @return level of the overlay, the number of the levels if no cell of the Node contains the start or the goal
+     */
+    private int queryLevel(int node, int start, int goal){
+        int cell;
+        for(int level = 0; level < partition.getLevelCount(); level++){
+            cell = partition.getCell(level, node);
+            if(cell == partition.getCell(level, start) || cell == partition.getCell(level, goal)){
+                return level;
+            }
+        }
+        return partition.getLevelCount();
+    }
+
+    /**
+     * Returns the graph of the overlay
+     * @return CompactGraph of the overlay
+     */
+    public CompactGraph getGraph(){
+        return graph;
+    }
+
+    /**
+     * Returns the partition of the overlay
+     * @return MultiLevelPartition of the overlay
+     */
+    public MultiLevelPartition getPartition(){
+        return partition;
+    }
+
+    /**
+     * Returns the number of the boundary Nodes on the level
+     * @param level number of the level
+     * @return number of the boundary Nodes
+     */
+    public int getBoundaryNodeCount(int level){
+        return boundaryNodes[level].length;
+    }
+
+    /**
+     * Checks that the overlay has been computed for the graph
+     * @param graph checked graph
+     * @return true if the graph has the same numbers of Nodes and edges
+     */
+    public boolean matches(CompactGraph graph){
+        return graph.getNodeCount() == this.graph.getNodeCount() && graph.getEdgeCount() == weights.length;
+    }
+
+    /**
+     * Finds the shortest way on the overlay with the search which stops when the goal is settled
+     * @param context search state
+     * @param start number of the start Node
+     * @param goal number of the goal Node
+     * @return true if the goal has been reached
+     */
+    boolean search(QueryContext context, int start, int goal){
+        context.prepare(start);
+        IndexedHeap queue = context.getQueue();
+        int node;
+        double nodeDst;
+        while(!queue.isEmpty()){
+            nodeDst = queue.peekKey();
+            node = queue.poll();
+            context.settle(node);
+            if(node == goal){
+                return true;
+            }
+            relax(context, node, nodeDst, queryLevel(node, start, goal), -1, 0);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Nodes of the shortest way found by the search, with all cliques unpacked
+     * @param context search state of the search
+     * @param local search state used to unpack the cliques
+     * @param start number of the start Node
+     * @param goal number of the goal Node
+     * @return numbers of the Nodes from the start to the goal
+     */
+    int[] unpackWay(QueryContext context, QueryContext local, int start, int goal){
+        int[] overlayWay = collectWay(context, goal);
+        NodePath path = new NodePath(start);
+        for(int i = 1; i < overlayWay.length; i++){
+            unpackEdge(overlayWay[i - 1], overlayWay[i], queryLevel(overlayWay[i - 1], start, goal), local, path);
+        }
+        return path.toArray();
+    }
+
+    /**
+     * Returns the Nodes of the way to the Node found by the search
+     * @param context search state
+     * @param node last Node of the way
+     * @return numbers of the Nodes of the way
+     */
+    private static int[] collectWay(QueryContext context, int node){
+        int length = 0;
+        for(int current = node; current != -1; current = context.getPreviousNode(current)){
+            length++;
+        }
+        int[] way = new int[length];
+        for(int current = node; current != -1; current = context.getPreviousNode(current)){
+            way[--length] = current;
+        }
+        return way;
+    }
+
+    /**
+     * Appends the Nodes of the edge of the overlay after its source. An edge of a clique is found again by the search
+     * inside its cell on the level below, whose edges are unpacked recursively.
+     * @param from number of the source Node
+     * @param to number of the target Node
+     * @param level level of the overlay the edge belongs to
+     * @param local search state used to unpack the cliques
+     * @param path way the Nodes are appended to
+     */
+    private void unpackEdge(int from, int to, int level, QueryContext local, NodePath path){
+        if(level == 0 || partition.getCell(level - 1, from) != partition.getCell(level - 1, to)){
+            path.add(to);
+            return;
+        }
+        int lower = level - 1;
+        int cell = partition.getCell(lower, from);
+        local.prepare(from);
+        IndexedHeap queue = local.getQueue();
+        int node;
+        double nodeDst;
+        while(!queue.isEmpty()){
+            nodeDst = queue.peekKey();
+            node = queue.poll();
+            local.settle(node);
+            if(node == to){
+                break;
+            }
+            relax(local, node, nodeDst, lower, lower, cell);
+        }
+        if(!local.isSettled(to)){
+            throw new IllegalStateException("Clique edge cannot be unpacked!");
+        }
+        int[] cellWay = collectWay(local, to);
+        for(int i = 1; i < cellWay.length; i++){
+            unpackEdge(cellWay[i - 1], cellWay[i], lower, local, path);
+        }
+    }
+
+    /**
+     * Growing list of the Nodes' numbers of an unpacked way
+     */
+    private static class NodePath{
+        /**
+         * Numbers of the Nodes
+         */
+        private int[] nodes = new int[64];
+        /**
+         * Number of the Nodes in the list
+         */
+        private int size;
+
+        /**
+         * NodePath's constructor
+         * @param first number of the first Node
+         */
+        NodePath(int first){
+            add(first);
+        }
+
+        /**
+         * Appends the Node
+         * @param node number of the Node
+         */
+        private void add(int node){
+            if(size == nodes.length){
+                nodes = Arrays.copyOf(nodes, 2 * size);
+            }
+            nodes[size++] = node;
+        }
+
+        /**
+         * Returns the Nodes of the list
+         * @return numbers of the Nodes
+         */
+        private int[] toArray(){
+            return Arrays.copyOf(nodes, size);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Class holding nested partitions of the graph into cells. The graph is split in halves recursively, every part
+ * along the one of four directions (longitude, latitude and both diagonals) whose median cuts the fewest edges.
+ * A part becomes a cell of a level when it is the first part on its branch not larger than the cell size
+ * of the level, so every cell of a level lies inside one cell of every higher level.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class MultiLevelPartition {
+    /**
+     * Largest numbers of the Nodes in the cells of the levels used by default
+     */
+    private static final int[] DEFAULT_CELL_SIZES = {128, 1024, 8192, 65536, 524288};
+    /**
+     * Holds the cells of the Nodes on every level
+     */
+    private final int[][] cells;
+    /**
+     * Holds the number of the cells on every level
+     */
+    private final int[] cellCounts;
+
+    /**
+     * MultiLevelPartition's constructor
+     * @param cells cells of the Nodes on every level
+     * @param cellCounts numbers of the cells of the levels
+     */
+    private MultiLevelPartition(int[][] cells, int[] cellCounts){
+        this.cells = cells;
+        this.cellCounts = cellCounts;
+    }
+
+    /**
+     * Partitions the graph with the default cell sizes
+     * @param graph partitioned graph
+     * @return MultiLevelPartition of the graph
+     */
+    public static MultiLevelPartition build(CompactGraph graph){
+        return build(graph, DEFAULT_CELL_SIZES);
+    }
+
+    /**
+     * Partitions the graph, levels which would have only one cell are left out
+     * @param graph partitioned graph
+     * @param cellSizes largest numbers of the Nodes in the cells of the levels, from the lowest level
+     * @return MultiLevelPartition of the graph
+     * @throws IllegalArgumentException if the sizes are not positive and increasing
+     */
+    public static MultiLevelPartition build(CompactGraph graph, int[] cellSizes){
+        for(int level = 0; level < cellSizes.length; level++){
+            if(cellSizes[level] < 1 || level > 0 && cellSizes[level] <= cellSizes[level - 1]){
+                throw new IllegalArgumentException("Cell sizes must be positive and increasing!");
+            }
+        }
+        int nodeCount = graph.getNodeCount();
+        Bisection bisection = new Bisection(graph);
+        int[][] cells = new int[cellSizes.length][nodeCount];
+        int[] cellCounts = new int[cellSizes.length];
+        ArrayDeque<int[]> parts = new ArrayDeque<>();
+        parts.push(new int[]{0, nodeCount, Integer.MAX_VALUE});
+        int from, to, size, half;
+        while(!parts.isEmpty()){
+            int[] part = parts.pop();
+            from = part[0];
+            to = part[1];
+            size = to - from;
+            for(int level = 0; level < cellSizes.length; level++){
+                if(size <= cellSizes[level] && cellSizes[level] < part[2]){
+                    for(int i = from; i < to; i++){
+                        cells[level][bisection.nodes[i]] = cellCounts[level];
+                    }
+                    cellCounts[level]++;
+                }
+            }
+            if(cellSizes.length == 0 || size <= cellSizes[0]){
+                continue;
+            }
+            half = size / 2;
+            bisection.split(from, to, half);
+            parts.push(new int[]{from + half, to, size});
+            parts.push(new int[]{from, from + half, size});
+        }
+        int levelCount = 0;
+        for(int level = 0; level < cellSizes.length; level++){
+            if(cellCounts[level] > 1){
+                cells[levelCount] = cells[level];
+                cellCounts[levelCount++] = cellCounts[level];
+            }
+        }
+        return new MultiLevelPartition(Arrays.copyOf(cells, levelCount), Arrays.copyOf(cellCounts, levelCount));
+    }
+
+    /**
+     * Partitions the graph into one level of regions of similar sizes
+     * @param graph partitioned graph
+     * @param regionCount number of the regions
+     * @return MultiLevelPartition with one level, or without levels if the graph has fewer Nodes than regions
+     * @throws IllegalArgumentException if the number of the regions is not positive
+     */
+    public static MultiLevelPartition buildRegions(CompactGraph graph, int regionCount){
+        if(regionCount < 1){
+            throw new IllegalArgumentException("Number of regions must be positive!");
+        }
+        int nodeCount = graph.getNodeCount();
+        if(nodeCount < regionCount){
+            return new MultiLevelPartition(new int[0][], new int[0]);
+        }
+        Bisection bisection = new Bisection(graph);
+        int[] cells = new int[nodeCount];
+        int cellCount = 0;
+        ArrayDeque<int[]> parts = new ArrayDeque<>();
+        parts.push(new int[]{0, nodeCount, regionCount});
+        int from, to, regions, position;
+        while(!parts.isEmpty()){
+            int[] part = parts.pop();
+            from = part[0];
+            to = part[1];
+            regions = part[2];
+            if(regions == 1){
+                for(int i = from; i < to; i++){
+                    cells[bisection.nodes[i]] = cellCount;
+                }
+                cellCount++;
+                continue;
+            }
+            position = (int) ((long) (to - from) * (regions / 2) / regions);
+            bisection.split(from, to, position);
+            parts.push(new int[]{from + position, to, regions - regions / 2});
+            parts.push(new int[]{from, from + position, regions / 2});
+        }
+        return new MultiLevelPartition(new int[][]{cells}, new int[]{cellCount});
+    }
+
+    /**
+     * Returns the number of the Nodes
+     * @return number of the Nodes
+     */
+    public int getNodeCount(){
+        return cells.length > 0 ? cells[0].length : 0;
+    }
+
+    /**
+     * Returns the number of the levels
+     * @return number of the levels
+     */
+    public int getLevelCount(){
+        return cells.length;
+    }
+
+    /**
+     * Returns the number of the cells of the level
+     * @param level number of the level, 0 is the lowest level
+     * @return number of the cells
+     */
+    public int getCellCount(int level){
+        return cellCounts[level];
+    }
+
+    /**
+     * Returns the cell of the Node on the level
+     * @param level number of the level, 0 is the lowest level
+     * @param node number of the Node
+     * @return number of the cell
+     */
+    public int getCell(int level, int node){
+        return cells[level][node];
+    }
+
+    /**
+     * Class splitting the parts of the list of the Nodes along the coordinates
+     */
+    private static class Bisection{
+        /**
+         * Split graph
+         */
+        private final CompactGraph graph;
+        /**
+         * Holds the position of the first neighbour of every Node
+         */
+        private final int[] neighbourOffsets;
+        /**
+         * Neighbours of the Nodes in both directions
+         */
+        private final int[] neighbours;
+        /**
+         * Nodes of the graph, every part is a range of this list
+         */
+        private final int[] nodes;
+        /**
+         * Holds the number of the split which has marked the Node as lying after the split position
+         */
+        private final int[] marks;
+        /**
+         * Arrangement of the part checked by the current direction
+         */
+        private final int[] candidate;
+        /**
+         * Arrangement of the part cutting the fewest edges
+         */
+        private final int[] best;
+        /**
+         * Coordinates of the Nodes of the part along the current direction
+         */
+        private final double[] keys;
+        /**
+         * Scale of the longitudes making them comparable with the latitudes
+         */
+        private final double scale;
+        /**
+         * Number of the current split
+         */
+        private int mark;
+
+        /**
+         * Bisection's constructor
+         * @param graph split graph
+         */
+        Bisection(CompactGraph graph){
+            int nodeCount = graph.getNodeCount();
+            this.graph = graph;
+            this.neighbourOffsets = CustomizableContractionHierarchy.neighbourOffsets(graph);
+            this.neighbours = CustomizableContractionHierarchy.neighbours(graph, neighbourOffsets);
+            this.nodes = new int[nodeCount];
+            double meanLatitude = 0;
+            for(int node = 0; node < nodeCount; node++){
+                nodes[node] = node;
+                meanLatitude += graph.getLatitude(node) / nodeCount;
+            }
+            this.scale = Math.cos(Math.toRadians(meanLatitude));
+            this.marks = new int[nodeCount];
+            this.candidate = new int[nodeCount];
+            this.best = new int[nodeCount];
+            this.keys = new double[nodeCount];
+        }
+
+        /**
+         * Rearranges the part so that the Nodes before the position lie on one side of the line cutting the fewest edges
+         * @param from first position of the part
+         * @param to position after the part
+         * @param position number of the Nodes on the first side
+         */
+        void split(int from, int to, int position){
+            int size = to - from;
+            int cut, bestCut = Integer.MAX_VALUE;
+            double x, y;
+            for(int direction = 0; direction < 4; direction++){
+                for(int i = 0; i < size; i++){
+                    candidate[i] = nodes[from + i];
+                    y = graph.getLatitude(candidate[i]);
+                    x = graph.getLongitude(candidate[i]) * scale;
+                    keys[i] = direction == 0 ? x : direction == 1 ? y : direction == 2 ? x + y : x - y;
+                }
+                CustomizableContractionHierarchy.select(keys, candidate, size, position);
+                mark++;
+                for(int i = position; i < size; i++){
+                    marks[candidate[i]] = mark;
+                }
+                cut = 0;
+                for(int i = 0; i < position; i++){
+                    for(int j = neighbourOffsets[candidate[i]]; j < neighbourOffsets[candidate[i] + 1]; j++){
+                        if(marks[neighbours[j]] == mark){
+                            cut++;
+                        }
+                    }
+                }
+                if(cut < bestCut){
+                    bestCut = cut;
+                    System.arraycopy(candidate, 0, best, 0, size);
+                }
+            }
+            System.arraycopy(best, 0, nodes, from, size);
+        }
+    }
+}
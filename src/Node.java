@@ -1,5 +1,6 @@
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Class holding information about graph vertex
@@ -37,21 +38,13 @@ public class Node implements Serializable{
      */
     private ArrayList<Double> distances;
     /**
-     * Holds the distance from start Node on the graph
+     * Holds references of the edges' shapes in EdgeShapes, null if no edge has a shape
      */
-    private double distance = Double.MAX_VALUE;
+    private int[] shapes;
     /**
-     * Used in A* algorithm
+     * Position of the Node in arrays used by converters, not serialized
      */
-    private double heuristic;
-    /**
-     * Used in A* algorithm
-     */
-    private double forecastedDistance;
-    /**
-     * Holds the reference to the previous Node on the shortestWay
-     */
-    private Node previousNode = null;
+    private transient int index;
 
     /**
      * Node's constructor
@@ -66,6 +59,7 @@ public class Node implements Serializable{
         waysCounter = 0;
         needed =false;
         edges = new ArrayList<>();
+        distances = new ArrayList<>();
     }
 
     /**
@@ -124,6 +118,22 @@ public class Node implements Serializable{
     public double getLatitude(){
         return latitude;
     }
+    /**
+     * Sets the position of the Node in arrays used by converters
+     * @param index position of the Node
+     */
+    public void setIndex(int index){
+        this.index = index;
+    }
+
+    /**
+     * Returns the position of the Node in arrays used by converters
+     * @return position of the Node
+     */
+    public int getIndex(){
+        return index;
+    }
+
     /**
      * Returns the number of Node's uses on the map
      * @return value of waysCounter
@@ -163,51 +173,67 @@ public class Node implements Serializable{
     }
 
     /**
-     * Returns ArrayList with the connected Nodes
-     * @return ArrayList with the connected Nodes
-     */
-    public ArrayList<Node> getEdges(){
-        return edges;
-    }
-
-    /**
-     * Returns ArrayList with the distances to the connected Nodes
-     * @return ArrayList with the distances to the connected Nodes
+     * Adds reference to the connected Node with the length of the road between them
+     * @param edge reference to the connected Node
+     * @param distance length of the road to the connected Node
+     * @param shape reference of the road's shape in EdgeShapes or EdgeShapes.NO_SHAPE
      */
-    public ArrayList<Double> getDistances(){
-        return distances;
+    public void addEdge(Node edge, double distance, int shape){
+        int index = edges.size();
+        this.edges.add(edge);
+        this.distances.add(distance);
+        if(shape != EdgeShapes.NO_SHAPE || shapes != null){
+            if(shapes == null){
+                shapes = new int[Math.max(4, index + 1)];
+                Arrays.fill(shapes, EdgeShapes.NO_SHAPE);
+            }
+            else if(shapes.length <= index){
+                int oldLength = shapes.length;
+                shapes = Arrays.copyOf(shapes, Math.max(2 * oldLength, index + 1));
+                Arrays.fill(shapes, oldLength, shapes.length, EdgeShapes.NO_SHAPE);
+            }
+            shapes[index] = shape;
+        }
     }
 
     /**
-     * Sets the distance from start Node
-     * @param distance distance from start Node
+     * Returns the length of the road to the connected Node
+     * @param index index of the edge
+     * @return stored length of the road or the straight distance if it is not stored
      */
-    public void setDistance(Double distance){
-        this.distance = distance;
+    public double getEdgeDistance(int index){
+        if(distances != null && index < distances.size()){
+            return distances.get(index);
+        }
+        return distance(edges.get(index));
     }
 
     /**
-     * Sets the previous Node from the shortest way
-     * @param previousNode reference to the previous Node
+     * Returns the reference of the edge's shape
+     * @param index index of the edge
+     * @return reference of the shape in EdgeShapes or EdgeShapes.NO_SHAPE
      */
-    public void setPreviousNode(Node previousNode){
-        this.previousNode = previousNode;
+    public int getEdgeShape(int index){
+        if(shapes == null || index >= shapes.length){
+            return EdgeShapes.NO_SHAPE;
+        }
+        return shapes[index];
     }
 
     /**
-     * Returns distance to the start Node
-     * @return distance to the start Node
+     * Returns ArrayList with the connected Nodes
+     * @return ArrayList with the connected Nodes
      */
-    public double getDistance(){
-        return distance;
+    public ArrayList<Node> getEdges(){
+        return edges;
     }
 
     /**
-     * Returns previous Node
-     * @return previous Node
+     * Returns ArrayList with the distances to the connected Nodes
+     * @return ArrayList with the distances to the connected Nodes
      */
-    public Node getPreviousNode(){
-        return previousNode;
+    public ArrayList<Double> getDistances(){
+        return distances;
     }
 
     /**
@@ -248,7 +274,7 @@ public class Node implements Serializable{
      */
     @Override
     public String toString(){
-        return "id:" + this.id + " lat: " + this.latitude + " lon: "+ this.longitude + " distance from start: " + this.distance;
+        return (this.id != null ? "id:" + this.id + " " : "") + "lat: " + this.latitude + " lon: "+ this.longitude;
     }
 
     /**
@@ -272,21 +298,4 @@ public class Node implements Serializable{
             distances.add(distance(edges.get(i)));
         }
     }
-
-    public double getForecastedDistance() {
-        return forecastedDistance;
-    }
-
-    public void setForecastedDistance(double forecastedDistance) {
-        this.forecastedDistance = forecastedDistance;
-    }
-
-    public double getHeuristic() {
-        return heuristic;
-
-    }
-
-    public void setHeuristic(double heuristic) {
-        this.heuristic = heuristic;
-    }
 }
@@ -0,0 +1,199 @@
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Class holding Nodes read from file in primitive arrays. Ids are indexed by an open-addressing hash table
+ * and coordinates are kept as fixed-point integers with precision of 1e-7 degree, which is the precision of OSM data.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class NodeStore implements Serializable{
+    /**
+     * Number of fixed-point units in one degree
+     */
+    private static final double SCALE = 1e7;
+    /**
+     * Maximal ratio of used slots of the hash table
+     */
+    private static final double LOAD_FACTOR = 0.6;
+
+    /**
+     * Holds ids of the Nodes
+     */
+    private long[] ids;
+    /**
+     * Holds latitudes of the Nodes in fixed-point units
+     */
+    private int[] latitudes;
+    /**
+     * Holds longitudes of the Nodes in fixed-point units
+     */
+    private int[] longitudes;
+    /**
+     * Number of stored Nodes
+     */
+    private int size;
+    /**
+     * Hash table holding indexes of the Nodes increased by 1, 0 marks an empty slot
+     */
+    private int[] table;
+    /**
+     * Used to compute slots of the hash table
+     */
+    private int mask;
+
+    /**
+     * Default constructor
+     */
+    public NodeStore(){
+        this(1024);
+    }
+
+    /**
+     * NodeStore's constructor
+     * @param expectedSize expected number of Nodes
+     */
+    public NodeStore(int expectedSize){
+        int capacity = Math.max(16, expectedSize);
+        ids = new long[capacity];
+        latitudes = new int[capacity];
+        longitudes = new int[capacity];
+        size = 0;
+        int tableSize = Integer.highestOneBit((int) Math.min(1 << 30, capacity / LOAD_FACTOR + 1) * 2 - 1);
+        table = new int[tableSize];
+        mask = tableSize - 1;
+    }
+
+    /**
+     * Adds the Node or changes coordinates of the Node with the same id
+     * @param id id of the Node
+     * @param latitude latitude of the Node
+     * @param longitude longitude of the Node
+     * @return index of the Node
+     */
+    public int add(long id, double latitude, double longitude){
+        int slot = slot(id);
+        int index = table[slot] - 1;
+        if(index < 0){
+            if(size == ids.length){
+                grow();
+                slot = slot(id);
+            }
+            index = size++;
+            ids[index] = id;
+            table[slot] = index + 1;
+        }
+        latitudes[index] = (int) Math.round(latitude * SCALE);
+        longitudes[index] = (int) Math.round(longitude * SCALE);
+        return index;
+    }
+
+    /**
+     * Adds all Nodes of another store
+     * @param other added store
+     */
+    public void addAll(NodeStore other){
+        for(int i = 0; i < other.size; i++){
+            add(other.ids[i], other.getLatitude(i), other.getLongitude(i));
+        }
+    }
+
+    /**
+     * Returns the index of the Node
+     * @param id id of the Node
+     * @return index of the Node or -1 if there is no such a Node
+     */
+    public int indexOf(long id){
+        return table[slot(id)] - 1;
+    }
+
+    /**
+     * Returns the id of the Node
+     * @param index index of the Node
+     * @return id of the Node
+     */
+    public long getId(int index){
+        return ids[index];
+    }
+
+    /**
+     * Returns the latitude of the Node
+     * @param index index of the Node
+     * @return latitude of the Node
+     */
+    public double getLatitude(int index){
+        return latitudes[index] / SCALE;
+    }
+
+    /**
+     * Returns the longitude of the Node
+     * @param index index of the Node
+     * @return longitude of the Node
+     */
+    public double getLongitude(int index){
+        return longitudes[index] / SCALE;
+    }
+
+    /**
+     * Creates the Node object used by DataConverter
+     * @param index index of the Node
+     * @return new Node with the id and coordinates of the stored one
+     */
+    public Node createNode(int index){
+        return new Node(Long.toString(ids[index]), getLatitude(index), getLongitude(index));
+    }
+
+    /**
+     * Returns the number of stored Nodes
+     * @return number of Nodes
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Finds the slot of the hash table holding the id or the empty slot where it should be put
+     * @param id id of the Node
+     * @return slot of the hash table
+     */
+    private int slot(long id){
+        int slot = mix(id) & mask;
+        int index;
+        while((index = table[slot]) != 0 && ids[index - 1] != id){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Grows arrays by half and rebuilds the hash table if it gets too full
+     */
+    private void grow(){
+        int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        if(capacity > table.length * LOAD_FACTOR){
+            table = new int[table.length * 2];
+            mask = table.length - 1;
+            for(int i = 0; i < size; i++){
+                table[slot(ids[i])] = i + 1;
+            }
+        }
+    }
+
+    /**
+     * Spreads bits of the id, so consecutive ids do not form long clusters in the hash table
+     * @param id id of the Node
+     * @return hash of the id
+     */
+    private static int mix(long id){
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        id *= 0xc4ceb9fe1a85ec53L;
+        id ^= id >>> 33;
+        return (int) id;
+    }
+}
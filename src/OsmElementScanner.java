@@ -0,0 +1,489 @@
+import MapReaderExceptions.MapFileException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class scanning the elements of an OSM XML file directly from bytes, without building Strings for every line
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class OsmElementScanner {
+    /**
+     * Maximal number of attributes of one element
+     */
+    private static final int MAX_ATTRIBUTES = 32;
+    /**
+     * Powers of 10 that are represented exactly as doubles
+     */
+    private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    /**
+     * Scanned bytes
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Position of the first byte after the current element
+     */
+    private int position;
+    /**
+     * Position of the first byte after the scanned region
+     */
+    private final int limit;
+    /**
+     * Bounds of the name of the current element
+     */
+    private int nameStart, nameEnd;
+    /**
+     * Remembers if the current element is an end tag
+     */
+    private boolean endTag;
+    /**
+     * Remembers if the current element is closed by "/&gt;"
+     */
+    private boolean emptyElement;
+    /**
+     * Number of attributes of the current element
+     */
+    private int attributeCount;
+    /**
+     * Holds bounds of attributes' names and values: name start, name end, value start, value end
+     */
+    private final int[] attributes;
+
+    /**
+     * OsmElementScanner's constructor
+     * @param buffer bytes that will be scanned from their position to their limit
+     */
+    public OsmElementScanner(ByteBuffer buffer){
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+        this.attributes = new int[4 * MAX_ATTRIBUTES];
+    }
+
+    /**
+     * Converts the name of the element or attribute into the form used by the scanner
+     * @param name name of the element or attribute
+     * @return bytes of the name
+     */
+    public static byte[] bytes(String name){
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Moves the scanner to the next start or end tag
+     * @return false if there are no more elements
+     * @throws MapFileException if the element is not well-formed
+     */
+    public boolean next() throws MapFileException{
+        while(true) {
+            int p = indexOf((byte) '<', position);
+            if (p < 0) {
+                position = limit;
+                return false;
+            }
+            p++;
+            byte b = get(p);
+            if (b == '?') {
+                position = indexOf("?>", p) + 2;
+                continue;
+            }
+            if (b == '!') {
+                if (startsWith("!--", p)) {
+                    position = indexOf("-->", p) + 3;
+                }
+                else if (startsWith("![CDATA[", p)) {
+                    position = indexOf("]]>", p) + 3;
+                }
+                else {
+                    position = indexOf(">", p) + 1;
+                }
+                continue;
+            }
+            endTag = b == '/';
+            if (endTag) {
+                p++;
+            }
+            nameStart = p;
+            while (!isNameEnd(get(p))) {
+                p++;
+            }
+            nameEnd = p;
+            attributeCount = 0;
+            emptyElement = false;
+            while (true) {
+                p = skipWhitespace(p);
+                b = get(p);
+                if (b == '>') {
+                    p++;
+                    break;
+                }
+                if (b == '/') {
+                    if (get(p + 1) != '>') {
+                        throw new MapFileException("Incorrect end of element at byte " + p);
+                    }
+                    emptyElement = true;
+                    p += 2;
+                    break;
+                }
+                if (attributeCount == MAX_ATTRIBUTES) {
+                    throw new MapFileException("Too many attributes at byte " + p);
+                }
+                int index = 4 * attributeCount;
+                attributes[index] = p;
+                while (!isNameEnd(get(p)) && get(p) != '=') {
+                    p++;
+                }
+                attributes[index + 1] = p;
+                p = skipWhitespace(p);
+                if (get(p) != '=') {
+                    throw new MapFileException("Attribute without value at byte " + p);
+                }
+                p = skipWhitespace(p + 1);
+                byte quote = get(p);
+                if (quote != '"' && quote != '\'') {
+                    throw new MapFileException("Attribute value without quotes at byte " + p);
+                }
+                attributes[index + 2] = p + 1;
+                p = indexOf(quote, p + 1);
+                if (p < 0) {
+                    throw new MapFileException("Unexpected end of data in attribute value");
+                }
+                attributes[index + 3] = p;
+                p++;
+                attributeCount++;
+            }
+            position = p;
+            return true;
+        }
+    }
+
+    /**
+     * Returns whether the current element is an end tag
+     * @return true if the element is an end tag
+     */
+    public boolean isEndTag(){
+        return endTag;
+    }
+
+    /**
+     * Returns whether the current element has no content
+     * @return true if the element is closed by "/&gt;"
+     */
+    public boolean isEmptyElement(){
+        return emptyElement;
+    }
+
+    /**
+     * Checks the name of the current element
+     * @param name expected name
+     * @return true if the current element has such a name
+     */
+    public boolean isElement(byte[] name){
+        return regionEquals(nameStart, nameEnd, name);
+    }
+
+    /**
+     * Returns the value of the attribute with XML entities decoded
+     * @param name name of the attribute
+     * @return value of the attribute or null if it does not exist
+     * @throws MapFileException if the value contains an incorrect character reference
+     */
+    public String getAttribute(byte[] name) throws MapFileException{
+        int index = findAttribute(name);
+        if(index < 0){
+            return null;
+        }
+        return decode(attributes[index + 2], attributes[index + 3]);
+    }
+
+    /**
+     * Checks the value of the attribute without creating a String
+     * @param name name of the attribute
+     * @param value expected value
+     * @return true if the attribute exists and has such a value
+     */
+    public boolean attributeEquals(byte[] name, byte[] value){
+        int index = findAttribute(name);
+        return index >= 0 && regionEquals(attributes[index + 2], attributes[index + 3], value);
+    }
+
+    /**
+     * Parses the value of the attribute as an integer
+     * @param name name of the attribute
+     * @return value of the attribute
+     * @throws MapFileException if the attribute does not exist, is not a number or does not fit in a long
+     */
+    public long getLongAttribute(byte[] name) throws MapFileException{
+        int index = findAttribute(name);
+        if(index < 0){
+            throw new MapFileException("Missing attribute " + new String(name, StandardCharsets.US_ASCII));
+        }
+        int p = attributes[index + 2];
+        int end = attributes[index + 3];
+        boolean negative = p < end && get(p) == '-';
+        if(negative){
+            p++;
+        }
+        if(p == end){
+            throw new MapFileException("Empty number at byte " + p);
+        }
+        long value = 0;
+        byte b;
+        while(p < end){
+            b = get(p++);
+            if(b < '0' || b > '9'){
+                throw new MapFileException("Incorrect number at byte " + p);
+            }
+            if(value > (Long.MAX_VALUE - (b - '0')) / 10){
+                throw new MapFileException("Too large number at byte " + p);
+            }
+            value = 10 * value + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the value of the attribute as a decimal number
+     * @param name name of the attribute
+     * @return value of the attribute
+     * @throws MapFileException if the attribute does not exist or is not a number
+     */
+    public double getDoubleAttribute(byte[] name) throws MapFileException{
+        int index = findAttribute(name);
+        if(index < 0){
+            throw new MapFileException("Missing attribute " + new String(name, StandardCharsets.US_ASCII));
+        }
+        int start = attributes[index + 2];
+        int end = attributes[index + 3];
+        int p = start;
+        boolean negative = p < end && get(p) == '-';
+        if(negative){
+            p++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        byte b;
+        while(p < end){
+            b = get(p++);
+            if(b >= '0' && b <= '9'){
+                mantissa = 10 * mantissa + (b - '0');
+                digits++;
+                if(fractionDigits >= 0){
+                    fractionDigits++;
+                }
+            }
+            else if(b == '.' && fractionDigits < 0){
+                fractionDigits = 0;
+            }
+            else{
+                digits = Integer.MAX_VALUE;
+                break;
+            }
+        }
+        if(digits == 0 || digits > 15 || fractionDigits >= POWERS_OF_TEN.length){
+            try {
+                return Double.parseDouble(new String(copy(start, end), StandardCharsets.ISO_8859_1));
+            }catch (NumberFormatException e){
+                throw new MapFileException("Incorrect number at byte " + start, e);
+            }
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Finds the attribute of the current element
+     * @param name name of the attribute
+     * @return index of the attribute's bounds or -1 if it does not exist
+     */
+    private int findAttribute(byte[] name){
+        for(int i = 0; i < attributeCount; i++){
+            if(regionEquals(attributes[4 * i], attributes[4 * i + 1], name)){
+                return 4 * i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes UTF-8 bytes and XML entities of the value
+     * @param start first byte of the value
+     * @param end first byte after the value
+     * @return decoded value
+     * @throws MapFileException if the value contains an incorrect character reference
+     */
+    private String decode(int start, int end) throws MapFileException{
+        String value = new String(copy(start, end), StandardCharsets.UTF_8);
+        if(value.indexOf('&') < 0){
+            return value;
+        }
+        StringBuilder builder = new StringBuilder(value.length());
+        int i = 0;
+        while(i < value.length()){
+            char c = value.charAt(i);
+            int semicolon = c == '&' ? value.indexOf(';', i) : -1;
+            if(semicolon < 0){
+                builder.append(c);
+                i++;
+                continue;
+            }
+            String entity = value.substring(i + 1, semicolon);
+            if(entity.equals("amp")){
+                builder.append('&');
+            }
+            else if(entity.equals("lt")){
+                builder.append('<');
+            }
+            else if(entity.equals("gt")){
+                builder.append('>');
+            }
+            else if(entity.equals("quot")){
+                builder.append('"');
+            }
+            else if(entity.equals("apos")){
+                builder.append('\'');
+            }
+            else if(entity.startsWith("#")){
+                try {
+                    builder.appendCodePoint(entity.startsWith("#x") ? Integer.parseInt(entity.substring(2), 16) : Integer.parseInt(entity.substring(1)));
+                }catch (IllegalArgumentException e){
+                    throw new MapFileException("Incorrect character reference at byte " + start, e);
+                }
+            }
+            else{
+                builder.append(value, i, semicolon + 1);
+            }
+            i = semicolon + 1;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Copies the region of the buffer
+     * @param start first copied byte
+     * @param end first byte after the copied region
+     * @return copied bytes
+     */
+    private byte[] copy(int start, int end){
+        byte[] result = new byte[end - start];
+        for(int i = start; i < end; i++){
+            result[i - start] = buffer.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Compares the region of the buffer with bytes
+     * @param start first compared byte
+     * @param end first byte after the compared region
+     * @param bytes expected bytes
+     * @return true if they are equal
+     */
+    private boolean regionEquals(int start, int end, byte[] bytes){
+        if(end - start != bytes.length){
+            return false;
+        }
+        for(int i = 0; i < bytes.length; i++){
+            if(buffer.get(start + i) != bytes[i]){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the text starts at the position
+     * @param text expected text
+     * @param p position in the buffer
+     * @return true if the buffer contains the text at the position
+     */
+    private boolean startsWith(String text, int p){
+        if(p + text.length() > limit){
+            return false;
+        }
+        for(int i = 0; i < text.length(); i++){
+            if(buffer.get(p + i) != text.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the byte in the buffer
+     * @param b searched byte
+     * @param from position where the search starts
+     * @return position of the byte or -1 if it does not exist
+     */
+    private int indexOf(byte b, int from){
+        for(int i = from; i < limit; i++){
+            if(buffer.get(i) == b){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the text in the buffer
+     * @param text searched text
+     * @param from position where the search starts
+     * @return position of the text
+     * @throws MapFileException if the text does not exist
+     */
+    private int indexOf(String text, int from) throws MapFileException{
+        for(int i = from; i + text.length() <= limit; i++){
+            if(startsWith(text, i)){
+                return i;
+            }
+        }
+        throw new MapFileException("Unexpected end of data, expected " + text);
+    }
+
+    /**
+     * Skips whitespace characters
+     * @param p position of the first checked byte
+     * @return position of the first byte that is not whitespace
+     * @throws MapFileException if there is no such a byte
+     */
+    private int skipWhitespace(int p) throws MapFileException{
+        while(isWhitespace(get(p))){
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * Returns the byte from the buffer
+     * @param p position of the byte
+     * @return the byte
+     * @throws MapFileException if the position is beyond the scanned region
+     */
+    private byte get(int p) throws MapFileException{
+        if(p >= limit){
+            throw new MapFileException("Unexpected end of data inside an element");
+        }
+        return buffer.get(p);
+    }
+
+    /**
+     * Checks whether the byte is whitespace
+     * @param b checked byte
+     * @return true if it is whitespace
+     */
+    private static boolean isWhitespace(byte b){
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    /**
+     * Checks whether the byte ends a name
+     * @param b checked byte
+     * @return true if it cannot be a part of a name
+     */
+    private static boolean isNameEnd(byte b){
+        return isWhitespace(b) || b == '>' || b == '/';
+    }
+}
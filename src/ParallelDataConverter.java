@@ -0,0 +1,227 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class converting data with many threads. Ways are split into ranges processed on a fork-join pool,
+ * needed Nodes are marked in a shared atomic bitset and edges of every range are built in a separate buffer.
+ * Buffers are merged in the order of Ways, so the graph is the same as the one made by DataConverter.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ParallelDataConverter extends DataConverter{
+    /**
+     * Maximal number of Ways processed by one task
+     */
+    private static final int WAYS_PER_TASK = 4096;
+
+    /**
+     * Number of threads used to convert the data
+     */
+    private int parallelism;
+    /**
+     * Nodes of the container, indexed by Node.getIndex
+     */
+    private transient Node[] nodeArray;
+    /**
+     * Bits of Nodes that will stay on the graph
+     */
+    private transient AtomicLongArray neededNodes;
+    /**
+     * Edges built by the tasks, in the order of Ways
+     */
+    private transient EdgeBuffer[] buffers;
+    /**
+     * Number of Ways processed by one task
+     */
+    private int waysPerTask;
+
+    /**
+     * ParallelDataConverter's constructor, uses all available processors
+     * @param nodes HashMap with Nodes read from file
+     * @param ways ArrayList with Ways read from file, they may contain only Nodes from the HashMap
+     */
+    public ParallelDataConverter(HashMap<String, Node> nodes, ArrayList<Way> ways){
+        this(nodes, ways, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * ParallelDataConverter's constructor
+     * @param nodes HashMap with Nodes read from file
+     * @param ways ArrayList with Ways read from file, they may contain only Nodes from the HashMap
+     * @param parallelism number of threads used to convert the data
+     */
+    public ParallelDataConverter(HashMap<String, Node> nodes, ArrayList<Way> ways, int parallelism){
+        super(nodes, ways);
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Calls all methods needed to convert data, using many threads
+     */
+    @Override
+    public void runConverter(){
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            indexNodes();
+            waysPerTask = Math.max(1, Math.min(WAYS_PER_TASK, (ways.size() + 4 * parallelism - 1) / (4 * parallelism)));
+            int taskCount = (ways.size() + waysPerTask - 1) / waysPerTask;
+            neededNodes = new AtomicLongArray((nodeArray.length + 63) >>> 6);
+            pool.invoke(new ConvertWays(0, taskCount, false));
+            removeUnnecessaryNodes();
+            buffers = new EdgeBuffer[taskCount];
+            pool.invoke(new ConvertWays(0, taskCount, true));
+            mergeEdges();
+        }finally {
+            pool.shutdown();
+            nodeArray = null;
+            neededNodes = null;
+            buffers = null;
+        }
+        this.areDataConverted = true;
+    }
+
+    /**
+     * Gives every Node its position in nodeArray
+     */
+    private void indexNodes(){
+        nodeArray = nodes.values().toArray(new Node[nodes.size()]);
+        for(int i = 0; i < nodeArray.length; i++){
+            nodeArray[i].setIndex(i);
+        }
+    }
+
+    /**
+     * Marks Nodes that will stay on the graph in the bitset
+     * @param from index of the first Way
+     * @param to index after the last Way
+     */
+    private void markNeededNodes(int from, int to){
+        Way way;
+        int index;
+        for(int w = from; w < to; w++){
+            way = ways.get(w);
+            for(int i = 0; i < way.getNodes().size(); i++){
+                if(isKept(way, i)){
+                    index = way.getNodes().get(i).getIndex();
+                    long bit = 1L << index;
+                    if((neededNodes.get(index >>> 6) & bit) == 0){
+                        neededNodes.accumulateAndGet(index >>> 6, bit, (a, b) -> a | b);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes Nodes which are not marked in the bitset from the container, without a temporary list
+     */
+    private void removeUnnecessaryNodes(){
+        nodes.values().removeIf(node -> {
+            int index = node.getIndex();
+            if((neededNodes.get(index >>> 6) & (1L << index)) == 0){
+                return true;
+            }
+            node.setNeeded();
+            return false;
+        });
+    }
+
+    /**
+     * Builds edges of the Ways in the buffer and removes collapsed Nodes from the Ways
+     * @param from index of the first Way
+     * @param to index after the last Way
+     * @return buffer with edges of the Ways
+     */
+    private EdgeBuffer buildEdges(int from, int to){
+        EdgeBuffer buffer = new EdgeBuffer();
+        for(int w = from; w < to; w++){
+            convertWayIntoEdges(ways.get(w), buffer.shapes, buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Adds edges of all buffers to the Nodes in the order of Ways
+     */
+    private void mergeEdges(){
+        int shift, shape;
+        Node source, target;
+        for(EdgeBuffer buffer: buffers){
+            shift = shapes.addAll(buffer.shapes);
+            for(int i = 0; i < buffer.size; i++){
+                source = nodeArray[buffer.sources[i]];
+                target = nodeArray[buffer.targets[i]];
+                shape = buffer.shapeRefs[i] == EdgeShapes.NO_SHAPE ? EdgeShapes.NO_SHAPE : buffer.shapeRefs[i] + shift;
+                source.addEdge(target, buffer.lengths[i], shape);
+                target.addEdge(source, buffer.lengths[i], EdgeShapes.reverse(shape));
+            }
+        }
+        shapes.trim();
+    }
+
+    /**
+     * Edges built by one task, each of them is added in both directions while merging
+     */
+    private static class EdgeBuffer implements EdgeSink{
+        private int[] sources = new int[256];
+        private int[] targets = new int[256];
+        private double[] lengths = new double[256];
+        private int[] shapeRefs = new int[256];
+        private int size;
+        private final EdgeShapes shapes = new EdgeShapes();
+
+        @Override
+        public void addEdge(Node source, Node target, double length, int shape){
+            if(size == sources.length){
+                sources = Arrays.copyOf(sources, 2 * size);
+                targets = Arrays.copyOf(targets, 2 * size);
+                lengths = Arrays.copyOf(lengths, 2 * size);
+                shapeRefs = Arrays.copyOf(shapeRefs, 2 * size);
+            }
+            sources[size] = source.getIndex();
+            targets[size] = target.getIndex();
+            lengths[size] = length;
+            shapeRefs[size] = shape;
+            size++;
+        }
+    }
+
+    /**
+     * Task processing the range of Way ranges
+     */
+    private class ConvertWays extends RecursiveAction{
+        private final int from, to;
+        private final boolean buildEdges;
+
+        ConvertWays(int from, int to, boolean buildEdges){
+            this.from = from;
+            this.to = to;
+            this.buildEdges = buildEdges;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > 1){
+                int middle = (from + to) >>> 1;
+                invokeAll(new ConvertWays(from, middle, buildEdges), new ConvertWays(middle, to, buildEdges));
+                return;
+            }
+            if(to == from){
+                return;
+            }
+            int firstWay = from * waysPerTask;
+            int lastWay = Math.min(ways.size(), firstWay + waysPerTask);
+            if(buildEdges){
+                buffers[from] = buildEdges(firstWay, lastWay);
+            }
+            else{
+                markNeededNodes(firstWay, lastWay);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Class running an action for a range of indices on a fork-join pool, the range is split in halves
+ * until the parts are small enough
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ParallelLoop extends RecursiveAction{
+    /**
+     * Maximal number of the indices processed by one task
+     */
+    private static final int INDICES_PER_TASK = 64;
+
+    /**
+     * First index of the range
+     */
+    private final int from;
+    /**
+     * Index after the last index of the range
+     */
+    private final int to;
+    /**
+     * Action run for every index
+     */
+    private final IntConsumer action;
+
+    /**
+     * ParallelLoop's constructor
+     * @param from first index of the range
+     * @param to index after the last index of the range
+     * @param action action run for every index
+     */
+    private ParallelLoop(int from, int to, IntConsumer action){
+        this.from = from;
+        this.to = to;
+        this.action = action;
+    }
+
+    /**
+     * Runs the action for every index lower than the count and waits until all of them are done
+     * @param pool pool running the tasks
+     * @param count number of the indices
+     * @param action action run for every index
+     */
+    public static void forEach(ForkJoinPool pool, int count, IntConsumer action){
+        pool.invoke(new ParallelLoop(0, count, action));
+    }
+
+    @Override
+    protected void compute() {
+        if(to - from > INDICES_PER_TASK){
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParallelLoop(from, middle, action), new ParallelLoop(middle, to, action));
+            return;
+        }
+        for(int i = from; i < to; i++){
+            action.accept(i);
+        }
+    }
+}
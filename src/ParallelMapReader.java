@@ -0,0 +1,463 @@
+import MapReaderExceptions.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class reading the map from file with many threads. The file is memory-mapped and split into chunks
+ * which start at the beginning of an element, then all chunks are parsed on a fork-join pool.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ParallelMapReader extends MapReader{
+    /**
+     * Preferred size of one chunk in bytes
+     */
+    private static final long CHUNK_SIZE = 32L << 20;
+    /**
+     * Size of the window searched for the beginning of an element
+     */
+    private static final int SEARCH_WINDOW = 1 << 16;
+    /**
+     * Names of the elements the file can be split at
+     */
+    private static final byte[][] TOP_LEVEL_ELEMENTS = {OsmElementScanner.bytes("<node"), OsmElementScanner.bytes("<way"), OsmElementScanner.bytes("<relation")};
+
+    private static final byte[] BOUNDS = OsmElementScanner.bytes("bounds");
+    private static final byte[] NODE = OsmElementScanner.bytes("node");
+    private static final byte[] WAY = OsmElementScanner.bytes("way");
+    private static final byte[] ND = OsmElementScanner.bytes("nd");
+    private static final byte[] TAG = OsmElementScanner.bytes("tag");
+    private static final byte[] ID = OsmElementScanner.bytes("id");
+    private static final byte[] LAT = OsmElementScanner.bytes("lat");
+    private static final byte[] LON = OsmElementScanner.bytes("lon");
+    private static final byte[] REF = OsmElementScanner.bytes("ref");
+    private static final byte[] K = OsmElementScanner.bytes("k");
+    private static final byte[] V = OsmElementScanner.bytes("v");
+    private static final byte[] HIGHWAY = OsmElementScanner.bytes("highway");
+    private static final byte[] NAME = OsmElementScanner.bytes("name");
+    private static final byte[] JUNCTION = OsmElementScanner.bytes("junction");
+    private static final byte[] ROUNDABOUT = OsmElementScanner.bytes("roundabout");
+    private static final byte[] MINLAT = OsmElementScanner.bytes("minlat");
+    private static final byte[] MINLON = OsmElementScanner.bytes("minlon");
+    private static final byte[] MAXLAT = OsmElementScanner.bytes("maxlat");
+    private static final byte[] MAXLON = OsmElementScanner.bytes("maxlon");
+
+    /**
+     * Number of threads used to parse the file
+     */
+    private int parallelism;
+
+    /**
+     * Default constructor, uses all available processors
+     */
+    ParallelMapReader(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * ParallelMapReader's constructor
+     * @param parallelism number of threads used to parse the file
+     */
+    ParallelMapReader(int parallelism){
+        super();
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Reads the file with many threads, compressed files cannot be mapped and are streamed by MapReader
+     * @throws BoundsAlreadyReadException if boundaries appear again in the file
+     * @throws NodesAlreadyReadException if Nodes have been already read from the file
+     * @throws NodesNotReadYetException never thrown, kept for compatibility with the callers
+     * @throws WaysAlreadyReadException if Ways have been already read from the file
+     * @throws FileNotFoundException if occurred a problem with file
+     * @throws MapFileException if the file cannot be read or parsed
+     */
+    @Override
+    public void runReader() throws BoundsAlreadyReadException, NodesAlreadyReadException, NodesNotReadYetException, WaysAlreadyReadException, FileNotFoundException, MapFileException{
+        if(areNodesAlreadyRead){
+            throw new NodesAlreadyReadException("Nodes have been already read from this file! Reopen file to do this again.");
+        }
+        if(areWaysAlreadyRead){
+            throw new WaysAlreadyReadException("Ways have been already read from this file! Reopen file to do this again.");
+        }
+        if(isCompressed(file)){
+            super.runReader();
+            return;
+        }
+        long startTime = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        referencedNodes = null;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            List<Chunk> chunks = splitIntoChunks(channel);
+            if(twoPass){
+                pool.invoke(new ParseChunks(channel, chunks, 0, chunks.size(), true));
+                mergeReferencedNodes(chunks);
+            }
+            pool.invoke(new ParseChunks(channel, chunks, 0, chunks.size(), false));
+            mergeNodes(chunks);
+            mergeWays(chunks);
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (IOException e){
+            throw new MapFileException("Map file cannot be read!", e);
+        }catch (ChunkException e){
+            Throwable cause = e;
+            while(!(cause instanceof MapFileException)){
+                cause = cause.getCause();
+            }
+            throw (MapFileException) cause;
+        }finally {
+            pool.shutdown();
+        }
+        releaseNodeStore();
+        areNodesAlreadyRead = true;
+        areWaysAlreadyRead = true;
+        readingTime = System.nanoTime() - startTime;
+        bytesRead = twoPass ? 2 * file.length() : file.length();
+    }
+
+    /**
+     * Splits the file into chunks which start at the beginning of the top-level element
+     * @param channel channel of the read file
+     * @return chunks in the order of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    private List<Chunk> splitIntoChunks(FileChannel channel) throws IOException{
+        long size = channel.size();
+        long chunkCount = Math.max(4L * parallelism, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        long chunkSize = Math.max(SEARCH_WINDOW, (size + chunkCount - 1) / chunkCount);
+        List<Chunk> chunks = new ArrayList<>();
+        long start = 0;
+        long end;
+        while(start < size){
+            end = start + chunkSize >= size ? size : findElementStart(channel, start + chunkSize, size);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the beginning of the first top-level element after the position
+     * @param channel channel of the read file
+     * @param from position where the search starts
+     * @param size size of the file
+     * @return position of the element or size of the file if there is no such an element
+     * @throws IOException if the file cannot be mapped
+     */
+    private static long findElementStart(FileChannel channel, long from, long size) throws IOException{
+        long windowStart = from;
+        while(windowStart < size){
+            int windowSize = (int) Math.min(SEARCH_WINDOW, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowSize);
+            for(int i = 0; i < windowSize; i++){
+                if(window.get(i) != '<'){
+                    continue;
+                }
+                for(byte[] element: TOP_LEVEL_ELEMENTS){
+                    if(matchesElement(window, i, element)){
+                        return windowStart + i;
+                    }
+                }
+            }
+            windowStart += windowSize - 16;
+            if(windowSize < SEARCH_WINDOW){
+                break;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Checks whether the element with the name starts at the position
+     * @param window searched window of the file
+     * @param p position of '&lt;'
+     * @param element '&lt;' and the name of the element
+     * @return true if the element starts at the position
+     */
+    private static boolean matchesElement(MappedByteBuffer window, int p, byte[] element){
+        if(p + element.length >= window.limit()){
+            return false;
+        }
+        for(int i = 1; i < element.length; i++){
+            if(window.get(p + i) != element[i]){
+                return false;
+            }
+        }
+        byte next = window.get(p + element.length);
+        return next == ' ' || next == '\t' || next == '\n' || next == '\r' || next == '>' || next == '/';
+    }
+
+    /**
+     * Reads ids of Nodes referenced by Ways of allowed types from the chunk of the file
+     * @param channel channel of the read file
+     * @param chunk parsed chunk
+     * @throws IOException if the chunk cannot be mapped
+     * @throws MapFileException if the chunk cannot be parsed
+     */
+    private void parseChunkReferences(FileChannel channel, Chunk chunk) throws IOException, MapFileException{
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+        OsmElementScanner scanner = new OsmElementScanner(buffer);
+        LongIdSet references = new LongIdSet();
+        boolean insideWay = false;
+        int wayStart = 0;
+        String type = null;
+        while(scanner.next()){
+            if(scanner.isEndTag()){
+                if(insideWay && scanner.isElement(WAY)){
+                    insideWay = false;
+                    if(!filter.isAllowedType(type)){
+                        references.truncate(wayStart);
+                    }
+                }
+            }
+            else if(insideWay){
+                if(scanner.isElement(ND)){
+                    references.add(scanner.getLongAttribute(REF));
+                }
+                else if(scanner.isElement(TAG) && scanner.attributeEquals(K, HIGHWAY)){
+                    type = scanner.getAttribute(V);
+                }
+            }
+            else if(scanner.isElement(WAY) && !scanner.isEmptyElement()){
+                insideWay = true;
+                wayStart = references.size();
+                type = null;
+            }
+        }
+        chunk.references = references;
+    }
+
+    /**
+     * Puts ids of referenced Nodes of all chunks into one set
+     * @param chunks chunks with read references
+     */
+    private void mergeReferencedNodes(List<Chunk> chunks){
+        referencedNodes = new LongIdSet();
+        for(Chunk chunk: chunks){
+            chunk.references.seal();
+            referencedNodes.addAll(chunk.references);
+            chunk.references = null;
+        }
+        referencedNodes.seal();
+    }
+
+    /**
+     * Parses the chunk of the file
+     * @param channel channel of the read file
+     * @param chunk parsed chunk
+     * @throws IOException if the chunk cannot be mapped
+     * @throws MapFileException if the chunk cannot be parsed
+     */
+    private void parseChunk(FileChannel channel, Chunk chunk) throws IOException, MapFileException{
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start);
+        OsmElementScanner scanner = new OsmElementScanner(buffer);
+        RawWay way = null;
+        while(scanner.next()){
+            if(scanner.isEndTag()){
+                if(way != null && scanner.isElement(WAY)){
+                    if(filter.isAllowedType(way.type)){
+                        chunk.ways.add(way);
+                    }
+                    way = null;
+                }
+                continue;
+            }
+            chunk.elements++;
+            if(way != null){
+                if(scanner.isElement(ND)){
+                    way.addRef(scanner.getLongAttribute(REF));
+                }
+                else if(scanner.isElement(TAG)){
+                    if(scanner.attributeEquals(K, HIGHWAY)){
+                        way.type = scanner.getAttribute(V);
+                    }
+                    else if(scanner.attributeEquals(K, NAME)){
+                        way.name = scanner.getAttribute(V);
+                    }
+                    else if(scanner.attributeEquals(K, JUNCTION) && scanner.attributeEquals(V, ROUNDABOUT)){
+                        way.roundabout = true;
+                    }
+                }
+            }
+            else if(scanner.isElement(NODE)){
+                long id = scanner.getLongAttribute(ID);
+                if(isNodeReferenced(id)){
+                    double lat = scanner.getDoubleAttribute(LAT);
+                    double lon = scanner.getDoubleAttribute(LON);
+                    if(filter.contains(lat, lon)){
+                        chunk.nodes.add(id, lat, lon);
+                    }
+                }
+            }
+            else if(scanner.isElement(WAY)){
+                if(!scanner.isEmptyElement()){
+                    way = new RawWay();
+                }
+            }
+            else if(scanner.isElement(BOUNDS)){
+                chunk.bounds = new Double[]{scanner.getDoubleAttribute(MINLAT), scanner.getDoubleAttribute(MINLON), scanner.getDoubleAttribute(MAXLAT), scanner.getDoubleAttribute(MAXLON)};
+            }
+        }
+    }
+
+    /**
+     * Puts Nodes of all chunks into one store
+     * @param chunks parsed chunks
+     * @throws BoundsAlreadyReadException if boundaries appear in more than one chunk
+     */
+    private void mergeNodes(List<Chunk> chunks) throws BoundsAlreadyReadException{
+        int count = 0;
+        for(Chunk chunk: chunks){
+            count += chunk.nodes.size();
+        }
+        nodeStore = new NodeStore(count);
+        for(Chunk chunk: chunks){
+            nodeStore.addAll(chunk.nodes);
+            chunk.nodes = null;
+            elementsRead += chunk.elements;
+            if(chunk.bounds != null){
+                if(areBoundsAlreadyRead){
+                    throw new BoundsAlreadyReadException("Bounds have been already read!");
+                }
+                bounds = chunk.bounds;
+                areBoundsAlreadyRead = true;
+            }
+        }
+    }
+
+    /**
+     * Puts correct Ways of all chunks into one container in the order of the file
+     * @param chunks parsed chunks
+     */
+    private void mergeWays(List<Chunk> chunks){
+        nodes = new HashMap<>();
+        ways = new ArrayList<>();
+        for(Chunk chunk: chunks){
+            for(RawWay way: chunk.ways){
+                acceptWay(way.refs, way.count, way.type, way.name, way.roundabout);
+            }
+            chunk.ways = null;
+        }
+    }
+
+    /**
+     * Part of the file parsed by one task
+     */
+    private static class Chunk{
+        /**
+         * Position of the first byte of the chunk
+         */
+        private final long start;
+        /**
+         * Position of the first byte after the chunk
+         */
+        private final long end;
+        /**
+         * Nodes read from the chunk
+         */
+        private NodeStore nodes = new NodeStore();
+        /**
+         * Ways read from the chunk
+         */
+        private ArrayList<RawWay> ways = new ArrayList<>();
+        /**
+         * Boundaries of the map if the chunk contains them
+         */
+        private Double[] bounds;
+        /**
+         * Number of elements read from the chunk
+         */
+        private long elements;
+        /**
+         * Ids of Nodes referenced by Ways of the chunk
+         */
+        private LongIdSet references;
+
+        Chunk(long start, long end){
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Way read from the chunk before Nodes of all chunks are known
+     */
+    private static class RawWay{
+        private long[] refs = new long[16];
+        private int count;
+        private String type;
+        private String name;
+        private boolean roundabout;
+
+        private void addRef(long ref){
+            if(count == refs.length){
+                refs = Arrays.copyOf(refs, 2 * count);
+            }
+            refs[count++] = ref;
+        }
+    }
+
+    /**
+     * Wraps exceptions thrown inside fork-join tasks
+     */
+    private static class ChunkException extends RuntimeException{
+        ChunkException(MapFileException cause){
+            super(cause);
+        }
+    }
+
+    /**
+     * Task parsing the range of chunks
+     */
+    private class ParseChunks extends RecursiveAction{
+        private final FileChannel channel;
+        private final List<Chunk> chunks;
+        private final int from, to;
+        private final boolean referencesOnly;
+
+        ParseChunks(FileChannel channel, List<Chunk> chunks, int from, int to, boolean referencesOnly){
+            this.channel = channel;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+            this.referencesOnly = referencesOnly;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from > 1){
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseChunks(channel, chunks, from, middle, referencesOnly), new ParseChunks(channel, chunks, middle, to, referencesOnly));
+                return;
+            }
+            if(to == from){
+                return;
+            }
+            try {
+                if(referencesOnly){
+                    parseChunkReferences(channel, chunks.get(from));
+                }
+                else{
+                    parseChunk(channel, chunks.get(from));
+                }
+            }catch (IOException e){
+                throw new ChunkException(new MapFileException("Map file cannot be read!", e));
+            }catch (MapFileException e){
+                throw new ChunkException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,578 @@
+import MapReaderExceptions.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Class reading the map from OSM PBF file. Blobs are read in order of the file and
+ * decompressed and decoded on a fork-join pool.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class PbfMapReader extends MapReader{
+    /**
+     * Maximal size of the blob header allowed by the format
+     */
+    private static final int MAX_HEADER_SIZE = 64 * 1024;
+    /**
+     * Maximal size of the blob allowed by the format
+     */
+    private static final int MAX_BLOB_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * Number of threads used to decode blobs
+     */
+    private int parallelism;
+
+    /**
+     * Default constructor, uses all available processors
+     */
+    PbfMapReader(){
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * PbfMapReader's constructor
+     * @param parallelism number of threads used to decode blobs
+     */
+    PbfMapReader(int parallelism){
+        super();
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Reads the PBF file
+     * @throws BoundsAlreadyReadException if the file contains more than one header with boundaries
+     * @throws NodesAlreadyReadException if Nodes have been already read from the file
+     * @throws NodesNotReadYetException never thrown, kept for compatibility with the callers
+     * @throws WaysAlreadyReadException if Ways have been already read from the file
+     * @throws FileNotFoundException if occurred a problem with file
+     * @throws MapFileException if the file cannot be read or decoded
+     */
+    @Override
+    public void runReader() throws BoundsAlreadyReadException, NodesAlreadyReadException, NodesNotReadYetException, WaysAlreadyReadException, FileNotFoundException, MapFileException{
+        if(areNodesAlreadyRead){
+            throw new NodesAlreadyReadException("Nodes have been already read from this file! Reopen file to do this again.");
+        }
+        if(areWaysAlreadyRead){
+            throw new WaysAlreadyReadException("Ways have been already read from this file! Reopen file to do this again.");
+        }
+        long startTime = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        referencedNodes = null;
+        try {
+            if(twoPass){
+                referencedNodes = new LongIdSet();
+                for(Block block: readBlocks(pool, true)){
+                    block.references.seal();
+                    referencedNodes.addAll(block.references);
+                    block.references = null;
+                }
+                referencedNodes.seal();
+            }
+            mergeBlocks(readBlocks(pool, false));
+        }catch (FileNotFoundException e){
+            throw e;
+        }catch (EOFException e){
+            throw new MapFileException("Unexpected end of PBF file!", e);
+        }catch (IOException e){
+            throw new MapFileException("Map file cannot be read!", e);
+        }catch (ExecutionException e){
+            if(e.getCause() instanceof MapFileException){
+                throw (MapFileException) e.getCause();
+            }
+            throw new MapFileException("Blob cannot be decoded!", e.getCause());
+        }catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new MapFileException("Reading has been interrupted!", e);
+        }finally {
+            pool.shutdownNow();
+        }
+        releaseNodeStore();
+        areNodesAlreadyRead = true;
+        areWaysAlreadyRead = true;
+        readingTime = System.nanoTime() - startTime;
+        bytesRead = twoPass ? 2 * file.length() : file.length();
+    }
+
+    /**
+     * Reads all blobs of the file and decodes data blocks on the pool
+     * @param pool pool decoding the blocks
+     * @param referencesOnly true if only ids of Nodes referenced by Ways of allowed types are decoded
+     * @return decoded blocks in the order of the file
+     * @throws IOException if the file cannot be read
+     * @throws MapFileException if the blob or the header block cannot be decoded
+     * @throws BoundsAlreadyReadException if the file contains more than one header with boundaries
+     * @throws ExecutionException if a data block cannot be decoded
+     * @throws InterruptedException if the reading is interrupted
+     */
+    private List<Block> readBlocks(ForkJoinPool pool, final boolean referencesOnly) throws IOException, MapFileException, BoundsAlreadyReadException, ExecutionException, InterruptedException{
+        List<Future<Block>> futures = new ArrayList<>();
+        final LongIdSet keptNodes = referencedNodes;
+        final MapFilter mapFilter = filter;
+        try (DataInputStream stream = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            int headerSize;
+            while((headerSize = readHeaderSize(stream)) != -1){
+                if(headerSize < 0 || headerSize > MAX_HEADER_SIZE){
+                    throw new MapFileException("Blob header is too big!");
+                }
+                byte[] header = new byte[headerSize];
+                stream.readFully(header);
+                String type = null;
+                int dataSize = -1;
+                ProtobufReader reader = new ProtobufReader(header);
+                while(reader.next()){
+                    if(reader.getFieldNumber() == 1){
+                        type = reader.readString();
+                    }
+                    else if(reader.getFieldNumber() == 3){
+                        dataSize = (int) reader.readVarint();
+                    }
+                    else{
+                        reader.skip();
+                    }
+                }
+                if(dataSize < 0 || dataSize > MAX_BLOB_SIZE){
+                    throw new MapFileException("Incorrect blob size!");
+                }
+                final byte[] blob = new byte[dataSize];
+                stream.readFully(blob);
+                if("OSMHeader".equals(type) && !referencesOnly){
+                    readHeaderBlock(decompress(blob));
+                }
+                else if("OSMData".equals(type)){
+                    futures.add(pool.submit(() -> decodePrimitiveBlock(decompress(blob), keptNodes, mapFilter, referencesOnly)));
+                }
+            }
+        }
+        ArrayList<Block> blocks = new ArrayList<>(futures.size());
+        for(Future<Block> future: futures){
+            blocks.add(future.get());
+        }
+        return blocks;
+    }
+
+    /**
+     * Reads the size of the next blob header
+     * @param stream stream of the file
+     * @return size of the header or -1 at the end of the file
+     * @throws IOException if the stream cannot be read
+     */
+    private static int readHeaderSize(DataInputStream stream) throws IOException{
+        int first = stream.read();
+        if(first < 0){
+            return -1;
+        }
+        return (first << 24) | (stream.readUnsignedByte() << 16) | (stream.readUnsignedByte() << 8) | stream.readUnsignedByte();
+    }
+
+    /**
+     * Returns uncompressed data of the blob
+     * @param blob bytes of the Blob message
+     * @return uncompressed data
+     * @throws MapFileException if the blob uses unsupported compression or is corrupted
+     */
+    private static byte[] decompress(byte[] blob) throws MapFileException{
+        ProtobufReader reader = new ProtobufReader(blob);
+        byte[] raw = null;
+        byte[] zlibData = null;
+        int rawSize = -1;
+        while(reader.next()){
+            switch (reader.getFieldNumber()){
+                case 1:
+                    raw = reader.readBytes();
+                    break;
+                case 2:
+                    rawSize = (int) reader.readVarint();
+                    break;
+                case 3:
+                    zlibData = reader.readBytes();
+                    break;
+                case 4:
+                case 5:
+                case 6:
+                case 7:
+                    throw new MapFileException("Unsupported compression of the PBF blob!");
+                default:
+                    reader.skip();
+            }
+        }
+        if(raw != null){
+            return raw;
+        }
+        if(zlibData == null || rawSize < 0 || rawSize > MAX_BLOB_SIZE){
+            throw new MapFileException("Blob has no data!");
+        }
+        Inflater inflater = new Inflater();
+        try {
+            byte[] result = new byte[rawSize];
+            inflater.setInput(zlibData);
+            int length = 0;
+            while(length < rawSize && !inflater.finished() && !inflater.needsInput()){
+                length += inflater.inflate(result, length, rawSize - length);
+            }
+            if(length != rawSize || !inflater.finished()){
+                throw new MapFileException("Blob has incorrect size!");
+            }
+            return result;
+        }catch (DataFormatException e){
+            throw new MapFileException("Blob is corrupted!", e);
+        }finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reads boundaries of the map from the header block
+     * @param data uncompressed HeaderBlock message
+     * @throws MapFileException if the block cannot be decoded
+     * @throws BoundsAlreadyReadException if boundaries have been already read
+     */
+    private void readHeaderBlock(byte[] data) throws MapFileException, BoundsAlreadyReadException{
+        ProtobufReader reader = new ProtobufReader(data);
+        while(reader.next()){
+            if(reader.getFieldNumber() == 1){
+                if(areBoundsAlreadyRead){
+                    throw new BoundsAlreadyReadException("Bounds have been already read!");
+                }
+                ProtobufReader bbox = reader.readMessage();
+                double left = 0, right = 0, top = 0, bottom = 0;
+                while(bbox.next()){
+                    switch (bbox.getFieldNumber()){
+                        case 1:
+                            left = bbox.readSignedVarint() / 1e9;
+                            break;
+                        case 2:
+                            right = bbox.readSignedVarint() / 1e9;
+                            break;
+                        case 3:
+                            top = bbox.readSignedVarint() / 1e9;
+                            break;
+                        case 4:
+                            bottom = bbox.readSignedVarint() / 1e9;
+                            break;
+                        default:
+                            bbox.skip();
+                    }
+                }
+                bounds = new Double[]{bottom, left, top, right};
+                areBoundsAlreadyRead = true;
+            }
+            else{
+                reader.skip();
+            }
+        }
+    }
+
+    /**
+     * Decodes Nodes and Ways of the primitive block
+     * @param data uncompressed PrimitiveBlock message
+     * @param keptNodes ids of Nodes that are kept, null if all Nodes are kept
+     * @param mapFilter bounding box and highway types of kept data
+     * @param referencesOnly true if only ids of Nodes referenced by Ways of allowed types are decoded
+     * @return decoded block
+     * @throws MapFileException if the block cannot be decoded
+     */
+    private static Block decodePrimitiveBlock(byte[] data, LongIdSet keptNodes, MapFilter mapFilter, boolean referencesOnly) throws MapFileException{
+        Block block = new Block(keptNodes, mapFilter, referencesOnly);
+        ProtobufReader reader = new ProtobufReader(data);
+        ArrayList<String> strings = new ArrayList<>();
+        ArrayList<ProtobufReader> groups = new ArrayList<>();
+        while(reader.next()){
+            switch (reader.getFieldNumber()){
+                case 1:
+                    ProtobufReader table = reader.readMessage();
+                    while(table.next()){
+                        if(table.getFieldNumber() == 1){
+                            strings.add(table.readString());
+                        }
+                        else{
+                            table.skip();
+                        }
+                    }
+                    break;
+                case 2:
+                    groups.add(reader.readMessage());
+                    break;
+                case 17:
+                    block.granularity = reader.readVarint();
+                    break;
+                case 19:
+                    block.latOffset = reader.readVarint();
+                    break;
+                case 20:
+                    block.lonOffset = reader.readVarint();
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+        block.strings = strings.toArray(new String[0]);
+        for(ProtobufReader group: groups){
+            while(group.next()){
+                switch (group.getFieldNumber()){
+                    case 1:
+                        if(referencesOnly){
+                            group.skip();
+                        }
+                        else{
+                            decodeNode(group.readMessage(), block);
+                        }
+                        break;
+                    case 2:
+                        if(referencesOnly){
+                            group.skip();
+                        }
+                        else{
+                            decodeDenseNodes(group.readMessage(), block);
+                        }
+                        break;
+                    case 3:
+                        decodeWay(group.readMessage(), block);
+                        break;
+                    default:
+                        group.skip();
+                }
+            }
+        }
+        block.strings = null;
+        return block;
+    }
+
+    /**
+     * Decodes the single Node
+     * @param reader Node message
+     * @param block block the Node belongs to
+     * @throws MapFileException if the message cannot be decoded
+     */
+    private static void decodeNode(ProtobufReader reader, Block block) throws MapFileException{
+        long id = 0, lat = 0, lon = 0;
+        while(reader.next()){
+            switch (reader.getFieldNumber()){
+                case 1:
+                    id = reader.readSignedVarint();
+                    break;
+                case 8:
+                    lat = reader.readSignedVarint();
+                    break;
+                case 9:
+                    lon = reader.readSignedVarint();
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+        block.addNode(id, lat, lon);
+    }
+
+    /**
+     * Decodes densely packed Nodes
+     * @param reader DenseNodes message
+     * @param block block the Nodes belong to
+     * @throws MapFileException if the message cannot be decoded
+     */
+    private static void decodeDenseNodes(ProtobufReader reader, Block block) throws MapFileException{
+        long[] ids = null, lats = null, lons = null;
+        while(reader.next()){
+            switch (reader.getFieldNumber()){
+                case 1:
+                    ids = reader.readPackedDeltas();
+                    break;
+                case 8:
+                    lats = reader.readPackedDeltas();
+                    break;
+                case 9:
+                    lons = reader.readPackedDeltas();
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+        if(ids == null){
+            return;
+        }
+        if(lats == null || lons == null || lats.length != ids.length || lons.length != ids.length){
+            throw new MapFileException("Dense nodes have incorrect coordinates!");
+        }
+        for(int i = 0; i < ids.length; i++){
+            block.addNode(ids[i], lats[i], lons[i]);
+        }
+    }
+
+    /**
+     * Decodes the Way
+     * @param reader Way message
+     * @param block block the Way belongs to
+     * @throws MapFileException if the message cannot be decoded
+     */
+    private static void decodeWay(ProtobufReader reader, Block block) throws MapFileException{
+        long[] keys = new long[0], values = new long[0];
+        RawWay way = new RawWay();
+        while(reader.next()){
+            switch (reader.getFieldNumber()){
+                case 2:
+                    keys = reader.readPackedVarints(false);
+                    break;
+                case 3:
+                    values = reader.readPackedVarints(false);
+                    break;
+                case 8:
+                    way.refs = reader.readPackedDeltas();
+                    break;
+                default:
+                    reader.skip();
+            }
+        }
+        if(keys.length != values.length){
+            throw new MapFileException("Way has incorrect tags!");
+        }
+        String key;
+        for(int i = 0; i < keys.length; i++){
+            if(keys[i] >= block.strings.length || values[i] >= block.strings.length){
+                throw new MapFileException("Way refers to missing string!");
+            }
+            key = block.strings[(int) keys[i]];
+            if(key.equals("highway")){
+                way.type = block.strings[(int) values[i]];
+            }
+            else if(key.equals("name")){
+                way.name = block.strings[(int) values[i]];
+            }
+            else if(key.equals("junction") && block.strings[(int) values[i]].equals("roundabout")){
+                way.roundabout = true;
+            }
+        }
+        if(!block.mapFilter.isAllowedType(way.type)){
+            block.droppedWays++;
+        }
+        else if(block.references == null){
+            block.ways.add(way);
+        }
+        else{
+            for(long ref: way.refs){
+                block.references.add(ref);
+            }
+        }
+    }
+
+    /**
+     * Puts Nodes and Ways of all blocks into containers in the order of the file
+     * @param blocks decoded blocks
+     */
+    private void mergeBlocks(List<Block> blocks){
+        int count = 0;
+        for(Block block: blocks){
+            count += block.nodes.size();
+        }
+        nodeStore = new NodeStore(count);
+        for(Block block: blocks){
+            nodeStore.addAll(block.nodes);
+            block.nodes = null;
+        }
+        elementsRead += count;
+        nodes = new HashMap<>();
+        ways = new ArrayList<>();
+        for(Block block: blocks){
+            for(RawWay way: block.ways){
+                acceptWay(way.refs, way.refs.length, way.type, way.name, way.roundabout);
+            }
+            elementsRead += block.ways.size() + block.droppedWays;
+            block.ways = null;
+        }
+    }
+
+    /**
+     * Nodes and Ways decoded from one primitive block
+     */
+    private static class Block{
+        /**
+         * Size of the coordinates' unit in nanodegrees
+         */
+        private long granularity = 100;
+        /**
+         * Offset of latitudes in nanodegrees
+         */
+        private long latOffset;
+        /**
+         * Offset of longitudes in nanodegrees
+         */
+        private long lonOffset;
+        /**
+         * String table of the block
+         */
+        private String[] strings;
+        /**
+         * Decoded Nodes
+         */
+        private NodeStore nodes = new NodeStore();
+        /**
+         * Decoded Ways
+         */
+        private ArrayList<RawWay> ways = new ArrayList<>();
+        /**
+         * Ids of Nodes referenced by Ways of allowed types, null if Ways are decoded
+         */
+        private LongIdSet references;
+        /**
+         * Number of Ways dropped by the highway types of the filter
+         */
+        private int droppedWays;
+        /**
+         * Ids of Nodes that are kept, null if all Nodes are kept
+         */
+        private final LongIdSet keptNodes;
+        /**
+         * Bounding box and highway types of kept data
+         */
+        private final MapFilter mapFilter;
+
+        /**
+         * Block's constructor
+         * @param keptNodes ids of Nodes that are kept, null if all Nodes are kept
+         * @param mapFilter bounding box and highway types of kept data
+         * @param referencesOnly true if only ids of referenced Nodes are decoded
+         */
+        private Block(LongIdSet keptNodes, MapFilter mapFilter, boolean referencesOnly){
+            this.keptNodes = keptNodes;
+            this.mapFilter = mapFilter;
+            if(referencesOnly){
+                this.references = new LongIdSet();
+            }
+        }
+
+        /**
+         * Adds the Node with coordinates in units of the block
+         * @param id id of the Node
+         * @param lat latitude in units of granularity
+         * @param lon longitude in units of granularity
+         */
+        private void addNode(long id, long lat, long lon){
+            if(keptNodes != null && !keptNodes.contains(id)){
+                return;
+            }
+            double latitude = (latOffset + granularity * lat) / 1e9;
+            double longitude = (lonOffset + granularity * lon) / 1e9;
+            if(mapFilter.contains(latitude, longitude)){
+                nodes.add(id, latitude, longitude);
+            }
+        }
+    }
+
+    /**
+     * Way decoded before Nodes of all blocks are known
+     */
+    private static class RawWay{
+        private long[] refs = new long[0];
+        private String type;
+        private String name;
+        private boolean roundabout;
+    }
+}
@@ -0,0 +1,238 @@
+import MapReaderExceptions.MapFileException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Class decoding Protocol Buffers messages, used to read OSM PBF files
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ProtobufReader {
+    /**
+     * Wire type of varint fields
+     */
+    public static final int VARINT = 0;
+    /**
+     * Wire type of 64-bit fields
+     */
+    public static final int FIXED64 = 1;
+    /**
+     * Wire type of length-delimited fields
+     */
+    public static final int LENGTH_DELIMITED = 2;
+    /**
+     * Wire type of 32-bit fields
+     */
+    public static final int FIXED32 = 5;
+
+    /**
+     * Decoded bytes
+     */
+    private final byte[] data;
+    /**
+     * Position of the next byte to decode
+     */
+    private int position;
+    /**
+     * Position of the first byte after the message
+     */
+    private final int limit;
+    /**
+     * Key of the last read field
+     */
+    private int tag;
+
+    /**
+     * ProtobufReader's constructor
+     * @param data bytes of the message
+     */
+    public ProtobufReader(byte[] data){
+        this(data, 0, data.length);
+    }
+
+    /**
+     * ProtobufReader's constructor
+     * @param data bytes containing the message
+     * @param offset position of the first byte of the message
+     * @param length length of the message
+     */
+    public ProtobufReader(byte[] data, int offset, int length){
+        this.data = data;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * Reads the key of the next field
+     * @return false if there are no more fields
+     * @throws MapFileException if the key is not correct
+     */
+    public boolean next() throws MapFileException{
+        if(position >= limit){
+            return false;
+        }
+        tag = (int) readVarint();
+        return true;
+    }
+
+    /**
+     * Returns the number of the last read field
+     * @return number of the field
+     */
+    public int getFieldNumber(){
+        return tag >>> 3;
+    }
+
+    /**
+     * Returns the wire type of the last read field
+     * @return wire type of the field
+     */
+    public int getWireType(){
+        return tag & 7;
+    }
+
+    /**
+     * Reads unsigned variable-length integer
+     * @return read value
+     * @throws MapFileException if the value is not correct
+     */
+    public long readVarint() throws MapFileException{
+        long result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if(position >= limit || shift > 63){
+                throw new MapFileException("Incorrect varint in PBF data");
+            }
+            b = data[position++];
+            result |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return result;
+    }
+
+    /**
+     * Reads zigzag-encoded signed integer
+     * @return read value
+     * @throws MapFileException if the value is not correct
+     */
+    public long readSignedVarint() throws MapFileException{
+        long value = readVarint();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Reads length-delimited field as a nested message
+     * @return reader of the nested message
+     * @throws MapFileException if the length is not correct
+     */
+    public ProtobufReader readMessage() throws MapFileException{
+        int length = readLength();
+        ProtobufReader message = new ProtobufReader(data, position, length);
+        position += length;
+        return message;
+    }
+
+    /**
+     * Reads length-delimited field as bytes
+     * @return copy of the field's bytes
+     * @throws MapFileException if the length is not correct
+     */
+    public byte[] readBytes() throws MapFileException{
+        int length = readLength();
+        byte[] result = new byte[length];
+        System.arraycopy(data, position, result, 0, length);
+        position += length;
+        return result;
+    }
+
+    /**
+     * Reads length-delimited field as UTF-8 text
+     * @return read text
+     * @throws MapFileException if the length is not correct
+     */
+    public String readString() throws MapFileException{
+        int length = readLength();
+        String result = new String(data, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return result;
+    }
+
+    /**
+     * Reads packed repeated varints
+     * @param signed true if values are zigzag-encoded
+     * @return read values
+     * @throws MapFileException if the field is not correct
+     */
+    public long[] readPackedVarints(boolean signed) throws MapFileException{
+        int end = readLength() + position;
+        int count = 0;
+        for(int i = position; i < end; i++){
+            if((data[i] & 0x80) == 0){
+                count++;
+            }
+        }
+        long[] result = new long[count];
+        for(int i = 0; i < count; i++){
+            result[i] = signed ? readSignedVarint() : readVarint();
+        }
+        if(position != end){
+            throw new MapFileException("Incorrect packed field in PBF data");
+        }
+        return result;
+    }
+
+    /**
+     * Reads packed repeated varints and sums them up, used for delta-coded fields
+     * @return decoded values
+     * @throws MapFileException if the field is not correct
+     */
+    public long[] readPackedDeltas() throws MapFileException{
+        long[] result = readPackedVarints(true);
+        for(int i = 1; i < result.length; i++){
+            result[i] += result[i - 1];
+        }
+        return result;
+    }
+
+    /**
+     * Skips the value of the last read field
+     * @throws MapFileException if the wire type is not supported
+     */
+    public void skip() throws MapFileException{
+        switch (getWireType()){
+            case VARINT:
+                readVarint();
+                break;
+            case FIXED64:
+                position += 8;
+                break;
+            case LENGTH_DELIMITED:
+                int length = readLength();
+                position += length;
+                break;
+            case FIXED32:
+                position += 4;
+                break;
+            default:
+                throw new MapFileException("Unsupported wire type " + getWireType() + " in PBF data");
+        }
+        if(position > limit){
+            throw new MapFileException("Unexpected end of PBF message");
+        }
+    }
+
+    /**
+     * Reads the length of length-delimited field
+     * @return length of the field
+     * @throws MapFileException if the length exceeds the message
+     */
+    private int readLength() throws MapFileException{
+        long length = readVarint();
+        if(length < 0 || length > limit - position){
+            throw new MapFileException("Incorrect length in PBF data");
+        }
+        return (int) length;
+    }
+}
@@ -0,0 +1,236 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class holding the state of a search on CompactGraph. The state is kept in arrays indexed by the numbers
+ * of the Nodes and is reused by the following queries, one context must not be used by two threads at once.
+ * The arrays are not cleared between the queries, every entry is stamped with the number of the query
+ * that has written it and entries with older stamps are treated as unset, so preparing a query costs
+ * nothing and the query touches only the Nodes it reaches.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class QueryContext {
+    /**
+     * Holds distances of the Nodes from the start Node
+     */
+    private final double[] distances;
+    /**
+     * Holds numbers of the previous Nodes on the shortest ways, -1 if there is no previous Node
+     */
+    private final int[] previousNodes;
+    /**
+     * Holds numbers of the queries that have set distances and previous Nodes
+     */
+    private final int[] stamps;
+    /**
+     * Holds numbers of the queries that have settled the Nodes
+     */
+    private final int[] settledStamps;
+    /**
+     * Numbers of the Nodes reached by the current query, in the order they have been reached
+     */
+    private final int[] reachedNodes;
+    /**
+     * Number of the Nodes reached by the current query
+     */
+    private int reachedCount;
+    /**
+     * Number of the current query
+     */
+    private int generation;
+    /**
+     * Number of the Nodes settled by the current query
+     */
+    private int settledCount;
+    /**
+     * Heap of the Nodes waiting to be settled
+     */
+    private final IndexedHeap queue;
+    /**
+     * Holds the shortest way found by the last query
+     */
+    private ArrayList<Node> foundWay;
+    /**
+     * Context of the backward search of bidirectional queries, created when it is needed
+     */
+    private QueryContext backwardContext;
+
+    /**
+     * QueryContext's constructor
+     * @param nodeCount number of the Nodes of the searched graph
+     */
+    public QueryContext(int nodeCount){
+        this.distances = new double[nodeCount];
+        this.previousNodes = new int[nodeCount];
+        this.stamps = new int[nodeCount];
+        this.settledStamps = new int[nodeCount];
+        this.reachedNodes = new int[nodeCount];
+        this.generation = 0;
+        this.queue = new IndexedHeap(nodeCount);
+        this.foundWay = null;
+    }
+
+    /**
+     * Prepares the context for the next search, the state of the previous search is invalidated
+     * by changing the number of the query
+     * @param start number of the start Node
+     */
+    void prepare(int start){
+        prepare(start, 0);
+    }
+
+    /**
+     * Prepares the context for the next search with the given key of the start Node in the queue
+     * @param start number of the start Node
+     * @param startKey key of the start Node
+     */
+    void prepare(int start, double startKey){
+        prepare();
+        update(start, 0, -1);
+        queue.insertOrDecrease(start, startKey);
+    }
+
+    /**
+     * Prepares the context for the next search without any reached Node, used to restore a suspended search
+     */
+    void prepare(){
+        generation++;
+        if(generation == Integer.MAX_VALUE){
+            Arrays.fill(stamps, 0);
+            Arrays.fill(settledStamps, 0);
+            generation = 1;
+        }
+        queue.clear();
+        settledCount = 0;
+        reachedCount = 0;
+    }
+
+    /**
+     * Returns the number of the Nodes the context has been created for
+     * @return number of the Nodes
+     */
+    public int getNodeCount(){
+        return distances.length;
+    }
+
+    /**
+     * Returns the distance of the Node from the start Node
+     * @param node number of the Node
+     * @return distance found by the current query or Double.MAX_VALUE if the Node has not been reached
+     */
+    double getDistance(int node){
+        return stamps[node] == generation ? distances[node] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Returns the previous Node on the shortest way
+     * @param node number of the Node
+     * @return number of the previous Node or -1 if there is no previous Node
+     */
+    int getPreviousNode(int node){
+        return stamps[node] == generation ? previousNodes[node] : -1;
+    }
+
+    /**
+     * Sets the distance and the previous Node found by the current query
+     * @param node number of the Node
+     * @param distance distance from the start Node
+     * @param previousNode number of the previous Node or -1 if there is no previous Node
+     */
+    void update(int node, double distance, int previousNode){
+        if(stamps[node] != generation){
+            reachedNodes[reachedCount++] = node;
+        }
+        stamps[node] = generation;
+        distances[node] = distance;
+        previousNodes[node] = previousNode;
+    }
+
+    /**
+     * Returns the number of the Nodes reached by the current query
+     * @return number of the Nodes which have a distance
+     */
+    int getReachedCount(){
+        return reachedCount;
+    }
+
+    /**
+     * Returns the Node reached by the current query
+     * @param index position of the Node in the order the Nodes have been reached
+     * @return number of the Node
+     */
+    int getReachedNode(int index){
+        return reachedNodes[index];
+    }
+
+    /**
+     * Checks if the Node has been settled by the current query
+     * @param node number of the Node
+     * @return true if the Node has been settled
+     */
+    boolean isSettled(int node){
+        return settledStamps[node] == generation;
+    }
+
+    /**
+     * Marks the Node as settled by the current query
+     * @param node number of the Node
+     */
+    void settle(int node){
+        settledStamps[node] = generation;
+        settledCount++;
+    }
+
+    /**
+     * Returns the number of the Nodes settled by the last query
+     * @return number of the settled Nodes
+     */
+    public int getSettledCount(){
+        return settledCount;
+    }
+
+    /**
+     * Sets the number of the Nodes settled by the last query, used by the queries made of several searches
+     * @param settledCount number of the settled Nodes
+     */
+    void setSettledCount(int settledCount){
+        this.settledCount = settledCount;
+    }
+
+    /**
+     * Returns the context of the backward search of bidirectional queries
+     * @return QueryContext for the same graph
+     */
+    QueryContext getBackwardContext(){
+        if(backwardContext == null){
+            backwardContext = new QueryContext(getNodeCount());
+        }
+        return backwardContext;
+    }
+
+    /**
+     * Returns the queue of the Nodes waiting to be settled
+     * @return IndexedHeap of the context
+     */
+    IndexedHeap getQueue(){
+        return queue;
+    }
+
+    /**
+     * Returns the shortest way found by the last query
+     * @return ArrayList with the shortest way or null if there is no way
+     */
+    public ArrayList<Node> getFoundWay(){
+        return foundWay;
+    }
+
+    /**
+     * Sets the shortest way found by the last query
+     * @param foundWay ArrayList with the shortest way or null if there is no way
+     */
+    void setFoundWay(ArrayList<Node> foundWay){
+        this.foundWay = foundWay;
+    }
+}
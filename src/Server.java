@@ -1,5 +1,6 @@
 import DataConverterExceptions.DataNotConvertedYetException;
 import MapReaderExceptions.*;
+import WayFinderExceptions.GraphFileException;
 import com.thoughtworks.xstream.XStream;
 
 import javax.swing.*;
@@ -11,6 +12,8 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.locks.Condition;
 
@@ -28,6 +31,9 @@ public class Server extends JFrame {
     private Thread serverThread;
     private MapReader mapReader;
     private DataConverter dataConverter;
+    private HashMap<String, Node> nodes;
+    private CompactGraph compactGraph;
+    private GraphFileInfo graphFileInfo;
     private ServerSocket serverSocket;
     private ArrayList<Socket> sockets;
     private ArrayList<Thread> connectionThreads;
@@ -43,7 +49,6 @@ public class Server extends JFrame {
         setTitle("MapGraph - Server");
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         createListeners();
-        mapReader = new MapReader();
         sockets = new ArrayList<>();
         connectionThreads = new ArrayList<>();
     }
@@ -92,6 +97,38 @@ public class Server extends JFrame {
         super.dispose();
     }
 
+    /**
+     * Sets the served graph
+     * @param nodes Nodes of the graph, or null to create them from the graph file when a client asks for them
+     * @param compactGraph graph opened from the graph file, or null if the Nodes are given
+     * @param graphFileInfo description of the graph file sent to the clients, or null if there is no graph file
+     */
+    private synchronized void setGraph(HashMap<String, Node> nodes, CompactGraph compactGraph, GraphFileInfo graphFileInfo){
+        this.nodes = nodes;
+        this.compactGraph = compactGraph;
+        this.graphFileInfo = graphFileInfo;
+    }
+
+    /**
+     * Returns the description of the served graph file
+     * @return GraphFileInfo or null if there is no graph file
+     */
+    private synchronized GraphFileInfo getGraphFileInfo(){
+        return graphFileInfo;
+    }
+
+    /**
+     * Returns the Nodes of the served graph, the Nodes of an opened graph file are created only when
+     * the first client asks for them
+     * @return HashMap with the Nodes
+     */
+    private synchronized HashMap<String, Node> getNodes(){
+        if(nodes == null && compactGraph != null){
+            nodes = compactGraph.toNodes();
+        }
+        return nodes;
+    }
+
     private void createListeners(){
         runServerButton.addActionListener(new RunServerActionListener());
         stopServerButton.addActionListener(new StopServerActionListener());
@@ -176,12 +213,21 @@ public class Server extends JFrame {
             xstream.alias("node", Node.class);
             xstream.alias("hashMap", HashMap.class);
             try {
-                String output = xstream.toXML(dataConverter.returnConvertedNodes());
+                String output = null;
 
                     while (isServerRunning && (input = (String) inputStream.readObject()) != null) {
                         if (input.equals("SEND")) {
+                            if(output == null){
+                                output = xstream.toXML(getNodes());
+                            }
                             outputStream.writeObject(output);
                         }
+                        else if (input.equals("GRAPHFILE")) {
+                            outputStream.writeObject(getGraphFileInfo());
+                        }
+                        else {
+                            outputStream.writeObject("UNKNOWN");
+                        }
                     }
                 try {
                     inputStream.close();
@@ -189,8 +235,6 @@ public class Server extends JFrame {
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
-            }catch (DataNotConvertedYetException e){
-                JOptionPane.showMessageDialog(mainPanel, "Nothing has been processed!");
             }catch (IOException | ClassNotFoundException e){
                 JOptionPane.showMessageDialog(mainPanel, "Something's wrong with streams");
             }
@@ -242,21 +286,159 @@ public class Server extends JFrame {
         public void run() {
             JFileChooser fc = new JFileChooser("~");
             if(fc.showDialog(mainPanel, "Open file...")==JFileChooser.APPROVE_OPTION) {
+                String path = fc.getSelectedFile().getPath();
                 try {
-                    mapReader.openFile(fc.getSelectedFile().getPath());
-                    mapReader.runReader();
-                    dataConverter = new DataConverter(mapReader.getNodes(), mapReader.getWays());
-                    dataConverter.runConverter();
-                    isFileOpened = true;
+                    if(path.endsWith(GraphFile.EXTENSION)){
+                        File graphFile = new File(path);
+                        CompactGraph compactGraph = GraphFile.open(graphFile);
+                        setGraph(null, compactGraph, GraphFileInfo.describe(graphFile));
+                        new Preprocessing(compactGraph, graphFile, false, "Graph opened.").execute();
+                    }
+                    else {
+                        mapReader = MapReader.createReader(path);
+                        mapReader.openFile(path);
+                        mapReader.runReader();
+                        stateLabel.setText(String.format("Map read: %.2f MB/s, %.0f elements/s", mapReader.getMegabytesPerSecond(), mapReader.getElementsPerSecond()));
+                        dataConverter = new ParallelDataConverter(mapReader.getNodes(), mapReader.getWays());
+                        dataConverter.runConverter();
+                        File graphFile = new File(GraphFile.graphPathFor(path));
+                        GraphFileInfo graphFileInfo = null;
+                        try {
+                            GraphFile.write(dataConverter.returnCompactGraph(), graphFile);
+                            graphFileInfo = GraphFileInfo.describe(graphFile);
+                        }catch (IOException e){
+                            e.printStackTrace();
+                        }
+                        setGraph(dataConverter.returnConvertedNodes(), null, graphFileInfo);
+                        if(graphFileInfo != null){
+                            new Preprocessing(dataConverter.returnCompactGraph(), graphFile, true, stateLabel.getText()).execute();
+                        }
+                        else{
+                            isFileOpened = true;
+                        }
+                    }
                 }catch (FileNotFoundException e){
                     e.printStackTrace();
                     JOptionPane.showMessageDialog(mainPanel, "File not found!");
                     isFileOpened = false;
-                }catch (BoundsAlreadyReadException | NodesAlreadyReadException | NodesNotReadYetException | WaysAlreadyReadException | WaysNotReadYetException e){
+                }catch (BoundsAlreadyReadException | NodesAlreadyReadException | NodesNotReadYetException | WaysAlreadyReadException | WaysNotReadYetException | MapFileException e){
                     JOptionPane.showMessageDialog(mainPanel, "There's a problem with map file!");
                     isFileOpened = false;
+                }catch (GraphFileException e){
+                    e.printStackTrace();
+                    JOptionPane.showMessageDialog(mainPanel, "There's a problem with graph file!");
+                    isFileOpened = false;
+                }catch (DataNotConvertedYetException e){
+                    JOptionPane.showMessageDialog(mainPanel, "Nothing has been processed!");
+                    isFileOpened = false;
                 }
             }
         }
     }
+
+    /**
+     * Background step computing the files which make the clients' searches faster, so that the window
+     * stays responsive. The steps are shown in stateLabel and the map can be served when all of them are done.
+     */
+    private class Preprocessing extends SwingWorker<Void, String>{
+        /**
+         * Graph saved in the graph file
+         */
+        private final CompactGraph compactGraph;
+        /**
+         * The graph file
+         */
+        private final File graphFile;
+        /**
+         * Remembers if the files are computed again even if they exist, because the graph file has been written anew
+         */
+        private final boolean rebuild;
+        /**
+         * State shown when the preprocessing is done
+         */
+        private final String openedState;
+
+        /**
+         * Preprocessing's constructor, disables opening another map until the preprocessing is done
+         * @param compactGraph graph saved in the graph file
+         * @param graphFile the graph file
+         * @param rebuild true to compute the files even if they exist
+         * @param openedState state shown when the preprocessing is done
+         */
+        Preprocessing(CompactGraph compactGraph, File graphFile, boolean rebuild, String openedState){
+            this.compactGraph = compactGraph;
+            this.graphFile = graphFile;
+            this.rebuild = rebuild;
+            this.openedState = openedState;
+            isFileOpened = false;
+            openMapButton.setEnabled(false);
+        }
+
+        @Override
+        protected Void doInBackground(){
+            if(rebuild || !new File(Landmarks.landmarksPathFor(graphFile.getPath())).isFile()){
+                publish("Selecting landmarks...");
+                writeLandmarks();
+            }
+            if(rebuild || !new File(ContractionHierarchy.hierarchyPathFor(graphFile.getPath())).isFile()){
+                publish("Building contraction hierarchy...");
+                writeHierarchy();
+            }
+            if(rebuild || !new File(ArcFlags.flagsPathFor(graphFile.getPath())).isFile()){
+                publish("Computing arc flags...");
+                writeArcFlags();
+            }
+            return null;
+        }
+
+        @Override
+        protected void process(List<String> states){
+            stateLabel.setText(states.get(states.size() - 1));
+        }
+
+        @Override
+        protected void done(){
+            try {
+                get();
+            }catch (InterruptedException | ExecutionException e){
+                e.printStackTrace();
+            }
+            stateLabel.setText(openedState);
+            openMapButton.setEnabled(true);
+            isFileOpened = true;
+        }
+
+        /**
+         * Selects landmarks of the graph and saves them next to the graph file, so that clients can use them in A*
+         */
+        private void writeLandmarks(){
+            try {
+                Landmarks.select(compactGraph, Landmarks.DEFAULT_COUNT).write(new File(Landmarks.landmarksPathFor(graphFile.getPath())));
+            }catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Contracts the graph and saves its Contraction Hierarchy next to the graph file
+         */
+        private void writeHierarchy(){
+            try {
+                ContractionHierarchy.build(compactGraph).write(new File(ContractionHierarchy.hierarchyPathFor(graphFile.getPath())));
+            }catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+
+        /**
+         * Computes arc flags of the graph and saves them next to the graph file
+         */
+        private void writeArcFlags(){
+            try {
+                ArcFlags.compute(compactGraph, ArcFlags.DEFAULT_REGION_COUNT).write(new File(ArcFlags.flagsPathFor(graphFile.getPath())));
+            }catch (IOException e){
+                e.printStackTrace();
+            }
+        }
+    }
 }
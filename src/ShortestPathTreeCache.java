@@ -0,0 +1,316 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Class holding the shortest path trees of the last used start Nodes. Every tree is the state of a Dijkstra's
+ * search stopped at its goal: the Nodes it has settled, whose ways are read in the time proportional to their
+ * length, and the Nodes waiting in its queue, from which the search is resumed when a later goal has not been
+ * settled yet. A tree keeps only the Nodes its search has reached. The number of the trees and the number
+ * of the bytes they take are limited and the least recently used trees are removed first.
+ * The cache can be used by many threads at once.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class ShortestPathTreeCache {
+    /**
+     * Default number of the trees
+     */
+    public static final int DEFAULT_CAPACITY = 8;
+    /**
+     * Default number of the bytes taken by all trees
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    /**
+     * Trees by the numbers of their start Nodes, in the order of their use
+     */
+    private final LinkedHashMap<Integer, Tree> trees;
+    /**
+     * Maximal number of the trees
+     */
+    private int capacity;
+    /**
+     * Maximal number of the bytes taken by all trees
+     */
+    private long maxBytes;
+    /**
+     * Number of the bytes taken by the kept trees
+     */
+    private long bytes;
+
+    /**
+     * ShortestPathTreeCache's constructor
+     * @param capacity maximal number of the trees, 0 turns the cache off
+     * @param maxBytes maximal number of the bytes taken by all trees, 0 turns the cache off
+     * @throws IllegalArgumentException if a limit is negative
+     */
+    public ShortestPathTreeCache(int capacity, long maxBytes){
+        this.trees = new LinkedHashMap<>(16, 0.75f, true);
+        setCapacity(capacity);
+        setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Sets the maximal number of the trees, the least recently used trees above it are removed
+     * @param capacity maximal number of the trees, 0 turns the cache off
+     * @throws IllegalArgumentException if the capacity is negative
+     */
+    public synchronized void setCapacity(int capacity){
+        if(capacity < 0){
+            throw new IllegalArgumentException("Capacity cannot be negative!");
+        }
+        this.capacity = capacity;
+        removeEldest();
+    }
+
+    /**
+     * Returns the maximal number of the trees
+     * @return maximal number of the trees
+     */
+    public synchronized int getCapacity(){
+        return capacity;
+    }
+
+    /**
+     * Sets the maximal number of the bytes taken by all trees, the least recently used trees above it are removed
+     * @param maxBytes maximal number of the bytes, 0 turns the cache off
+     * @throws IllegalArgumentException if the number of the bytes is negative
+     */
+    public synchronized void setMaxBytes(long maxBytes){
+        if(maxBytes < 0){
+            throw new IllegalArgumentException("Number of bytes cannot be negative!");
+        }
+        this.maxBytes = maxBytes;
+        removeEldest();
+    }
+
+    /**
+     * Returns the maximal number of the bytes taken by all trees
+     * @return maximal number of the bytes
+     */
+    public synchronized long getMaxBytes(){
+        return maxBytes;
+    }
+
+    /**
+     * Returns the number of the bytes taken by the kept trees
+     * @return number of the bytes
+     */
+    public synchronized long getBytes(){
+        return bytes;
+    }
+
+    /**
+     * Returns the number of the kept trees
+     * @return number of the trees
+     */
+    public synchronized int size(){
+        return trees.size();
+    }
+
+    /**
+     * Removes all trees
+     */
+    public synchronized void clear(){
+        trees.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Checks whether the trees are kept
+     * @return true if neither limit turns the cache off
+     */
+    synchronized boolean isEnabled(){
+        return capacity > 0 && maxBytes > 0;
+    }
+
+    /**
+     * Returns the tree of the start Node and marks it as the most recently used one
+     * @param start number of the start Node
+     * @return Tree or null if the tree of the start Node is not kept
+     */
+    synchronized Tree get(int start){
+        return trees.get(start);
+    }
+
+    /**
+     * Keeps the tree instead of the previous tree of its start Node, the least recently used trees are removed
+     * if there are too many of them or they take too many bytes
+     * @param tree added tree
+     */
+    synchronized void put(Tree tree){
+        Tree previous = trees.remove(tree.start);
+        if(previous != null){
+            bytes -= previous.getBytes();
+        }
+        if(capacity > 0 && tree.getBytes() <= maxBytes){
+            trees.put(tree.start, tree);
+            bytes += tree.getBytes();
+            removeEldest();
+        }
+    }
+
+    /**
+     * Removes the least recently used trees until both limits are kept
+     */
+    private void removeEldest(){
+        Iterator<Tree> iterator = trees.values().iterator();
+        while(iterator.hasNext() && (trees.size() > capacity || bytes > maxBytes)){
+            bytes -= iterator.next().getBytes();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Shortest path tree of one start Node, made of the Nodes reached by a suspended Dijkstra's search
+     */
+    static class Tree{
+        /**
+         * Number of the start Node
+         */
+        private final int start;
+        /**
+         * Reached Nodes, the settled Nodes first and then the Nodes waiting in the queue
+         */
+        private final int[] nodes;
+        /**
+         * Holds distances of the reached Nodes from the start Node
+         */
+        private final double[] distances;
+        /**
+         * Holds numbers of the previous Nodes on the shortest ways, -1 for the start Node
+         */
+        private final int[] previousNodes;
+        /**
+         * Number of the settled Nodes
+         */
+        private final int settledCount;
+        /**
+         * Hash table of the positions of the reached Nodes increased by one, 0 for empty slots
+         */
+        private final int[] slots;
+
+        /**
+         * Tree's constructor, copies the Nodes reached by the search. Edges of every settled Node must have
+         * been relaxed, so the search can be resumed from the Nodes waiting in the queue.
+         * @param context search state of the stopped search
+         * @param start number of the start Node
+         */
+        Tree(QueryContext context, int start){
+            int reachedCount = context.getReachedCount();
+            this.start = start;
+            this.nodes = new int[reachedCount];
+            this.distances = new double[reachedCount];
+            this.previousNodes = new int[reachedCount];
+            int settled = 0, waiting = reachedCount, node, position;
+            for(int i = 0; i < reachedCount; i++){
+                node = context.getReachedNode(i);
+                position = context.isSettled(node) ? settled++ : --waiting;
+                nodes[position] = node;
+                distances[position] = context.getDistance(node);
+                previousNodes[position] = context.getPreviousNode(node);
+            }
+            this.settledCount = settled;
+            this.slots = new int[Integer.highestOneBit(Math.max(1, reachedCount)) * 4];
+            for(int i = 0; i < reachedCount; i++){
+                position = slot(nodes[i]);
+                while(slots[position] != 0){
+                    position = (position + 1) & (slots.length - 1);
+                }
+                slots[position] = i + 1;
+            }
+        }
+
+        /**
+         * Returns the first slot of the hash table checked for the Node
+         * @param node number of the Node
+         * @return position in the hash table
+         */
+        private int slot(int node){
+            return (node * 0x9E3779B9) & (slots.length - 1);
+        }
+
+        /**
+         * Returns the position of the Node in the tree
+         * @param node number of the Node
+         * @return position or -1 if the Node has not been reached
+         */
+        private int indexOf(int node){
+            int position = slot(node);
+            while(slots[position] != 0){
+                if(nodes[slots[position] - 1] == node){
+                    return slots[position] - 1;
+                }
+                position = (position + 1) & (slots.length - 1);
+            }
+            return -1;
+        }
+
+        /**
+         * Checks whether the shortest way to the Node is known
+         * @param node number of the Node
+         * @return true if the Node has been settled
+         */
+        boolean isSettled(int node){
+            int index = indexOf(node);
+            return index >= 0 && index < settledCount;
+        }
+
+        /**
+         * Checks whether the search has settled all reachable Nodes, so the Nodes which have not been settled
+         * cannot be reached
+         * @return true if no Node is waiting in the queue
+         */
+        boolean isComplete(){
+            return settledCount == nodes.length;
+        }
+
+        /**
+         * Returns the distance of the settled Node from the start Node
+         * @param node number of the Node
+         * @return length of the shortest way or infinity if the Node has not been settled
+         */
+        double getDistance(int node){
+            int index = indexOf(node);
+            return index >= 0 && index < settledCount ? distances[index] : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Returns the previous Node on the shortest way
+         * @param node number of the Node
+         * @return number of the previous Node or -1 if there is no previous Node
+         */
+        int getPreviousNode(int node){
+            int index = indexOf(node);
+            return index >= 0 ? previousNodes[index] : -1;
+        }
+
+        /**
+         * Returns the number of the bytes taken by the tree
+         * @return approximate size of the tree
+         */
+        long getBytes(){
+            return 16L * nodes.length + 4L * slots.length + 64;
+        }
+
+        /**
+         * Restores the suspended search in the context, so it can be continued towards another goal.
+         * No Node is counted as settled by the restored search.
+         * @param context search state the tree is copied to
+         */
+        void restore(QueryContext context){
+            context.prepare();
+            IndexedHeap queue = context.getQueue();
+            for(int i = 0; i < nodes.length; i++){
+                context.update(nodes[i], distances[i], previousNodes[i]);
+                if(i < settledCount){
+                    context.settle(nodes[i]);
+                }
+                else{
+                    queue.insertOrDecrease(nodes[i], distances[i]);
+                }
+            }
+            context.setSettledCount(0);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Speeds used to turn the lengths of the edges into travel times. Every highway type has its speed,
+ * edges of unknown type use the default speed.
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class SpeedProfile implements Serializable{
+    /**
+     * Speed of the edges whose type has no speed, in km/h
+     */
+    private double defaultSpeed;
+    /**
+     * Speeds of highway types, in km/h
+     */
+    private final HashMap<String, Double> speeds;
+
+    /**
+     * Default constructor, sets typical speeds of the types allowed by Way
+     */
+    public SpeedProfile(){
+        this.defaultSpeed = 50;
+        this.speeds = new HashMap<>();
+        speeds.put("motorway", 120.0);
+        speeds.put("motorway_link", 60.0);
+        speeds.put("trunk", 100.0);
+        speeds.put("trunk_link", 50.0);
+        speeds.put("primary", 80.0);
+        speeds.put("primary_link", 50.0);
+        speeds.put("secondary", 70.0);
+        speeds.put("secondary_link", 40.0);
+        speeds.put("tertiary", 60.0);
+        speeds.put("tertiary_link", 40.0);
+        speeds.put("unclassified", 50.0);
+        speeds.put("residential", 30.0);
+        speeds.put("living_street", 10.0);
+        speeds.put("pedestrian", 5.0);
+    }
+
+    /**
+     * Sets the speed of the highway type
+     * @param type highway type, e.g. "motorway"
+     * @param speed speed in km/h, 0 closes the edges of the type
+     * @throws IllegalArgumentException if the speed is negative
+     */
+    public void setSpeed(String type, double speed){
+        if(!(speed >= 0)){
+            throw new IllegalArgumentException("Speed cannot be negative!");
+        }
+        speeds.put(type, speed);
+    }
+
+    /**
+     * Sets the speed of the edges whose type has no speed
+     * @param speed speed in km/h, 0 closes the edges
+     * @throws IllegalArgumentException if the speed is negative
+     */
+    public void setDefaultSpeed(double speed){
+        if(!(speed >= 0)){
+            throw new IllegalArgumentException("Speed cannot be negative!");
+        }
+        this.defaultSpeed = speed;
+    }
+
+    /**
+     * Returns the speed of the highway type
+     * @param type highway type or null
+     * @return speed in km/h
+     */
+    public double getSpeed(String type){
+        Double speed = type != null ? speeds.get(type) : null;
+        return speed != null ? speed : defaultSpeed;
+    }
+
+    /**
+     * Returns the speeds of the highway types
+     * @return Map from highway types to speeds in km/h
+     */
+    public Map<String, Double> getSpeeds(){
+        return speeds;
+    }
+
+    /**
+     * Computes travel times of the edges of the graph
+     * @param graph graph whose edges' lengths are used
+     * @param edgeTypes highway types of the edges, as returned by DataConverter, or null to use the default speed
+     * @return travel times in seconds, infinity for the edges with speed 0
+     * @throws IllegalArgumentException if the number of the types is different from the number of the edges
+     */
+    public float[] travelTimes(CompactGraph graph, String[] edgeTypes){
+        int edgeCount = graph.getEdgeCount();
+        if(edgeTypes != null && edgeTypes.length != edgeCount){
+            throw new IllegalArgumentException("Number of edge types is different from the number of edges!");
+        }
+        float[] times = new float[edgeCount];
+        double speed;
+        for(int i = 0; i < edgeCount; i++){
+            speed = edgeTypes != null ? getSpeed(edgeTypes[i]) : defaultSpeed;
+            times[i] = speed > 0 ? (float) (graph.getWeight(i) * 3.6 / speed) : Float.POSITIVE_INFINITY;
+        }
+        return times;
+    }
+}
@@ -1,7 +1,5 @@
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 /**
  * Class used to hold information about connected Nodes before converting them into a graph
  *
@@ -21,10 +19,6 @@ public class Way implements Serializable{
      * The name of way (e.g. street name)
      */
     private String name;
-    /**
-     * List of types that will be counted in creating graph
-     */
-    private static final List<String> allowedTypes = Arrays.asList("motorway", "trunk", "primary", "secondary", "tertiary", "unclassified", "residential",  "living_street", "pedestrian",  "primary_link", "secondary_link", "tertiary_link", "trunk_link", "motorway_link");
     /**
      * Holds an information whether the way is a roundabout
      */
@@ -48,14 +42,6 @@ public class Way implements Serializable{
         this.nodes.add(node);
     }
 
-    /**
-     * Checks whether the Way is correct (if it is correct or if its type contains in allowedTypes)
-      * @return true if it is correct, false if not
-     */
-    public boolean isCorrect(){
-        return ((!this.nodes.get(0).getId().equals(this.nodes.get(this.nodes.size() -1).getId())) || this.roundabout) && (allowedTypes.contains(this.type));
-    }
-
     /**
      * Sets type of the Way
      * @param type String name of the type of Way
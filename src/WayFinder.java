@@ -1,5 +1,8 @@
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Class which provides finding the shortest way on graph
@@ -9,21 +12,41 @@ import java.util.*;
  */
 public class WayFinder implements Serializable{
     /**
-     * HashMap holding all Nodes
+     * HashMap holding all Nodes, null if the WayFinder has been created from CompactGraph
      */
     private HashMap<String, Node> graph;
     /**
-     * PriorityQueue used in Dijksrta's algorithm
+     * Graph the ways are searched on
      */
-    private PriorityQueue<Node> queue;
+    private CompactGraph compactGraph;
     /**
-     * ArrayList that holds the shortest way found on graph
+     * Holds the search state of every thread using the WayFinder
      */
-    private ArrayList<Node> foundWay;
+    private transient ThreadLocal<QueryContext> queryContexts;
     /**
-     * Comparator used to determine the Nodes' priority in the PriorityQueue
+     * Graph with reversed edges used by backward searches, created when it is needed
      */
-    private Comparator comparator;
+    private transient volatile CompactGraph reverseGraph;
+    /**
+     * Distances to the landmarks used by A* algorithm, null if A* uses only the straight distances
+     */
+    private transient volatile Landmarks landmarks;
+    /**
+     * Contraction Hierarchy of the graph, null if it has not been set
+     */
+    private transient volatile ContractionHierarchy contractionHierarchy;
+    /**
+     * Multi-level overlay of the graph, null if it has not been set
+     */
+    private transient volatile MultiLevelOverlay multiLevelOverlay;
+    /**
+     * Arc flags of the graph, null if they have not been set
+     */
+    private transient volatile ArcFlags arcFlags;
+    /**
+     * Shortest path trees of the last start Nodes of Dijkstra's algorithm
+     */
+    private transient ShortestPathTreeCache treeCache;
 
     /**
      * WayFinder's construcyor
@@ -31,128 +54,853 @@ public class WayFinder implements Serializable{
      */
     public WayFinder(HashMap<String, Node> graph){
         this.graph = graph;
-        this.foundWay = new ArrayList<>();
+        this.compactGraph = CompactGraph.fromNodes(graph, null);
+        this.queryContexts = createQueryContexts();
+        this.treeCache = new ShortestPathTreeCache(ShortestPathTreeCache.DEFAULT_CAPACITY, ShortestPathTreeCache.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * WayFinder's constructor
+     * @param graph graph the ways are searched on
+     */
+    public WayFinder(CompactGraph graph){
+        this.graph = null;
+        this.compactGraph = graph;
+        this.queryContexts = createQueryContexts();
+        this.treeCache = new ShortestPathTreeCache(ShortestPathTreeCache.DEFAULT_CAPACITY, ShortestPathTreeCache.DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Returns the graph the ways are searched on
+     * @return CompactGraph of the WayFinder
+     */
+    public CompactGraph getCompactGraph(){
+        return compactGraph;
+    }
+
+    /**
+     * Sets the landmarks used by A* algorithm to compute lower bounds of the distances to the goal
+     * @param landmarks Landmarks computed for the graph of the WayFinder or null to use only the straight distances
+     * @throws IllegalArgumentException if the landmarks have been computed for another graph
+     */
+    public void setLandmarks(Landmarks landmarks){
+        if(landmarks != null && !landmarks.matches(compactGraph)){
+            throw new IllegalArgumentException("Landmarks have been computed for another graph!");
+        }
+        this.landmarks = landmarks;
+    }
+
+    /**
+     * Returns the landmarks used by A* algorithm
+     * @return Landmarks or null if A* uses only the straight distances
+     */
+    public Landmarks getLandmarks(){
+        return landmarks;
+    }
+
+    /**
+     * Sets the Contraction Hierarchy used by the queries on the hierarchy
+     * @param contractionHierarchy ContractionHierarchy computed for the graph of the WayFinder or null
+     * @throws IllegalArgumentException if the hierarchy has been computed for another graph
+     */
+    public void setContractionHierarchy(ContractionHierarchy contractionHierarchy){
+        if(contractionHierarchy != null && !contractionHierarchy.matches(compactGraph)){
+            throw new IllegalArgumentException("Contraction Hierarchy has been computed for another graph!");
+        }
+        this.contractionHierarchy = contractionHierarchy;
+    }
+
+    /**
+     * Returns the Contraction Hierarchy used by the queries on the hierarchy
+     * @return ContractionHierarchy or null if it has not been set
+     */
+    public ContractionHierarchy getContractionHierarchy(){
+        return contractionHierarchy;
     }
 
     /**
-     * Starts the work of the WayFinder with Dijkstra's algorithm
+     * Sets the multi-level overlay used by the queries on the overlay
+     * @param multiLevelOverlay MultiLevelOverlay computed for the graph of the WayFinder or null
+     * @throws IllegalArgumentException if the overlay has been computed for another graph
+     */
+    public void setMultiLevelOverlay(MultiLevelOverlay multiLevelOverlay){
+        if(multiLevelOverlay != null && !multiLevelOverlay.matches(compactGraph)){
+            throw new IllegalArgumentException("Multi-level overlay has been computed for another graph!");
+        }
+        this.multiLevelOverlay = multiLevelOverlay;
+    }
+
+    /**
+     * Returns the multi-level overlay used by the queries on the overlay
+     * @return MultiLevelOverlay or null if it has not been set
+     */
+    public MultiLevelOverlay getMultiLevelOverlay(){
+        return multiLevelOverlay;
+    }
+
+    /**
+     * Sets the arc flags used by the queries with arc flags
+     * @param arcFlags ArcFlags computed for the graph of the WayFinder or null
+     * @throws IllegalArgumentException if the flags have been computed for another graph
+     */
+    public void setArcFlags(ArcFlags arcFlags){
+        if(arcFlags != null && !arcFlags.matches(compactGraph)){
+            throw new IllegalArgumentException("Arc flags have been computed for another graph!");
+        }
+        this.arcFlags = arcFlags;
+    }
+
+    /**
+     * Returns the arc flags used by the queries with arc flags
+     * @return ArcFlags or null if they have not been set
+     */
+    public ArcFlags getArcFlags(){
+        return arcFlags;
+    }
+
+    /**
+     * Returns the cache of the shortest path trees used by Dijkstra's algorithm
+     * @return ShortestPathTreeCache of the WayFinder, its limits can be changed
+     */
+    public ShortestPathTreeCache getShortestPathTreeCache(){
+        return treeCache;
+    }
+
+    /**
+     * Creates the search state for the queries of one thread
+     * @return new QueryContext for the graph of the WayFinder
+     */
+    public QueryContext createQueryContext(){
+        return new QueryContext(compactGraph.getNodeCount());
+    }
+
+    /**
+     * Starts the work of the WayFinder with Dijkstra's algorithm, the way is remembered for the calling thread
      * @param start ID of the start Node
      * @param goal ID of the goal Node
      */
     public void runFinderDijkstra(String start, String goal){
-        this.comparator = new NodeComparator();
-        this.queue = new PriorityQueue<>(comparator);
-        for(Node n: graph.values()){
-            n.setDistance(Double.MAX_VALUE);
-            n.setPreviousNode(null);
+        findWayDijkstra(start, goal, Double.MAX_VALUE, queryContexts.get());
+    }
+
+    /**
+     * Starts the work of the WayFinder with Dijkstra's algorithm limited to the distance from the start Node,
+     * the way is remembered for the calling thread
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param maxDistance length of the longest way that is searched
+     */
+    public void runFinderDijkstra(String start, String goal, double maxDistance){
+        findWayDijkstra(start, goal, maxDistance, queryContexts.get());
+    }
+
+    /**
+     * Finds the shortest way with Dijkstra's algorithm
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
+     * @throws IllegalArgumentException if the context has been created for another graph
+     */
+    public ArrayList<Node> findWayDijkstra(String start, String goal, QueryContext context){
+        return findWayDijkstra(start, goal, Double.MAX_VALUE, context);
+    }
+
+    /**
+     * Finds the shortest way with Dijkstra's algorithm. The search stops when the goal is settled. If the cached tree
+     * of the start Node has settled the goal, the way is read from it and no Node is settled. Otherwise a search
+     * without the limit is resumed from the cached tree, or started anew, and its tree is cached for the following
+     * goals. A search with the limit stops also when all Nodes closer than maxDistance are settled.
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param maxDistance length of the longest way that is searched
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way shorter than maxDistance
+     * @throws IllegalArgumentException if the context has been created for another graph
+     */
+    public ArrayList<Node> findWayDijkstra(String start, String goal, double maxDistance, QueryContext context){
+        checkContext(context);
+        int startNode = compactGraph.indexOf(start);
+        int goalNode = compactGraph.indexOf(goal);
+        if(startNode < 0 || goalNode < 0){
+            context.setFoundWay(null);
+            return null;
+        }
+        ShortestPathTreeCache.Tree tree = treeCache.get(startNode);
+        if(tree != null && (tree.isSettled(goalNode) || tree.isComplete())){
+            context.setSettledCount(0);
+            return extractShortestWay(tree, goalNode, maxDistance, context);
         }
-        graph.get(start).setDistance((double) 0);
-        this.queue.add(graph.get(start));
-        dijkstra();
-        extractShortestWay(start, goal);
+        if(maxDistance == Double.MAX_VALUE && treeCache.isEnabled()){
+            if(tree != null){
+                tree.restore(context);
+            }
+            else{
+                context.prepare(startNode);
+            }
+            dijkstra(context, goalNode, maxDistance);
+            if(context.isSettled(goalNode)){
+                relax(context, goalNode, context.getDistance(goalNode), maxDistance);
+            }
+            treeCache.put(new ShortestPathTreeCache.Tree(context, startNode));
+            return extractShortestWay(context, goalNode);
+        }
+        context.prepare(startNode);
+        dijkstra(context, goalNode, maxDistance);
+        return extractShortestWay(context, goalNode);
     }
 
     /**
      * Implements working of the Djikstra's algorithm
+     * @param context search state used by the query
+     * @param goal number of the goal Node, the search stops when it is settled, -1 to settle all reachable Nodes
+     * @param maxDistance distance from the start Node after which the search stops
      */
-    private void dijkstra(){
-        Node node, tmp;
+    private void dijkstra(QueryContext context, int goal, double maxDistance){
+        IndexedHeap queue = context.getQueue();
+        int node;
+        double nodeDst;
         while(!queue.isEmpty()){
+            nodeDst = queue.peekKey();
+            if(nodeDst > maxDistance){
+                return;
+            }
             node = queue.poll();
-            for(int i = 0; i< node.getEdges().size(); i++){
-                tmp = node.getEdges().get(i);
-                if(tmp.getDistance() > node.getDistance() + node.distance(tmp)){
-                    tmp.setDistance(node.getDistance() + node.distance(tmp));
-                    tmp.setPreviousNode(node);
-                    queue.add(tmp);
-                }
+            context.settle(node);
+            if(node == goal){
+                return;
+            }
+            relax(context, node, nodeDst, maxDistance);
+        }
+    }
+
+    /**
+     * Relaxes the edges of the settled Node
+     * @param context search state used by the query
+     * @param node number of the settled Node
+     * @param nodeDst distance of the Node from the start Node
+     * @param maxDistance distance from the start Node after which the Nodes are not reached
+     */
+    private void relax(QueryContext context, int node, double nodeDst, double maxDistance){
+        IndexedHeap queue = context.getQueue();
+        int tmp;
+        double tmpDst;
+        for(int i = compactGraph.getFirstEdge(node); i < compactGraph.getEdgeEnd(node); i++){
+            tmp = compactGraph.getTarget(i);
+            tmpDst = nodeDst + compactGraph.getWeight(i);
+            if(tmpDst <= maxDistance && context.getDistance(tmp) > tmpDst){
+                context.update(tmp, tmpDst, node);
+                queue.insertOrDecrease(tmp, tmpDst);
             }
         }
     }
 
     /**
      * Extracts the path which is the shortest way from start to goal
+     * @param context search state used by the query
+     * @param goal number of the goal Node
+     * @return ArrayList with the shortest way or null if the goal has not been settled
+     */
+    private ArrayList<Node> extractShortestWay(QueryContext context, int goal){
+        if(!context.isSettled(goal)){
+            context.setFoundWay(null);
+            return null;
+        }
+        ArrayList<Node> foundWay = new ArrayList<>();
+        int current = goal;
+        while(current != -1){
+            foundWay.add(getNode(current));
+            current = context.getPreviousNode(current);
+        }
+        Collections.reverse(foundWay);
+        context.setFoundWay(foundWay);
+        return foundWay;
+    }
+
+    /**
+     * Extracts the shortest way from start to goal from the cached shortest path tree of the start Node
+     * @param tree shortest path tree of the start Node
+     * @param goal number of the goal Node
+     * @param maxDistance length of the longest way that is returned
+     * @param context search state the way is remembered in
+     * @return ArrayList with the shortest way or null if there is no way shorter than maxDistance
+     */
+    private ArrayList<Node> extractShortestWay(ShortestPathTreeCache.Tree tree, int goal, double maxDistance, QueryContext context){
+        if(!tree.isSettled(goal) || tree.getDistance(goal) > maxDistance){
+            context.setFoundWay(null);
+            return null;
+        }
+        ArrayList<Node> foundWay = new ArrayList<>();
+        int current = goal;
+        while(current != -1){
+            foundWay.add(getNode(current));
+            current = tree.getPreviousNode(current);
+        }
+        Collections.reverse(foundWay);
+        context.setFoundWay(foundWay);
+        return foundWay;
+    }
+
+    /**
+     * Returns the Node object of the Node, from the HashMap if the WayFinder has been created from it
+     * @param node number of the Node
+     * @return Node object
+     */
+    private Node getNode(int node){
+        Node result = graph != null ? graph.get(compactGraph.getId(node)) : null;
+        return result != null ? result : compactGraph.createNode(node);
+    }
+
+    /**
+     * Implements working of A* algorithm. The straight distance to the goal and the bounds from the landmarks
+     * never exceed the length of the road, so settled Nodes are final and are skipped without reopening them
+     * @param context search state used by the query
+     * @param goal number of the goal Node
+     */
+    private void aStar(QueryContext context, int goal){
+        Landmarks landmarks = this.landmarks;
+        IndexedHeap queue = context.getQueue();
+        int node, tmp;
+        double nodeDst, tmpDst;
+        while(!queue.isEmpty()){
+            node = queue.poll();
+            context.settle(node);
+            if(node == goal) {
+                return;
+            }
+            nodeDst = context.getDistance(node);
+            for(int i = compactGraph.getFirstEdge(node); i < compactGraph.getEdgeEnd(node); i++){
+                tmp = compactGraph.getTarget(i);
+                if(context.isSettled(tmp)){
+                    continue;
+                }
+                tmpDst = nodeDst + compactGraph.getWeight(i);
+                if(tmpDst < context.getDistance(tmp)){
+                    context.update(tmp, tmpDst, node);
+                    queue.insertOrDecrease(tmp, tmpDst + heuristic(tmp, goal, landmarks));
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the lower bound of the distance to the goal used by A* algorithm
+     * @param node number of the Node
+     * @param goal number of the goal Node
+     * @param landmarks Landmarks of the graph or null
+     * @return the greatest of the straight distance and the bounds from the landmarks
+     */
+    private double heuristic(int node, int goal, Landmarks landmarks){
+        double bound = compactGraph.distance(node, goal);
+        return landmarks != null ? Math.max(bound, landmarks.lowerBound(node, goal)) : bound;
+    }
+
+    /**
+     * Starts the work of the WayFinder with A* algorithm, the way is remembered for the calling thread
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     */
+    public void runFinderAStar(String start, String goal){
+        findWayAStar(start, goal, queryContexts.get());
+    }
+
+    /**
+     * Finds the shortest way with A* algorithm
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
+     * @throws IllegalArgumentException if the context has been created for another graph
+     */
+    public ArrayList<Node> findWayAStar(String start, String goal, QueryContext context){
+        checkContext(context);
+        int startNode = compactGraph.indexOf(start);
+        int goalNode = compactGraph.indexOf(goal);
+        if(startNode < 0 || goalNode < 0){
+            context.setFoundWay(null);
+            return null;
+        }
+        context.prepare(startNode);
+        aStar(context, goalNode);
+        return extractShortestWay(context, goalNode);
+    }
+
+    /**
+     * Starts the work of the WayFinder with bidirectional Dijkstra's algorithm, the way is remembered
+     * for the calling thread
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     */
+    public void runFinderBidirectionalDijkstra(String start, String goal){
+        findWayBidirectional(start, goal, false, queryContexts.get());
+    }
+
+    /**
+     * Starts the work of the WayFinder with bidirectional A* algorithm, the way is remembered
+     * for the calling thread
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     */
+    public void runFinderBidirectionalAStar(String start, String goal){
+        findWayBidirectional(start, goal, true, queryContexts.get());
+    }
+
+    /**
+     * Finds the shortest way with Dijkstra's algorithm searching from both ends of the way
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
+     * @throws IllegalArgumentException if the context has been created for another graph
+     */
+    public ArrayList<Node> findWayBidirectionalDijkstra(String start, String goal, QueryContext context){
+        return findWayBidirectional(start, goal, false, context);
+    }
+
+    /**
+     * Finds the shortest way with A* algorithm searching from both ends of the way
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
+     * @throws IllegalArgumentException if the context has been created for another graph
+     */
+    public ArrayList<Node> findWayBidirectionalAStar(String start, String goal, QueryContext context){
+        return findWayBidirectional(start, goal, true, context);
+    }
+
+    /**
+     * Finds the shortest way with the forward search from the start and the backward search from the goal
      * @param start ID of the start Node
      * @param goal ID of the goal Node
+     * @param potentials true to direct the searches with the straight distances to both ends of the way
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
      */
-    private void extractShortestWay(String start, String goal){
-        Node current = graph.get(goal);
-        foundWay = new ArrayList<>();
-        while(current != null){
-            foundWay.add(current);
-            current = current.getPreviousNode();
+    private ArrayList<Node> findWayBidirectional(String start, String goal, boolean potentials, QueryContext context){
+        checkContext(context);
+        int startNode = compactGraph.indexOf(start);
+        int goalNode = compactGraph.indexOf(goal);
+        if(startNode < 0 || goalNode < 0){
+            context.setFoundWay(null);
+            return null;
+        }
+        QueryContext backward = context.getBackwardContext();
+        context.prepare(startNode, potentials ? potential(startNode, startNode, goalNode, true) : 0);
+        backward.prepare(goalNode, potentials ? potential(goalNode, startNode, goalNode, false) : 0);
+        int meeting = bidirectionalSearch(context, backward, startNode, goalNode, potentials);
+        context.setSettledCount(context.getSettledCount() + backward.getSettledCount());
+        if(meeting < 0){
+            context.setFoundWay(null);
+            return null;
+        }
+        ArrayList<Node> foundWay = new ArrayList<>();
+        int current = meeting;
+        while(current != -1){
+            foundWay.add(getNode(current));
+            current = context.getPreviousNode(current);
         }
         Collections.reverse(foundWay);
-        if(!foundWay.get(0).equals(graph.get(start))){
-            foundWay = null;
+        current = backward.getPreviousNode(meeting);
+        while(current != -1){
+            foundWay.add(getNode(current));
+            current = backward.getPreviousNode(current);
+        }
+        context.setFoundWay(foundWay);
+        return foundWay;
+    }
+
+    /**
+     * Implements working of the bidirectional search. The side with the smaller queue is expanded, the search
+     * stops when the sum of the lowest keys of both queues is not lower than the shortest way found so far.
+     * With potentials both searches use the average of the straight distances to the goal and from the start,
+     * which is consistent for both of them, so the same stopping criterion holds.
+     * @param forward search state of the search from the start
+     * @param backward search state of the search from the goal
+     * @param start number of the start Node
+     * @param goal number of the goal Node
+     * @param potentials true to direct the searches with the straight distances
+     * @return number of the Node where the searches meet on the shortest way or -1 if there is no way
+     */
+    private int bidirectionalSearch(QueryContext forward, QueryContext backward, int start, int goal, boolean potentials){
+        CompactGraph reverse = getReverseGraph();
+        IndexedHeap forwardQueue = forward.getQueue();
+        IndexedHeap backwardQueue = backward.getQueue();
+        double best = start == goal ? 0 : Double.POSITIVE_INFINITY;
+        int meeting = start == goal ? start : -1;
+        boolean isForward;
+        QueryContext current, other;
+        IndexedHeap queue;
+        CompactGraph searched;
+        int node, tmp;
+        double nodeDst, tmpDst, otherDst;
+        while(!forwardQueue.isEmpty() && !backwardQueue.isEmpty() && forwardQueue.peekKey() + backwardQueue.peekKey() < best){
+            isForward = forwardQueue.size() <= backwardQueue.size();
+            current = isForward ? forward : backward;
+            other = isForward ? backward : forward;
+            queue = isForward ? forwardQueue : backwardQueue;
+            searched = isForward ? compactGraph : reverse;
+            node = queue.poll();
+            current.settle(node);
+            nodeDst = current.getDistance(node);
+            for(int i = searched.getFirstEdge(node); i < searched.getEdgeEnd(node); i++){
+                tmp = searched.getTarget(i);
+                if(current.isSettled(tmp)){
+                    continue;
+                }
+                tmpDst = nodeDst + searched.getWeight(i);
+                if(tmpDst < current.getDistance(tmp)){
+                    current.update(tmp, tmpDst, node);
+                    queue.insertOrDecrease(tmp, potentials ? tmpDst + potential(tmp, start, goal, isForward) : tmpDst);
+                    otherDst = other.getDistance(tmp);
+                    if(otherDst != Double.MAX_VALUE && tmpDst + otherDst < best){
+                        best = tmpDst + otherDst;
+                        meeting = tmp;
+                    }
+                }
+            }
+        }
+        return meeting;
+    }
+
+    /**
+     * Returns the average potential of the Node used by bidirectional A* algorithm
+     * @param node number of the Node
+     * @param start number of the start Node
+     * @param goal number of the goal Node
+     * @param forward true for the search from the start, false for the search from the goal
+     * @return half of the difference between the straight distances to the goal and to the start
+     */
+    private double potential(int node, int start, int goal, boolean forward){
+        double potential = (compactGraph.distance(node, goal) - compactGraph.distance(node, start)) / 2;
+        return forward ? potential : -potential;
+    }
+
+    /**
+     * Returns the graph with reversed edges, creating it on the first call
+     * @return graph used by the backward searches
+     */
+    private CompactGraph getReverseGraph(){
+        CompactGraph reverse = reverseGraph;
+        if(reverse == null){
+            synchronized (this){
+                if(reverseGraph == null){
+                    reverseGraph = compactGraph.reverse();
+                }
+                reverse = reverseGraph;
+            }
+        }
+        return reverse;
+    }
+
+    /**
+     * Starts the work of the WayFinder with the upward searches on the Contraction Hierarchy, the way is remembered
+     * for the calling thread
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @throws IllegalStateException if the hierarchy has not been set
+     */
+    public void runFinderContractionHierarchy(String start, String goal){
+        findWayContractionHierarchy(start, goal, queryContexts.get());
+    }
+
+    /**
+     * Finds the shortest way with the upward searches on the Contraction Hierarchy
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
+     * @throws IllegalArgumentException if the context has been created for another graph
+     * @throws IllegalStateException if the hierarchy has not been set
+     */
+    public ArrayList<Node> findWayContractionHierarchy(String start, String goal, QueryContext context){
+        ContractionHierarchy hierarchy = contractionHierarchy;
+        if(hierarchy == null){
+            throw new IllegalStateException("Contraction Hierarchy has not been set!");
+        }
+        checkContext(context);
+        int startNode = compactGraph.indexOf(start);
+        int goalNode = compactGraph.indexOf(goal);
+        if(startNode < 0 || goalNode < 0){
+            context.setFoundWay(null);
+            return null;
+        }
+        QueryContext backward = context.getBackwardContext();
+        int meeting = hierarchy.search(context, backward, startNode, goalNode);
+        if(meeting < 0){
+            context.setFoundWay(null);
+            return null;
         }
+        ArrayList<Node> foundWay = new ArrayList<>();
+        for(int node: hierarchy.unpackWay(context, backward, meeting)){
+            foundWay.add(getNode(node));
+        }
+        context.setFoundWay(foundWay);
+        return foundWay;
     }
 
     /**
-     * Implements working of A* algorithm
+     * Starts the work of the WayFinder with Dijkstra's algorithm pruned by the arc flags, the way is remembered
+     * for the calling thread
      * @param start ID of the start Node
      * @param goal ID of the goal Node
+     * @throws IllegalStateException if the arc flags have not been set
      */
-    private void aStar(String start, String goal){
-        Node tmp, node;
-        double dst, tmpDst;
-        ArrayList<Node> visitedNodes = new ArrayList<>();
-        this.queue.add(graph.get(start));
-        while(!this.queue.isEmpty()){
+    public void runFinderArcFlags(String start, String goal){
+        findWayArcFlags(start, goal, queryContexts.get());
+    }
+
+    /**
+     * Finds the shortest way with Dijkstra's algorithm which skips the edges without the flag of the goal's region
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
+     * @throws IllegalArgumentException if the context has been created for another graph
+     * @throws IllegalStateException if the arc flags have not been set
+     */
+    public ArrayList<Node> findWayArcFlags(String start, String goal, QueryContext context){
+        ArcFlags flags = arcFlags;
+        if(flags == null){
+            throw new IllegalStateException("Arc flags have not been set!");
+        }
+        checkContext(context);
+        int startNode = compactGraph.indexOf(start);
+        int goalNode = compactGraph.indexOf(goal);
+        if(startNode < 0 || goalNode < 0){
+            context.setFoundWay(null);
+            return null;
+        }
+        context.prepare(startNode);
+        dijkstraArcFlags(context, goalNode, flags);
+        return extractShortestWay(context, goalNode);
+    }
+
+    /**
+     * Implements working of Dijkstra's algorithm on the edges with the flag of the goal's region
+     * @param context search state used by the query
+     * @param goal number of the goal Node, the search stops when it is settled
+     * @param flags arc flags of the graph
+     */
+    private void dijkstraArcFlags(QueryContext context, int goal, ArcFlags flags){
+        IndexedHeap queue = context.getQueue();
+        int region = flags.getRegion(goal);
+        int node, tmp;
+        double nodeDst, tmpDst;
+        while(!queue.isEmpty()){
+            nodeDst = queue.peekKey();
             node = queue.poll();
-            if(node.getId() == goal) {
+            context.settle(node);
+            if(node == goal){
                 return;
             }
-            visitedNodes.add(node);
-            for(int i =0; i<node.getEdges().size(); i++){
-                tmp = node.getEdges().get(i);
-                dst = node.distance(tmp);
-                if(visitedNodes.contains(tmp)){
+            for(int i = compactGraph.getFirstEdge(node); i < compactGraph.getEdgeEnd(node); i++){
+                if(!flags.hasFlag(i, region)){
                     continue;
                 }
-                tmpDst = node.getDistance() + dst;
-                if(!queue.contains(tmp)){
-                    tmp.setHeuristic(tmp.distance(graph.get(goal)));
-                    tmp.setPreviousNode(node);
-                    tmp.setDistance(tmpDst);
-                    tmp.setForecastedDistance(tmp.getDistance()+tmp.getHeuristic());
-                    queue.add(tmp);
+                tmp = compactGraph.getTarget(i);
+                tmpDst = nodeDst + compactGraph.getWeight(i);
+                if(context.getDistance(tmp) > tmpDst){
+                    context.update(tmp, tmpDst, node);
+                    queue.insertOrDecrease(tmp, tmpDst);
                 }
-                else if(tmpDst < tmp.getDistance()){
-                    tmp.setPreviousNode(node);
-                    tmp.setDistance(tmpDst);
-                    tmp.setForecastedDistance(tmp.getDistance()+tmp.getHeuristic());
-                }
-
             }
-
         }
     }
 
     /**
-     * Starts the work of the WayFinder with Dijkstra's algorithm
+     * Starts the work of the WayFinder with the search on the multi-level overlay, the way is remembered
+     * for the calling thread
      * @param start ID of the start Node
      * @param goal ID of the goal Node
+     * @throws IllegalStateException if the overlay has not been set
      */
-    public void runFinderAStar(String start, String goal){
-        for(Node n: graph.values()){
-            n.setDistance(Double.MAX_VALUE);
-            n.setPreviousNode(null);
-            n.setForecastedDistance(Double.MAX_VALUE);
+    public void runFinderMultiLevelOverlay(String start, String goal){
+        findWayMultiLevelOverlay(start, goal, queryContexts.get());
+    }
+
+    /**
+     * Finds the shortest way with the search on the multi-level overlay, the weights of the overlay are used
+     * @param start ID of the start Node
+     * @param goal ID of the goal Node
+     * @param context search state used by the query
+     * @return ArrayList with the shortest way or null if there is no way
+     * @throws IllegalArgumentException if the context has been created for another graph
+     * @throws IllegalStateException if the overlay has not been set
+     */
+    public ArrayList<Node> findWayMultiLevelOverlay(String start, String goal, QueryContext context){
+        MultiLevelOverlay overlay = multiLevelOverlay;
+        if(overlay == null){
+            throw new IllegalStateException("Multi-level overlay has not been set!");
+        }
+        checkContext(context);
+        int startNode = compactGraph.indexOf(start);
+        int goalNode = compactGraph.indexOf(goal);
+        if(startNode < 0 || goalNode < 0 || !overlay.search(context, startNode, goalNode)){
+            context.setFoundWay(null);
+            return null;
+        }
+        ArrayList<Node> foundWay = new ArrayList<>();
+        for(int node: overlay.unpackWay(context, context.getBackwardContext(), startNode, goalNode)){
+            foundWay.add(getNode(node));
+        }
+        context.setFoundWay(foundWay);
+        return foundWay;
+    }
+
+    /**
+     * Computes the distances between all pairs of the sources and the targets using all available processors
+     * @param sources IDs of the source Nodes
+     * @param targets IDs of the target Nodes
+     * @return DistanceMatrix with a row for every source, infinity for unknown Nodes and pairs without a way
+     */
+    public DistanceMatrix findDistanceMatrix(String[] sources, String[] targets){
+        return findDistanceMatrix(sources, targets, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Computes the distances between all pairs of the sources and the targets. With the Contraction Hierarchy the
+     * distances are combined from the upward searches of all sources and targets, otherwise Dijkstra's algorithm
+     * runs from every source until all targets are settled. The searches run in parallel.
+     * @param sources IDs of the source Nodes
+     * @param targets IDs of the target Nodes
+     * @param parallelism number of threads running the searches
+     * @return DistanceMatrix with a row for every source, infinity for unknown Nodes and pairs without a way
+     * @throws IllegalArgumentException if the matrix is too large for one array
+     */
+    public DistanceMatrix findDistanceMatrix(String[] sources, String[] targets, int parallelism){
+        long startTime = System.nanoTime();
+        if((long) sources.length * targets.length > Integer.MAX_VALUE){
+            throw new IllegalArgumentException("Distance matrix is too large!");
+        }
+        int[] sourceNodes = new int[sources.length];
+        for(int i = 0; i < sources.length; i++){
+            sourceNodes[i] = compactGraph.indexOf(sources[i]);
         }
-        this.comparator = new NodeComparatorAStar();
-        this.queue = new PriorityQueue<>(comparator);
-        this.graph.get(start).setDistance(0.0);
-        this.queue.add(this.graph.get(start));
-        aStar(start, goal);
-        extractShortestWay(start, goal);
+        int[] targetNodes = new int[targets.length];
+        for(int j = 0; j < targets.length; j++){
+            targetNodes[j] = compactGraph.indexOf(targets[j]);
+        }
+        double[] distances = new double[sources.length * targets.length];
+        ContractionHierarchy hierarchy = contractionHierarchy;
+        if(hierarchy != null){
+            hierarchy.distances(sourceNodes, targetNodes, distances, parallelism);
+        }
+        else{
+            distancesDijkstra(sourceNodes, targetNodes, distances, parallelism);
+        }
+        return new DistanceMatrix(sources.length, targets.length, distances, System.nanoTime() - startTime);
     }
 
     /**
-     * Returns ArrayList with the shortest way from start to goal
-     * @return
+     * Computes the distances with Dijkstra's algorithm from every source, the sources are searched in parallel
+     * @param sources numbers of the source Nodes, -1 for unknown Nodes
+     * @param targets numbers of the target Nodes, -1 for unknown Nodes
+     * @param distances array receiving the distances row by row
+     * @param parallelism number of threads running the searches
+     */
+    private void distancesDijkstra(int[] sources, int[] targets, double[] distances, int parallelism){
+        boolean[] isTarget = new boolean[compactGraph.getNodeCount()];
+        int targetCount = 0;
+        for(int target: targets){
+            if(target >= 0 && !isTarget[target]){
+                isTarget[target] = true;
+                targetCount++;
+            }
+        }
+        final int distinctTargets = targetCount;
+        ThreadLocal<QueryContext> contexts = ThreadLocal.withInitial(this::createQueryContext);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            ParallelLoop.forEach(pool, sources.length, i -> {
+                int row = i * targets.length;
+                QueryContext context = contexts.get();
+                if(sources[i] >= 0){
+                    context.prepare(sources[i]);
+                    dijkstraToTargets(context, isTarget, distinctTargets);
+                }
+                for(int j = 0; j < targets.length; j++){
+                    distances[row + j] = sources[i] >= 0 && targets[j] >= 0 && context.isSettled(targets[j])
+                            ? context.getDistance(targets[j]) : Double.POSITIVE_INFINITY;
+                }
+            });
+        }finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Implements working of Dijkstra's algorithm which stops when all targets are settled
+     * @param context search state used by the search
+     * @param isTarget flags of the target Nodes
+     * @param targetCount number of the target Nodes
+     */
+    private void dijkstraToTargets(QueryContext context, boolean[] isTarget, int targetCount){
+        IndexedHeap queue = context.getQueue();
+        int node, tmp;
+        double nodeDst, tmpDst;
+        while(targetCount > 0 && !queue.isEmpty()){
+            nodeDst = queue.peekKey();
+            node = queue.poll();
+            context.settle(node);
+            if(isTarget[node]){
+                targetCount--;
+            }
+            for(int i = compactGraph.getFirstEdge(node); i < compactGraph.getEdgeEnd(node); i++){
+                tmp = compactGraph.getTarget(i);
+                tmpDst = nodeDst + compactGraph.getWeight(i);
+                if(context.getDistance(tmp) > tmpDst){
+                    context.update(tmp, tmpDst, node);
+                    queue.insertOrDecrease(tmp, tmpDst);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns ArrayList with the shortest way from start to goal found by the calling thread
+     * @return ArrayList with the shortest way or null if there is no way
      */
     public ArrayList<Node> getFoundWay(){
-        return foundWay;
+        return queryContexts.get().getFoundWay();
+    }
+
+    /**
+     * Returns the number of the Nodes settled by the last search of the calling thread
+     * @return number of the settled Nodes
+     */
+    public int getSettledCount(){
+        return queryContexts.get().getSettledCount();
+    }
+
+    /**
+     * Checks that the context has been created for the graph of the WayFinder
+     * @param context checked search state
+     * @throws IllegalArgumentException if the context has been created for another graph
+     */
+    private void checkContext(QueryContext context){
+        if(context.getNodeCount() != compactGraph.getNodeCount()){
+            throw new IllegalArgumentException("QueryContext has been created for another graph!");
+        }
+    }
+
+    /**
+     * Creates the holder of the threads' search states
+     * @return ThreadLocal creating QueryContext for every thread
+     */
+    private ThreadLocal<QueryContext> createQueryContexts(){
+        return ThreadLocal.withInitial(this::createQueryContext);
+    }
+
+    /**
+     * Reads the WayFinder and creates the holder of the threads' search states
+     * @param in stream the WayFinder is read from
+     * @throws IOException if the stream cannot be read
+     * @throws ClassNotFoundException if the class of the read object cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException{
+        in.defaultReadObject();
+        queryContexts = createQueryContexts();
+        treeCache = new ShortestPathTreeCache(ShortestPathTreeCache.DEFAULT_CAPACITY, ShortestPathTreeCache.DEFAULT_MAX_BYTES);
     }
 }
@@ -0,0 +1,26 @@
+package WayFinderExceptions;
+
+/**
+ * Exception thrown when the graph file is damaged, not well-formed or has unsupported version
+ *
+ * @author Łukasz Mielczarek
+ * @version 18.10.2026
+ */
+public class GraphFileException extends Exception {
+    /**
+     * Constructor
+     * @param s description of the exception
+     */
+    public GraphFileException(String s){
+        super(s);
+    }
+
+    /**
+     * Constructor
+     * @param s description of the exception
+     * @param cause exception thrown while reading the file
+     */
+    public GraphFileException(String s, Throwable cause){
+        super(s, cause);
+    }
+}